@@ -67,7 +67,15 @@ public interface INodeInfo {
     /**
      * 传输加密方式
      *
-     * @return 传输加密方式 0 不加密 1 BASE64 2 AES
+     * @return 传输加密方式 0 不加密 1 BASE64 2 AES 3 AES-GCM
      */
     Integer transportEncryption();
+
+    /**
+     * 传输加密密钥（AES-GCM 使用），不会在网络中传输
+     * user@pwd
+     *
+     * @return 密钥
+     */
+    String transportKey();
 }
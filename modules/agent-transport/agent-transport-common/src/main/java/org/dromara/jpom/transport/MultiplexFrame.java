@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.transport;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 服务端和插件端多路复用 websocket 的消息帧
+ * <p>
+ * 一个物理连接上承载多个逻辑流，每条二进制消息为：1 字节类型 + 4 字节流 id + 内容
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+public class MultiplexFrame {
+
+    /**
+     * 多路复用连接地址
+     */
+    public static final String PATH = "/multiplex";
+    /**
+     * 打开流，内容为 json：path、parameters
+     */
+    public static final byte OPEN = 1;
+    /**
+     * 流已经打开
+     */
+    public static final byte OPENED = 2;
+    /**
+     * 文本消息
+     */
+    public static final byte TEXT = 3;
+    /**
+     * 二进制消息
+     */
+    public static final byte BINARY = 4;
+    /**
+     * 关闭流，内容为 2 字节状态码 + 原因
+     */
+    public static final byte CLOSE = 5;
+    /**
+     * 归还发送额度，内容为 4 字节数量
+     */
+    public static final byte CREDIT = 6;
+
+    private static final int HEADER_SIZE = 5;
+
+    private final byte type;
+    private final int streamId;
+    private final ByteBuffer payload;
+
+    private MultiplexFrame(byte type, int streamId, ByteBuffer payload) {
+        this.type = type;
+        this.streamId = streamId;
+        this.payload = payload;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public int getStreamId() {
+        return streamId;
+    }
+
+    /**
+     * 解析消息帧
+     *
+     * @param buffer 二进制消息
+     * @return 消息帧
+     */
+    public static MultiplexFrame decode(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE) {
+            throw new IllegalArgumentException("multiplex frame too short: " + buffer.remaining());
+        }
+        byte type = buffer.get();
+        int streamId = buffer.getInt();
+        return new MultiplexFrame(type, streamId, buffer.slice());
+    }
+
+    public static ByteBuffer open(int streamId, String path, Map<String, String> parameters) {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("path", path);
+        jsonObject.put("parameters", parameters);
+        return encode(OPEN, streamId, jsonObject.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ByteBuffer opened(int streamId) {
+        return encode(OPENED, streamId, new byte[0]);
+    }
+
+    public static ByteBuffer text(int streamId, String text) {
+        return encode(TEXT, streamId, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ByteBuffer binary(int streamId, ByteBuffer data) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + data.remaining());
+        buffer.put(BINARY).putInt(streamId).put(data.duplicate());
+        buffer.flip();
+        return buffer;
+    }
+
+    public static ByteBuffer close(int streamId, int code, String reason) {
+        byte[] bytes = reason == null ? new byte[0] : reason.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 2 + bytes.length);
+        buffer.put(CLOSE).putInt(streamId).putShort((short) code).put(bytes);
+        buffer.flip();
+        return buffer;
+    }
+
+    public static ByteBuffer credit(int streamId, int count) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4);
+        buffer.put(CREDIT).putInt(streamId).putInt(count);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static ByteBuffer encode(byte type, int streamId, byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        buffer.put(type).putInt(streamId).put(payload);
+        buffer.flip();
+        return buffer;
+    }
+
+    public String getText() {
+        return StandardCharsets.UTF_8.decode(payload.duplicate()).toString();
+    }
+
+    public ByteBuffer getBinary() {
+        return payload.duplicate();
+    }
+
+    public String getOpenPath() {
+        return JSONObject.parseObject(this.getText()).getString("path");
+    }
+
+    public Map<String, String> getOpenParameters() {
+        JSONObject parameters = JSONObject.parseObject(this.getText()).getJSONObject("parameters");
+        Map<String, String> map = new HashMap<>(8);
+        if (parameters != null) {
+            parameters.forEach((key, value) -> map.put(key, value == null ? null : value.toString()));
+        }
+        return map;
+    }
+
+    public int getCloseCode() {
+        return payload.remaining() >= 2 ? payload.getShort(payload.position()) & 0xFFFF : 1000;
+    }
+
+    public String getCloseReason() {
+        if (payload.remaining() <= 2) {
+            return null;
+        }
+        ByteBuffer duplicate = payload.duplicate();
+        duplicate.position(duplicate.position() + 2);
+        return StandardCharsets.UTF_8.decode(duplicate).toString();
+    }
+
+    public int getCredit() {
+        return payload.getInt(payload.position());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.transport;
+
+/**
+ * 多路复用流的流量控制
+ * <p>
+ * 每个流每个方向最多有 {@link #SIZE} 条消息未被对方处理，对方处理一半后归还额度，
+ * 一个流消费慢不会占满物理连接影响其他流
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+public class MultiplexWindow {
+
+    /**
+     * 窗口大小（消息条数）
+     */
+    public static final int SIZE = 64;
+
+    /**
+     * 剩余发送额度
+     */
+    private int credits = SIZE;
+    /**
+     * 已经处理还未归还的数量
+     */
+    private int consumed;
+    private boolean closed;
+
+    /**
+     * 获取一个发送额度，没有额度时等待
+     *
+     * @param timeout 最长等待时间（毫秒）
+     * @return false 超时或者已经关闭
+     * @throws InterruptedException 中断
+     */
+    public synchronized boolean acquire(long timeout) throws InterruptedException {
+        long end = System.currentTimeMillis() + timeout;
+        while (credits <= 0 && !closed) {
+            long wait = end - System.currentTimeMillis();
+            if (wait <= 0) {
+                return false;
+            }
+            this.wait(wait);
+        }
+        if (closed) {
+            return false;
+        }
+        credits--;
+        return true;
+    }
+
+    /**
+     * 获取一个发送额度，不等待
+     *
+     * @return 是否获取成功
+     */
+    public synchronized boolean tryAcquire() {
+        if (closed || credits <= 0) {
+            return false;
+        }
+        credits--;
+        return true;
+    }
+
+    /**
+     * 对方归还额度
+     *
+     * @param count 数量
+     */
+    public synchronized void release(int count) {
+        credits += count;
+        this.notifyAll();
+    }
+
+    /**
+     * 处理完一条对方的消息
+     *
+     * @return 需要归还给对方的额度，0 表示暂不归还
+     */
+    public synchronized int consume() {
+        consumed++;
+        if (consumed < SIZE / 2) {
+            return 0;
+        }
+        int count = consumed;
+        consumed = 0;
+        return count;
+    }
+
+    public synchronized void close() {
+        closed = true;
+        this.notifyAll();
+    }
+}
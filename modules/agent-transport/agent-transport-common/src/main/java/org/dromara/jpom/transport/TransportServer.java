@@ -89,4 +89,12 @@ public interface TransportServer {
      * @return websocket
      */
     IProxyWebSocket websocket(INodeInfo nodeInfo, IUrlItem urlItem, Object... parameters);
+
+    /**
+     * 释放节点的长连接（节点删除或者修改后）
+     *
+     * @param nodeInfo 节点信息
+     */
+    default void release(INodeInfo nodeInfo) {
+    }
 }
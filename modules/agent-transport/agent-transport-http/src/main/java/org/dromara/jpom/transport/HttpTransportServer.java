@@ -13,15 +13,22 @@ import cn.hutool.core.convert.Convert;
 import cn.hutool.core.io.resource.Resource;
 import cn.hutool.core.net.url.UrlBuilder;
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.core.util.SystemPropsUtil;
 import cn.hutool.http.*;
 import com.alibaba.fastjson2.JSONObject;
 import lombok.Lombok;
 import lombok.extern.slf4j.Slf4j;
+import org.dromara.jpom.encrypt.AesGcmEncryptor;
 import org.dromara.jpom.encrypt.EncryptFactory;
 import org.dromara.jpom.encrypt.Encryptor;
 import org.dromara.jpom.transport.i18n.TransportI18nMessageUtil;
 
+import java.io.InputStream;
+import java.net.URL;
+import java.security.GeneralSecurityException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -35,6 +42,11 @@ import java.util.function.Consumer;
 @Slf4j
 public class HttpTransportServer implements TransportServer {
 
+    /**
+     * 是否使用多路复用的 websocket 连接插件端
+     */
+    private static final boolean MULTIPLEX = SystemPropsUtil.getBoolean("JPOM_NODE_WEB_SOCKET_MULTIPLEX", true);
+
 
     private HttpRequest createRequest(INodeInfo nodeInfo, IUrlItem urlItem, Method method) {
         String url = StrUtil.format("{}://{}/", nodeInfo.scheme(), nodeInfo.url());
@@ -66,8 +78,10 @@ public class HttpTransportServer implements TransportServer {
         Optional.ofNullable(data).ifPresent(o -> {
             Encryptor encryptor;
             try {
-                encryptor = EncryptFactory.createEncryptor(nodeInfo.transportEncryption());
-                if (dataContentType == DataContentType.FORM_URLENCODED) {
+                encryptor = EncryptFactory.createEncryptor(nodeInfo.transportEncryption(), nodeInfo.transportKey());
+                if (encryptor instanceof AesGcmEncryptor) {
+                    this.appendEncryptData(httpRequest, dataContentType, o, (AesGcmEncryptor) encryptor);
+                } else if (dataContentType == DataContentType.FORM_URLENCODED) {
                     if (o instanceof Map) {
                         Map<String, Object> map = (Map<String, Object>) o;
                         Map<String, Object> encryptedMap = new HashMap<>();
@@ -104,6 +118,37 @@ public class HttpTransportServer implements TransportServer {
         });
     }
 
+    /**
+     * 整体加密，表单字段合并为一个字段只加密一次，文件流式加密
+     */
+    @SuppressWarnings("unchecked")
+    private void appendEncryptData(HttpRequest httpRequest, DataContentType dataContentType, Object data, AesGcmEncryptor encryptor) throws Exception {
+        if (dataContentType == DataContentType.FORM_URLENCODED) {
+            if (!(data instanceof Map)) {
+                throw new IllegalArgumentException(TransportI18nMessageUtil.get("i18n.unsupported_type_with_colon.1050") + data.getClass());
+            }
+            Map<String, Object> map = (Map<String, Object>) data;
+            Map<String, Object> form = new HashMap<>(2);
+            JSONObject fields = new JSONObject();
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof Resource) {
+                    form.put(entry.getKey(), new EncryptResource((Resource) value, encryptor));
+                } else if (value instanceof String[]) {
+                    fields.put(entry.getKey(), value);
+                } else if (value != null) {
+                    fields.put(entry.getKey(), new String[]{StrUtil.toString(value)});
+                }
+            }
+            form.put(AesGcmEncryptor.FORM_DATA_KEY, encryptor.encrypt(fields.toString()));
+            httpRequest.form(form);
+        } else if (dataContentType == DataContentType.JSON) {
+            httpRequest.body(encryptor.encrypt(JSONObject.toJSONString(data)), ContentType.JSON.getValue());
+        } else {
+            throw new IllegalArgumentException(TransportI18nMessageUtil.get("i18n.content_type_not_supported.81a9"));
+        }
+    }
+
     private String executeRequest(HttpRequest httpRequest, INodeInfo nodeInfo, IUrlItem urlItem) {
         //
         if (log.isDebugEnabled()) {
@@ -150,31 +195,81 @@ public class HttpTransportServer implements TransportServer {
         }
     }
 
+    /**
+     * 上传的文件在发送时流式加密
+     */
+    private static class EncryptResource implements Resource {
+
+        private final Resource resource;
+        private final AesGcmEncryptor encryptor;
+
+        private EncryptResource(Resource resource, AesGcmEncryptor encryptor) {
+            this.resource = resource;
+            this.encryptor = encryptor;
+        }
+
+        @Override
+        public String getName() {
+            return resource.getName();
+        }
+
+        @Override
+        public URL getUrl() {
+            return resource.getUrl();
+        }
+
+        @Override
+        public InputStream getStream() {
+            try {
+                return encryptor.encrypt(resource.getStream());
+            } catch (GeneralSecurityException e) {
+                throw new TransportAgentException(TransportI18nMessageUtil.get("i18n.node_transfer_info_encoding_exception.12c8") + e.getMessage());
+            }
+        }
+    }
+
     @Override
     public IProxyWebSocket websocket(INodeInfo nodeInfo, IUrlItem urlItem, Object... parameters) {
-        String url = StrUtil.format("{}://{}/", nodeInfo.scheme(), nodeInfo.url());
-        UrlBuilder urlBuilder = UrlBuilder.of(url).addPath(urlItem.path());
-        //
-        urlBuilder.addQuery(JPOM_AGENT_AUTHORIZE, nodeInfo.authorize());
-        //
-        urlBuilder.addQuery(WORKSPACE_ID_REQ_HEADER, urlItem.workspaceId());
+        Map<String, String> query = new LinkedHashMap<>();
+        query.put(JPOM_AGENT_AUTHORIZE, nodeInfo.authorize());
+        query.put(WORKSPACE_ID_REQ_HEADER, urlItem.workspaceId());
         for (int i = 0; i < parameters.length; i += 2) {
             Object parameter = parameters[i + 1];
-            String value = Convert.toStr(parameter, StrUtil.EMPTY);
-            urlBuilder.addQuery(parameters[i].toString(), value);
+            query.put(parameters[i].toString(), Convert.toStr(parameter, StrUtil.EMPTY));
         }
+        String uriTemplate = this.websocketUri(nodeInfo, urlItem.path(), query);
+        //
+        if (log.isDebugEnabled()) {
+            log.debug("{}[{}] -> {}", nodeInfo.name(), uriTemplate, urlItem.workspaceId());
+        }
+        Integer timeout = urlItem.timeout();
+        if (!MULTIPLEX) {
+            return new ServletWebSocketClientHandler(uriTemplate, timeout);
+        }
+        // 同一个插件端共用一个多路复用连接
+        MultiplexWebSocketClient client = MultiplexWebSocketClient.get(this.multiplexUri(nodeInfo));
+        return new MultiplexProxyWebSocket(client, urlItem.path(), query, uriTemplate, timeout);
+    }
+
+    @Override
+    public void release(INodeInfo nodeInfo) {
+        MultiplexWebSocketClient.remove(this.multiplexUri(nodeInfo));
+    }
+
+    private String multiplexUri(INodeInfo nodeInfo) {
+        return this.websocketUri(nodeInfo, MultiplexFrame.PATH, Collections.singletonMap(JPOM_AGENT_AUTHORIZE, nodeInfo.authorize()));
+    }
+
+    private String websocketUri(INodeInfo nodeInfo, String path, Map<String, String> query) {
+        String url = StrUtil.format("{}://{}/", nodeInfo.scheme(), nodeInfo.url());
+        UrlBuilder urlBuilder = UrlBuilder.of(url).addPath(path);
+        query.forEach(urlBuilder::addQuery);
         urlBuilder.setWithEndTag(false);
         String uriTemplate = urlBuilder.build();
         uriTemplate = StrUtil.removePrefixIgnoreCase(uriTemplate, nodeInfo.scheme());
         String wss = "wss";
         String ws = "ws";
         String protocol = "https".equalsIgnoreCase(nodeInfo.scheme()) ? wss : ws;
-        uriTemplate = StrUtil.format("{}{}", protocol, uriTemplate);
-        //
-        if (log.isDebugEnabled()) {
-            log.debug("{}[{}] -> {}", nodeInfo.name(), uriTemplate, urlItem.workspaceId());
-        }
-        Integer timeout = urlItem.timeout();
-        return new ServletWebSocketClientHandler(uriTemplate, timeout);
+        return StrUtil.format("{}{}", protocol, uriTemplate);
     }
 }
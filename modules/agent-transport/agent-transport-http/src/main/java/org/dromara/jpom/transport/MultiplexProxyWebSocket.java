@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.transport;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.jpom.transport.i18n.TransportI18nMessageUtil;
+import org.springframework.web.socket.CloseStatus;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 多路复用连接上的逻辑流
+ * <p>
+ * 插件端不支持多路复用时使用独立的 websocket 连接
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@Slf4j
+public class MultiplexProxyWebSocket implements IProxyWebSocket {
+
+    /**
+     * 发送消息等待额度的最长时间
+     */
+    private static final long SEND_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+
+    private final MultiplexWebSocketClient client;
+    private final String path;
+    private final Map<String, String> parameters;
+    private final String directUriTemplate;
+    private final Integer timeout;
+    private Consumer<String> consumerText;
+    /**
+     * 独立连接
+     */
+    private IProxyWebSocket direct;
+    private volatile int streamId;
+    private volatile MultiplexWindow window;
+    private volatile CompletableFuture<Boolean> opened;
+    private volatile boolean closed = true;
+    private String closeStatusMsg;
+
+    public MultiplexProxyWebSocket(MultiplexWebSocketClient client, String path, Map<String, String> parameters, String directUriTemplate, Integer timeout) {
+        this.client = client;
+        this.path = path;
+        this.parameters = parameters;
+        this.directUriTemplate = directUriTemplate;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void onMessage(Consumer<String> consumer) {
+        this.consumerText = consumer;
+        Optional.ofNullable(this.direct).ifPresent(iProxyWebSocket -> iProxyWebSocket.onMessage(consumer));
+    }
+
+    @Override
+    public boolean connect() {
+        return this.connectBlocking(5);
+    }
+
+    @Override
+    public boolean connectBlocking() {
+        int maxTimeout = Optional.ofNullable(this.timeout).orElse(60);
+        return this.connectBlocking(maxTimeout);
+    }
+
+    @Override
+    public synchronized boolean connectBlocking(int seconds) {
+        if (this.isConnected()) {
+            return true;
+        }
+        if (!client.available() || !client.connect(seconds)) {
+            // 插件端不支持多路复用或者连接失败，使用独立连接
+            if (this.direct == null) {
+                this.direct = new ServletWebSocketClientHandler(directUriTemplate, timeout);
+                this.direct.onMessage(consumerText);
+            }
+            return this.direct.connectBlocking(seconds);
+        }
+        this.window = new MultiplexWindow();
+        this.opened = new CompletableFuture<>();
+        this.closeStatusMsg = null;
+        this.closed = false;
+        this.streamId = client.register(this);
+        try {
+            client.send(MultiplexFrame.open(streamId, path, parameters));
+            if (opened.get(seconds, TimeUnit.SECONDS)) {
+                return true;
+            }
+        } catch (Exception e) {
+            log.warn(TransportI18nMessageUtil.get("i18n.websocket_error.2bb4"), path, e);
+        }
+        this.release();
+        return false;
+    }
+
+    void onFrame(MultiplexFrame frame) throws IOException {
+        switch (frame.getType()) {
+            case MultiplexFrame.OPENED:
+                opened.complete(true);
+                break;
+            case MultiplexFrame.TEXT: {
+                Optional.ofNullable(this.consumerText).ifPresent(consumer -> consumer.accept(frame.getText()));
+                int credit = window.consume();
+                if (credit > 0 && !closed) {
+                    client.send(MultiplexFrame.credit(streamId, credit));
+                }
+                break;
+            }
+            case MultiplexFrame.CREDIT:
+                window.release(frame.getCredit());
+                break;
+            case MultiplexFrame.CLOSE:
+                this.onRemoteClose(frame.getCloseCode(), frame.getCloseReason());
+                break;
+            default:
+                // 插件端不会发送二进制消息
+                break;
+        }
+    }
+
+    void onRemoteClose(int code, String reason) {
+        this.closeStatusMsg = StrUtil.format("{}:{}", code, reason);
+        log.warn(TransportI18nMessageUtil.get("i18n.connection_closed.6d4e"), code, reason);
+        this.release();
+    }
+
+    private void release() {
+        this.closed = true;
+        Optional.ofNullable(this.opened).ifPresent(future -> future.complete(false));
+        Optional.ofNullable(this.window).ifPresent(MultiplexWindow::close);
+        client.unregister(streamId);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.direct != null) {
+            this.direct.close();
+            this.direct = null;
+            return;
+        }
+        if (this.closed) {
+            return;
+        }
+        this.release();
+        if (client.isConnected()) {
+            client.send(MultiplexFrame.close(streamId, CloseStatus.NORMAL.getCode(), null));
+        }
+    }
+
+    @Override
+    public void send(String msg) throws IOException {
+        if (this.direct != null) {
+            this.direct.send(msg);
+            return;
+        }
+        this.acquire();
+        client.send(MultiplexFrame.text(streamId, msg));
+    }
+
+    @Override
+    public void send(ByteBuffer bytes) throws IOException {
+        if (this.direct != null) {
+            this.direct.send(bytes);
+            return;
+        }
+        this.acquire();
+        client.send(MultiplexFrame.binary(streamId, bytes));
+    }
+
+    private void acquire() throws IOException {
+        MultiplexWindow multiplexWindow = this.window;
+        if (multiplexWindow == null || closed) {
+            throw new IOException(TransportI18nMessageUtil.get("i18n.not_connected.fa55"));
+        }
+        try {
+            if (!multiplexWindow.acquire(SEND_TIMEOUT)) {
+                throw new IOException(TransportI18nMessageUtil.get("i18n.not_connected.fa55"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        if (this.direct != null) {
+            return this.direct.isConnected();
+        }
+        CompletableFuture<Boolean> future = this.opened;
+        return !closed && future != null && future.getNow(false) && client.isConnected();
+    }
+
+    @Override
+    public String getCloseStatusMsg() {
+        if (this.direct != null) {
+            return this.direct.getCloseStatusMsg();
+        }
+        return StrUtil.emptyToDefault(this.closeStatusMsg, StrUtil.EMPTY);
+    }
+}
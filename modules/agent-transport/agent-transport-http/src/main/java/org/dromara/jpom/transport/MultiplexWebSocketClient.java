@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.transport;
+
+import cn.hutool.core.map.SafeConcurrentHashMap;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.SystemPropsUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.jpom.transport.i18n.TransportI18nMessageUtil;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import javax.websocket.DeploymentException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务端到插件端的多路复用 websocket 物理连接
+ * <p>
+ * 同一个插件端（地址 + 授权信息）共用一个连接，各个控制台、日志、脚本会话作为逻辑流挂载在连接上。
+ * 物理连接断开或者节点删除后从缓存中移除
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@Slf4j
+public class MultiplexWebSocketClient extends AbstractWebSocketHandler {
+
+    private static final StandardWebSocketClient CLIENT = new StandardWebSocketClient();
+    private static final Map<String, MultiplexWebSocketClient> CLIENTS = new SafeConcurrentHashMap<>();
+    /**
+     * 插件端不支持多路复用（低版本）时，这段时间内直接使用独立连接
+     */
+    private static final long UNSUPPORTED_RETRY_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+
+    private final String uriTemplate;
+    private final Map<Integer, MultiplexProxyWebSocket> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger streamIdGenerator = new AtomicInteger();
+    private volatile WebSocketSession session;
+    private volatile long unsupportedTime;
+
+    private MultiplexWebSocketClient(String uriTemplate) {
+        this.uriTemplate = uriTemplate;
+    }
+
+    /**
+     * 获取插件端的多路复用连接
+     *
+     * @param uriTemplate 连接地址
+     * @return 连接
+     */
+    public static MultiplexWebSocketClient get(String uriTemplate) {
+        return CLIENTS.computeIfAbsent(uriTemplate, MultiplexWebSocketClient::new);
+    }
+
+    /**
+     * 关闭插件端的多路复用连接（节点删除、修改）
+     *
+     * @param uriTemplate 连接地址
+     */
+    public static void remove(String uriTemplate) {
+        Optional.ofNullable(CLIENTS.remove(uriTemplate)).ifPresent(MultiplexWebSocketClient::closeSession);
+    }
+
+    /**
+     * 是否可以使用多路复用
+     *
+     * @return false 插件端不支持，需要使用独立连接
+     */
+    public boolean available() {
+        return System.currentTimeMillis() - unsupportedTime > UNSUPPORTED_RETRY_INTERVAL;
+    }
+
+    /**
+     * 连接插件端，已经连接直接返回
+     *
+     * @param seconds 最长等待时间
+     * @return 是否连接成功
+     */
+    public synchronized boolean connect(int seconds) {
+        if (this.isConnected()) {
+            return true;
+        }
+        this.session = null;
+        ListenableFuture<WebSocketSession> future = CLIENT.doHandshake(this, this.uriTemplate);
+        try {
+            future.get(Math.max(seconds, 1), TimeUnit.SECONDS);
+            // 断开后被移除的连接重新连接成功
+            CLIENTS.putIfAbsent(this.uriTemplate, this);
+            return this.isConnected();
+        } catch (ExecutionException e) {
+            if (this.handshakeRefused(e.getCause())) {
+                // 插件端为低版本（没有多路复用地址），暂时使用独立连接
+                log.warn(TransportI18nMessageUtil.get("i18n.multiplex_unsupported.6e23"), e.getCause().getMessage());
+                this.unsupportedTime = System.currentTimeMillis();
+                return false;
+            }
+            log.warn(TransportI18nMessageUtil.get("i18n.websocket_error.2bb4"), this.uriTemplate, e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        // 插件端离线，没有逻辑流时不保留
+        if (streams.isEmpty()) {
+            CLIENTS.remove(this.uriTemplate, this);
+        }
+        return false;
+    }
+
+    /**
+     * 插件端响应了握手请求但是拒绝升级为 websocket（404 等），网络异常时会包含具体的异常原因
+     *
+     * @param throwable 异常
+     * @return true 拒绝握手
+     */
+    private boolean handshakeRefused(Throwable throwable) {
+        return throwable instanceof DeploymentException && throwable.getCause() == null;
+    }
+
+    private void closeSession() {
+        WebSocketSession webSocketSession = this.session;
+        if (webSocketSession == null) {
+            return;
+        }
+        try {
+            webSocketSession.close(CloseStatus.NORMAL);
+        } catch (IOException e) {
+            log.warn(TransportI18nMessageUtil.get("i18n.websocket_error.2bb4"), this.uriTemplate, e);
+        }
+    }
+
+    public boolean isConnected() {
+        WebSocketSession webSocketSession = this.session;
+        return webSocketSession != null && webSocketSession.isOpen();
+    }
+
+    /**
+     * 挂载逻辑流
+     *
+     * @param stream 逻辑流
+     * @return 流 id
+     */
+    int register(MultiplexProxyWebSocket stream) {
+        int streamId = streamIdGenerator.incrementAndGet();
+        streams.put(streamId, stream);
+        return streamId;
+    }
+
+    void unregister(int streamId) {
+        streams.remove(streamId);
+        if (streams.isEmpty() && CLIENTS.get(this.uriTemplate) != this) {
+            // 已经被移除（节点删除或者重新创建了连接），最后一个逻辑流关闭后关闭物理连接
+            this.closeSession();
+        }
+    }
+
+    void send(ByteBuffer frame) throws IOException {
+        WebSocketSession webSocketSession = this.session;
+        if (webSocketSession == null) {
+            throw new IOException(TransportI18nMessageUtil.get("i18n.not_connected.fa55"));
+        }
+        webSocketSession.sendMessage(new BinaryMessage(frame));
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        long messageSizeLimit = SystemPropsUtil.getLong("JPOM_NODE_WEB_SOCKET_MESSAGE_SIZE_LIMIT", DataSize.ofMegabytes(5).toBytes());
+        // 额外预留消息帧头
+        int sizeLimit = (int) messageSizeLimit + 1024;
+        session.setTextMessageSizeLimit(sizeLimit);
+        session.setBinaryMessageSizeLimit(sizeLimit);
+        // 发送消息时间限制 60 秒
+        this.session = new ConcurrentWebSocketSessionDecorator(session, 60 * 1000, sizeLimit * 2);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        MultiplexFrame frame = MultiplexFrame.decode(message.getPayload());
+        MultiplexProxyWebSocket stream = streams.get(frame.getStreamId());
+        if (stream == null) {
+            if (frame.getType() != MultiplexFrame.CLOSE) {
+                // 流已经关闭，通知插件端关闭
+                this.send(MultiplexFrame.close(frame.getStreamId(), CloseStatus.GOING_AWAY.getCode(), null));
+            }
+            return;
+        }
+        stream.onFrame(frame);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        log.error(TransportI18nMessageUtil.get("i18n.websocket_error.2bb4"), session.getId(), exception);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+        log.warn(TransportI18nMessageUtil.get("i18n.connection_closed.6d4e"), status.getCode(), status.getReason());
+        this.session = null;
+        CLIENTS.remove(this.uriTemplate, this);
+        // 物理连接断开，所有逻辑流都关闭
+        List<MultiplexProxyWebSocket> list = new ArrayList<>(streams.values());
+        streams.clear();
+        for (MultiplexProxyWebSocket stream : list) {
+            stream.onRemoteClose(status.getCode(), status.getReason());
+        }
+    }
+}
@@ -519,17 +519,16 @@ public abstract class AbstractProjectCommander implements ProjectCommander {
             return "ok";
         }
         boolean openLogBack = this.resolveOpenLogBack(nodeProjectInfoModel, originalModel);
-        if (openLogBack) {
-            // 开启日志备份才移动文件
-            File backPath = projectInfoService.resolveLogBack(nodeProjectInfoModel, originalModel);
-            String pathId = DateTime.now().toString(DatePattern.PURE_DATETIME_FORMAT) + ".log";
-            backPath = new File(backPath, pathId);
-            FileUtil.copy(file, backPath, true);
-        }
-        // 清空日志
-        String r = systemCommander.emptyLogFile(file);
-        if (StrUtil.isNotEmpty(r)) {
-            log.info(r);
+        File backPath = projectInfoService.resolveLogBack(nodeProjectInfoModel, originalModel);
+        // 开启日志备份才复制文件
+        File archive = openLogBack ? new File(backPath, DateTime.now().toString(DatePattern.PURE_DATETIME_FORMAT) + ".log") : null;
+        try {
+            ProjectLogRotator.copyTruncate(file, archive, systemCommander::emptyLogFile);
+        } catch (IOException e) {
+            throw Lombok.sneakyThrow(e);
+        }
+        if (archive != null) {
+            ProjectLogRotator.compressAsync(archive, backPath, projectLogConfig);
         }
         // 重新监听
         AgentFileTailWatcher.reWatcher(file);
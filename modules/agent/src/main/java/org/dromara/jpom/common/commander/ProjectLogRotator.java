@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.common.commander;
+
+import cn.hutool.core.date.DateTime;
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.map.SafeConcurrentHashMap;
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.StrUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.jpom.JpomApplication;
+import org.dromara.jpom.common.i18n.I18nMessageUtil;
+import org.dromara.jpom.configuration.ProjectLogConfig;
+import org.springframework.util.unit.DataSize;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 项目控制台日志轮转
+ * <p>
+ * 项目进程通过 shell 重定向（追加模式）写日志，重命名文件无法让进程切换到新文件，所以采用 copytruncate：
+ * 按偏移量复制日志内容，复制期间新写入的内容继续追加复制，最后清空文件。归档文件在后台低优先级线程中压缩，
+ * 并按天数、个数、总大小清理
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@Slf4j
+public class ProjectLogRotator {
+
+    /**
+     * 压缩后的后缀
+     */
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String TEMP_SUFFIX = ".tmp";
+    /**
+     * 追加复制的最多次数
+     */
+    private static final int MAX_CATCH_UP = 5;
+    /**
+     * 追加复制的内容小于该值时直接清空
+     */
+    private static final long CATCH_UP_SIZE = 64 * 1024;
+
+    /**
+     * 日志文件上次轮转时间
+     */
+    private static final Map<String, Long> LAST_ROTATE_TIME = new SafeConcurrentHashMap<>();
+
+    private static volatile ExecutorService executorService;
+
+    /**
+     * 复制日志内容到归档文件并清空日志，复制期间新写入的内容不会丢失
+     *
+     * @param file     日志文件
+     * @param archive  归档文件，为 null 时只清空
+     * @param truncate 程序无法清空文件时使用的清空方式（系统命令），返回执行结果
+     * @return 归档的字节数
+     * @throws IOException io
+     */
+    public static long copyTruncate(File file, File archive, Function<File, String> truncate) throws IOException {
+        long position = 0;
+        if (archive != null) {
+            FileUtil.mkParentDirs(archive);
+            try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(archive.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (int i = 0; i < MAX_CATCH_UP; i++) {
+                    long size = in.size();
+                    if (size - position < CATCH_UP_SIZE) {
+                        break;
+                    }
+                    position += transfer(in, out, position, size);
+                }
+                // 最后一次复制后立即清空，尽量缩短丢失窗口
+                position += transfer(in, out, position, in.size());
+                truncate(file, truncate);
+            }
+        } else {
+            truncate(file, truncate);
+        }
+        LAST_ROTATE_TIME.put(file.getAbsolutePath(), System.currentTimeMillis());
+        return position;
+    }
+
+    private static void truncate(File file, Function<File, String> truncate) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(0);
+            return;
+        } catch (IOException e) {
+            log.debug("truncate log file by channel failed {}", file, e);
+        }
+        String result = truncate.apply(file);
+        if (StrUtil.isNotEmpty(result)) {
+            log.info(result);
+        }
+    }
+
+    private static long transfer(FileChannel in, FileChannel out, long position, long size) throws IOException {
+        long count = 0;
+        while (position + count < size) {
+            long transferred = in.transferTo(position + count, size - position - count, out);
+            if (transferred <= 0) {
+                break;
+            }
+            count += transferred;
+        }
+        return count;
+    }
+
+    /**
+     * 是否达到按时间轮转的周期
+     *
+     * @param file    日志文件
+     * @param backDir 归档目录
+     * @param period  周期，为空不按时间轮转
+     * @return true 需要轮转
+     */
+    public static boolean reachPeriod(File file, File backDir, Duration period) {
+        if (period == null || period.isZero() || period.isNegative()) {
+            return false;
+        }
+        long last = LAST_ROTATE_TIME.computeIfAbsent(file.getAbsolutePath(), s ->
+            listArchives(backDir).stream()
+                .mapToLong(File::lastModified)
+                .max()
+                .orElseGet(System::currentTimeMillis));
+        return System.currentTimeMillis() - last >= period.toMillis();
+    }
+
+    /**
+     * 后台压缩归档文件并执行保留策略
+     *
+     * @param archive 归档文件
+     * @param backDir 归档目录
+     * @param config  日志配置
+     */
+    public static void compressAsync(File archive, File backDir, ProjectLogConfig config) {
+        getExecutorService().execute(() -> {
+            if (config.isCompressBackup()) {
+                try {
+                    compress(archive);
+                } catch (Exception e) {
+                    log.warn(I18nMessageUtil.get("i18n.compress_log_backup_failed.de10"), archive, e);
+                }
+            }
+            retain(backDir, config);
+        });
+    }
+
+    private static void compress(File archive) throws IOException {
+        if (!archive.exists()) {
+            return;
+        }
+        File gzip = new File(archive.getParentFile(), archive.getName() + GZIP_SUFFIX);
+        File temp = new File(archive.getParentFile(), gzip.getName() + TEMP_SUFFIX);
+        try (InputStream inputStream = Files.newInputStream(archive.toPath());
+             OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(temp.toPath()), 64 * 1024)) {
+            byte[] buffer = new byte[64 * 1024];
+            int len;
+            while ((len = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, len);
+            }
+        } catch (IOException e) {
+            FileUtil.del(temp);
+            throw e;
+        }
+        Files.move(temp.toPath(), gzip.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        // 保留原始时间，按时间清理和排序不受压缩影响
+        gzip.setLastModified(archive.lastModified());
+        FileUtil.del(archive);
+    }
+
+    /**
+     * 按保存天数、个数、总大小清理归档文件，优先删除最旧的。最新的一个归档文件始终保留
+     *
+     * @param backDir 归档目录
+     * @param config  日志配置
+     */
+    public static void retain(File backDir, ProjectLogConfig config) {
+        List<File> files = listArchives(backDir);
+        if (files.isEmpty()) {
+            return;
+        }
+        files.sort(Comparator.comparingLong(File::lastModified).reversed());
+        // 保存天数小于等于 0 不按时间清理
+        int saveDays = config.getSaveDays();
+        DateTime nowTime = DateTime.now();
+        int saveCount = config.getSaveCount();
+        long saveTotalSize = Optional.ofNullable(config.getSaveTotalSize()).map(DataSize::toBytes).orElse(0L);
+        long totalSize = files.get(0).length();
+        for (int i = 1; i < files.size(); i++) {
+            File file = files.get(i);
+            totalSize += file.length();
+            boolean expire = saveDays > 0 && DateUtil.betweenDay(DateUtil.date(file.lastModified()), nowTime, false) > saveDays;
+            boolean overCount = saveCount > 0 && i >= saveCount;
+            boolean overSize = saveTotalSize > 0 && totalSize > saveTotalSize;
+            if (expire || overCount || overSize) {
+                FileUtil.del(file);
+            }
+        }
+    }
+
+    private static List<File> listArchives(File backDir) {
+        if (!FileUtil.isDirectory(backDir)) {
+            return new ArrayList<>();
+        }
+        // 压缩中的临时文件不参与
+        return FileUtil.loopFiles(backDir, pathname -> !StrUtil.endWith(pathname.getName(), TEMP_SUFFIX));
+    }
+
+    private static ExecutorService getExecutorService() {
+        if (executorService == null) {
+            synchronized (ProjectLogRotator.class) {
+                if (executorService == null) {
+                    executorService = ExecutorBuilder.create()
+                        .setCorePoolSize(1)
+                        .setMaxPoolSize(1)
+                        .setWorkQueue(new LinkedBlockingQueue<>())
+                        .setThreadFactory(ThreadFactoryBuilder.create()
+                            .setNamePrefix("jpom-log-rotate-")
+                            .setDaemon(true)
+                            .setPriority(Thread.MIN_PRIORITY)
+                            .build())
+                        .build();
+                    JpomApplication.register("log-rotate", executorService);
+                }
+            }
+        }
+        return executorService;
+    }
+}
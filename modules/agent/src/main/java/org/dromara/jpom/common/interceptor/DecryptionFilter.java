@@ -14,12 +14,16 @@ import cn.hutool.core.util.StrUtil;
 import cn.hutool.extra.servlet.ServletUtil;
 import cn.hutool.http.ContentType;
 import cn.hutool.http.Method;
+import cn.keepbx.jpom.model.JsonMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.tomcat.util.http.fileupload.FileUploadBase;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
 import org.dromara.jpom.common.transport.BodyRewritingRequestWrapper;
 import org.dromara.jpom.common.transport.MultipartRequestWrapper;
 import org.dromara.jpom.common.transport.ParameterRequestWrapper;
+import org.dromara.jpom.configuration.AgentAuthorize;
+import org.dromara.jpom.configuration.AgentConfig;
+import org.dromara.jpom.encrypt.AesGcmEncryptor;
 import org.dromara.jpom.encrypt.EncryptFactory;
 import org.dromara.jpom.encrypt.Encryptor;
 import org.springframework.context.annotation.Configuration;
@@ -29,6 +33,7 @@ import org.springframework.http.MediaType;
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
@@ -42,6 +47,12 @@ import java.security.NoSuchAlgorithmException;
 @Order(1)
 public class DecryptionFilter implements Filter {
 
+    private final AgentAuthorize agentAuthorize;
+
+    public DecryptionFilter(AgentConfig agentConfig) {
+        this.agentAuthorize = agentConfig.getAuthorize();
+    }
+
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse response, FilterChain chain) throws IOException, ServletException {
         HttpServletRequest request = (HttpServletRequest) servletRequest;
@@ -49,7 +60,7 @@ public class DecryptionFilter implements Filter {
         // 兼容没有没有传入
         Encryptor encryptor;
         try {
-            encryptor = EncryptFactory.createEncryptor(Convert.toInt(transportEncryption, 0));
+            encryptor = EncryptFactory.createEncryptor(Convert.toInt(transportEncryption, 0), agentAuthorize.transportKey());
         } catch (NoSuchAlgorithmException e) {
             log.error(I18nMessageUtil.get("i18n.get_decrypt_distribution_failure.4feb"), e);
             chain.doFilter(servletRequest, response);
@@ -60,7 +71,13 @@ public class DecryptionFilter implements Filter {
         String method = request.getMethod();
         if (ContentType.isDefault(contentType)) {
             // 普通表单
-            HttpServletRequestWrapper wrapper = new ParameterRequestWrapper(request, encryptor);
+            HttpServletRequestWrapper wrapper;
+            try {
+                wrapper = new ParameterRequestWrapper(request, encryptor);
+            } catch (IllegalArgumentException e) {
+                this.rejectDecrypt(response, e);
+                return;
+            }
             chain.doFilter(wrapper, response);
         } else if (StrUtil.startWithIgnoreCase(contentType, MediaType.APPLICATION_JSON_VALUE)) {
             String body = ServletUtil.getBody(request);
@@ -68,6 +85,10 @@ public class DecryptionFilter implements Filter {
             try {
                 temp = encryptor.decrypt(body);
             } catch (Exception e) {
+                if (encryptor instanceof AesGcmEncryptor) {
+                    this.rejectDecrypt(response, e);
+                    return;
+                }
                 log.error(I18nMessageUtil.get("i18n.decode_failure.822e"), e);
                 temp = body;
             }
@@ -75,11 +96,30 @@ public class DecryptionFilter implements Filter {
             chain.doFilter(requestWrapper, response);
         } else if (StrUtil.equalsIgnoreCase(Method.POST.name(), method) && StrUtil.startWith(contentType, FileUploadBase.MULTIPART)) {
             // 文件上传
-            HttpServletRequestWrapper wrapper = new MultipartRequestWrapper(request, encryptor);
+            HttpServletRequestWrapper wrapper;
+            try {
+                wrapper = new MultipartRequestWrapper(request, encryptor);
+            } catch (IllegalArgumentException e) {
+                this.rejectDecrypt(response, e);
+                return;
+            }
             chain.doFilter(wrapper, response);
         } else {
             log.warn(I18nMessageUtil.get("i18n.request_type_not_supported_for_decoding.ea2e"), contentType);
             chain.doFilter(servletRequest, response);
         }
     }
+
+    /**
+     * aes-gcm 解密或者认证失败，数据被篡改或者密钥不一致，直接拒绝请求
+     *
+     * @param response 响应
+     * @param e        异常
+     */
+    private void rejectDecrypt(ServletResponse response, Exception e) {
+        log.error(I18nMessageUtil.get("i18n.decrypt_failure.ad83"), e);
+        HttpServletResponse httpServletResponse = (HttpServletResponse) response;
+        httpServletResponse.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        ServletUtil.write(httpServletResponse, JsonMessage.getString(HttpServletResponse.SC_BAD_REQUEST, I18nMessageUtil.get("i18n.decrypt_failure.ad83")), MediaType.APPLICATION_JSON_VALUE);
+    }
 }
@@ -70,6 +70,15 @@ public class AgentAuthorize {
         return StrUtil.equals(authorize, this.authorize);
     }
 
+    /**
+     * 传输加密密钥（AES-GCM 使用）
+     *
+     * @return user@pwd
+     */
+    public String transportKey() {
+        return this.agentName + "@" + this.agentPwd;
+    }
+
     /**
      * 检查是否配置密码
      */
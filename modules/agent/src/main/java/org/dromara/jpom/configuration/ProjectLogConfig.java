@@ -16,6 +16,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.util.unit.DataSize;
 
 import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.Optional;
 
 /**
@@ -35,13 +36,21 @@ public class ProjectLogConfig {
      * @see ch.qos.logback.core.util.FileSize
      */
     private DataSize autoBackupSize = DataSize.ofMegabytes(50);
+    /**
+     * 按时间自动备份的周期，为空不按时间备份
+     */
+    private Duration autoBackupPeriod;
+    /**
+     * 备份文件是否压缩（gzip）
+     */
+    private boolean compressBackup = true;
     /**
      * 是否自动将控制台日志文件备份
      */
     private boolean autoBackupToFile = true;
 
     /**
-     * 控制台日志保存时长单位天
+     * 控制台日志保存时长单位天，小于等于 0 不按时间清理
      */
     private int saveDays = 7;
 
@@ -49,6 +58,20 @@ public class ProjectLogConfig {
         return Math.max(saveDays, 0);
     }
 
+    /**
+     * 备份文件最多保留个数，0 不限制
+     */
+    private int saveCount;
+
+    public int getSaveCount() {
+        return Math.max(saveCount, 0);
+    }
+
+    /**
+     * 备份文件最多占用的总大小，为空不限制
+     */
+    private DataSize saveTotalSize;
+
     /**
      * 日志文件的编码格式
      */
@@ -22,4 +22,11 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @Data
 @ConfigurationProperties("jpom.system")
 public class SystemConfig extends BaseSystemConfig {
+
+    /**
+     * 服务端多路复用连接上最多同时打开的逻辑流个数，小于等于 0 不限制
+     * <p>
+     * 每个逻辑流的处理会占用一个线程，避免单个连接打开过多的逻辑流耗尽线程
+     */
+    private int multiplexMaxStreams = 128;
 }
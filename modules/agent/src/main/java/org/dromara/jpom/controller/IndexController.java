@@ -91,6 +91,7 @@ public class IndexController extends BaseAgentController {
         jsonObject.put("pluginSize", PluginFactory.size());
         jsonObject.put("joinBetaRelease", RemoteVersion.betaRelease());
         jsonObject.put("monitor", agentConfig.getMonitor());
+        jsonObject.put("jarDigest", JpomManifest.jarDigest());
         return JsonMessage.success("", jsonObject);
     }
 
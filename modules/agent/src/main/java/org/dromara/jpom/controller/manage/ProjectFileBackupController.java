@@ -149,6 +149,10 @@ public class ProjectFileBackupController extends BaseAgentController {
         File lib = projectFileBackupService.pathProjectBackup(projectInfoModel, backupId);
         File file = FileUtil.file(lib, StrUtil.emptyToDefault(levelName, FileUtil.FILE_SEPARATOR), filename);
         CommandUtil.systemFastDel(file);
+        if (FileUtil.equals(file, lib)) {
+            // 删除整个备份，清单也需要删除
+            projectFileBackupService.deleteManifest(projectInfoModel, backupId);
+        }
         return JsonMessage.success(I18nMessageUtil.get("i18n.delete_success.0007"));
     }
 
@@ -178,7 +178,7 @@ public class ProjectFileControl extends BaseAgentController {
     }
 
 
-    private void saveProjectFileBefore(File lib, NodeProjectInfoModel projectInfoModel) throws Exception {
+    private boolean saveProjectFileBefore(File lib, NodeProjectInfoModel projectInfoModel, boolean staged) throws Exception {
         String closeFirstStr = getParameter("closeFirst");
         // 判断是否需要先关闭项目
         boolean closeFirst = BooleanUtil.toBoolean(closeFirstStr);
@@ -188,9 +188,11 @@ public class ProjectFileControl extends BaseAgentController {
         }
         String clearType = getParameter("clearType");
         // 判断是否需要清空
-        if ("clear".equalsIgnoreCase(clearType)) {
+        boolean clear = "clear".equalsIgnoreCase(clearType);
+        if (clear && !staged) {
             CommandUtil.systemFastDel(lib);
         }
+        return clear;
     }
 
     @RequestMapping(value = "upload-sharding", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -238,12 +240,13 @@ public class ProjectFileControl extends BaseAgentController {
         String backupId = projectFileBackupService.backup(pim);
         try {
             //
-            this.saveProjectFileBefore(lib, pim);
-            if ("unzip".equals(type)) {
-                // 解压
+            boolean unzip = "unzip".equals(type);
+            boolean clear = this.saveProjectFileBefore(lib, pim, unzip);
+            if (unzip) {
+                // 解压到暂存目录后再替换（清空）或者合并，避免解压一半的文件被使用
                 try {
                     int stripComponentsValue = Convert.toInt(stripComponents, 0);
-                    CompressionFileUtil.unCompress(file, lib, stripComponentsValue);
+                    CompressionFileUtil.unCompressStaged(file, lib, stripComponentsValue, clear);
                 } finally {
                     if (!FileUtil.del(file)) {
                         log.error(I18nMessageUtil.get("i18n.delete_file_failure_with_full_stop.6c96") + file.getPath());
@@ -535,7 +538,7 @@ public class ProjectFileControl extends BaseAgentController {
                 // 需要解压文件
                 try {
                     int stripComponentsValue = Convert.toInt(stripComponents, 0);
-                    CompressionFileUtil.unCompress(downloadFile, file, stripComponentsValue);
+                    CompressionFileUtil.unCompressStaged(downloadFile, file, stripComponentsValue, false);
                 } finally {
                     if (!FileUtil.del(downloadFile)) {
                         log.error(I18nMessageUtil.get("i18n.delete_file_failure_with_full_stop.6c96") + file.getPath());
@@ -9,11 +9,11 @@
  */
 package org.dromara.jpom.service;
 
-import cn.hutool.core.collection.CollStreamUtil;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.date.DatePattern;
 import cn.hutool.core.date.DateTime;
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IORuntimeException;
 import cn.hutool.core.util.ArrayUtil;
 import cn.hutool.core.util.ReUtil;
 import cn.hutool.core.util.StrUtil;
@@ -34,8 +34,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 项目文件备份工具
@@ -47,6 +52,11 @@ import java.util.stream.Collectors;
 @Service
 public class ProjectFileBackupService {
 
+    /**
+     * 备份文件清单（路径、大小、修改时间、签名）的后缀，和备份目录同级
+     */
+    private static final String MANIFEST_SUFFIX = ".manifest.json";
+
     private final ProjectConfig projectConfig;
     private final ProjectInfoService projectInfoService;
 
@@ -117,11 +127,133 @@ public class ProjectFileBackupService {
         log.debug(I18nMessageUtil.get("i18n.prepare_backup.7970"), projectInfoModel.getId(), backupId);
         File projectFileBackup = this.pathProjectBackup(infoModel, backupId);
         Assert.state(!FileUtil.exist(projectFileBackup), I18nMessageUtil.get("i18n.backup_directory_conflict.c13e") + projectFileBackup.getName());
-        FileUtil.copyContent(file, projectFileBackup, true);
+        this.snapshot(file, this.pathProject(infoModel), backupId);
         //
         return backupId;
     }
 
+    /**
+     * 生成备份快照，和上一次备份内容相同的文件使用硬链接，只有变动的文件才复制
+     *
+     * @param projectPath 项目目录
+     * @param backupPath  项目的备份目录
+     * @param backupId    备份ID
+     */
+    private void snapshot(File projectPath, File backupPath, String backupId) {
+        File backupItemPath = FileUtil.file(backupPath, backupId);
+        String lastBackupId = this.lastBackupId(backupPath);
+        JSONObject lastFiles = Optional.ofNullable(lastBackupId)
+            .map(s -> this.readManifest(backupPath, s))
+            .map(jsonObject -> jsonObject.getJSONObject("files"))
+            .orElseGet(JSONObject::new);
+        JSONObject files = new JSONObject();
+        boolean linked = true;
+        int copyCount = 0;
+        for (File file : FileUtil.loopFiles(projectPath)) {
+            String name = StringUtil.delStartPath(file, projectPath, true);
+            JSONObject lastItem = lastFiles.getJSONObject(name);
+            JSONObject item = this.manifestItem(file, lastItem);
+            files.put(name, item);
+            File target = FileUtil.file(backupItemPath, name);
+            if (lastItem != null && StrUtil.equals(lastItem.getString("sha1"), item.getString("sha1"))) {
+                File source = FileUtil.file(backupPath, lastBackupId, name);
+                if (linked && FileUtil.isFile(source)) {
+                    try {
+                        FileUtil.mkParentDirs(target);
+                        Files.createLink(target.toPath(), source.toPath());
+                        continue;
+                    } catch (IOException | UnsupportedOperationException e) {
+                        // 文件系统不支持硬链接，后续全部复制
+                        log.warn(I18nMessageUtil.get("i18n.backup_hard_link_unsupported.4616"), e.getMessage());
+                        linked = false;
+                    }
+                }
+            }
+            FileUtil.copyFile(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            copyCount++;
+        }
+        // 空目录不在文件列表中，单独创建
+        try (Stream<Path> stream = Files.walk(projectPath.toPath())) {
+            stream.filter(Files::isDirectory)
+                .forEach(path -> FileUtil.mkdir(FileUtil.file(backupItemPath, StringUtil.delStartPath(path.toFile(), projectPath, true))));
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+        log.debug("project backup {} files {} copied {}", backupId, files.size(), copyCount);
+        JSONObject manifest = new JSONObject();
+        manifest.put("base", lastBackupId);
+        manifest.put("linked", linked);
+        manifest.put("files", files);
+        this.writeManifest(backupPath, backupId, manifest);
+    }
+
+    /**
+     * 生成文件清单信息，大小和修改时间都没有变化时沿用之前的签名
+     *
+     * @param file     文件
+     * @param lastItem 之前的清单信息
+     * @return 清单信息
+     */
+    private JSONObject manifestItem(File file, JSONObject lastItem) {
+        long size = file.length();
+        long modified = file.lastModified();
+        JSONObject item = new JSONObject();
+        item.put("size", size);
+        item.put("modified", modified);
+        if (lastItem != null && lastItem.getLongValue("size") == size && lastItem.getLongValue("modified") == modified) {
+            item.put("sha1", lastItem.getString("sha1"));
+        } else {
+            item.put("sha1", SecureUtil.sha1(file));
+        }
+        return item;
+    }
+
+    /**
+     * 最近一次有清单的备份（备份ID 为时间格式，按名称排序）
+     *
+     * @param backupPath 项目的备份目录
+     * @return 备份ID
+     */
+    private String lastBackupId(File backupPath) {
+        File[] files = backupPath.listFiles();
+        if (files == null) {
+            return null;
+        }
+        return Arrays.stream(files)
+            .filter(FileUtil::isDirectory)
+            .map(File::getName)
+            .filter(name -> FileUtil.isFile(FileUtil.file(backupPath, name + MANIFEST_SUFFIX)))
+            .max(Comparator.naturalOrder())
+            .orElse(null);
+    }
+
+    private JSONObject readManifest(File backupPath, String backupId) {
+        File file = FileUtil.file(backupPath, backupId + MANIFEST_SUFFIX);
+        if (!FileUtil.isFile(file)) {
+            return null;
+        }
+        try {
+            return JSONObject.parseObject(FileUtil.readUtf8String(file));
+        } catch (Exception e) {
+            log.warn(I18nMessageUtil.get("i18n.backup_manifest_read_failed.6aa2"), file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeManifest(File backupPath, String backupId, JSONObject manifest) {
+        FileUtil.writeUtf8String(manifest.toString(), FileUtil.file(backupPath, backupId + MANIFEST_SUFFIX));
+    }
+
+    /**
+     * 删除备份的文件清单
+     *
+     * @param projectInfoModel 项目
+     * @param backupId         备份ID
+     */
+    public void deleteManifest(NodeProjectInfoModel projectInfoModel, String backupId) {
+        FileUtil.del(FileUtil.file(this.pathProject(projectInfoModel), backupId + MANIFEST_SUFFIX));
+    }
+
     /**
      * 检查备份保留个数
      *
@@ -146,7 +278,10 @@ public class ProjectFileBackupService {
         if (max > 0) {
             collect = CollUtil.sub(collect, 0, max);
             // 删除
-            collect.forEach(CommandUtil::systemFastDel);
+            collect.forEach(file -> {
+                CommandUtil.systemFastDel(file);
+                FileUtil.del(FileUtil.file(backupPath, file.getName() + MANIFEST_SUFFIX));
+            });
         }
     }
 
@@ -192,24 +327,46 @@ public class ProjectFileBackupService {
                 //String useBackupPath = resolveBackupPath(dslYmlDto);
                 File backupItemPath = this.pathProjectBackup(infoModel, backupId);
                 File backupPath = this.pathProject(infoModel);
-                // 获取文件列表
-                Map<String, File> backupFiles = this.listFiles(backupItemPath);
-                Map<String, File> nowFiles = this.listFiles(projectPath);
-                nowFiles.forEach((fileSha1, file) -> {
-                    // 当前目录存在的，但是备份目录也存在的相同文件则删除
-                    File backupFile = backupFiles.get(fileSha1);
-                    if (backupFile != null) {
+                JSONObject manifest = Optional.ofNullable(this.readManifest(backupPath, backupId)).orElseGet(JSONObject::new);
+                JSONObject backupFiles = Optional.ofNullable(manifest.getJSONObject("files")).orElseGet(JSONObject::new);
+                // 快照使用硬链接时相同文件不占用空间，保留完整快照；不支持硬链接时删除相同文件
+                boolean linked = manifest.getBooleanValue("linked");
+                Set<String> removed = new HashSet<>(backupFiles.keySet());
+                // 删除过文件的目录，快照中原本的空目录需要保留
+                Set<File> cleanDirs = new HashSet<>();
+                int changed = 0;
+                int added = 0;
+                for (File file : FileUtil.loopFiles(projectPath)) {
+                    String name = StringUtil.delStartPath(file, projectPath, true);
+                    removed.remove(name);
+                    JSONObject item = backupFiles.getJSONObject(name);
+                    if (item == null) {
+                        added++;
+                        continue;
+                    }
+                    JSONObject nowItem = this.manifestItem(file, item);
+                    if (!StrUtil.equals(nowItem.getString("sha1"), item.getString("sha1"))) {
+                        changed++;
+                    } else if (!linked) {
+                        // 当前目录存在的，但是备份目录也存在的相同文件则删除
+                        File backupFile = FileUtil.file(backupItemPath, name);
                         CommandUtil.systemFastDel(backupFile);
-                        backupFiles.remove(fileSha1);
+                        cleanDirs.add(backupFile.getParentFile());
                     }
-                });
+                }
+                JSONObject diff = new JSONObject();
+                diff.put("changed", changed);
+                diff.put("added", added);
+                diff.put("removed", removed.size());
+                manifest.put("diff", diff);
+                log.debug("project backup {} diff {}", backupId, diff);
                 // 判断保存指定后缀
                 String[] backupSuffix = Optional.ofNullable(dslYmlDto)
                     .map(DslYmlDto::getFile)
                     .map(DslYmlDto.FileConfig::getBackupSuffix)
                     .orElseGet(projectConfig::getFileBackupSuffix);
                 if (ArrayUtil.isNotEmpty(backupSuffix)) {
-                    backupFiles.values()
+                    FileUtil.loopFiles(backupItemPath)
                         .stream()
                         .filter(file -> {
                             String name = FileUtil.getName(file);
@@ -221,10 +378,17 @@ public class ProjectFileBackupService {
                             }
                             return !StrUtil.endWithAny(name, backupSuffix);
                         })
-                        .forEach(CommandUtil::systemFastDel);
+                        .forEach(file -> {
+                            // 不保留的文件同时从清单中移除，避免清单中存在快照已经没有的文件
+                            backupFiles.remove(StringUtil.delStartPath(file, backupItemPath, true));
+                            CommandUtil.systemFastDel(file);
+                            cleanDirs.add(file.getParentFile());
+                        });
+                    manifest.put("files", backupFiles);
                 }
-                // 删除空文件夹
-                loopClean(backupItemPath);
+                this.writeManifest(backupPath, backupId, manifest);
+                // 删除因为清理文件变为空的文件夹
+                cleanDirs.forEach(file -> this.cleanEmptyDir(file, backupItemPath));
                 // 检查备份保留个数
                 clearOldBackup(backupPath, dslYmlDto);
                 // 合并之前备份目录
@@ -250,40 +414,19 @@ public class ProjectFileBackupService {
         }
     }
 
-    private void loopClean(File backupPath) {
-        if (FileUtil.isFile(backupPath)) {
-            return;
-        }
-        //
-        Optional.ofNullable(backupPath.listFiles()).ifPresent(files1 -> {
-            for (File file : files1) {
-                this.loopClean(file);
-            }
-        });
-        // 检查目录是否为空
-        if (FileUtil.isDirEmpty(backupPath)) {
-            FileUtil.del(backupPath);
-        }
-    }
-
     /**
-     * 获取文件列表信息
+     * 向上删除空文件夹，不删除备份目录本身
      *
-     * @param path 路径
-     * @return 文件列表信息
+     * @param dir            文件夹
+     * @param backupItemPath 备份目录
      */
-    private Map<String, File> listFiles(File path) {
-        // 将所有的文件信息组装并签名
-        List<File> files = FileUtil.loopFiles(path);
-        List<JSONObject> collect = files.stream().map(file -> {
-            //
-            JSONObject item = new JSONObject();
-            item.put("file", file);
-            item.put("sha1", SecureUtil.sha1(file) + StrUtil.DASHED + StringUtil.delStartPath(file, path, true));
-            return item;
-        }).collect(Collectors.toList());
-        return CollStreamUtil.toMap(collect,
-            jsonObject12 -> jsonObject12.getString("sha1"),
-            jsonObject1 -> (File) jsonObject1.get("file"));
+    private void cleanEmptyDir(File dir, File backupItemPath) {
+        while (dir != null && !FileUtil.equals(dir, backupItemPath) && FileUtil.isSub(backupItemPath, dir)) {
+            if (!FileUtil.isDirectory(dir) || !FileUtil.isDirEmpty(dir)) {
+                return;
+            }
+            FileUtil.del(dir);
+            dir = dir.getParentFile();
+        }
     }
 }
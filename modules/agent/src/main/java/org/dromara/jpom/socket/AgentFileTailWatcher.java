@@ -143,12 +143,8 @@ public class AgentFileTailWatcher<T extends AutoCloseable> extends BaseFileTailW
 
     @Override
     protected boolean send(T session, String msg) throws IOException {
-//        try {
-        SocketSessionUtil.send((Session) session, msg);
-//        } catch (Exception e) {
-//            log.error("发送消息异常", e);
-//        }
-        return true;
+        // 异步发送，一个会话消费慢不阻塞其他会话
+        return SocketSessionUtil.sendAsync((Session) session, msg);
     }
 
     /**
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.socket;
+
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.ReflectUtil;
+import cn.hutool.extra.spring.SpringUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.jpom.JpomApplication;
+import org.dromara.jpom.common.i18n.I18nMessageUtil;
+import org.dromara.jpom.configuration.AgentConfig;
+import org.dromara.jpom.transport.MultiplexFrame;
+import org.dromara.jpom.util.SocketSessionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import javax.websocket.*;
+import javax.websocket.server.ServerEndpoint;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 服务端到插件端的多路复用连接
+ * <p>
+ * 每个逻辑流对应一个原有处理类的实例，使用 {@link MultiplexSession} 作为会话，处理类不需要感知多路复用
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@ServerEndpoint(value = MultiplexFrame.PATH)
+@Component
+@Slf4j
+public class AgentWebSocketMultiplexHandle extends BaseAgentWebSocketHandle {
+
+    private static volatile Map<String, EndpointInvoker> endpoints;
+    private static volatile ExecutorService executorService;
+    /**
+     * 单个连接最多同时打开的逻辑流个数
+     */
+    private static int maxStreams;
+
+    /**
+     * 当前物理连接上的逻辑流
+     */
+    private final Map<Integer, MultiplexSession> streams = new ConcurrentHashMap<>();
+
+    @Autowired
+    public void init(AgentConfig agentConfig) {
+        setAgentAuthorize(agentConfig.getAuthorize());
+        maxStreams = agentConfig.getSystem().getMultiplexMaxStreams();
+    }
+
+    @OnOpen
+    public void onOpen(Session session) {
+        super.checkAuthorize(session);
+    }
+
+    @OnMessage(maxMessageSize = 5 * 1024 * 1024 + 1024)
+    public void onMessage(byte[] message, Session session) {
+        MultiplexFrame frame = MultiplexFrame.decode(ByteBuffer.wrap(message));
+        int streamId = frame.getStreamId();
+        if (frame.getType() == MultiplexFrame.OPEN) {
+            this.openStream(session, frame);
+            return;
+        }
+        MultiplexSession stream = streams.get(streamId);
+        if (stream == null) {
+            if (frame.getType() != MultiplexFrame.CLOSE) {
+                SocketSessionUtil.sendBinary(session, MultiplexFrame.close(streamId, CloseReason.CloseCodes.GOING_AWAY.getCode(), null));
+            }
+            return;
+        }
+        EndpointInvoker invoker = getEndpoints().get(stream.getPath());
+        switch (frame.getType()) {
+            case MultiplexFrame.TEXT: {
+                String text = frame.getText();
+                stream.execute(() -> {
+                    if (!stream.onMessage(text)) {
+                        invoker.onMessage(stream, text);
+                    }
+                    stream.consumed();
+                });
+                break;
+            }
+            case MultiplexFrame.BINARY: {
+                ByteBuffer binary = frame.getBinary();
+                byte[] bytes = new byte[binary.remaining()];
+                binary.get(bytes);
+                stream.execute(() -> {
+                    if (!stream.onMessage(bytes)) {
+                        invoker.onMessage(stream, bytes);
+                    }
+                    stream.consumed();
+                });
+                break;
+            }
+            case MultiplexFrame.CREDIT:
+                stream.release(frame.getCredit());
+                break;
+            case MultiplexFrame.CLOSE:
+                CloseReason.CloseCode closeCode = CloseReason.CloseCodes.getCloseCode(frame.getCloseCode());
+                stream.remoteClose(new CloseReason(closeCode, frame.getCloseReason()));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void openStream(Session session, MultiplexFrame frame) {
+        int streamId = frame.getStreamId();
+        String path = frame.getOpenPath();
+        EndpointInvoker invoker = getEndpoints().get(path);
+        if (invoker == null) {
+            log.warn(I18nMessageUtil.get("i18n.multiplex_unknown_path.f2ac"), path);
+            SocketSessionUtil.sendBinary(session, MultiplexFrame.close(streamId, CloseReason.CloseCodes.CANNOT_ACCEPT.getCode(), path));
+            return;
+        }
+        if (maxStreams > 0 && streams.size() >= maxStreams) {
+            // 每个逻辑流都会占用处理线程，超过上限拒绝打开
+            log.warn(I18nMessageUtil.get("i18n.multiplex_stream_limit.0bf0"), session.getId(), maxStreams, path);
+            SocketSessionUtil.sendBinary(session, MultiplexFrame.close(streamId, CloseReason.CloseCodes.TRY_AGAIN_LATER.getCode(), "too many streams"));
+            return;
+        }
+        MultiplexSession[] holder = new MultiplexSession[1];
+        MultiplexSession stream = new MultiplexSession(session, streamId, path, frame.getOpenParameters(), getExecutorService(), closeReason -> {
+            MultiplexSession multiplexSession = holder[0];
+            streams.remove(streamId, multiplexSession);
+            multiplexSession.execute(() -> invoker.onClose(multiplexSession, closeReason));
+        });
+        holder[0] = stream;
+        stream.getUserProperties().put(EndpointInvoker.KEY, invoker.newInstance());
+        streams.put(streamId, stream);
+        SocketSessionUtil.sendBinary(session, MultiplexFrame.opened(streamId));
+        stream.execute(() -> invoker.onOpen(stream));
+    }
+
+    @Override
+    @OnClose
+    public void onClose(Session session, CloseReason closeReason) {
+        super.onClose(session, closeReason);
+        // 物理连接断开，关闭所有逻辑流
+        List<MultiplexSession> list = new ArrayList<>(streams.values());
+        streams.clear();
+        for (MultiplexSession stream : list) {
+            stream.remoteClose(closeReason);
+        }
+    }
+
+    @OnError
+    public void onError(Session session, Throwable thr) {
+        log.error("{}{}", session.getId(), I18nMessageUtil.get("i18n.socket_exception.d836"), thr);
+    }
+
+    private static Map<String, EndpointInvoker> getEndpoints() {
+        if (endpoints == null) {
+            synchronized (AgentWebSocketMultiplexHandle.class) {
+                if (endpoints == null) {
+                    ApplicationContext context = SpringUtil.getApplicationContext();
+                    Map<String, EndpointInvoker> map = new HashMap<>(8);
+                    for (String beanName : context.getBeanNamesForAnnotation(ServerEndpoint.class)) {
+                        Class<?> type = context.getType(beanName);
+                        if (type == null || type == AgentWebSocketMultiplexHandle.class) {
+                            continue;
+                        }
+                        ServerEndpoint serverEndpoint = type.getAnnotation(ServerEndpoint.class);
+                        if (serverEndpoint != null) {
+                            map.put(serverEndpoint.value(), new EndpointInvoker(type));
+                        }
+                    }
+                    endpoints = map;
+                }
+            }
+        }
+        return endpoints;
+    }
+
+    private static ExecutorService getExecutorService() {
+        if (executorService == null) {
+            synchronized (AgentWebSocketMultiplexHandle.class) {
+                if (executorService == null) {
+                    // 处理类中存在阻塞操作（执行命令、等待脚本），逻辑流之间互不等待。线程数受每个连接的逻辑流上限约束
+                    executorService = ExecutorBuilder.create()
+                        .setCorePoolSize(0)
+                        .setMaxPoolSize(Integer.MAX_VALUE)
+                        .useSynchronousQueue()
+                        .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("jpom-socket-multiplex-").setDaemon(true).build())
+                        .build();
+                    JpomApplication.register("socket-multiplex", executorService);
+                }
+            }
+        }
+        return executorService;
+    }
+
+    /**
+     * 调用原有处理类的注解方法
+     */
+    private static class EndpointInvoker {
+
+        private static final String KEY = "jpom-multiplex-endpoint";
+
+        private final Class<?> type;
+        private final Method onOpen;
+        private final Method onTextMessage;
+        private final Method onBinaryMessage;
+        private final Method onClose;
+        private final Method onError;
+
+        private EndpointInvoker(Class<?> type) {
+            this.type = type;
+            this.onOpen = findMethod(type, OnOpen.class, null);
+            this.onTextMessage = findMethod(type, OnMessage.class, String.class);
+            this.onBinaryMessage = findMethod(type, OnMessage.class, byte[].class);
+            this.onClose = findMethod(type, OnClose.class, null);
+            this.onError = findMethod(type, OnError.class, null);
+        }
+
+        private static Method findMethod(Class<?> type, Class<? extends Annotation> annotation, Class<?> messageType) {
+            for (Method method : type.getMethods()) {
+                if (!method.isAnnotationPresent(annotation)) {
+                    continue;
+                }
+                if (messageType == null) {
+                    return method;
+                }
+                for (Class<?> parameterType : method.getParameterTypes()) {
+                    if (parameterType == messageType) {
+                        return method;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private Object newInstance() {
+            return ReflectUtil.newInstance(type);
+        }
+
+        private void onOpen(MultiplexSession session) {
+            this.invoke(session, onOpen, null);
+        }
+
+        private void onMessage(MultiplexSession session, Object message) {
+            this.invoke(session, message instanceof String ? onTextMessage : onBinaryMessage, message);
+        }
+
+        private void onClose(MultiplexSession session, CloseReason closeReason) {
+            this.invoke(session, onClose, closeReason);
+        }
+
+        private void invoke(MultiplexSession session, Method method, Object value) {
+            if (method == null) {
+                return;
+            }
+            Object instance = session.getUserProperties().get(KEY);
+            try {
+                method.invoke(instance, this.arguments(method, session, value));
+            } catch (InvocationTargetException e) {
+                this.error(session, instance, e.getTargetException());
+            } catch (Exception e) {
+                this.error(session, instance, e);
+            }
+        }
+
+        private void error(MultiplexSession session, Object instance, Throwable throwable) {
+            if (onError == null) {
+                log.error("{}{}", session.getId(), I18nMessageUtil.get("i18n.socket_exception.d836"), throwable);
+                return;
+            }
+            try {
+                onError.invoke(instance, this.arguments(onError, session, throwable));
+            } catch (Exception e) {
+                log.error("{}{}", session.getId(), I18nMessageUtil.get("i18n.socket_exception.d836"), e);
+            }
+        }
+
+        private Object[] arguments(Method method, MultiplexSession session, Object value) {
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            Object[] args = new Object[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                Class<?> parameterType = parameterTypes[i];
+                if (parameterType == Session.class) {
+                    args[i] = session;
+                } else if (value != null && parameterType.isInstance(value)) {
+                    args[i] = value;
+                }
+            }
+            return args;
+        }
+    }
+}
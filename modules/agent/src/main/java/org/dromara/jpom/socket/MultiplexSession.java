@@ -0,0 +1,600 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.socket;
+
+import cn.hutool.core.net.url.UrlQuery;
+import cn.hutool.core.util.TypeUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.jpom.transport.MultiplexFrame;
+import org.dromara.jpom.transport.MultiplexWindow;
+import org.dromara.jpom.util.SocketSessionUtil;
+
+import javax.websocket.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * 多路复用连接上的逻辑流会话
+ * <p>
+ * 对插件端原有的 websocket 处理类表现为一个独立的会话，发送的消息加上流 id 后写入物理连接。
+ * 分片发送（partial、stream、writer）的消息在流内缓存，最后一片时作为一条完整的消息发送
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@Slf4j
+public class MultiplexSession implements Session {
+
+    /**
+     * 同步发送最长等待时间
+     */
+    private static final long SEND_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+
+    private final Session physical;
+    private final int streamId;
+    private final String path;
+    private final Map<String, List<String>> requestParameterMap;
+    private final Map<String, Object> userProperties = new ConcurrentHashMap<>();
+    /**
+     * 通过 addMessageHandler 添加的处理器，key 为 String.class 或者 ByteBuffer.class
+     */
+    private final Map<Class<?>, MessageHandler> messageHandlers = new ConcurrentHashMap<>();
+    /**
+     * 处理器接收的消息类型（byte[]、ByteBuffer）
+     */
+    private final Map<MessageHandler, Class<?>> messageHandlerTypes = new ConcurrentHashMap<>();
+    private final MultiplexWindow window = new MultiplexWindow();
+    /**
+     * 等待发送额度的消息
+     */
+    private final Deque<PendingFrame> pendingFrames = new ArrayDeque<>();
+    /**
+     * 待执行的处理任务，同一个流的消息按顺序处理
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Executor executor;
+    private final Consumer<CloseReason> closeConsumer;
+    private final Async async = new Async();
+    private final Basic basic = new Basic();
+    private boolean running;
+    private volatile boolean open = true;
+
+    MultiplexSession(Session physical, int streamId, String path, Map<String, String> parameters, Executor executor, Consumer<CloseReason> closeConsumer) {
+        this.physical = physical;
+        this.streamId = streamId;
+        this.path = path;
+        Map<String, List<String>> map = new HashMap<>(parameters.size());
+        parameters.forEach((key, value) -> map.put(key, Collections.singletonList(value)));
+        this.requestParameterMap = Collections.unmodifiableMap(map);
+        this.executor = executor;
+        this.closeConsumer = closeConsumer;
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * 按顺序执行处理任务
+     *
+     * @param runnable 任务
+     */
+    void execute(Runnable runnable) {
+        tasks.offer(runnable);
+        synchronized (tasks) {
+            if (running) {
+                return;
+            }
+            running = true;
+        }
+        executor.execute(this::runTasks);
+    }
+
+    private void runTasks() {
+        while (true) {
+            Runnable runnable = tasks.poll();
+            if (runnable == null) {
+                synchronized (tasks) {
+                    if (tasks.isEmpty()) {
+                        running = false;
+                        return;
+                    }
+                }
+                continue;
+            }
+            try {
+                runnable.run();
+            } catch (Exception e) {
+                log.error("multiplex stream task error {}", this.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * 处理完一条服务端的消息，归还额度
+     */
+    void consumed() {
+        int credit = window.consume();
+        if (credit > 0 && open) {
+            SocketSessionUtil.sendBinary(physical, MultiplexFrame.credit(streamId, credit));
+        }
+    }
+
+    /**
+     * 服务端归还额度
+     *
+     * @param count 数量
+     */
+    void release(int count) {
+        window.release(count);
+        this.drain();
+    }
+
+    /**
+     * 服务端关闭或者物理连接断开
+     *
+     * @param closeReason 关闭原因
+     */
+    void remoteClose(CloseReason closeReason) {
+        if (this.closed()) {
+            closeConsumer.accept(closeReason);
+        }
+    }
+
+    private boolean closed() {
+        List<PendingFrame> list;
+        synchronized (this) {
+            if (!open) {
+                return false;
+            }
+            open = false;
+            list = new ArrayList<>(pendingFrames);
+            pendingFrames.clear();
+        }
+        window.close();
+        IOException exception = new IOException("multiplex stream closed " + this.getId());
+        for (PendingFrame pendingFrame : list) {
+            pendingFrame.handler.onResult(new SendResult(exception));
+        }
+        return true;
+    }
+
+    private void send(ByteBuffer frame, SendHandler handler) {
+        synchronized (this) {
+            if (open) {
+                pendingFrames.offer(new PendingFrame(frame, handler));
+                frame = null;
+            }
+        }
+        if (frame != null) {
+            handler.onResult(new SendResult(new IOException("multiplex stream closed " + this.getId())));
+            return;
+        }
+        this.drain();
+    }
+
+    private void drain() {
+        while (true) {
+            PendingFrame pendingFrame;
+            synchronized (this) {
+                if (pendingFrames.isEmpty() || !window.tryAcquire()) {
+                    return;
+                }
+                pendingFrame = pendingFrames.poll();
+            }
+            SocketSessionUtil.sendBinary(physical, pendingFrame.frame).whenComplete((unused, throwable) -> {
+                if (throwable == null) {
+                    pendingFrame.handler.onResult(new SendResult());
+                } else {
+                    pendingFrame.handler.onResult(new SendResult(throwable));
+                }
+            });
+        }
+    }
+
+    private Future<Void> sendFuture(ByteBuffer frame) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        this.send(frame, result -> {
+            if (result.isOK()) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(result.getException());
+            }
+        });
+        return future;
+    }
+
+    private void sendBlocking(ByteBuffer frame) throws IOException {
+        try {
+            this.sendFuture(frame).get(SEND_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public RemoteEndpoint.Async getAsyncRemote() {
+        return async;
+    }
+
+    @Override
+    public RemoteEndpoint.Basic getBasicRemote() {
+        return basic;
+    }
+
+    @Override
+    public String getId() {
+        return physical.getId() + "-" + streamId;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open && physical.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, null));
+    }
+
+    @Override
+    public void close(CloseReason closeReason) throws IOException {
+        if (!this.closed()) {
+            return;
+        }
+        if (physical.isOpen()) {
+            SocketSessionUtil.sendBinary(physical, MultiplexFrame.close(streamId, closeReason.getCloseCode().getCode(), closeReason.getReasonPhrase()));
+        }
+        closeConsumer.accept(closeReason);
+    }
+
+    @Override
+    public Map<String, List<String>> getRequestParameterMap() {
+        return requestParameterMap;
+    }
+
+    @Override
+    public String getQueryString() {
+        Map<String, String> map = new LinkedHashMap<>();
+        requestParameterMap.forEach((key, value) -> map.put(key, value.get(0)));
+        return UrlQuery.of(map).build(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return URI.create(path);
+    }
+
+    @Override
+    public Map<String, String> getPathParameters() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Map<String, Object> getUserProperties() {
+        return userProperties;
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return physical.getUserPrincipal();
+    }
+
+    @Override
+    public Set<Session> getOpenSessions() {
+        return Collections.singleton(this);
+    }
+
+    @Override
+    public WebSocketContainer getContainer() {
+        return physical.getContainer();
+    }
+
+    @Override
+    public void addMessageHandler(MessageHandler handler) throws IllegalStateException {
+        Type type = TypeUtil.getTypeArgument(handler.getClass());
+        if (!(type instanceof Class)) {
+            throw new IllegalStateException("unknown message type " + handler);
+        }
+        this.putMessageHandler((Class<?>) type, handler);
+    }
+
+    @Override
+    public <T> void addMessageHandler(Class<T> clazz, MessageHandler.Whole<T> handler) {
+        this.putMessageHandler(clazz, handler);
+    }
+
+    @Override
+    public <T> void addMessageHandler(Class<T> clazz, MessageHandler.Partial<T> handler) {
+        this.putMessageHandler(clazz, handler);
+    }
+
+    private void putMessageHandler(Class<?> clazz, MessageHandler handler) {
+        Class<?> key;
+        if (clazz == String.class) {
+            key = String.class;
+        } else if (clazz == ByteBuffer.class || clazz == byte[].class) {
+            key = ByteBuffer.class;
+        } else {
+            throw new IllegalStateException("unsupported message type " + clazz);
+        }
+        if (messageHandlers.putIfAbsent(key, handler) != null) {
+            throw new IllegalStateException("duplicate message handler " + clazz);
+        }
+        messageHandlerTypes.put(handler, clazz);
+    }
+
+    /**
+     * 使用 addMessageHandler 添加的处理器处理消息
+     *
+     * @param message 消息（String、byte[]）
+     * @return false 没有对应的处理器
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    boolean onMessage(Object message) {
+        boolean text = message instanceof String;
+        MessageHandler handler = messageHandlers.get(text ? String.class : ByteBuffer.class);
+        if (handler == null) {
+            return false;
+        }
+        Object value = message;
+        if (!text && messageHandlerTypes.get(handler) == ByteBuffer.class) {
+            value = ByteBuffer.wrap((byte[]) message);
+        }
+        if (handler instanceof MessageHandler.Partial) {
+            // 逻辑流中的消息都是完整的消息
+            ((MessageHandler.Partial) handler).onMessage(value, true);
+        } else {
+            ((MessageHandler.Whole) handler).onMessage(value);
+        }
+        return true;
+    }
+
+    @Override
+    public Set<MessageHandler> getMessageHandlers() {
+        return new HashSet<>(messageHandlers.values());
+    }
+
+    @Override
+    public void removeMessageHandler(MessageHandler handler) {
+        messageHandlers.values().remove(handler);
+        messageHandlerTypes.remove(handler);
+    }
+
+    @Override
+    public String getProtocolVersion() {
+        return physical.getProtocolVersion();
+    }
+
+    @Override
+    public String getNegotiatedSubprotocol() {
+        return physical.getNegotiatedSubprotocol();
+    }
+
+    @Override
+    public List<Extension> getNegotiatedExtensions() {
+        return physical.getNegotiatedExtensions();
+    }
+
+    @Override
+    public boolean isSecure() {
+        return physical.isSecure();
+    }
+
+    @Override
+    public long getMaxIdleTimeout() {
+        return physical.getMaxIdleTimeout();
+    }
+
+    @Override
+    public void setMaxIdleTimeout(long milliseconds) {
+    }
+
+    @Override
+    public void setMaxBinaryMessageBufferSize(int length) {
+    }
+
+    @Override
+    public int getMaxBinaryMessageBufferSize() {
+        return physical.getMaxBinaryMessageBufferSize();
+    }
+
+    @Override
+    public void setMaxTextMessageBufferSize(int length) {
+    }
+
+    @Override
+    public int getMaxTextMessageBufferSize() {
+        return physical.getMaxTextMessageBufferSize();
+    }
+
+    @Override
+    public String toString() {
+        return "MultiplexSession{" + this.getId() + " " + path + "}";
+    }
+
+    private static class PendingFrame {
+        private final ByteBuffer frame;
+        private final SendHandler handler;
+
+        private PendingFrame(ByteBuffer frame, SendHandler handler) {
+            this.frame = frame;
+            this.handler = handler;
+        }
+    }
+
+    private abstract static class BaseRemote implements RemoteEndpoint {
+
+        @Override
+        public void setBatchingAllowed(boolean allowed) {
+        }
+
+        @Override
+        public boolean getBatchingAllowed() {
+            return false;
+        }
+
+        @Override
+        public void flushBatch() {
+        }
+
+        @Override
+        public void sendPing(ByteBuffer applicationData) {
+            // 物理连接维持心跳
+        }
+
+        @Override
+        public void sendPong(ByteBuffer applicationData) {
+        }
+    }
+
+    private class Async extends BaseRemote implements RemoteEndpoint.Async {
+        private long sendTimeout;
+
+        @Override
+        public long getSendTimeout() {
+            return sendTimeout;
+        }
+
+        @Override
+        public void setSendTimeout(long timeout) {
+            this.sendTimeout = timeout;
+        }
+
+        @Override
+        public void sendText(String text, SendHandler handler) {
+            MultiplexSession.this.send(MultiplexFrame.text(streamId, text), handler);
+        }
+
+        @Override
+        public Future<Void> sendText(String text) {
+            return MultiplexSession.this.sendFuture(MultiplexFrame.text(streamId, text));
+        }
+
+        @Override
+        public Future<Void> sendBinary(ByteBuffer data) {
+            return MultiplexSession.this.sendFuture(MultiplexFrame.binary(streamId, data));
+        }
+
+        @Override
+        public void sendBinary(ByteBuffer data, SendHandler handler) {
+            MultiplexSession.this.send(MultiplexFrame.binary(streamId, data), handler);
+        }
+
+        @Override
+        public Future<Void> sendObject(Object data) {
+            return this.sendText(String.valueOf(data));
+        }
+
+        @Override
+        public void sendObject(Object data, SendHandler handler) {
+            this.sendText(String.valueOf(data), handler);
+        }
+    }
+
+    private class Basic extends BaseRemote implements RemoteEndpoint.Basic {
+
+        private final StringBuilder partialText = new StringBuilder();
+        private final ByteArrayOutputStream partialBinary = new ByteArrayOutputStream();
+
+        @Override
+        public void sendText(String text) throws IOException {
+            MultiplexSession.this.sendBlocking(MultiplexFrame.text(streamId, text));
+        }
+
+        @Override
+        public void sendBinary(ByteBuffer data) throws IOException {
+            MultiplexSession.this.sendBlocking(MultiplexFrame.binary(streamId, data));
+        }
+
+        @Override
+        public void sendText(String partialMessage, boolean isLast) throws IOException {
+            String text;
+            synchronized (this) {
+                partialText.append(partialMessage);
+                if (!isLast) {
+                    return;
+                }
+                text = partialText.toString();
+                partialText.setLength(0);
+            }
+            this.sendText(text);
+        }
+
+        @Override
+        public void sendBinary(ByteBuffer partialByte, boolean isLast) throws IOException {
+            byte[] bytes;
+            synchronized (this) {
+                byte[] part = new byte[partialByte.remaining()];
+                partialByte.get(part);
+                partialBinary.write(part, 0, part.length);
+                if (!isLast) {
+                    return;
+                }
+                bytes = partialBinary.toByteArray();
+                partialBinary.reset();
+            }
+            this.sendBinary(ByteBuffer.wrap(bytes));
+        }
+
+        @Override
+        public OutputStream getSendStream() {
+            return new ByteArrayOutputStream() {
+                private boolean closed;
+
+                @Override
+                public void close() throws IOException {
+                    if (closed) {
+                        return;
+                    }
+                    closed = true;
+                    MultiplexSession.this.basic.sendBinary(ByteBuffer.wrap(this.toByteArray()));
+                }
+            };
+        }
+
+        @Override
+        public Writer getSendWriter() {
+            return new StringWriter() {
+                private boolean closed;
+
+                @Override
+                public void close() throws IOException {
+                    if (closed) {
+                        return;
+                    }
+                    closed = true;
+                    MultiplexSession.this.basic.sendText(this.toString());
+                }
+            };
+        }
+
+        @Override
+        public void sendObject(Object data) throws IOException {
+            this.sendText(String.valueOf(data));
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.dromara.jpom.JpomApplication;
 import org.dromara.jpom.common.ILoadEvent;
 import org.dromara.jpom.common.RemoteVersion;
 import org.dromara.jpom.common.commander.ProjectCommander;
+import org.dromara.jpom.common.commander.ProjectLogRotator;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
 import org.dromara.jpom.configuration.AgentAuthorize;
 import org.dromara.jpom.configuration.AgentConfig;
@@ -110,8 +111,9 @@ public class AgentStartInit implements ILoadEvent, ISystemTask {
         }
         DataSize autoBackSize = projectLogConfig.getAutoBackupSize();
         autoBackSize = Optional.ofNullable(autoBackSize).orElseGet(() -> DataSize.ofMegabytes(50));
+        File logBack = projectInfoService.resolveLogBack(nodeProjectInfoModel);
         long len = file.length();
-        if (len > autoBackSize.toBytes()) {
+        if (len > autoBackSize.toBytes() || ProjectLogRotator.reachPeriod(file, logBack, projectLogConfig.getAutoBackupPeriod())) {
             try {
                 projectCommander.backLog(nodeProjectInfoModel);
             } catch (Exception e) {
@@ -119,15 +121,7 @@ public class AgentStartInit implements ILoadEvent, ISystemTask {
             }
         }
         // 清理过期的文件
-        File logFile = projectInfoService.resolveLogBack(nodeProjectInfoModel);
-        DateTime nowTime = DateTime.now();
-        List<File> files = FileUtil.loopFiles(logFile, pathname -> {
-            DateTime dateTime = DateUtil.date(pathname.lastModified());
-            long days = DateUtil.betweenDay(dateTime, nowTime, false);
-            long saveDays = projectLogConfig.getSaveDays();
-            return days > saveDays;
-        });
-        files.forEach(FileUtil::del);
+        ProjectLogRotator.retain(logBack, projectLogConfig);
     }
 
     @Override
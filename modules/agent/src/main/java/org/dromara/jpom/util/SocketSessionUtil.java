@@ -9,17 +9,27 @@
  */
 package org.dromara.jpom.util;
 
-import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
 import cn.hutool.core.util.StrUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.dromara.jpom.JpomApplication;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
 import org.springframework.util.Assert;
 
+import javax.websocket.SendResult;
 import javax.websocket.Session;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
 
 /**
  * socket 会话对象
+ * <p>
+ * 每个会话一个发送队列，通过 getAsyncRemote 依次发送，同一个会话的消息不会并发写入
  *
  * @author bwcx_jzy
  * @since 2018/9/29
@@ -27,16 +37,26 @@ import java.io.IOException;
 @Slf4j
 public class SocketSessionUtil {
     /**
-     * 锁
+     * 会话属性中发送器的 key
      */
-    private static final KeyLock<String> LOCK = new KeyLock<>();
+    private static final String SENDER_KEY = "jpom-socket-sender";
     /**
-     * 错误尝试次数
+     * 异步消息最多排队数量，超过后丢弃
      */
-    private static final int ERROR_TRY_COUNT = 10;
+    private static final int MAX_QUEUE_SIZE = 1000;
+    /**
+     * 单条消息发送超时时间
+     */
+    private static final long SEND_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+    /**
+     * 同步发送最长等待时间（包含排队时间）
+     */
+    private static final long WAIT_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+
+    private static volatile ExecutorService executorService;
 
     /**
-     * 发送消息
+     * 发送消息，等待发送完成
      *
      * @param session 会话对象
      * @param msg     消息
@@ -47,30 +67,173 @@ public class SocketSessionUtil {
             return;
         }
         Assert.state(session.isOpen(), "session close ");
+        Future<Void> future = getSender(session).offer(msg, true);
         try {
-            LOCK.lock(session.getId());
-            IOException exception = null;
-            int tryCount = 0;
-            do {
-                tryCount++;
-                if (exception != null) {
-                    // 上一次有异常、休眠 500
-                    ThreadUtil.sleep(500);
+            future.get(WAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        } catch (TimeoutException e) {
+            throw new IOException(I18nMessageUtil.get("i18n.send_message_failure_prefix.6f8c"), e);
+        }
+    }
+
+    /**
+     * 异步发送消息，不等待发送完成。发送过慢时丢弃消息并在下一条消息前提示丢弃数量
+     *
+     * @param session 会话对象
+     * @param msg     消息
+     * @return false 会话已经发送失败
+     */
+    public static boolean sendAsync(final Session session, String msg) {
+        if (StrUtil.isEmpty(msg)) {
+            return true;
+        }
+        if (!session.isOpen()) {
+            return false;
+        }
+        SessionSender sender = getSender(session);
+        sender.offer(msg, false);
+        return !sender.failed;
+    }
+
+    /**
+     * 发送二进制消息，和文本消息共用发送队列，不会丢弃
+     *
+     * @param session 会话对象
+     * @param data    消息
+     * @return 发送结果
+     */
+    public static CompletableFuture<Void> sendBinary(final Session session, ByteBuffer data) {
+        return getSender(session).offer(data, true);
+    }
+
+    private static SessionSender getSender(Session session) {
+        return (SessionSender) session.getUserProperties().computeIfAbsent(SENDER_KEY, s -> new SessionSender(session));
+    }
+
+    private static ExecutorService getExecutorService() {
+        if (executorService == null) {
+            synchronized (SocketSessionUtil.class) {
+                if (executorService == null) {
+                    executorService = ExecutorBuilder.create()
+                        .setCorePoolSize(2)
+                        .setMaxPoolSize(2)
+                        .setWorkQueue(new LinkedBlockingQueue<>())
+                        .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("jpom-socket-send-").setDaemon(true).build())
+                        .build();
+                    JpomApplication.register("socket-send", executorService);
+                }
+            }
+        }
+        return executorService;
+    }
+
+    /**
+     * 会话发送队列
+     */
+    private static class SessionSender {
+        private final Session session;
+        private final Deque<Frame> queue = new ArrayDeque<>();
+        private boolean sending;
+        private int dropped;
+        private volatile boolean failed;
+
+        private SessionSender(Session session) {
+            this.session = session;
+            session.getAsyncRemote().setSendTimeout(SEND_TIMEOUT);
+        }
+
+        private CompletableFuture<Void> offer(Object msg, boolean wait) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            synchronized (this) {
+                if (failed) {
+                    future.completeExceptionally(new IOException("session send failed " + session.getId()));
+                    return future;
+                }
+                if (!wait && queue.size() >= MAX_QUEUE_SIZE) {
+                    // 需要等待的消息（控制类消息）不丢弃
+                    dropped++;
+                    future.complete(null);
+                    return future;
+                }
+                if (dropped > 0) {
+                    String notice = StrUtil.format(I18nMessageUtil.get("i18n.socket_send_dropped.814d"), dropped);
+                    queue.offer(new Frame(notice, new CompletableFuture<>()));
+                    dropped = 0;
+                }
+                queue.offer(new Frame(msg, future));
+                if (sending) {
+                    return future;
+                }
+                sending = true;
+            }
+            this.sendNext();
+            return future;
+        }
+
+        private void sendNext() {
+            Frame frame;
+            synchronized (this) {
+                frame = queue.poll();
+                if (frame == null) {
+                    sending = false;
+                    return;
+                }
+            }
+            try {
+                if (frame.msg instanceof ByteBuffer) {
+                    session.getAsyncRemote().sendBinary((ByteBuffer) frame.msg, result -> this.onResult(frame, result));
+                } else {
+                    session.getAsyncRemote().sendText((String) frame.msg, result -> this.onResult(frame, result));
                 }
-                try {
-                    session.getBasicRemote().sendText(msg);
-                    exception = null;
-                    break;
-                } catch (IOException e) {
-                    log.error("{}{}", I18nMessageUtil.get("i18n.send_message_failure_prefix.6f8c"), tryCount, e);
-                    exception = e;
+            } catch (RuntimeException e) {
+                this.onError(frame, e);
+            }
+        }
+
+        private void onResult(Frame frame, SendResult result) {
+            if (result.isOK()) {
+                frame.future.complete(null);
+                // 回调可能在发送线程中直接执行，切换线程避免递归
+                getExecutorService().execute(this::sendNext);
+            } else {
+                this.onError(frame, result.getException());
+            }
+        }
+
+        private void onError(Frame frame, Throwable throwable) {
+            log.error("{}{}", I18nMessageUtil.get("i18n.send_message_failure_prefix.6f8c"), session.getId(), throwable);
+            IOException exception = throwable instanceof IOException ? (IOException) throwable : new IOException(throwable);
+            frame.future.completeExceptionally(exception);
+            synchronized (this) {
+                failed = true;
+                sending = false;
+                Frame item;
+                while ((item = queue.poll()) != null) {
+                    item.future.completeExceptionally(exception);
                 }
-            } while (tryCount <= ERROR_TRY_COUNT);
-            if (exception != null) {
-                throw exception;
             }
-        } finally {
-            LOCK.unlock(session.getId());
+            IoUtil.close(session);
+        }
+    }
+
+    private static class Frame {
+        /**
+         * String 或者 ByteBuffer
+         */
+        private final Object msg;
+        private final CompletableFuture<Void> future;
+
+        private Frame(Object msg, CompletableFuture<Void> future) {
+            this.msg = msg;
+            this.future = future;
         }
     }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.common.commander;
+
+import cn.hutool.core.io.FileUtil;
+import org.dromara.jpom.configuration.ProjectLogConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 归档日志清理
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+public class ProjectLogRotatorTest {
+
+    private File backDir;
+
+    @BeforeEach
+    public void before() {
+        backDir = FileUtil.file(FileUtil.getTmpDir(), "jpom-log-rotator-test", String.valueOf(System.nanoTime()));
+    }
+
+    @AfterEach
+    public void after() {
+        FileUtil.del(backDir.getParentFile());
+    }
+
+    private File archive(String name, int daysAgo, int size) {
+        File file = FileUtil.writeBytes(new byte[size], FileUtil.file(backDir, name));
+        file.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(daysAgo) - TimeUnit.HOURS.toMillis(1));
+        return file;
+    }
+
+    @Test
+    public void testNoAgeLimit() {
+        File newest = this.archive("1.log", 1, 10);
+        File oldest = this.archive("2.log", 100, 10);
+        ProjectLogConfig config = new ProjectLogConfig();
+        config.setSaveDays(0);
+        ProjectLogRotator.retain(backDir, config);
+        Assertions.assertTrue(newest.exists());
+        Assertions.assertTrue(oldest.exists());
+    }
+
+    @Test
+    public void testSaveDays() {
+        File newest = this.archive("1.log", 0, 10);
+        File keep = this.archive("2.log", 3, 10);
+        File expire = this.archive("3.log", 4, 10);
+        ProjectLogConfig config = new ProjectLogConfig();
+        config.setSaveDays(3);
+        ProjectLogRotator.retain(backDir, config);
+        Assertions.assertTrue(newest.exists());
+        // 相差天数等于保存天数时保留
+        Assertions.assertTrue(keep.exists());
+        Assertions.assertFalse(expire.exists());
+    }
+
+    @Test
+    public void testKeepNewest() {
+        File newest = this.archive("1.log", 30, 100);
+        File other = this.archive("2.log", 31, 10);
+        ProjectLogConfig config = new ProjectLogConfig();
+        config.setSaveDays(7);
+        config.setSaveTotalSize(DataSize.ofBytes(50));
+        ProjectLogRotator.retain(backDir, config);
+        // 超过保存天数、总大小也保留最新的一个
+        Assertions.assertTrue(newest.exists());
+        Assertions.assertFalse(other.exists());
+    }
+
+    @Test
+    public void testSaveCount() {
+        File newest = this.archive("1.log", 0, 10);
+        File second = this.archive("2.log", 1, 10);
+        File third = this.archive("3.log", 2, 10);
+        ProjectLogConfig config = new ProjectLogConfig();
+        config.setSaveCount(2);
+        ProjectLogRotator.retain(backDir, config);
+        Assertions.assertTrue(newest.exists());
+        Assertions.assertTrue(second.exists());
+        Assertions.assertFalse(third.exists());
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.benchmark;
+
+import org.dromara.jpom.db.TableName;
+
+/**
+ * 基准测试数据表（字段和构建历史相近）
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@TableName(value = "BENCHMARK_ROW", nameKey = "benchmark")
+public class BenchmarkRowModel {
+
+    public static final String CREATE_SQL = "CREATE TABLE IF NOT EXISTS BENCHMARK_ROW (" +
+        "id VARCHAR(50) NOT NULL PRIMARY KEY, createTimeMillis BIGINT, modifyTimeMillis BIGINT, modifyUser VARCHAR(50), " +
+        "workspaceId VARCHAR(50), name VARCHAR(100), buildDataId VARCHAR(50), buildNumberId INT, status INT, " +
+        "statusMsg CLOB, startTime BIGINT, endTime BIGINT, resultFileSize BIGINT, triggerBuildType INT, " +
+        "buildRemark VARCHAR(255), resultDirFile VARCHAR(200))";
+
+    private String id;
+    private Long createTimeMillis;
+    private Long modifyTimeMillis;
+    private String modifyUser;
+    private String workspaceId;
+    private String name;
+    private String buildDataId;
+    private Integer buildNumberId;
+    private Integer status;
+    private String statusMsg;
+    private Long startTime;
+    private Long endTime;
+    private Long resultFileSize;
+    private Integer triggerBuildType;
+    private String buildRemark;
+    private String resultDirFile;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Long getCreateTimeMillis() {
+        return createTimeMillis;
+    }
+
+    public void setCreateTimeMillis(Long createTimeMillis) {
+        this.createTimeMillis = createTimeMillis;
+    }
+
+    public Long getModifyTimeMillis() {
+        return modifyTimeMillis;
+    }
+
+    public void setModifyTimeMillis(Long modifyTimeMillis) {
+        this.modifyTimeMillis = modifyTimeMillis;
+    }
+
+    public String getModifyUser() {
+        return modifyUser;
+    }
+
+    public void setModifyUser(String modifyUser) {
+        this.modifyUser = modifyUser;
+    }
+
+    public String getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public void setWorkspaceId(String workspaceId) {
+        this.workspaceId = workspaceId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getBuildDataId() {
+        return buildDataId;
+    }
+
+    public void setBuildDataId(String buildDataId) {
+        this.buildDataId = buildDataId;
+    }
+
+    public Integer getBuildNumberId() {
+        return buildNumberId;
+    }
+
+    public void setBuildNumberId(Integer buildNumberId) {
+        this.buildNumberId = buildNumberId;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public String getStatusMsg() {
+        return statusMsg;
+    }
+
+    public void setStatusMsg(String statusMsg) {
+        this.statusMsg = statusMsg;
+    }
+
+    public Long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Long startTime) {
+        this.startTime = startTime;
+    }
+
+    public Long getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(Long endTime) {
+        this.endTime = endTime;
+    }
+
+    public Long getResultFileSize() {
+        return resultFileSize;
+    }
+
+    public void setResultFileSize(Long resultFileSize) {
+        this.resultFileSize = resultFileSize;
+    }
+
+    public Integer getTriggerBuildType() {
+        return triggerBuildType;
+    }
+
+    public void setTriggerBuildType(Integer triggerBuildType) {
+        this.triggerBuildType = triggerBuildType;
+    }
+
+    public String getBuildRemark() {
+        return buildRemark;
+    }
+
+    public void setBuildRemark(String buildRemark) {
+        this.buildRemark = buildRemark;
+    }
+
+    public String getResultDirFile() {
+        return resultDirFile;
+    }
+
+    public void setResultDirFile(String resultDirFile) {
+        this.resultDirFile = resultDirFile;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.benchmark;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.extra.spring.SpringUtil;
+import cn.keepbx.jpom.JpomAppType;
+import cn.keepbx.jpom.Type;
+import org.dromara.jpom.common.LocaleConfig;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * 基准测试公共方法
+ * <p>
+ * 不启动完整的 spring 容器，只注册被测代码需要的配置对象；测试数据使用固定随机种子生成，保证多次运行结果可以对比
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+public class BenchmarkSupport {
+
+    /**
+     * 固定随机种子
+     */
+    public static final long SEED = 20261019L;
+
+    private static final String[] LEVELS = {"INFO", "INFO", "INFO", "DEBUG", "WARN", "ERROR"};
+    private static final String[] LOGGERS = {
+        "o.d.j.build.BuildExecuteManage", "o.d.j.socket.ServiceFileTailWatcher",
+        "o.s.web.servlet.DispatcherServlet", "c.z.hikari.pool.HikariPool"};
+
+    private static GenericApplicationContext context;
+
+    /**
+     * 注册被测代码通过 SpringUtil 获取的对象
+     *
+     * @param beans 对象
+     */
+    public static synchronized void registerBeans(Object... beans) {
+        if (context == null) {
+            context = new GenericApplicationContext();
+            // 日志、异常信息使用的国际化
+            context.getBeanFactory().registerSingleton(AbstractApplicationContext.MESSAGE_SOURCE_BEAN_NAME, new LocaleConfig().messageSource());
+            context.getBeanFactory().registerSingleton(BenchmarkApplication.class.getName(), new BenchmarkApplication());
+            context.refresh();
+            new SpringUtil().setApplicationContext(context);
+        }
+        for (Object bean : beans) {
+            String name = bean.getClass().getName();
+            if (!context.getBeanFactory().containsSingleton(name)) {
+                context.getBeanFactory().registerSingleton(name, bean);
+            }
+        }
+    }
+
+    /**
+     * 创建临时目录
+     *
+     * @param name 名称
+     * @return 目录
+     */
+    public static File tempDir(String name) throws IOException {
+        return Files.createTempDirectory("jpom-benchmark-" + name).toFile();
+    }
+
+    public static void delete(File file) {
+        FileUtil.del(file);
+    }
+
+    /**
+     * 生成模拟的项目控制台日志
+     *
+     * @param file    文件
+     * @param size    文件大小（字节）
+     * @param keyword 间隔插入的关键词，用于搜索
+     */
+    public static void writeLogFile(File file, long size, String keyword) throws IOException {
+        Random random = new Random(SEED);
+        long written = 0;
+        int line = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            while (written < size) {
+                line++;
+                StringBuilder builder = new StringBuilder(160);
+                builder.append("2026-10-19 10:").append(line % 60).append(':').append(random.nextInt(60)).append('.').append(random.nextInt(1000))
+                    .append(' ').append(LEVELS[random.nextInt(LEVELS.length)])
+                    .append(" [jpom-").append(random.nextInt(16)).append("] ")
+                    .append(LOGGERS[random.nextInt(LOGGERS.length)]).append(" - ");
+                if (line % 997 == 0) {
+                    builder.append(keyword).append(' ');
+                }
+                int words = 5 + random.nextInt(20);
+                for (int i = 0; i < words; i++) {
+                    builder.append(randomWord(random)).append(' ');
+                }
+                String text = builder.toString();
+                writer.write(text);
+                writer.newLine();
+                written += text.length() + 1;
+            }
+        }
+    }
+
+    /**
+     * 生成文件内容为随机字节的文件
+     *
+     * @param file 文件
+     * @param size 大小
+     */
+    public static void writeRandomFile(File file, long size) throws IOException {
+        Random random = new Random(SEED);
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream outputStream = Files.newOutputStream(file.toPath())) {
+            long written = 0;
+            while (written < size) {
+                random.nextBytes(buffer);
+                int len = (int) Math.min(buffer.length, size - written);
+                outputStream.write(buffer, 0, len);
+                written += len;
+            }
+        }
+    }
+
+    public static String randomWord(Random random) {
+        int len = 3 + random.nextInt(8);
+        char[] chars = new char[len];
+        for (int i = 0; i < len; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    public static String randomText(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length + 16);
+        while (builder.length() < length) {
+            builder.append(randomWord(random)).append(random.nextInt(10) == 0 ? '\n' : ' ');
+        }
+        return builder.substring(0, length);
+    }
+
+    /**
+     * 代替启动类，部分代码通过 {@link org.dromara.jpom.JpomApplication#getAppType()}、
+     * {@link org.dromara.jpom.JpomApplication#getAppClass()} 获取程序类型和运行路径（不会启动）
+     */
+    @SpringBootApplication
+    @JpomAppType(Type.Server)
+    private static class BenchmarkApplication {
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.benchmark;
+
+import cn.hutool.db.Entity;
+import cn.hutool.db.Page;
+import org.dromara.jpom.db.BaseDbCommonService;
+import org.dromara.jpom.db.DbExtConfig;
+import org.dromara.jpom.db.StorageServiceFactory;
+import org.dromara.jpom.model.PageResultDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据库查询结果转换为实体（嵌入式 H2）
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DbRowMappingBenchmark {
+
+    private static final int TOTAL = 20000;
+
+    /**
+     * 每次查询的行数
+     */
+    @Param({"100", "5000"})
+    private int rows;
+
+    private File dir;
+    private RowService rowService;
+    private List<Entity> entities;
+
+    @Setup
+    public void setup() throws Exception {
+        dir = BenchmarkSupport.tempDir("h2");
+        DbExtConfig dbExtConfig = new DbExtConfig();
+        dbExtConfig.setMode(DbExtConfig.Mode.H2);
+        dbExtConfig.setUrl("jdbc:h2:" + new File(dir, "benchmark").getAbsolutePath() + ";MODE=MYSQL");
+        BenchmarkSupport.registerBeans(dbExtConfig);
+        StorageServiceFactory.setMode(DbExtConfig.Mode.H2);
+        StorageServiceFactory.get().init(dbExtConfig);
+        rowService = new RowService();
+        rowService.execute(BenchmarkRowModel.CREATE_SQL);
+        rowService.insert(TOTAL);
+        entities = rowService.query("select * from BENCHMARK_ROW limit ?", rows);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        StorageServiceFactory.get().close();
+        BenchmarkSupport.delete(dir);
+    }
+
+    /**
+     * 查询并直接从结果集转换
+     */
+    @Benchmark
+    public List<BenchmarkRowModel> queryBeanList() {
+        return rowService.queryBeanList("select * from BENCHMARK_ROW limit ?", false, rows);
+    }
+
+    /**
+     * 分页查询（count + page）
+     */
+    @Benchmark
+    public PageResultDto<BenchmarkRowModel> listPage() {
+        Entity where = Entity.create();
+        where.set("workspaceId", "DEFAULT");
+        return rowService.listPageDb(where, new Page(1, rows), false);
+    }
+
+    /**
+     * 只转换已经查询出的行数据
+     */
+    @Benchmark
+    public List<BenchmarkRowModel> entityToBeanList() {
+        return rowService.entityToBeanList(entities, false);
+    }
+
+    public static class RowService extends BaseDbCommonService<BenchmarkRowModel> {
+
+        private void insert(int total) {
+            Random random = new Random(BenchmarkSupport.SEED);
+            List<BenchmarkRowModel> list = new ArrayList<>(1000);
+            for (int i = 0; i < total; i++) {
+                BenchmarkRowModel model = new BenchmarkRowModel();
+                model.setId("row-" + i);
+                model.setCreateTimeMillis(1760000000000L + i);
+                model.setModifyTimeMillis(1760000000000L + i);
+                model.setModifyUser("admin");
+                model.setWorkspaceId(i % 4 == 0 ? "DEFAULT" : "workspace-" + i % 4);
+                model.setName(BenchmarkSupport.randomWord(random));
+                model.setBuildDataId("build-" + i % 50);
+                model.setBuildNumberId(i / 50);
+                model.setStatus(random.nextInt(6));
+                model.setStatusMsg(BenchmarkSupport.randomText(random, 120));
+                model.setStartTime(1760000000000L + i * 1000L);
+                model.setEndTime(1760000000000L + i * 1000L + random.nextInt(600000));
+                model.setResultFileSize((long) random.nextInt(100 * 1024 * 1024));
+                model.setTriggerBuildType(random.nextInt(4));
+                model.setBuildRemark(BenchmarkSupport.randomText(random, 30));
+                model.setResultDirFile("/dist");
+                list.add(model);
+                if (list.size() >= 1000) {
+                    this.insertBatchDb(list);
+                    list.clear();
+                }
+            }
+            this.insertBatchDb(list);
+        }
+    }
+}
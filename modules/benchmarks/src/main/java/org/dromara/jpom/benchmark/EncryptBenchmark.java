@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.benchmark;
+
+import org.dromara.jpom.encrypt.EncryptFactory;
+import org.dromara.jpom.encrypt.Encryptor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 前端表单传输加密（每个参数单独加解密）
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EncryptBenchmark {
+
+    /**
+     * 1 BASE64，2 AES，3 AES-GCM
+     */
+    @Param({"1", "2", "3"})
+    private int type;
+
+    private Encryptor encryptor;
+    private Map<String, String> form;
+    private Map<String, String> encryptedForm;
+
+    @Setup
+    public void setup() throws Exception {
+        encryptor = EncryptFactory.createEncryptor(type, "jpomAgent@benchmark");
+        Random random = new Random(BenchmarkSupport.SEED);
+        form = new LinkedHashMap<>();
+        // 构建、脚本编辑的表单：若干短参数和一段较长的脚本内容
+        for (int i = 0; i < 20; i++) {
+            form.put("field" + i, BenchmarkSupport.randomText(random, 8 + random.nextInt(40)));
+        }
+        form.put("script", BenchmarkSupport.randomText(random, 64 * 1024));
+        encryptedForm = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : form.entrySet()) {
+            encryptedForm.put(encryptor.encrypt(entry.getKey()), encryptor.encrypt(entry.getValue()));
+        }
+    }
+
+    @Benchmark
+    public void encryptForm(Blackhole blackhole) throws Exception {
+        for (Map.Entry<String, String> entry : form.entrySet()) {
+            blackhole.consume(encryptor.encrypt(entry.getKey()));
+            blackhole.consume(encryptor.encrypt(entry.getValue()));
+        }
+    }
+
+    @Benchmark
+    public void decryptForm(Blackhole blackhole) throws Exception {
+        for (Map.Entry<String, String> entry : encryptedForm.entrySet()) {
+            blackhole.consume(encryptor.decrypt(entry.getKey()));
+            blackhole.consume(encryptor.decrypt(entry.getValue()));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.benchmark;
+
+import com.alibaba.fastjson2.JSONObject;
+import org.dromara.jpom.util.JsonFileUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 插件端 json 数据文件（项目、脚本等）读取
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JsonFileBenchmark {
+
+    /**
+     * 数据条数
+     */
+    @Param({"100", "2000"})
+    private int entries;
+
+    private File dir;
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = BenchmarkSupport.tempDir("json");
+        file = new File(dir, "project_info.json");
+        Random random = new Random(BenchmarkSupport.SEED);
+        JSONObject jsonObject = new JSONObject();
+        for (int i = 0; i < entries; i++) {
+            String id = "project-" + i;
+            JSONObject item = new JSONObject();
+            item.put("id", id);
+            item.put("name", BenchmarkSupport.randomWord(random) + "-" + i);
+            item.put("group", BenchmarkSupport.randomWord(random));
+            item.put("runMode", "Dsl");
+            item.put("whitelistDirectory", "/home/jpom/projects");
+            item.put("lib", id);
+            item.put("logPath", "/home/jpom/logs");
+            item.put("dslContent", BenchmarkSupport.randomText(random, 600));
+            item.put("createTimeMillis", 1760000000000L + i);
+            item.put("modifyTimeMillis", 1760000000000L + i * 2L);
+            item.put("workspaceId", "DEFAULT");
+            jsonObject.put(id, item);
+        }
+        JsonFileUtil.saveJson(file, jsonObject);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkSupport.delete(dir);
+    }
+
+    @Benchmark
+    public JSONObject readJson() throws IOException {
+        return JsonFileUtil.readJson(file);
+    }
+}
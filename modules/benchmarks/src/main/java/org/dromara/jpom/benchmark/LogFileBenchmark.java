@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.benchmark;
+
+import cn.hutool.core.util.CharsetUtil;
+import com.alibaba.fastjson2.JSONObject;
+import org.dromara.jpom.util.FileSearchUtil;
+import org.dromara.jpom.util.FileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 控制台日志读取、搜索
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class LogFileBenchmark {
+
+    private static final String KEYWORD = "jpomBenchmarkKeyword";
+    /**
+     * 从头搜索的行数
+     */
+    private static final int HEAD_LINES = 100000;
+    /**
+     * 搜索文件末尾的行数（页面默认 100 行）
+     */
+    private static final int TAIL_LINES = 1000;
+
+    /**
+     * 日志文件大小（MB）
+     */
+    @Param({"16", "128"})
+    private int sizeMb;
+
+    private File dir;
+    private File file;
+    private int tailLine;
+
+    @Setup
+    public void setup() throws IOException {
+        // 搜索的日志信息使用国际化
+        BenchmarkSupport.registerBeans();
+        dir = BenchmarkSupport.tempDir("log");
+        file = new File(dir, "console.log");
+        BenchmarkSupport.writeLogFile(file, sizeMb * 1024L * 1024L, KEYWORD);
+        // 从倒数一千行开始读取（控制台追加日志的场景）
+        JSONObject jsonObject = FileUtils.readLogFile(file, 1);
+        tailLine = Math.max(jsonObject.getIntValue("line") - 1000, 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkSupport.delete(dir);
+    }
+
+    @Benchmark
+    public JSONObject readLogFileTail() {
+        return FileUtils.readLogFile(file, tailLine);
+    }
+
+    @Benchmark
+    public String searchHead(Blackhole blackhole) throws IOException {
+        return FileSearchUtil.searchList(file, CharsetUtil.CHARSET_UTF_8, KEYWORD, 10, 10, HEAD_LINES, 0, true, blackhole::consume);
+    }
+
+    @Benchmark
+    public String searchTail(Blackhole blackhole) throws IOException {
+        return FileSearchUtil.searchList(file, CharsetUtil.CHARSET_UTF_8, KEYWORD, 10, 10, 0, TAIL_LINES, false, blackhole::consume);
+    }
+}
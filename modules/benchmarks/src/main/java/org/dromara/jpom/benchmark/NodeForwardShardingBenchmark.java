@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.benchmark;
+
+import cn.hutool.core.lang.Singleton;
+import cn.keepbx.jpom.model.JsonMessage;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import org.dromara.jpom.common.forward.NodeForward;
+import org.dromara.jpom.common.forward.NodeUrl;
+import org.dromara.jpom.func.assets.model.MachineNodeModel;
+import org.dromara.jpom.system.ServerConfig;
+import org.dromara.jpom.transport.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 节点分片上传（读取分片、计算 md5、并发提交）
+ * <p>
+ * 使用空的传输实现代替插件端，只统计服务端自身的开销
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class NodeForwardShardingBenchmark {
+
+    /**
+     * 文件大小（MB）
+     */
+    @Param({"16", "128"})
+    private int sizeMb;
+
+    private File dir;
+    private File file;
+    private MachineNodeModel machineNodeModel;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkSupport.registerBeans(new ServerConfig(null));
+        Singleton.put(TransportServer.class.getName(), new NoopTransportServer());
+        dir = BenchmarkSupport.tempDir("sharding");
+        file = new File(dir, "agent.jar");
+        BenchmarkSupport.writeRandomFile(file, sizeMb * 1024L * 1024L);
+        // 没有 id 不会查询数据库
+        machineNodeModel = new MachineNodeModel();
+        machineNodeModel.setJpomUrl("127.0.0.1:2123");
+        machineNodeModel.setJpomProtocol("http");
+        machineNodeModel.setJpomTimeout(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkSupport.delete(dir);
+    }
+
+    @Benchmark
+    public JsonMessage<Object> requestSharding() throws Exception {
+        return NodeForward.requestSharding(machineNodeModel, NodeUrl.SystemUploadJar, new JSONObject(), file, null, (total, progress) -> {
+        });
+    }
+
+    /**
+     * 只返回成功结果的传输实现
+     */
+    private static class NoopTransportServer implements TransportServer {
+
+        private static final String SUCCESS = JSON.toJSONString(new JsonMessage<>(200, "ok"));
+
+        @Override
+        public String execute(INodeInfo nodeInfo, IUrlItem urlItem, Object data) {
+            return SUCCESS;
+        }
+
+        @Override
+        public void download(INodeInfo nodeInfo, IUrlItem urlItem, Object data, Consumer<DownloadCallback> consumer) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public IProxyWebSocket websocket(INodeInfo nodeInfo, IUrlItem urlItem, Object... parameters) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
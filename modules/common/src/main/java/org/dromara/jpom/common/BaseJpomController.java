@@ -12,7 +12,8 @@ package org.dromara.jpom.common;
 import cn.hutool.core.convert.Convert;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.*;
-import cn.hutool.crypto.SecureUtil;
+import cn.hutool.crypto.digest.DigestAlgorithm;
+import cn.hutool.crypto.digest.DigestUtil;
 import cn.hutool.extra.servlet.ServletUtil;
 import lombok.Lombok;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +31,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -107,6 +109,25 @@ public abstract class BaseJpomController {
                                  String sliceId,
                                  Integer totalSlice,
                                  String fileSumMd5) throws IOException {
+        return shardingTryMerge(tempPath, sliceId, totalSlice, fileSumMd5, null);
+    }
+
+    /**
+     * 合并分片，合并时同时计算文件签名
+     *
+     * @param tempPath   临时保存目录
+     * @param sliceId    上传id
+     * @param totalSlice 累积分片
+     * @param fileSumMd5 文件签名
+     * @param targetDir  合并后保存的目录，为空合并到临时目录
+     * @return 合并后的文件
+     * @throws IOException io
+     */
+    public File shardingTryMerge(String tempPath,
+                                 String sliceId,
+                                 Integer totalSlice,
+                                 String fileSumMd5,
+                                 File targetDir) throws IOException {
         Assert.hasText(fileSumMd5, I18nMessageUtil.get("i18n.file_signature_info_not_found.83bf"));
         Assert.hasText(sliceId, I18nMessageUtil.get("i18n.no_shard_id_info.30f8"));
 
@@ -123,7 +144,9 @@ public abstract class BaseJpomController {
         // 文件真实名称
         String name = files[0].getName();
         name = StrUtil.subBefore(name, StrUtil.DOT, true);
-        File successFile = FileUtil.file(slicePath, name);
+        File successFile = FileUtil.file(targetDir == null ? slicePath : targetDir, name);
+        FileUtil.mkParentDirs(successFile);
+        MessageDigest digest = DigestUtil.digester(DigestAlgorithm.MD5).getDigest();
         try (FileOutputStream fileOutputStream = new FileOutputStream(successFile)) {
             try (FileChannel channel = fileOutputStream.getChannel()) {
                 Arrays.stream(files).sorted((o1, o2) -> {
@@ -133,7 +156,7 @@ public abstract class BaseJpomController {
                     return o1Int.compareTo(o2Int);
                 }).forEach(file12 -> {
                     try {
-                        FileUtils.appendChannel(file12, channel);
+                        FileUtils.appendChannel(file12, channel, digest);
                     } catch (Exception e) {
                         throw Lombok.sneakyThrow(e);
                     }
@@ -143,7 +166,7 @@ public abstract class BaseJpomController {
         // 删除分片信息
         FileUtil.del(sliceItemPath);
         // 对比文件信息
-        String newMd5 = SecureUtil.md5(successFile);
+        String newMd5 = HexUtil.encodeHexStr(digest.digest());
         Assert.state(StrUtil.equals(newMd5, fileSumMd5), () -> {
             log.warn(I18nMessageUtil.get("i18n.file_merge_exception_details.e9d0"), FileUtil.getAbsolutePath(successFile), newMd5, fileSumMd5);
             return I18nMessageUtil.get("i18n.file_merge_error.f32f");
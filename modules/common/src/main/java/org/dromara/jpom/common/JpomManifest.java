@@ -62,6 +62,10 @@ public class JpomManifest {
      * 允许降级
      */
     private volatile static boolean allowedDowngrade;
+    /**
+     * 当前运行 jar 的摘要
+     */
+    private volatile static String jarDigest;
     /**
      * 当前版本
      */
@@ -224,6 +228,26 @@ public class JpomManifest {
         return jarFile;
     }
 
+    /**
+     * 获取当前运行 jar 的摘要（sha1），用于判断是否需要升级。非 jar 包运行返回 null
+     *
+     * @return sha1
+     */
+    public static String jarDigest() {
+        if (jarDigest == null) {
+            synchronized (JpomManifest.class) {
+                if (jarDigest == null) {
+                    File file = Optional.ofNullable(getInstance().getJarFile()).map(FileUtil::file).orElse(null);
+                    if (!FileUtil.isFile(file)) {
+                        return null;
+                    }
+                    jarDigest = SecureUtil.sha1(file);
+                }
+            }
+        }
+        return jarDigest;
+    }
+
     public void setJarFile(String jarFile) {
         this.jarFile = jarFile;
     }
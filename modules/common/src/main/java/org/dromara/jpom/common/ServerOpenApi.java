@@ -62,6 +62,16 @@ public class ServerOpenApi {
      */
     public static final String BUILD_TRIGGER_LOG = API + "build_log";
 
+    /**
+     * 获取构建触发器队列中排队的触发
+     */
+    public static final String BUILD_TRIGGER_QUEUE = API + "build_queue";
+
+    /**
+     * 取消构建触发器队列中排队的触发
+     */
+    public static final String BUILD_TRIGGER_QUEUE_CANCEL = API + "build_queue_cancel";
+
     /**
      * SSH 脚本执行, 第一级脚本id,第二级token
      */
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.common.transport;
+
+import cn.hutool.core.io.IoUtil;
+import org.dromara.jpom.encrypt.AesGcmEncryptor;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+
+/**
+ * 读取时解密的上传文件
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+public class DecryptMultipartFile implements MultipartFile {
+
+    private final MultipartFile multipartFile;
+    private final AesGcmEncryptor encryptor;
+
+    public DecryptMultipartFile(MultipartFile multipartFile, AesGcmEncryptor encryptor) {
+        this.multipartFile = multipartFile;
+        this.encryptor = encryptor;
+    }
+
+    @Override
+    public String getName() {
+        return multipartFile.getName();
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return multipartFile.getOriginalFilename();
+    }
+
+    @Override
+    public String getContentType() {
+        return multipartFile.getContentType();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return getSize() == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return AesGcmEncryptor.plainLength(multipartFile.getSize());
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        try (InputStream inputStream = getInputStream()) {
+            return IoUtil.readBytes(inputStream);
+        }
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        try {
+            return encryptor.decrypt(multipartFile.getInputStream());
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException, IllegalStateException {
+        try (InputStream inputStream = getInputStream(); OutputStream outputStream = Files.newOutputStream(dest.toPath())) {
+            IoUtil.copy(inputStream, outputStream);
+        }
+    }
+}
@@ -12,6 +12,7 @@ package org.dromara.jpom.common.transport;
 import cn.hutool.core.util.ArrayUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
+import org.dromara.jpom.encrypt.AesGcmEncryptor;
 import org.dromara.jpom.encrypt.Encryptor;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -21,7 +22,6 @@ import org.springframework.web.multipart.support.StandardMultipartHttpServletReq
 import javax.servlet.http.HttpServletRequest;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -35,23 +35,20 @@ public class MultipartRequestWrapper extends StandardMultipartHttpServletRequest
 
     public MultipartRequestWrapper(HttpServletRequest request, Encryptor encryptor) {
         super(request);
-        Map<String, String[]> parameterMap = super.getParameterMap();
-        Map<String, String[]> decryptMap = new HashMap<>();
-        try {
-            for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
-                String key = entry.getKey();
-                String[] value = entry.getValue();
-                for (int i = 0; i < value.length; i++) {
-                    value[i] = encryptor.decrypt(value[i]);
-                }
-                decryptMap.put(encryptor.decrypt(key), value);
-            }
-        } catch (Exception e) {
-            log.error(I18nMessageUtil.get("i18n.decrypt_failure.ad83"), e);
-        }
-        this.parameterMap = decryptMap;
+        this.parameterMap = ParameterRequestWrapper.decryptParameterMap(super.getParameterMap(), encryptor);
         // 处理文件名
         MultiValueMap<String, MultipartFile> multipartFiles = super.getMultipartFiles();
+        if (encryptor instanceof AesGcmEncryptor) {
+            // 文件名不加密，文件内容读取时解密
+            MultiValueMap<String, MultipartFile> files = new LinkedMultiValueMap<>(multipartFiles.size());
+            multipartFiles.forEach((key, list) -> {
+                for (MultipartFile multipartFile : list) {
+                    files.add(key, new DecryptMultipartFile(multipartFile, (AesGcmEncryptor) encryptor));
+                }
+            });
+            setMultipartFiles(files);
+            return;
+        }
         try {
             MultiValueMap<String, MultipartFile> files = new LinkedMultiValueMap<>(multipartFiles.size());
             for (String key : multipartFiles.keySet()) {
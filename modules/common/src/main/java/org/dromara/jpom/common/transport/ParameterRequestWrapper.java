@@ -10,8 +10,10 @@
 package org.dromara.jpom.common.transport;
 
 import cn.hutool.core.util.ArrayUtil;
+import com.alibaba.fastjson2.JSONObject;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
+import org.dromara.jpom.encrypt.AesGcmEncryptor;
 import org.dromara.jpom.encrypt.Encryptor;
 
 import javax.servlet.http.HttpServletRequest;
@@ -32,8 +34,34 @@ public class ParameterRequestWrapper extends HttpServletRequestWrapper {
 
     public ParameterRequestWrapper(HttpServletRequest request, Encryptor encryptor) {
         super(request);
-        Map<String, String[]> parameterMap = request.getParameterMap();
+        this.parameterMap = decryptParameterMap(request.getParameterMap(), encryptor);
+    }
+
+    /**
+     * 解密参数
+     *
+     * @param parameterMap 请求参数
+     * @param encryptor    解密实现
+     * @return 解密后的参数
+     * @throws IllegalArgumentException aes-gcm 解密或者认证失败
+     */
+    static Map<String, String[]> decryptParameterMap(Map<String, String[]> parameterMap, Encryptor encryptor) {
         Map<String, String[]> decryptMap = new HashMap<>();
+        if (encryptor instanceof AesGcmEncryptor) {
+            // 表单整体加密为一个字段，认证失败不能当作空参数继续处理
+            String data = ArrayUtil.get(parameterMap.get(AesGcmEncryptor.FORM_DATA_KEY), 0);
+            if (data != null) {
+                try {
+                    JSONObject jsonObject = JSONObject.parseObject(encryptor.decrypt(data));
+                    for (String key : jsonObject.keySet()) {
+                        decryptMap.put(key, jsonObject.getJSONArray(key).toArray(new String[0]));
+                    }
+                } catch (Exception e) {
+                    throw new IllegalArgumentException(I18nMessageUtil.get("i18n.decrypt_failure.ad83"), e);
+                }
+            }
+            return decryptMap;
+        }
         try {
             for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
                 String key = entry.getKey();
@@ -46,7 +74,7 @@ public class ParameterRequestWrapper extends HttpServletRequestWrapper {
         } catch (Exception e) {
             log.error(I18nMessageUtil.get("i18n.decrypt_failure.ad83"), e);
         }
-        this.parameterMap = decryptMap;
+        return decryptMap;
     }
 
     @Override
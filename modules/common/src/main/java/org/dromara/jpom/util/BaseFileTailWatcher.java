@@ -9,9 +9,8 @@
  */
 package org.dromara.jpom.util;
 
-import cn.hutool.core.date.DateUnit;
+import cn.hutool.core.io.IORuntimeException;
 import cn.hutool.core.io.IoUtil;
-import cn.hutool.core.io.file.Tailer;
 import cn.hutool.core.util.ReflectUtil;
 import cn.hutool.core.util.StrUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -22,12 +21,14 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.nio.charset.Charset;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 文件跟随器工具
+ * <p>
+ * 文件变化由 {@link FileTailMonitor} 统一监听，新增内容按多行一帧推送给所有会话
  *
  * @author bwcx_jzy
  * @since 2019/7/21
@@ -47,12 +48,12 @@ public abstract class BaseFileTailWatcher<T extends AutoCloseable> {
      * 缓存近x条
      */
     private final LimitQueue<String> limitQueue = new LimitQueue<>(initReadLine);
-    private Tailer tailer;
+    private FileTailReader tailReader;
 
     /**
      * 所有会话
      */
-    protected final Set<T> socketSessions = new HashSet<>();
+    protected final Set<T> socketSessions = ConcurrentHashMap.newKeySet();
 
     public BaseFileTailWatcher(File logFile, Charset charset) {
         this.logFile = logFile;
@@ -75,20 +76,18 @@ public abstract class BaseFileTailWatcher<T extends AutoCloseable> {
      * @param msg 日志
      */
     private void sendAll(String msg) {
-        Iterator<T> iterator = socketSessions.iterator();
-        while (iterator.hasNext()) {
-            T socketSession = iterator.next();
+        for (T socketSession : socketSessions) {
             try {
                 boolean send = this.send(socketSession, msg);
                 if (!send) {
                     //
                     this.errorAutoClose(socketSession);
-                    iterator.remove();
+                    socketSessions.remove(socketSession);
                 }
             } catch (Exception e) {
                 log.error(I18nMessageUtil.get("i18n.send_message_failure.9621"), e);
                 this.errorAutoClose(socketSession);
-                iterator.remove();
+                socketSessions.remove(socketSession);
             }
         }
         if (this.socketSessions.isEmpty()) {
@@ -134,20 +133,35 @@ public abstract class BaseFileTailWatcher<T extends AutoCloseable> {
         return true;
     }
 
-    public void start() {
-        //this.tailWatcherRun = new FileTailWatcherRun(logFile, this::sendAll);
-        if (this.tailer != null) {
+    /**
+     * 新增的一帧日志
+     *
+     * @param lines 多行日志
+     */
+    private void onFrame(List<String> lines) {
+        for (String line : lines) {
+            limitQueue.offer(line);
+        }
+        // 前端按 \r\n 拆分行
+        this.sendAll(String.join("\r\n", lines));
+    }
+
+    public synchronized void start() {
+        if (this.tailReader != null) {
             return;
         }
-        this.tailer = new Tailer(logFile, charset, line -> {
-            limitQueue.offer(line);
-            this.sendAll(line);
-        }, initReadLine, DateUnit.SECOND.getMillis());
-        this.tailer.start(true);
+        FileTailReader fileTailReader = new FileTailReader(logFile, charset, this::onFrame);
+        try {
+            fileTailReader.start(initReadLine);
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+        this.tailReader = fileTailReader;
+        FileTailMonitor.getInstance().register(fileTailReader);
     }
 
     public void restart() {
-        if (this.tailer != null) {
+        if (this.tailReader != null) {
             this.close();
         }
         this.sendAll("Relisten to the file............");
@@ -157,11 +171,11 @@ public abstract class BaseFileTailWatcher<T extends AutoCloseable> {
     /**
      * 关闭
      */
-    protected void close() {
-        if (this.tailer == null) {
+    protected synchronized void close() {
+        if (this.tailReader == null) {
             return;
         }
-        this.tailer.stop();
-        this.tailer = null;
+        FileTailMonitor.getInstance().unregister(this.tailReader);
+        this.tailReader = null;
     }
 }
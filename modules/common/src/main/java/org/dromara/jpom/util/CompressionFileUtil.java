@@ -9,17 +9,36 @@
  */
 package org.dromara.jpom.util;
 
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
 import cn.hutool.core.util.CharsetUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.RuntimeUtil;
+import cn.hutool.core.util.StrUtil;
 import cn.hutool.extra.compress.CompressUtil;
 import cn.hutool.extra.compress.extractor.Extractor;
 import lombok.Lombok;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.compress.compressors.CompressorInputStream;
+import org.dromara.jpom.JpomApplication;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
 
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.*;
 import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 /**
  * 压缩文件工具
@@ -30,6 +49,12 @@ import java.nio.charset.Charset;
 public class CompressionFileUtil {
 
     private static final Charset[] CHARSETS = new Charset[]{CharsetUtil.CHARSET_GBK, CharsetUtil.CHARSET_UTF_8};
+    /**
+     * zip 文件头
+     */
+    private static final int ZIP_MAGIC = 0x04034b50;
+
+    private static volatile ExecutorService executorService;
 
     /**
      * 解压文件
@@ -49,6 +74,16 @@ public class CompressionFileUtil {
      * @param stripComponents 剔除文件夹
      */
     public static void unCompress(File compressFile, File destDir, int stripComponents) {
+        if (isZip(compressFile)) {
+            // zip 使用随机读取并行解压
+            Charset charset = detectZipCharset(compressFile);
+            try {
+                unCompressZip(compressFile, destDir, stripComponents, charset);
+                return;
+            } catch (Exception e) {
+                log.warn(I18nMessageUtil.get("i18n.unzip_exception.453e"), compressFile.getName(), charset, e.getMessage());
+            }
+        }
         try {
             unCompressTryCharset(compressFile, destDir, stripComponents);
         } catch (Exception e) {
@@ -68,6 +103,7 @@ public class CompressionFileUtil {
             Charset charset = CHARSETS[i];
             try (Extractor extractor = CompressUtil.createExtractor(charset, compressFile)) {
                 extractor.extract(destDir, stripComponents);
+                return;
             } catch (Exception e) {
                 log.warn(I18nMessageUtil.get("i18n.unzip_exception.453e"), compressFile.getName(), charset, e.getMessage());
                 if (i == CHARSETS.length - 1) {
@@ -86,6 +122,7 @@ public class CompressionFileUtil {
                 try (Extractor extractor = CompressUtil.createExtractor(charset, compressUtilIn)) {
                     extractor.extract(destDir, stripComponents);
                 }
+                return;
             } catch (Exception e) {
                 log.warn(I18nMessageUtil.get("i18n.unzip_exception.92cc"), charset, e.getMessage());
                 if (i == CHARSETS.length - 1) {
@@ -95,4 +132,245 @@ public class CompressionFileUtil {
             }
         }
     }
+
+    /**
+     * 解压到目标目录同级的暂存目录，解压完成后再替换或者合并到目标目录。解压失败不会影响目标目录
+     *
+     * @param compressFile    压缩文件
+     * @param destDir         解压到的文件夹
+     * @param stripComponents 剔除文件夹
+     * @param replace         true 替换整个目标目录，false 合并到目标目录
+     * @throws IOException io
+     */
+    public static void unCompressStaged(File compressFile, File destDir, int stripComponents, boolean replace) throws IOException {
+        File parent = FileUtil.mkdir(destDir.getAbsoluteFile().getParentFile());
+        String id = IdUtil.fastSimpleUUID();
+        File staging = FileUtil.file(parent, StrUtil.format(".{}.staging-{}", destDir.getName(), id));
+        try {
+            unCompress(compressFile, staging, stripComponents);
+            FileUtil.mkdir(staging);
+            if (replace) {
+                replaceDirectory(staging, destDir, FileUtil.file(parent, StrUtil.format(".{}.old-{}", destDir.getName(), id)));
+            } else {
+                mergeDirectory(staging, destDir);
+            }
+        } finally {
+            FileUtil.del(staging);
+        }
+    }
+
+    /**
+     * 重命名交换目录：目标目录重命名为备份目录，暂存目录重命名为目标目录，失败时还原备份目录。
+     * 目标目录为软链接时不交换（会替换掉软链接本身），清空链接指向的目录后合并
+     *
+     * @param staging 暂存目录
+     * @param destDir 目标目录
+     * @param backup  备份目录
+     * @throws IOException io
+     */
+    private static void replaceDirectory(File staging, File destDir, File backup) throws IOException {
+        Path destPath = destDir.toPath();
+        if (Files.isSymbolicLink(destPath)) {
+            File realDir = destPath.toRealPath().toFile();
+            log.info(I18nMessageUtil.get("i18n.unzip_symlink_merge.5b92"), destDir.getAbsolutePath(), realDir.getAbsolutePath());
+            FileUtil.clean(realDir);
+            mergeDirectory(staging, realDir);
+            return;
+        }
+        if (!FileUtil.exist(destDir)) {
+            Files.move(staging.toPath(), destDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            return;
+        }
+        try {
+            Files.move(destDir.toPath(), backup.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 文件被占用（windows）、目标目录为挂载点等情况无法重命名，清空后合并
+            log.warn(I18nMessageUtil.get("i18n.unzip_swap_fallback.c93f"), destDir.getAbsolutePath(), e.getMessage());
+            CommandUtil.systemFastDel(destDir);
+            mergeDirectory(staging, destDir);
+            return;
+        }
+        try {
+            Files.move(staging.toPath(), destDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(backup.toPath(), destDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            throw e;
+        }
+        if (!FileUtil.del(backup)) {
+            CommandUtil.systemFastDel(backup);
+        }
+    }
+
+    /**
+     * 将暂存目录中的文件逐个重命名到目标目录
+     *
+     * @param staging 暂存目录
+     * @param destDir 目标目录
+     * @throws IOException io
+     */
+    private static void mergeDirectory(File staging, File destDir) throws IOException {
+        Path source = staging.toPath();
+        Path target = destDir.toPath();
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Path item = target.resolve(source.relativize(dir));
+                if (Files.isRegularFile(item)) {
+                    Files.delete(item);
+                }
+                Files.createDirectories(item);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path item = target.resolve(source.relativize(file));
+                if (Files.isDirectory(item)) {
+                    FileUtil.del(item);
+                }
+                try {
+                    Files.move(file, item, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(file, item, StandardCopyOption.REPLACE_EXISTING);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static boolean isZip(File file) {
+        try (DataInputStream inputStream = new DataInputStream(new FileInputStream(file))) {
+            return Integer.reverseBytes(inputStream.readInt()) == ZIP_MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 检测 zip 文件名编码：设置了 utf-8 标记或者所有文件名都是合法的 utf-8 使用 utf-8，否则使用 gbk
+     *
+     * @param file zip 文件
+     * @return 编码
+     */
+    private static Charset detectZipCharset(File file) {
+        try (ZipFile zipFile = new ZipFile(file, CharsetUtil.CHARSET_UTF_8)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                entries.nextElement().getName();
+            }
+            return CharsetUtil.CHARSET_UTF_8;
+        } catch (IOException | IllegalArgumentException e) {
+            return CharsetUtil.CHARSET_GBK;
+        }
+    }
+
+    /**
+     * 检测 zip 文件名编码，按顺序读取流不需要完整的文件：设置了 utf-8 标记或者所有文件名都是合法的 utf-8 使用 utf-8，否则使用 gbk
+     *
+     * @param inputStream zip 文件流
+     * @return 编码
+     */
+    public static Charset detectZipCharset(InputStream inputStream) {
+        try (ZipInputStream zipInputStream = new ZipInputStream(inputStream, CharsetUtil.CHARSET_UTF_8)) {
+            while (zipInputStream.getNextEntry() != null) {
+                zipInputStream.closeEntry();
+            }
+            return CharsetUtil.CHARSET_UTF_8;
+        } catch (IOException | IllegalArgumentException e) {
+            return CharsetUtil.CHARSET_GBK;
+        }
+    }
+
+    /**
+     * 并行解压 zip，目录先创建，文件按条目提交到线程池随机读取解压
+     *
+     * @param compressFile    压缩文件
+     * @param destDir         解压到的文件夹
+     * @param stripComponents 剔除文件夹
+     * @param charset         文件名编码
+     * @throws Exception 异常
+     */
+    private static void unCompressZip(File compressFile, File destDir, int stripComponents, Charset charset) throws Exception {
+        try (ZipFile zipFile = new ZipFile(compressFile, charset)) {
+            List<ZipEntry> entryList = new ArrayList<>();
+            List<File> fileList = new ArrayList<>();
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry zipEntry = entries.nextElement();
+                String name = stripName(zipEntry.getName(), stripComponents);
+                if (StrUtil.isEmpty(name)) {
+                    continue;
+                }
+                // 包含 zip slip 检查
+                File outItem = FileUtil.file(destDir, name);
+                if (zipEntry.isDirectory()) {
+                    FileUtil.mkdir(outItem);
+                } else {
+                    FileUtil.mkParentDirs(outItem);
+                    entryList.add(zipEntry);
+                    fileList.add(outItem);
+                }
+            }
+            if (entryList.size() <= 1) {
+                for (int i = 0; i < entryList.size(); i++) {
+                    extractEntry(zipFile, entryList.get(i), fileList.get(i));
+                }
+                return;
+            }
+            ExecutorService executor = getExecutorService();
+            List<Future<?>> futures = new ArrayList<>(entryList.size());
+            try {
+                for (int i = 0; i < entryList.size(); i++) {
+                    ZipEntry zipEntry = entryList.get(i);
+                    File outItem = fileList.get(i);
+                    futures.add(executor.submit(() -> {
+                        extractEntry(zipFile, zipEntry, outItem);
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                throw Lombok.sneakyThrow(e.getCause());
+            } finally {
+                futures.forEach(future -> future.cancel(true));
+            }
+        }
+    }
+
+    private static void extractEntry(ZipFile zipFile, ZipEntry zipEntry, File outItem) throws IOException {
+        try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
+            Files.copy(inputStream, outItem.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String stripName(String name, int stripComponents) {
+        if (stripComponents <= 0) {
+            return name;
+        }
+        List<String> nameList = StrUtil.splitTrim(name, StrUtil.SLASH);
+        if (nameList.size() <= stripComponents) {
+            return null;
+        }
+        return CollUtil.join(CollUtil.sub(nameList, stripComponents, nameList.size()), StrUtil.SLASH);
+    }
+
+    private static ExecutorService getExecutorService() {
+        if (executorService == null) {
+            synchronized (CompressionFileUtil.class) {
+                if (executorService == null) {
+                    int size = RuntimeUtil.getProcessorCount();
+                    executorService = ExecutorBuilder.create()
+                        .setCorePoolSize(size)
+                        .setMaxPoolSize(size)
+                        .setWorkQueue(new LinkedBlockingQueue<>())
+                        .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("jpom-uncompress-").setDaemon(true).build())
+                        .build();
+                    JpomApplication.register("uncompress", executorService);
+                }
+            }
+        }
+        return executorService;
+    }
 }
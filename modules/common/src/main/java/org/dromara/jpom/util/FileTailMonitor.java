@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.util;
+
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.jpom.JpomApplication;
+import org.dromara.jpom.common.i18n.I18nMessageUtil;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件跟随监听
+ * <p>
+ * 所有跟随的文件共用一个 WatchService（linux 下为 inotify）和一个监听线程，文件变化后读取新增内容。
+ * 部分文件系统（网络挂载等）不会产生事件，监听线程每隔一段时间兜底检查一次文件大小
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@Slf4j
+public class FileTailMonitor implements Runnable {
+
+    private static final FileTailMonitor INSTANCE = new FileTailMonitor();
+    /**
+     * 兜底检查间隔
+     */
+    private static final long CHECK_INTERVAL = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * 文件 -> 读取器
+     */
+    private final Map<Path, Set<FileTailReader>> readers = new ConcurrentHashMap<>();
+    /**
+     * 目录 -> 监听 key
+     */
+    private final Map<Path, WatchKey> watchKeys = new ConcurrentHashMap<>();
+    /**
+     * 还有未读取完内容的读取器
+     */
+    private final Set<FileTailReader> pending = new LinkedHashSet<>();
+    private volatile WatchService watchService;
+    private ExecutorService executorService;
+
+    public static FileTailMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 添加文件读取器
+     *
+     * @param reader 读取器
+     */
+    public void register(FileTailReader reader) {
+        this.init();
+        Path path = reader.getPath();
+        synchronized (this) {
+            readers.computeIfAbsent(path, p -> ConcurrentHashMap.newKeySet()).add(reader);
+            Path dir = path.getParent();
+            if (dir != null && !watchKeys.containsKey(dir)) {
+                try {
+                    WatchKey watchKey = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                    watchKeys.put(dir, watchKey);
+                } catch (IOException e) {
+                    // 注册失败依靠兜底检查
+                    log.warn(I18nMessageUtil.get("i18n.file_tail_watch_register_failed.c024"), dir, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 移除文件读取器
+     *
+     * @param reader 读取器
+     */
+    public void unregister(FileTailReader reader) {
+        Path path = reader.getPath();
+        synchronized (this) {
+            pending.remove(reader);
+            Set<FileTailReader> set = readers.get(path);
+            if (set == null) {
+                return;
+            }
+            set.remove(reader);
+            if (!set.isEmpty()) {
+                return;
+            }
+            readers.remove(path);
+            Path dir = path.getParent();
+            boolean dirInUse = readers.keySet().stream().anyMatch(p -> Objects.equals(p.getParent(), dir));
+            if (!dirInUse) {
+                Optional.ofNullable(watchKeys.remove(dir)).ifPresent(WatchKey::cancel);
+            }
+        }
+    }
+
+    private void init() {
+        if (watchService != null) {
+            return;
+        }
+        synchronized (this) {
+            if (watchService != null) {
+                return;
+            }
+            try {
+                watchService = FileSystems.getDefault().newWatchService();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            executorService = ExecutorBuilder.create()
+                .setCorePoolSize(1)
+                .setMaxPoolSize(1)
+                .setWorkQueue(new LinkedBlockingQueue<>(1))
+                .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("jpom-file-tail-").setDaemon(true).build())
+                .build();
+            JpomApplication.register("file-tail", executorService);
+            executorService.execute(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        long lastCheck = System.currentTimeMillis();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                WatchKey watchKey = pending.isEmpty() ? watchService.poll(CHECK_INTERVAL, TimeUnit.MILLISECONDS) : watchService.poll();
+                if (watchKey != null) {
+                    this.onEvent(watchKey);
+                }
+                this.readPending();
+                long now = System.currentTimeMillis();
+                if (now - lastCheck >= CHECK_INTERVAL) {
+                    lastCheck = now;
+                    this.checkAll();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            } catch (Exception e) {
+                log.error(I18nMessageUtil.get("i18n.file_tail_watch_exception.319e"), e);
+            }
+        }
+        IoUtil.close(watchService);
+    }
+
+    private void onEvent(WatchKey watchKey) {
+        Path dir = (Path) watchKey.watchable();
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // 事件溢出，全部检查一次
+                this.checkAll();
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            Set<FileTailReader> set = readers.get(path);
+            if (set != null) {
+                this.addPending(set);
+            }
+        }
+        watchKey.reset();
+    }
+
+    private void checkAll() {
+        for (Set<FileTailReader> set : readers.values()) {
+            for (FileTailReader reader : set) {
+                if (reader.changed()) {
+                    this.addPending(Collections.singleton(reader));
+                }
+            }
+        }
+    }
+
+    private synchronized void addPending(Collection<FileTailReader> collection) {
+        pending.addAll(collection);
+    }
+
+    private void readPending() {
+        List<FileTailReader> list;
+        synchronized (this) {
+            list = new ArrayList<>(pending);
+            pending.clear();
+        }
+        for (FileTailReader reader : list) {
+            boolean hasMore = reader.read();
+            if (hasMore) {
+                this.addPending(Collections.singleton(reader));
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * 文件增量读取
+ * <p>
+ * 记录读取位置，每次按块读取新增内容并拆分为多行一帧回调。
+ * 文件被截断或者被替换（轮转）后从头开始读取
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@Slf4j
+public class FileTailReader {
+
+    /**
+     * 每次读取块大小
+     */
+    private static final int BLOCK_SIZE = 64 * 1024;
+    /**
+     * 单次最多读取的字节数，超过后等待下一轮继续读取，避免一个文件占用监听线程
+     */
+    private static final int MAX_READ_SIZE = 16 * BLOCK_SIZE;
+    /**
+     * 每帧最多行数
+     */
+    private static final int FRAME_LINES = 200;
+
+    private final Path path;
+    private final Consumer<List<String>> frameConsumer;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer byteBuffer = ByteBuffer.allocate(BLOCK_SIZE);
+    private final CharBuffer charBuffer;
+    /**
+     * 未结束的行
+     */
+    private final StringBuilder partLine = new StringBuilder();
+    private long position;
+    private Object fileKey;
+
+    public FileTailReader(File file, Charset charset, Consumer<List<String>> frameConsumer) {
+        this.path = file.toPath().toAbsolutePath().normalize();
+        this.frameConsumer = frameConsumer;
+        this.decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.charBuffer = CharBuffer.allocate((int) Math.ceil(BLOCK_SIZE * (double) decoder.maxCharsPerByte()));
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * 读取文件最后几行并从文件末尾开始跟随
+     *
+     * @param lines 行数
+     * @throws IOException io
+     */
+    public synchronized void start(int lines) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            this.fileKey = this.readFileKey();
+            this.position = lines > 0 ? this.lastLinesPosition(channel, size, lines) : size;
+            this.reset();
+            List<String> list = this.readTo(channel, size, true);
+            if (list.size() > lines) {
+                list = list.subList(list.size() - lines, list.size());
+            }
+            if (!list.isEmpty()) {
+                frameConsumer.accept(list);
+            }
+        }
+    }
+
+    /**
+     * 读取新增内容
+     *
+     * @return 是否还有未读取的内容
+     */
+    public synchronized boolean read() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Object nowFileKey = this.readFileKey();
+            if (size < position || !Objects.equals(nowFileKey, fileKey)) {
+                // 文件被截断或者替换
+                this.fileKey = nowFileKey;
+                this.position = 0;
+                this.reset();
+            }
+            if (size == position) {
+                return false;
+            }
+            long end = Math.min(size, position + MAX_READ_SIZE);
+            // 单次读取上限截断时，未结束的行留到下一轮继续拼接
+            List<String> lines = this.readTo(channel, end, end == size);
+            this.emit(lines);
+            return end < size;
+        } catch (NoSuchFileException e) {
+            // 文件被删除，等待重新创建
+            return false;
+        } catch (IOException e) {
+            log.warn("read tail file error {} {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 文件是否有变化
+     *
+     * @return true 有变化
+     */
+    public synchronized boolean changed() {
+        File file = path.toFile();
+        return file.length() != position;
+    }
+
+    private void emit(List<String> lines) {
+        for (int i = 0; i < lines.size(); i += FRAME_LINES) {
+            frameConsumer.accept(lines.subList(i, Math.min(lines.size(), i + FRAME_LINES)));
+        }
+    }
+
+    private List<String> readTo(FileChannel channel, long end, boolean flushPartLine) throws IOException {
+        List<String> lines = new ArrayList<>();
+        while (position < end) {
+            byteBuffer.limit((int) Math.min(byteBuffer.capacity(), byteBuffer.position() + end - position));
+            int read = channel.read(byteBuffer, position);
+            if (read <= 0) {
+                break;
+            }
+            position += read;
+            byteBuffer.flip();
+            // 解码器有状态，被拆开的多字节字符保留在 byteBuffer 中等待下一块
+            decoder.decode(byteBuffer, charBuffer, false);
+            byteBuffer.compact();
+            charBuffer.flip();
+            this.splitLines(lines);
+            charBuffer.clear();
+        }
+        if (flushPartLine && partLine.length() > 0) {
+            // 已经读取到末尾，未结束的行也发送
+            lines.add(partLine.toString());
+            partLine.setLength(0);
+        }
+        return lines;
+    }
+
+    private void splitLines(List<String> lines) {
+        while (charBuffer.hasRemaining()) {
+            char c = charBuffer.get();
+            if (c == '\n') {
+                int length = partLine.length();
+                if (length > 0 && partLine.charAt(length - 1) == '\r') {
+                    partLine.setLength(length - 1);
+                }
+                lines.add(partLine.toString());
+                partLine.setLength(0);
+            } else {
+                partLine.append(c);
+            }
+        }
+    }
+
+    private void reset() {
+        decoder.reset();
+        byteBuffer.clear();
+        charBuffer.clear();
+        partLine.setLength(0);
+    }
+
+    /**
+     * 从文件末尾向前查找指定行数的开始位置
+     */
+    private long lastLinesPosition(FileChannel channel, long size, int lines) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+        long pos = size;
+        int count = 0;
+        while (pos > 0) {
+            int len = (int) Math.min(buffer.capacity(), pos);
+            pos -= len;
+            buffer.clear();
+            buffer.limit(len);
+            channel.read(buffer, pos);
+            for (int i = len - 1; i >= 0; i--) {
+                if (buffer.get(i) != '\n') {
+                    continue;
+                }
+                if (pos + i == size - 1) {
+                    // 文件末尾的换行不计算
+                    continue;
+                }
+                if (++count >= lines) {
+                    return pos + i + 1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private Object readFileKey() {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
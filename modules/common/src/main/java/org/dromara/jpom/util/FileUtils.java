@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.security.MessageDigest;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -181,12 +182,29 @@ public class FileUtils {
      * @throws IOException io
      */
     public static void appendChannel(File file, FileChannel channel) throws IOException {
+        appendChannel(file, channel, null);
+    }
+
+    /**
+     * 文件追加，同时计算摘要（避免合并后再次读取文件）
+     *
+     * @param file    被添加的文件
+     * @param channel 需要添加的文件通道
+     * @param digest  摘要，可以为空
+     * @throws IOException io
+     */
+    public static void appendChannel(File file, FileChannel channel, MessageDigest digest) throws IOException {
         try (FileInputStream fileInputStream = new FileInputStream(file)) {
             try (FileChannel inChannel = fileInputStream.getChannel()) {
                 ByteBuffer bb = ByteBuffer.allocate(IoUtil.DEFAULT_MIDDLE_BUFFER_SIZE);
                 while (inChannel.read(bb) != NioUtil.EOF) {
                     bb.flip();
-                    channel.write(bb);
+                    if (digest != null) {
+                        digest.update(bb.array(), 0, bb.limit());
+                    }
+                    while (bb.hasRemaining()) {
+                        channel.write(bb);
+                    }
                     bb.clear();
                 }
             }
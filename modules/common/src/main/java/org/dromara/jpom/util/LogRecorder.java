@@ -11,26 +11,36 @@ package org.dromara.jpom.util;
 
 import cn.hutool.core.exceptions.ExceptionUtil;
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IORuntimeException;
 import cn.hutool.core.io.IoUtil;
 import cn.hutool.core.io.file.FileWriter;
 import cn.hutool.core.util.CharsetUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.keepbx.jpom.log.ILogRecorder;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.dromara.jpom.JpomApplication;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
+import org.dromara.jpom.common.i18n.I18nThreadUtil;
 import org.dromara.jpom.exception.LogRecorderCloseException;
 import org.springframework.util.Assert;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.io.PrintWriter;
+import java.io.*;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * 日志记录
+ * <p>
+ * 缓冲模式下不再每行刷新，由定时任务或者缓冲达到阈值时写入文件，适用于构建等大量输出的场景
  *
  * @author bwcx_jzy
  * @since 2022/1/26
@@ -39,20 +49,80 @@ import java.nio.charset.Charset;
 @Getter
 public class LogRecorder extends OutputStream implements ILogRecorder, AutoCloseable {
 
+    /**
+     * 缓冲模式定时刷新间隔（毫秒）
+     */
+    private static final long FLUSH_INTERVAL = 200;
+    /**
+     * 缓冲模式未刷新的字符数超过该值立即刷新
+     */
+    private static final int FLUSH_SIZE = 32 * 1024;
+    private static final Set<LogRecorder> BUFFERED_RECORDERS = ConcurrentHashMap.newKeySet();
+    private static volatile ScheduledFuture<?> flushFuture;
+
     private File file;
     private PrintWriter writer;
+    private PrintWriter printWriter;
     private final Charset charset;
+    /**
+     * 是否缓冲写入
+     */
+    private final boolean buffered;
+    /**
+     * 关闭后是否生成 gzip 压缩文件（文件名 + .gz）
+     */
+    private final boolean gzip;
+    /**
+     * 打开后写入的行数（包含缓冲中的）
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile long lines;
+    /**
+     * 打开时已有内容的字节数，追加写入时已有的行数在第一次读取行数时再统计
+     */
+    @Getter(AccessLevel.NONE)
+    private final long existingLength;
+    /**
+     * 打开时已有的行数，小于 0 还没有统计
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile long existingLines;
+    /**
+     * 缓冲中未刷新的字符数
+     */
+    private int pendingChars;
+    /**
+     * 内容写入文件后的回调，读取方可以据此及时读取新内容
+     */
+    private final Runnable flushListener;
 
-    private LogRecorder(File file, Charset charset) {
+    private LogRecorder(File file, Charset charset, boolean buffered, boolean gzip, Runnable flushListener) {
+        this.charset = charset;
+        this.buffered = buffered;
+        this.gzip = gzip;
+        this.flushListener = flushListener;
         if (file == null) {
             this.writer = null;
             this.file = null;
-            this.charset = charset;
+            this.existingLength = 0;
             return;
         }
         this.file = file;
-        this.charset = charset;
-        this.writer = FileWriter.create(file, charset).getPrintWriter(true);
+        // 追加写入已有的日志，不在打开时统计行数（大部分场景不需要读取行数）
+        this.existingLength = FileUtil.isFile(file) ? file.length() : 0;
+        this.existingLines = this.existingLength > 0 ? -1 : 0;
+        if (buffered) {
+            FileUtil.mkParentDirs(file);
+            try {
+                this.writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), charset), FLUSH_SIZE * 2));
+            } catch (FileNotFoundException e) {
+                throw new IORuntimeException(e);
+            }
+            BUFFERED_RECORDERS.add(this);
+            startFlushTask();
+        } else {
+            this.writer = FileWriter.create(file, charset).getPrintWriter(true);
+        }
     }
 
     public static Builder builder() {
@@ -62,6 +132,9 @@ public class LogRecorder extends OutputStream implements ILogRecorder, AutoClose
     public static class Builder {
         private File file;
         private Charset charset;
+        private boolean buffered;
+        private boolean gzip;
+        private Runnable flushListener;
 
         Builder() {
         }
@@ -76,16 +149,169 @@ public class LogRecorder extends OutputStream implements ILogRecorder, AutoClose
             return this;
         }
 
+        /**
+         * 缓冲写入，定时刷新
+         *
+         * @param buffered 是否缓冲
+         * @return this
+         */
+        public Builder buffered(final boolean buffered) {
+            this.buffered = buffered;
+            return this;
+        }
+
+        /**
+         * 关闭后生成 gzip 压缩文件
+         *
+         * @param gzip 是否压缩
+         * @return this
+         */
+        public Builder gzip(final boolean gzip) {
+            this.gzip = gzip;
+            return this;
+        }
+
+        /**
+         * 内容写入文件后的回调
+         *
+         * @param flushListener 回调
+         * @return this
+         */
+        public Builder flushListener(final Runnable flushListener) {
+            this.flushListener = flushListener;
+            return this;
+        }
+
         public LogRecorder build() {
             Charset charset1 = ObjectUtil.defaultIfNull(this.charset, CharsetUtil.CHARSET_UTF_8);
-            return new LogRecorder(this.file, charset1);
+            return new LogRecorder(this.file, charset1, this.buffered, this.gzip, this.flushListener);
         }
 
         public String toString() {
-            return "LogRecorder.LogRecorderBuilder(file=" + this.file + ", charset=" + this.charset + ")";
+            return "LogRecorder.LogRecorderBuilder(file=" + this.file + ", charset=" + this.charset + ", buffered=" + this.buffered + ")";
+        }
+    }
+
+    private static void startFlushTask() {
+        if (flushFuture == null) {
+            synchronized (LogRecorder.class) {
+                if (flushFuture == null) {
+                    flushFuture = JpomApplication.getScheduledExecutorService().scheduleWithFixedDelay(() -> {
+                        for (LogRecorder recorder : BUFFERED_RECORDERS) {
+                            try {
+                                recorder.flushPending();
+                            } catch (Exception e) {
+                                log.warn("flush log recorder error {}", recorder.file, e);
+                            }
+                        }
+                    }, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+
+    /**
+     * 已经写入的行数（包含缓冲中的），读取方可以据此判断是否有新内容
+     *
+     * @return 行数
+     */
+    public long getLines() {
+        if (existingLines < 0) {
+            synchronized (this) {
+                if (existingLines < 0) {
+                    existingLines = countLines(file, existingLength);
+                }
+            }
+        }
+        return existingLines + lines;
+    }
+
+    /**
+     * 统计文件开头指定字节数中的行数，打开后追加写入的内容不统计
+     *
+     * @param file   文件
+     * @param length 统计的字节数
+     * @return 行数
+     */
+    private static long countLines(File file, long length) {
+        if (file == null || length <= 0) {
+            return 0;
+        }
+        long count = 0;
+        byte last = '\n';
+        byte[] buffer = new byte[IoUtil.DEFAULT_LARGE_BUFFER_SIZE];
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            long remaining = length;
+            while (remaining > 0) {
+                int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        count++;
+                    }
+                }
+                last = buffer[read - 1];
+                remaining -= read;
+            }
+        } catch (IOException e) {
+            log.warn("count log lines error {}", file, e);
+            return 0;
         }
+        // 最后一行没有换行符
+        return last == '\n' ? count : count + 1;
     }
 
+    /**
+     * 写入后的处理，非缓冲模式立即刷新
+     *
+     * @param text     写入的内容
+     * @param lineFeed 是否换行
+     */
+    private void written(String text, boolean lineFeed) {
+        int count = StrUtil.count(text, StrUtil.LF) + (lineFeed ? 1 : 0);
+        boolean flush;
+        synchronized (this) {
+            lines += count;
+            pendingChars += text.length() + 1;
+            flush = !buffered || pendingChars >= FLUSH_SIZE;
+        }
+        if (flush) {
+            this.flush();
+        }
+    }
+
+    private void flushPending() {
+        synchronized (this) {
+            if (pendingChars <= 0) {
+                return;
+            }
+        }
+        this.flush();
+    }
+
+    /**
+     * 将缓冲的内容写入文件，流程节点结束时调用
+     */
+    @Override
+    public void flush() {
+        PrintWriter printWriter = this.writer;
+        if (printWriter == null) {
+            return;
+        }
+        synchronized (this) {
+            pendingChars = 0;
+        }
+        printWriter.flush();
+        if (flushListener != null) {
+            try {
+                flushListener.run();
+            } catch (Exception e) {
+                log.warn("log recorder flush listener error {}", file, e);
+            }
+        }
+    }
 
     /**
      * 记录错误信息
@@ -101,7 +327,7 @@ public class LogRecorder extends OutputStream implements ILogRecorder, AutoClose
         writer.println(title);
         String s = ExceptionUtil.stacktraceToString(throwable);
         writer.println(s);
-        writer.flush();
+        this.written(title + StrUtil.LF + s, true);
     }
 
     /**
@@ -115,7 +341,7 @@ public class LogRecorder extends OutputStream implements ILogRecorder, AutoClose
         }
         String format = StrUtil.format(info, vals);
         writer.println(format);
-        writer.flush();
+        this.written(format, true);
         return format;
     }
 
@@ -155,9 +381,9 @@ public class LogRecorder extends OutputStream implements ILogRecorder, AutoClose
         if (writer == null) {
             throw new LogRecorderCloseException();
         }
-        writer.append(StrUtil.format(info, vals));
-        writer.flush();
-
+        String format = StrUtil.format(info, vals);
+        writer.append(format);
+        this.written(format, false);
     }
 
     /**
@@ -166,18 +392,75 @@ public class LogRecorder extends OutputStream implements ILogRecorder, AutoClose
      * @return Writer
      */
     public PrintWriter getPrintWriter() {
-        return writer;
+        if (writer == null) {
+            return null;
+        }
+        if (printWriter == null) {
+            // 统计直接通过 writer 写入的行数
+            printWriter = new PrintWriter(new Writer() {
+                @Override
+                public void write(char[] cbuf, int off, int len) {
+                    PrintWriter printWriter1 = LogRecorder.this.writer;
+                    if (printWriter1 == null) {
+                        throw new LogRecorderCloseException();
+                    }
+                    printWriter1.write(cbuf, off, len);
+                    LogRecorder.this.written(new String(cbuf, off, len), false);
+                }
+
+                @Override
+                public void flush() {
+                    LogRecorder.this.flush();
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+        }
+        return printWriter;
     }
 
     @Override
     public void close() {
+        BUFFERED_RECORDERS.remove(this);
         IoUtil.close(writer);
+        File logFile = this.file;
         this.writer = null;
+        this.printWriter = null;
         this.file = null;
+        if (gzip && FileUtil.isFile(logFile)) {
+            I18nThreadUtil.execute(() -> this.gzip(logFile));
+        }
+    }
+
+    /**
+     * 生成压缩文件，下载、传输已经结束的日志时可以直接使用
+     *
+     * @param logFile 日志文件
+     */
+    private void gzip(File logFile) {
+        File gzipFile = FileUtil.file(logFile.getParentFile(), logFile.getName() + ".gz");
+        File tempFile = FileUtil.file(logFile.getParentFile(), gzipFile.getName() + ".tmp");
+        try (InputStream inputStream = Files.newInputStream(logFile.toPath());
+             OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(tempFile.toPath()), FLUSH_SIZE)) {
+            IoUtil.copy(inputStream, outputStream, FLUSH_SIZE);
+        } catch (Exception e) {
+            log.warn("gzip log file error {}", logFile, e);
+            FileUtil.del(tempFile);
+            return;
+        }
+        try {
+            Files.move(tempFile.toPath(), gzipFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("gzip log file error {}", logFile, e);
+            FileUtil.del(tempFile);
+        }
     }
 
     public long size() {
         Assert.notNull(writer, I18nMessageUtil.get("i18n.log_recorder_not_enabled.5a4e"));
+        this.flush();
         return FileUtil.size(this.file);
     }
 
@@ -187,5 +470,17 @@ public class LogRecorder extends OutputStream implements ILogRecorder, AutoClose
             throw new LogRecorderCloseException();
         }
         writer.write((byte) b);
+        boolean flush;
+        synchronized (this) {
+            if (b == '\n') {
+                lines++;
+            }
+            // 计入缓冲，定时刷新和阈值刷新才能感知到
+            pendingChars++;
+            flush = pendingChars >= FLUSH_SIZE;
+        }
+        if (flush) {
+            this.flush();
+        }
     }
 }
@@ -14,8 +14,8 @@ import cn.hutool.core.convert.Convert;
 import cn.hutool.core.date.BetweenFormatter;
 import cn.hutool.core.date.SystemClock;
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IORuntimeException;
 import cn.hutool.core.io.IoUtil;
-import cn.hutool.core.io.file.FileCopier;
 import cn.hutool.core.lang.Opt;
 import cn.hutool.core.lang.Tuple;
 import cn.hutool.core.map.SafeConcurrentHashMap;
@@ -25,6 +25,7 @@ import cn.hutool.core.util.*;
 import cn.hutool.extra.spring.SpringUtil;
 import cn.keepbx.jpom.model.BaseIdModel;
 import cn.keepbx.jpom.plugins.IPlugin;
+import com.alibaba.fastjson2.JSONObject;
 import lombok.Builder;
 import lombok.Lombok;
 import lombok.extern.slf4j.Slf4j;
@@ -32,7 +33,6 @@ import org.dromara.jpom.JpomApplication;
 import org.dromara.jpom.common.BaseServerController;
 import org.dromara.jpom.common.ServerConst;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
-import org.dromara.jpom.common.i18n.I18nThreadUtil;
 import org.dromara.jpom.configuration.BuildExtConfig;
 import org.dromara.jpom.exception.LogRecorderCloseException;
 import org.dromara.jpom.func.assets.server.MachineDockerServer;
@@ -50,6 +50,7 @@ import org.dromara.jpom.model.log.BuildHistoryLog;
 import org.dromara.jpom.model.script.ScriptExecuteLogModel;
 import org.dromara.jpom.model.script.ScriptModel;
 import org.dromara.jpom.model.user.UserModel;
+import org.dromara.jpom.monitor.NotifyDispatcher;
 import org.dromara.jpom.plugin.PluginFactory;
 import org.dromara.jpom.service.dblog.BuildInfoService;
 import org.dromara.jpom.service.dblog.DbBuildHistoryLogService;
@@ -66,7 +67,6 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -83,6 +83,21 @@ public class BuildExecuteManage implements Runnable {
      */
     public static final Map<String, BuildExecuteManage> BUILD_MANAGE_MAP = new SafeConcurrentHashMap<>();
 
+    /**
+     * 正在构建的日志已经写入的行数
+     *
+     * @param buildInfoId 构建ID
+     * @param buildId     构建序号
+     * @return null 没有在构建
+     */
+    public static Long writtenLogLines(String buildInfoId, int buildId) {
+        BuildExecuteManage manage = BUILD_MANAGE_MAP.get(buildInfoId);
+        if (manage == null || manage.logRecorder == null || !Objects.equals(manage.taskData.buildInfoModel.getBuildId(), buildId)) {
+            return null;
+        }
+        return manage.logRecorder.getLines();
+    }
+
     private final TaskData taskData;
     private final BuildExtraModule buildExtraModule;
     private final String logId;
@@ -98,6 +113,10 @@ public class BuildExecuteManage implements Runnable {
      * 提交任务时间
      */
     private Long submitTaskTime;
+    /**
+     * 开始调度执行时间
+     */
+    private volatile Long dispatchTime;
 
     private static BuildExecuteService buildExecuteService;
     private static ScriptServer scriptServer;
@@ -144,39 +163,106 @@ public class BuildExecuteManage implements Runnable {
         this.loadService();
         submitTaskTime = SystemClock.now();
         language = I18nMessageUtil.getLanguageByRequest();
-        // 创建线程池
-        ThreadPoolExecutor threadPoolExecutor = buildExecutorPoolService.getThreadPoolExecutor();
         //
         BuildInfoModel buildInfoModel = taskData.buildInfoModel;
         File logFile = BuildUtil.getLogFile(buildInfoModel.getId(), buildInfoModel.getBuildId());
-        this.logRecorder = LogRecorder.builder().file(logFile).build();
+        // 构建输出量大，缓冲写入，结束后生成压缩文件
+        String buildInfoId = buildInfoModel.getId();
+        this.logRecorder = LogRecorder.builder()
+            .file(logFile)
+            .buffered(true)
+            .gzip(true)
+            .flushListener(() -> buildExecuteService.logFlushed(buildInfoId))
+            .build();
         //
-        int queueSize = threadPoolExecutor.getQueue().size();
+        int queueSize = buildExecutorPoolService.getWaitCount();
         int size = BUILD_MANAGE_MAP.size();
         logRecorder.system(I18nMessageUtil.get("i18n.build_task_count_and_queue_count.f0b6"), size, queueSize,
             size > buildExtConfig.getPoolSize() ? I18nMessageUtil.get("i18n.build_task_queue_waiting.5f06") : StrUtil.EMPTY);
         //BuildInfoManage manage = new BuildInfoManage(taskData);
         BUILD_MANAGE_MAP.put(buildInfoModel.getId(), this);
-        threadPoolExecutor.execute(this);
+        buildExecutorPoolService.submit(this);
     }
 
     /**
      * 取消任务(拒绝执行)
      */
     public void rejectedExecution() {
-        ThreadPoolExecutor threadPoolExecutor = buildExecutorPoolService.getThreadPoolExecutor();
-        int queueSize = threadPoolExecutor.getQueue().size();
-        int limitPoolSize = threadPoolExecutor.getPoolSize();
-        int corePoolSize = threadPoolExecutor.getCorePoolSize();
-        String format = StrUtil.format(I18nMessageUtil.get("i18n.build_status_message.42a7"), BUILD_MANAGE_MAP.size(), queueSize, limitPoolSize, corePoolSize);
+        int queueSize = buildExecutorPoolService.getWaitCount();
+        int runningCount = buildExecutorPoolService.getRunningCount();
+        String format = StrUtil.format(I18nMessageUtil.get("i18n.build_status_message.42a7"), BUILD_MANAGE_MAP.size(), queueSize, runningCount, buildExtConfig.getPoolSize());
         logRecorder.system(format);
         this.cancelTask(format);
     }
 
+    /**
+     * 构建所属工作空间，调度使用
+     *
+     * @return 工作空间ID
+     */
+    String workspaceId() {
+        return taskData.buildInfoModel.getWorkspaceId();
+    }
+
+    /**
+     * 构建使用的仓库，调度使用
+     *
+     * @return 仓库ID
+     */
+    String repositoryId() {
+        return taskData.buildInfoModel.getRepositoryId();
+    }
+
+    int priority() {
+        return ObjectUtil.defaultIfNull(buildExtraModule.getPriority(), 0);
+    }
+
+    int weight() {
+        return ObjectUtil.defaultIfNull(buildExtraModule.getWeight(), 1);
+    }
+
+    long submitTime() {
+        return ObjectUtil.defaultIfNull(submitTaskTime, 0L);
+    }
+
+    void dispatched(long time) {
+        this.dispatchTime = time;
+    }
+
+    long dispatchTime() {
+        return ObjectUtil.defaultIfNull(dispatchTime, 0L);
+    }
+
+    /**
+     * 构建队列中的信息
+     *
+     * @param status    状态
+     * @param startTime 开始时间（等待中为预估时间）
+     * @return json
+     */
+    JSONObject queueItem(String status, Long startTime) {
+        BuildInfoModel buildInfoModel = taskData.buildInfoModel;
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("id", buildInfoModel.getId());
+        jsonObject.put("name", buildInfoModel.getName());
+        jsonObject.put("buildId", buildInfoModel.getBuildId());
+        jsonObject.put("workspaceId", this.workspaceId());
+        jsonObject.put("priority", this.priority());
+        jsonObject.put("weight", this.weight());
+        jsonObject.put("submitTime", submitTaskTime);
+        jsonObject.put("status", status);
+        jsonObject.put("startTime", startTime);
+        return jsonObject;
+    }
+
     /**
      * 取消任务
+     *
+     * @return 是否还在等待调度（不会再执行 run）
      */
-    private void cancelTask(String desc) {
+    private boolean cancelTask(String desc) {
+        // 还在等待调度
+        boolean waiting = buildExecutorPoolService.remove(this);
         CommandUtil.kill(process);
         ApacheExecUtil.kill(this.logId);
         Integer buildMode = taskData.buildInfoModel.getBuildMode();
@@ -200,8 +286,26 @@ public class BuildExecuteManage implements Runnable {
         String buildId = taskData.buildInfoModel.getId();
         buildExecuteService.updateStatus(buildId, logId, taskData.buildInfoModel.getBuildId(), BuildStatus.Cancel, desc);
         Optional.ofNullable(currentThread).ifPresent(Thread::interrupt);
-        BUILD_MANAGE_MAP.remove(buildId);
+        // 先关闭日志（写入剩余的日志），再移除。和 run 保持一致，读取日志时不在运行中的构建日志已经完整
         IoUtil.close(logRecorder);
+        BUILD_MANAGE_MAP.remove(buildId, this);
+        return waiting;
+    }
+
+    /**
+     * 并行复制构建产物
+     *
+     * @param fileCopier 已经收集好文件的复制器
+     */
+    private void copyPackageFile(ParallelFileCopier fileCopier) {
+        long startTime = SystemClock.now();
+        int count;
+        try {
+            count = fileCopier.copy();
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+        logRecorder.system(I18nMessageUtil.get("i18n.copy_build_product_files.a333"), count, StringUtil.formatBetween(SystemClock.now() - startTime, BetweenFormatter.Level.MILLISECOND));
     }
 
     /**
@@ -254,6 +358,7 @@ public class BuildExecuteManage implements Runnable {
             ResultDirFileAction.AntFileUploadMode antFileUploadMode = resultDirFileAction.getAntFileUploadMode();
             Assert.notNull(antFileUploadMode, I18nMessageUtil.get("i18n.file_upload_mode_not_configured.b3b2"));
             File historyPackageFile = BuildUtil.getHistoryPackageFile(buildInfoModel.getId(), buildInfoModel.getBuildId(), StrUtil.SLASH);
+            ParallelFileCopier fileCopier = new ParallelFileCopier(file -> releaseHideFile || !file.isHidden());
             int subMatchCount = paths.stream()
                 .filter(s -> {
                     // 需要能满足二级匹配
@@ -295,13 +400,12 @@ public class BuildExecuteManage implements Runnable {
                     // 创建文件夹，避免出现文件全部为相关文件名（result）
                     BuildUtil.mkdirHistoryPackageFile(buildInfoModel.getId(), buildInfoModel.getBuildId());
                     File srcFile = FileUtil.file(this.gitFile, path);
-                    //
-                    FileCopier.create(srcFile, toFile)
-                        .setCopyContentIfDir(true)
-                        .setOverride(true)
-                        .setCopyAttributes(true)
-                        .setCopyFilter(file -> releaseHideFile || !file.isHidden())
-                        .copy();
+                    // 先收集所有文件，再并行复制
+                    try {
+                        fileCopier.add(srcFile, toFile);
+                    } catch (IOException e) {
+                        throw new IORuntimeException(e);
+                    }
                     return 1;
                 }).sum();
             if (subMatchCount <= 0) {
@@ -309,6 +413,7 @@ public class BuildExecuteManage implements Runnable {
                 logRecorder.systemError(format);
                 return format;
             }
+            this.copyPackageFile(fileCopier);
             logRecorder.system(I18nMessageUtil.get("i18n.secondary_directory_match.0aec"), antSubMatch, subMatchCount, antFileUploadMode);
             // 更新产物路径为普通路径
             dbBuildHistoryLogService.updateResultDirFile(this.logId, StrUtil.SLASH);
@@ -325,19 +430,20 @@ public class BuildExecuteManage implements Runnable {
             File toFile = BuildUtil.getHistoryPackageFile(buildInfoModel.getId(), buildInfoModel.getBuildId(), resultDirFile);
             //
             String rootDir = FileUtil.getAbsolutePath(gitFile);
-            FileCopier.create(file, toFile)
-                .setCopyContentIfDir(true)
-                .setOverride(true)
-                .setCopyAttributes(true)
-                .setCopyFilter(file12 -> {
-                    if (!releaseHideFile && file12.isHidden()) {
-                        return false;
-                    }
-                    String subPath = FileUtil.subPath(rootDir, file12);
-                    subPath = FileUtil.normalize(StrUtil.SLASH + subPath);
-                    return predicate.test(subPath);
-                })
-                .copy();
+            ParallelFileCopier fileCopier = new ParallelFileCopier(file12 -> {
+                if (!releaseHideFile && file12.isHidden()) {
+                    return false;
+                }
+                String subPath = FileUtil.subPath(rootDir, file12);
+                subPath = FileUtil.normalize(StrUtil.SLASH + subPath);
+                return predicate.test(subPath);
+            });
+            try {
+                fileCopier.add(file, toFile);
+            } catch (IOException e) {
+                throw new IORuntimeException(e);
+            }
+            this.copyPackageFile(fileCopier);
         }
         if (CollUtil.isNotEmpty(excludeReleaseAnts)) {
             logRecorder.system(I18nMessageUtil.get("i18n.cumulative_filter_files.448d"), excludeReleaseAnt, excludeReleaseAntCount[0]);
@@ -852,6 +958,7 @@ public class BuildExecuteManage implements Runnable {
                     break;
                 }
                 logRecorder.system(I18nMessageUtil.get("i18n.execution_ended_with_duration.a59b"), processItem.name(), StringUtil.formatBetween(SystemClock.now() - processItemStartTime, BetweenFormatter.Level.MILLISECOND));
+                logRecorder.flush();
             }
             if (!stop) {
                 // 没有执行 stop
@@ -892,7 +999,8 @@ public class BuildExecuteManage implements Runnable {
         } catch (Exception e) {
             log.error(I18nMessageUtil.get("i18n.build_unknown_error.dad6"), e);
         } finally {
-            BUILD_MANAGE_MAP.remove(buildInfoModel.getId());
+            BUILD_MANAGE_MAP.remove(buildInfoModel.getId(), this);
+            buildExecuteService.buildFinished(buildInfoModel.getId());
             I18nMessageUtil.clearLanguage();
         }
     }
@@ -934,17 +1042,11 @@ public class BuildExecuteManage implements Runnable {
         }
 
         Opt.ofBlankAble(buildInfoModel.getWebhook())
-            .ifPresent(s ->
-                I18nThreadUtil.execute(() -> {
-                    try {
-                        IPlugin plugin = PluginFactory.getPlugin("webhook");
-                        map.put("JPOM_WEBHOOK_EVENT", DefaultWebhookPluginImpl.WebhookEvent.BUILD);
-                        plugin.execute(s, map);
-                    } catch (Exception e) {
-                        log.error(I18nMessageUtil.get("i18n.webhooks_invocation_error.9792"), e);
-                    }
-                })
-            );
+            .ifPresent(s -> {
+                Map<String, Object> webhookMap = new HashMap<>(map);
+                webhookMap.put("JPOM_WEBHOOK_EVENT", DefaultWebhookPluginImpl.WebhookEvent.BUILD);
+                NotifyDispatcher.getInstance().webhook(s, webhookMap, null, null);
+            });
         // 执行对应的事件脚本
         try {
             return this.noticeScript(type, map);
@@ -1054,7 +1156,11 @@ public class BuildExecuteManage implements Runnable {
      */
     public static boolean cancelTaskById(String id) {
         return Optional.ofNullable(BuildExecuteManage.BUILD_MANAGE_MAP.get(id)).map(buildExecuteManage1 -> {
-            buildExecuteManage1.cancelTask(I18nMessageUtil.get("i18n.manual_cancel_task.e592"));
+            boolean waiting = buildExecuteManage1.cancelTask(I18nMessageUtil.get("i18n.manual_cancel_task.e592"));
+            if (waiting) {
+                // 还在等待调度的任务不会再执行 run，由这里通知结束。已经开始执行的由 run 通知
+                buildExecuteService.buildFinished(id);
+            }
             return true;
         }).orElse(false);
     }
@@ -35,7 +35,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
 import java.io.File;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * @author bwcx_jzy
@@ -51,6 +54,14 @@ public class BuildExecuteService {
     private final RepositoryService repositoryService;
     private final WorkspaceEnvVarService workspaceEnvVarService;
     private final BuildExecutorPoolService buildExecutorPoolService;
+    /**
+     * 构建结束监听
+     */
+    private final List<Consumer<String>> finishListeners = new CopyOnWriteArrayList<>();
+    /**
+     * 构建日志写入文件监听
+     */
+    private final List<Consumer<String>> logListeners = new CopyOnWriteArrayList<>();
 
     public BuildExecuteService(BuildInfoService buildService,
                                DbBuildHistoryLogService dbBuildHistoryLogService,
@@ -287,5 +298,49 @@ public class BuildExecuteService {
         buildService.updateStatus(buildId, buildNumberId, buildStatus, msg);
     }
 
+    /**
+     * 添加构建结束（完成、失败、取消）监听
+     *
+     * @param listener 参数为构建id
+     */
+    public void addFinishListener(Consumer<String> listener) {
+        finishListeners.add(listener);
+    }
+
+    /**
+     * 添加构建日志写入文件监听
+     *
+     * @param listener 参数为构建id
+     */
+    public void addLogListener(Consumer<String> listener) {
+        logListeners.add(listener);
+    }
+
+    /**
+     * 通知构建日志已经写入文件
+     *
+     * @param buildInfoId 构建id
+     */
+    void logFlushed(String buildInfoId) {
+        for (Consumer<String> listener : logListeners) {
+            listener.accept(buildInfoId);
+        }
+    }
+
+    /**
+     * 通知构建结束
+     *
+     * @param buildInfoId 构建id
+     */
+    void buildFinished(String buildInfoId) {
+        for (Consumer<String> listener : finishListeners) {
+            try {
+                listener.accept(buildInfoId);
+            } catch (Exception e) {
+                log.error(I18nMessageUtil.get("i18n.build_finish_listener_exception.bf72"), buildInfoId, e);
+            }
+        }
+    }
+
 
 }
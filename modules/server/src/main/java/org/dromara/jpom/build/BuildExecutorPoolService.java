@@ -9,15 +9,30 @@
  */
 package org.dromara.jpom.build;
 
+import cn.hutool.core.date.SystemClock;
 import cn.hutool.core.thread.ExecutorBuilder;
+import com.alibaba.fastjson2.JSONObject;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.jpom.JpomApplication;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
 import org.dromara.jpom.configuration.BuildExtConfig;
 import org.springframework.stereotype.Service;
 
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+/**
+ * 构建调度
+ * <p>
+ * 构建任务先进入等待队列，按优先级（工作空间 + 构建配置）、工作空间公平、提交时间的顺序调度，
+ * 同时限制同一个仓库的并发数量，每个构建按声明的权重占用构建线程池的槽位。
+ * 排在最前的构建等待超过预留时间后，不再调度其他构建，直到有足够的槽位
+ *
+ * @author bwcx_jzy
+ */
 @Service
 @Slf4j
 public class BuildExecutorPoolService {
@@ -26,6 +41,24 @@ public class BuildExecutorPoolService {
      */
     private volatile ThreadPoolExecutor threadPoolExecutor;
     private final BuildExtConfig buildExtConfig;
+    /**
+     * 等待调度的构建
+     */
+    private final List<BuildExecuteManage> waitQueue = new ArrayList<>();
+    /**
+     * 正在执行的构建
+     */
+    private final List<BuildExecuteManage> runningList = new ArrayList<>();
+    /**
+     * 工作空间最近一次被调度的序号，序号小的优先（公平调度）
+     */
+    private final Map<String, Long> workspaceServed = new HashMap<>();
+    private long dispatchSeq;
+    private int usedWeight;
+    /**
+     * 最近构建耗时的平均值（毫秒），用于预估开始时间
+     */
+    private volatile long averageDuration;
 
     public BuildExecutorPoolService(BuildExtConfig buildExtConfig) {
         this.buildExtConfig = buildExtConfig;
@@ -41,6 +74,209 @@ public class BuildExecutorPoolService {
         threadPoolExecutor.execute(command);
     }
 
+    /**
+     * 提交构建任务，等待调度
+     *
+     * @param manage 构建
+     */
+    public void submit(BuildExecuteManage manage) {
+        this.initPool();
+        synchronized (this) {
+            if (waitQueue.size() < Math.max(buildExtConfig.getPoolWaitQueue(), 1)) {
+                waitQueue.add(manage);
+                this.dispatch();
+                return;
+            }
+        }
+        // 等待队列已满
+        manage.rejectedExecution();
+    }
+
+    /**
+     * 从等待队列中移除（取消构建）
+     *
+     * @param manage 构建
+     * @return 是否还在等待队列中（还没有开始执行）
+     */
+    public synchronized boolean remove(BuildExecuteManage manage) {
+        return waitQueue.remove(manage);
+    }
+
+    public synchronized int getWaitCount() {
+        return waitQueue.size();
+    }
+
+    public synchronized int getRunningCount() {
+        return runningList.size();
+    }
+
+    /**
+     * 调度等待中的构建，直到没有可用槽位或者没有满足条件的构建
+     */
+    private void dispatch() {
+        List<BuildExecuteManage> rejectedList = new ArrayList<>();
+        while (true) {
+            BuildExecuteManage next = this.selectNext();
+            if (next == null) {
+                break;
+            }
+            waitQueue.remove(next);
+            runningList.add(next);
+            usedWeight += this.weight(next);
+            workspaceServed.put(next.workspaceId(), ++dispatchSeq);
+            next.dispatched(SystemClock.now());
+            try {
+                threadPoolExecutor.execute(new BuildTask(next));
+            } catch (RejectedExecutionException e) {
+                // 线程池拒绝（关闭中），释放槽位后在当前循环继续调度
+                runningList.remove(next);
+                usedWeight -= this.weight(next);
+                rejectedList.add(next);
+            }
+        }
+        rejectedList.forEach(BuildExecuteManage::rejectedExecution);
+    }
+
+    private BuildExecuteManage selectNext() {
+        int slots = this.slots();
+        int repositoryConcurrent = buildExtConfig.getRepositoryConcurrent();
+        List<BuildExecuteManage> candidates = waitQueue.stream()
+            .filter(manage -> repositoryConcurrent < 1 || this.countRunning(BuildExecuteManage::repositoryId, manage.repositoryId()) < repositoryConcurrent)
+            .collect(Collectors.toList());
+        Comparator<BuildExecuteManage> comparator = this.comparator();
+        BuildExecuteManage head = candidates.stream().min(comparator).orElse(null);
+        if (head == null) {
+            return null;
+        }
+        // 没有在执行的构建时，权重超过总槽位也可以执行
+        if (runningList.isEmpty() || usedWeight + this.weight(head) <= slots) {
+            return head;
+        }
+        if (this.reserved(head)) {
+            // 排在最前的构建等待太久，不再调度其他构建，等待槽位释放
+            return null;
+        }
+        return candidates.stream()
+            .filter(manage -> usedWeight + this.weight(manage) <= slots)
+            .min(comparator)
+            .orElse(null);
+    }
+
+    /**
+     * 是否需要为构建预留槽位
+     *
+     * @param manage 构建
+     * @return 等待时间超过配置的预留时间
+     */
+    private boolean reserved(BuildExecuteManage manage) {
+        int reserveWaitSeconds = buildExtConfig.getPoolReserveWaitSeconds();
+        return reserveWaitSeconds > 0 && SystemClock.now() - manage.submitTime() >= TimeUnit.SECONDS.toMillis(reserveWaitSeconds);
+    }
+
+    /**
+     * 调度顺序：优先级高、工作空间正在执行少、工作空间较久未调度、提交时间早
+     *
+     * @return 比较器
+     */
+    private Comparator<BuildExecuteManage> comparator() {
+        return Comparator.<BuildExecuteManage>comparingInt(manage -> -this.priority(manage))
+            .thenComparingLong(manage -> this.countRunning(BuildExecuteManage::workspaceId, manage.workspaceId()))
+            .thenComparingLong(manage -> workspaceServed.getOrDefault(manage.workspaceId(), 0L))
+            .thenComparingLong(BuildExecuteManage::submitTime);
+    }
+
+    private long countRunning(java.util.function.Function<BuildExecuteManage, String> function, String value) {
+        return runningList.stream().filter(manage -> Objects.equals(function.apply(manage), value)).count();
+    }
+
+    private int priority(BuildExecuteManage manage) {
+        Integer workspacePriority = buildExtConfig.getWorkspacePriority().get(manage.workspaceId());
+        return Optional.ofNullable(workspacePriority).orElse(0) + manage.priority();
+    }
+
+    private int weight(BuildExecuteManage manage) {
+        return Math.min(Math.max(manage.weight(), 1), this.slots());
+    }
+
+    private int slots() {
+        int poolSize = buildExtConfig.getPoolSize();
+        return poolSize > 0 ? poolSize : Integer.MAX_VALUE;
+    }
+
+    private synchronized void finished(BuildExecuteManage manage) {
+        if (!runningList.remove(manage)) {
+            return;
+        }
+        usedWeight -= this.weight(manage);
+        long duration = SystemClock.now() - manage.dispatchTime();
+        averageDuration = averageDuration <= 0 ? duration : (averageDuration * 4 + duration) / 5;
+        this.dispatch();
+    }
+
+    /**
+     * 构建队列信息，包含预估开始时间
+     *
+     * @return list
+     */
+    public synchronized List<JSONObject> queueInfo() {
+        long now = SystemClock.now();
+        long average = this.averageDuration;
+        // 每个槽位预计空闲的时间
+        PriorityQueue<Long> slotFreeTime = new PriorityQueue<>();
+        for (BuildExecuteManage manage : runningList) {
+            for (int i = 0; i < this.weight(manage); i++) {
+                slotFreeTime.add(Math.max(manage.dispatchTime() + average, now));
+            }
+        }
+        List<JSONObject> list = new ArrayList<>();
+        for (BuildExecuteManage manage : runningList) {
+            list.add(manage.queueItem("running", manage.dispatchTime()));
+        }
+        List<BuildExecuteManage> waitList = new ArrayList<>(waitQueue);
+        waitList.sort(this.comparator());
+        int slots = this.slots();
+        for (BuildExecuteManage manage : waitList) {
+            Long estimate = null;
+            if (average > 0 && slots != Integer.MAX_VALUE) {
+                int weight = this.weight(manage);
+                // 空闲槽位
+                while (slotFreeTime.size() < slots) {
+                    slotFreeTime.add(now);
+                }
+                long start = now;
+                for (int i = 0; i < weight; i++) {
+                    start = Math.max(start, Optional.ofNullable(slotFreeTime.poll()).orElse(now));
+                }
+                for (int i = 0; i < weight; i++) {
+                    slotFreeTime.add(start + average);
+                }
+                estimate = start;
+            }
+            list.add(manage.queueItem("waiting", estimate));
+        }
+        return list;
+    }
+
+    /**
+     * 构建执行，结束后释放槽位
+     */
+    private class BuildTask implements Runnable {
+        private final BuildExecuteManage manage;
+
+        private BuildTask(BuildExecuteManage manage) {
+            this.manage = manage;
+        }
+
+        @Override
+        public void run() {
+            try {
+                manage.run();
+            } finally {
+                finished(manage);
+            }
+        }
+    }
+
     /**
      * 创建构建线程池
      */
@@ -54,13 +290,12 @@ public class BuildExecutorPoolService {
                         executorBuilder.setCorePoolSize(poolSize).setMaxPoolSize(poolSize);
                     }
                     executorBuilder.useArrayBlockingQueue(Math.max(buildExtConfig.getPoolWaitQueue(), 1));
-                    executorBuilder.setHandler(new ThreadPoolExecutor.DiscardPolicy() {
+                    executorBuilder.setHandler(new ThreadPoolExecutor.AbortPolicy() {
                         @Override
                         public void rejectedExecution(Runnable r, ThreadPoolExecutor e) {
-                            if (r instanceof BuildExecuteManage) {
-                                // 取消任务
-                                BuildExecuteManage buildExecuteManage = (BuildExecuteManage) r;
-                                buildExecuteManage.rejectedExecution();
+                            if (r instanceof BuildTask) {
+                                // 由调度循环释放槽位并取消任务
+                                super.rejectedExecution(r, e);
                             } else {
                                 log.warn(I18nMessageUtil.get("i18n.build_thread_pool_rejected_task.3bad"), r.getClass());
                             }
@@ -195,6 +195,26 @@ public class BuildExtraModule extends BaseModel {
      * 本地构建执行命令方式
      */
     private String commandExecMode;
+    /**
+     * 构建优先级，数值越大越优先调度
+     */
+    private Integer priority;
+    /**
+     * 构建占用的调度权重（按 cpu、内存消耗声明），默认 1
+     */
+    private Integer weight;
+    /**
+     * 镜像只在一个 docker 中构建，再导出分发到同标签的其他 docker，为空使用全局配置
+     */
+    private Boolean dockerBuildOnce;
+    /**
+     * 触发器队列最多排队数量，为空使用全局配置
+     */
+    private Integer triggerQueueDepth;
+    /**
+     * 触发器队列合并为最新的一次触发，为空使用全局配置
+     */
+    private Boolean triggerQueueCoalesce;
 
     public boolean strictlyEnforce() {
         return strictlyEnforce != null && strictlyEnforce;
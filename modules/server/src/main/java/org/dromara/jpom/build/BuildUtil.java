@@ -10,22 +10,41 @@
 package org.dromara.jpom.build;
 
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IORuntimeException;
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.core.util.URLUtil;
-import cn.hutool.core.util.ZipUtil;
 import cn.hutool.crypto.SecureUtil;
 import cn.hutool.extra.compress.CompressUtil;
 import cn.hutool.extra.compress.archiver.Archiver;
+import cn.hutool.extra.spring.SpringUtil;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipParameters;
+import org.apache.commons.compress.parallel.FileBasedScatterGatherBackingStore;
 import org.dromara.jpom.JpomApplication;
 import org.dromara.jpom.common.ServerConst;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
+import org.dromara.jpom.configuration.BuildExtConfig;
 import org.dromara.jpom.model.data.BuildInfoModel;
 import org.dromara.jpom.model.data.RepositoryModel;
 import org.springframework.util.Assert;
 
-import java.io.File;
+import java.io.*;
 import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.BiFunction;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
 
 /**
  * 构建工具类
@@ -165,17 +184,115 @@ public class BuildUtil {
         // 保存目录存放值 history 路径
         File packageFile = BuildUtil.getHistoryPackageZipFile(id, buildNumberId);
         File zipFile = tarGz ? FileUtil.file(packageFile, name + ".tar.gz") : FileUtil.file(packageFile, name + ".zip");
-        // 不存在则打包
-        if (tarGz) {
-            try (Archiver archiver = CompressUtil.createArchiver(Charset.defaultCharset(), "tar.gz", zipFile)) {
-                archiver.add(file);
+        if (zipFile.exists()) {
+            // 构建产物不会再变化，同一次构建的多次发布、下载复用已经打包的文件
+            return zipFile;
+        }
+        // 不存在则打包，先写入临时文件，避免使用到未打包完成的文件
+        File tempFile = FileUtil.file(packageFile, zipFile.getName() + "." + IdUtil.fastSimpleUUID() + ".tmp");
+        FileUtil.mkParentDirs(tempFile);
+        BuildExtConfig buildExtConfig = getBuildExtConfig();
+        int level = buildExtConfig.getPackageCompressLevel();
+        level = level == Deflater.DEFAULT_COMPRESSION ? level : Math.min(Math.max(level, Deflater.BEST_SPEED), Deflater.BEST_COMPRESSION);
+        try {
+            if (tarGz) {
+                GzipParameters parameters = new GzipParameters();
+                parameters.setCompressionLevel(level);
+                OutputStream outputStream = new GzipCompressorOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile.toPath()), 64 * 1024), parameters);
+                try (Archiver archiver = CompressUtil.createArchiver(Charset.defaultCharset(), "tar", outputStream)) {
+                    archiver.add(file);
+                }
+            } else {
+                zip(file, tempFile, level, ParallelFileCopier.parallelism(buildExtConfig.getPackageParallelism()));
             }
-        } else {
-            ZipUtil.zip(file.getAbsolutePath(), zipFile.getAbsolutePath());
+            Files.move(tempFile.toPath(), zipFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        } finally {
+            FileUtil.del(tempFile);
         }
         return zipFile;
     }
 
+    /**
+     * 并行压缩目录中的文件，压缩包中不包含目录本身（与 ZipUtil.zip 一致，只保留空目录）
+     *
+     * @param dir         目录
+     * @param zipFile     压缩包
+     * @param level       压缩级别
+     * @param parallelism 并发数
+     * @throws IOException io
+     */
+    private static void zip(File dir, File zipFile, int level, int parallelism) throws IOException {
+        ExecutorService executorService = ExecutorBuilder.create()
+            .setCorePoolSize(parallelism)
+            .setMaxPoolSize(parallelism)
+            .setWorkQueue(new LinkedBlockingQueue<>())
+            .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("jpom-build-zip-").setDaemon(true).build())
+            .build();
+        File scatterDir = zipFile.getParentFile();
+        try {
+            // 压缩中间文件存放在压缩包同级目录，避免占用系统临时目录
+            ParallelScatterZipCreator creator = new ParallelScatterZipCreator(executorService,
+                () -> new FileBasedScatterGatherBackingStore(Files.createTempFile(scatterDir.toPath(), "scatter", ".tmp")), level);
+            Path root = dir.toPath();
+            Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) {
+                    if (!path.equals(root) && FileUtil.isDirEmpty(path.toFile())) {
+                        ZipArchiveEntry entry = new ZipArchiveEntry(entryName(root, path) + StrUtil.SLASH);
+                        entry.setMethod(ZipEntry.DEFLATED);
+                        entry.setTime(attrs.lastModifiedTime().toMillis());
+                        creator.addArchiveEntry(entry, () -> new ByteArrayInputStream(new byte[0]));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                    ZipArchiveEntry entry = new ZipArchiveEntry(entryName(root, path));
+                    entry.setMethod(ZipEntry.DEFLATED);
+                    entry.setSize(attrs.size());
+                    entry.setTime(attrs.lastModifiedTime().toMillis());
+                    creator.addArchiveEntry(entry, () -> {
+                        try {
+                            return Files.newInputStream(path);
+                        } catch (IOException e) {
+                            throw new IORuntimeException(e);
+                        }
+                    });
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            try (ZipArchiveOutputStream outputStream = new ZipArchiveOutputStream(zipFile)) {
+                outputStream.setEncoding(Charset.defaultCharset().name());
+                creator.writeTo(outputStream);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IORuntimeException) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static String entryName(Path root, Path path) {
+        return StrUtil.replace(root.relativize(path).toString(), File.separator, StrUtil.SLASH);
+    }
+
+    static BuildExtConfig getBuildExtConfig() {
+        return SpringUtil.getBean(BuildExtConfig.class);
+    }
+
     /**
      * 如果为文件夹自动打包为zip ,反之返回null
      *
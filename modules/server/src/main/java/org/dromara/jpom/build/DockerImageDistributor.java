@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.build;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.date.BetweenFormatter;
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.date.SystemClock;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.NumberUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.keepbx.jpom.plugins.IPlugin;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.jpom.JpomApplication;
+import org.dromara.jpom.common.i18n.I18nMessageUtil;
+import org.dromara.jpom.configuration.BuildExtConfig;
+import org.dromara.jpom.func.assets.server.MachineDockerServer;
+import org.dromara.jpom.model.docker.DockerInfoModel;
+import org.dromara.jpom.plugin.PluginFactory;
+import org.dromara.jpom.service.docker.DockerInfoService;
+import org.dromara.jpom.util.LogRecorder;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.LongConsumer;
+
+/**
+ * 构建镜像分发
+ * <p>
+ * 镜像只在一个 docker 中构建，导出为 tar 文件后并行导入到同标签的其他 docker，已经存在相同镜像 id 的 docker 不再导入
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@Slf4j
+public class DockerImageDistributor {
+
+    private static volatile ExecutorService executorService;
+
+    private final MachineDockerServer machineDockerServer;
+    private final BuildExtConfig buildExtConfig;
+    private final LogRecorder logRecorder;
+    private final IPlugin plugin;
+
+    public DockerImageDistributor(MachineDockerServer machineDockerServer, BuildExtConfig buildExtConfig, LogRecorder logRecorder) {
+        this.machineDockerServer = machineDockerServer;
+        this.buildExtConfig = buildExtConfig;
+        this.logRecorder = logRecorder;
+        this.plugin = PluginFactory.getPlugin(DockerInfoService.DOCKER_PLUGIN_NAME);
+    }
+
+    /**
+     * 分发镜像
+     *
+     * @param builderName 构建镜像的 docker 名称
+     * @param builder     构建镜像的 docker 参数
+     * @param targets     需要分发的 docker
+     * @param dockerTag   镜像标签，多个使用逗号分隔
+     * @param imageFile   导出镜像的临时文件
+     * @return 分发失败的 docker 名称
+     */
+    public List<String> distribute(String builderName, Map<String, Object> builder, List<DockerInfoModel> targets, String dockerTag, File imageFile) {
+        List<String> tags = StrUtil.splitTrim(dockerTag, StrUtil.COMMA);
+        List<String> failed = Collections.synchronizedList(new ArrayList<>());
+        try {
+            String imageId = this.builderImageId(builderName, builder, CollUtil.getFirst(tags));
+            if (imageId == null) {
+                logRecorder.systemError(I18nMessageUtil.get("i18n.docker_image_not_found_after_build.d5da"), builderName, dockerTag);
+                targets.forEach(target -> failed.add(target.getName()));
+                return failed;
+            }
+            // 已经存在相同镜像的 docker 不需要导入
+            Map<DockerInfoModel, Map<String, Object>> loads = new LinkedHashMap<>();
+            for (DockerInfoModel target : targets) {
+                try {
+                    Map<String, Object> parameter = machineDockerServer.dockerParameter(target);
+                    if (this.hasImage(parameter, tags, imageId)) {
+                        logRecorder.system(I18nMessageUtil.get("i18n.docker_distribute_skip.4cb7"), target.getName(), imageId);
+                        continue;
+                    }
+                    loads.put(target, parameter);
+                } catch (Exception e) {
+                    log.error(StrUtil.format(I18nMessageUtil.get("i18n.docker_distribute_failed.cf86"), target.getName()), e);
+                    logRecorder.error(StrUtil.format(I18nMessageUtil.get("i18n.docker_distribute_failed.cf86"), target.getName()), e);
+                    failed.add(target.getName());
+                }
+            }
+            if (loads.isEmpty()) {
+                return failed;
+            }
+            // 只导出一次
+            Map<String, Object> saveParameter = new HashMap<>(builder);
+            saveParameter.put("tags", dockerTag);
+            try (InputStream inputStream = (InputStream) plugin.execute("saveImages", saveParameter)) {
+                FileUtil.writeFromStream(inputStream, imageFile, false);
+            } catch (Exception e) {
+                log.error(StrUtil.format(I18nMessageUtil.get("i18n.docker_distribute_failed.cf86"), builderName), e);
+                logRecorder.error(StrUtil.format(I18nMessageUtil.get("i18n.docker_distribute_failed.cf86"), builderName), e);
+                loads.keySet().forEach(target -> failed.add(target.getName()));
+                return failed;
+            }
+            logRecorder.system(I18nMessageUtil.get("i18n.docker_distribute_export.51c9"), builderName, dockerTag, FileUtil.readableFileSize(imageFile));
+            // 并行导入
+            ExecutorService service = getExecutorService(buildExtConfig.getDockerDistributeParallelism());
+            Map<DockerInfoModel, Future<?>> futures = new LinkedHashMap<>();
+            for (Map.Entry<DockerInfoModel, Map<String, Object>> entry : loads.entrySet()) {
+                DockerInfoModel target = entry.getKey();
+                futures.put(target, service.submit(() -> {
+                    if (!this.load(target.getName(), entry.getValue(), tags, imageId, imageFile)) {
+                        failed.add(target.getName());
+                    }
+                }));
+            }
+            for (Map.Entry<DockerInfoModel, Future<?>> entry : futures.entrySet()) {
+                try {
+                    entry.getValue().get();
+                } catch (InterruptedException e) {
+                    futures.values().forEach(future -> future.cancel(true));
+                    Thread.currentThread().interrupt();
+                    futures.keySet().stream()
+                        .map(DockerInfoModel::getName)
+                        .filter(name -> !failed.contains(name))
+                        .forEach(failed::add);
+                    return failed;
+                } catch (ExecutionException e) {
+                    log.error(StrUtil.format(I18nMessageUtil.get("i18n.docker_distribute_failed.cf86"), entry.getKey().getName()), e.getCause());
+                    failed.add(entry.getKey().getName());
+                }
+            }
+            return failed;
+        } finally {
+            FileUtil.del(imageFile);
+        }
+    }
+
+    /**
+     * 导入镜像到指定 docker
+     *
+     * @param name      docker 名称
+     * @param parameter docker 参数
+     * @param tags      镜像标签
+     * @param imageId   镜像id
+     * @param imageFile 镜像文件
+     * @return 是否成功
+     */
+    private boolean load(String name, Map<String, Object> parameter, List<String> tags, String imageId, File imageFile) {
+        long total = imageFile.length();
+        int ratio = buildExtConfig.getLogReduceProgressRatio();
+        Set<Integer> progressRangeList = new HashSet<>();
+        long start = SystemClock.now();
+        try (InputStream inputStream = new ProgressInputStream(Files.newInputStream(imageFile.toPath()), progressSize -> {
+            double progressPercentage = Math.floor(((float) progressSize / total) * 100);
+            int progressRange = (int) Math.floor(progressPercentage / ratio);
+            if (progressRangeList.add(progressRange)) {
+                logRecorder.system(I18nMessageUtil.get("i18n.docker_distribute_progress.105b"), name,
+                    FileUtil.readableFileSize(progressSize), FileUtil.readableFileSize(total),
+                    NumberUtil.formatPercent(((float) progressSize / total), 0));
+            }
+        })) {
+            Map<String, Object> map = new HashMap<>(parameter);
+            map.put("stream", inputStream);
+            plugin.execute("loadImage", map);
+            if (!this.hasImage(parameter, tags, imageId)) {
+                logRecorder.systemError(I18nMessageUtil.get("i18n.docker_image_not_found_after_build.d5da"), name, imageId);
+                return false;
+            }
+            logRecorder.system(I18nMessageUtil.get("i18n.docker_distribute_success.7328"), name,
+                DateUtil.formatBetween(SystemClock.now() - start, BetweenFormatter.Level.MILLISECOND));
+            return true;
+        } catch (Exception e) {
+            log.error(StrUtil.format(I18nMessageUtil.get("i18n.docker_distribute_failed.cf86"), name), e);
+            logRecorder.error(StrUtil.format(I18nMessageUtil.get("i18n.docker_distribute_failed.cf86"), name), e);
+            return false;
+        }
+    }
+
+    /**
+     * 所有标签都指向相同的镜像
+     */
+    private boolean hasImage(Map<String, Object> parameter, List<String> tags, String imageId) throws Exception {
+        for (String tag : tags) {
+            if (!StrUtil.equals(imageId, this.imageId(parameter, tag))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String builderImageId(String builderName, Map<String, Object> builder, String tag) {
+        try {
+            return this.imageId(builder, tag);
+        } catch (Exception e) {
+            log.error(StrUtil.format(I18nMessageUtil.get("i18n.docker_distribute_failed.cf86"), builderName), e);
+            logRecorder.error(StrUtil.format(I18nMessageUtil.get("i18n.docker_distribute_failed.cf86"), builderName), e);
+            return null;
+        }
+    }
+
+    private String imageId(Map<String, Object> parameter, String tag) throws Exception {
+        Map<String, Object> map = new HashMap<>(parameter);
+        map.put("imageId", tag);
+        return (String) plugin.execute("imageId", map);
+    }
+
+    private static ExecutorService getExecutorService(int parallelism) {
+        if (executorService == null) {
+            synchronized (DockerImageDistributor.class) {
+                if (executorService == null) {
+                    ExecutorBuilder builder = ExecutorBuilder.create()
+                        .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("jpom-docker-distribute-").setDaemon(true).build());
+                    if (parallelism > 0) {
+                        builder.setCorePoolSize(parallelism).setMaxPoolSize(parallelism).setWorkQueue(new LinkedBlockingQueue<>());
+                    } else {
+                        builder.setCorePoolSize(0).setMaxPoolSize(Integer.MAX_VALUE).useSynchronousQueue();
+                    }
+                    executorService = builder.build();
+                    JpomApplication.register("docker-distribute", executorService);
+                }
+            }
+        }
+        return executorService;
+    }
+
+    /**
+     * 读取进度
+     */
+    private static class ProgressInputStream extends FilterInputStream {
+
+        private final LongConsumer progress;
+        private long size;
+
+        private ProgressInputStream(InputStream in, LongConsumer progress) {
+            super(in);
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read != -1) {
+                progress.accept(++size);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                size += read;
+                progress.accept(size);
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.build;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import org.dromara.jpom.JpomApplication;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Predicate;
+
+/**
+ * 构建产物并行复制
+ * <p>
+ * 遍历时只创建目录、记录需要复制的文件，遍历结束后在线程池中并行复制。同一个目标文件以最后一次记录的为准，
+ * 已经遍历过的目录不再重复遍历，结果与依次使用 {@link cn.hutool.core.io.file.FileCopier}（copyContentIfDir）复制一致
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+public class ParallelFileCopier {
+
+    private static volatile ExecutorService executorService;
+
+    private final Predicate<File> filter;
+    /**
+     * 目标文件 -> 源文件
+     */
+    private final Map<File, File> files = new LinkedHashMap<>();
+    /**
+     * 已经遍历过的目录（源目录 -> 目标目录）
+     */
+    private final Set<String> visitedDirs = new HashSet<>();
+
+    public ParallelFileCopier(Predicate<File> filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * 添加需要复制的文件，目录复制目录中的内容到目标目录
+     *
+     * @param src  源文件
+     * @param dest 目标
+     * @throws IOException io
+     */
+    public void add(File src, File dest) throws IOException {
+        if (!filter.test(src)) {
+            return;
+        }
+        if (src.isDirectory()) {
+            this.addDir(src.toPath(), dest.toPath());
+            return;
+        }
+        File target = dest.isDirectory() ? new File(dest, src.getName()) : dest;
+        FileUtil.mkParentDirs(target);
+        files.put(target, src);
+    }
+
+    private void addDir(Path src, Path dest) throws IOException {
+        Files.walkFileTree(src, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(src) && !filter.test(dir.toFile())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Path target = dest.resolve(src.relativize(dir).toString());
+                if (!visitedDirs.add(dir.toAbsolutePath() + File.pathSeparator + target.toAbsolutePath())) {
+                    // 模糊匹配时父级目录已经复制
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(target);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                File srcFile = file.toFile();
+                if (filter.test(srcFile)) {
+                    files.put(dest.resolve(src.relativize(file).toString()).toFile(), srcFile);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 并行复制已经添加的文件
+     *
+     * @return 复制的文件数
+     * @throws IOException io
+     */
+    public int copy() throws IOException {
+        ExecutorService service = getExecutorService();
+        List<Future<?>> futures = new ArrayList<>(files.size());
+        try {
+            for (Map.Entry<File, File> entry : files.entrySet()) {
+                Path target = entry.getKey().toPath();
+                Path source = entry.getValue().toPath();
+                futures.add(service.submit(() -> {
+                    Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+        return files.size();
+    }
+
+    /**
+     * 复制、打包的并发数
+     *
+     * @param parallelism 配置值
+     * @return 小于 1 为 cpu 核数
+     */
+    public static int parallelism(int parallelism) {
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    private static ExecutorService getExecutorService() {
+        if (executorService == null) {
+            synchronized (ParallelFileCopier.class) {
+                if (executorService == null) {
+                    int parallelism = parallelism(BuildUtil.getBuildExtConfig().getPackageParallelism());
+                    executorService = ExecutorBuilder.create()
+                        .setCorePoolSize(parallelism)
+                        .setMaxPoolSize(parallelism)
+                        .setWorkQueue(new LinkedBlockingQueue<>())
+                        .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("jpom-build-package-").setDaemon(true).build())
+                        .build();
+                    JpomApplication.register("build-package", executorService);
+                }
+            }
+        }
+        return executorService;
+    }
+}
@@ -290,12 +290,21 @@ public class ReleaseManage {
                 return format;
             }
             //String dockerBuildArgs = this.buildExtraModule.getDockerBuildArgs();
-            for (DockerInfoModel infoModel : dockerInfoModels) {
-                boolean done = this.doDockerImage(infoModel, envMap, dockerfile, baseDir, dockerTag, this.buildExtraModule);
-                if (!done) {
-                    logRecorder.systemWarning(I18nMessageUtil.get("i18n.container_build_exception.a98f"), infoModel.getName(), dockerTag);
-                    if (buildExtraModule.strictlyEnforce()) {
-                        return I18nMessageUtil.get("i18n.strict_mode_image_build_failure.ecea");
+            boolean buildOnce = Optional.ofNullable(this.buildExtraModule.getDockerBuildOnce()).orElse(buildExtConfig.isDockerBuildOnce());
+            if (buildOnce && dockerInfoModels.size() > 1) {
+                File imageFile = FileUtil.file(tempPath.getParentFile(), tempPath.getName() + ".tar");
+                String error = this.doDockerImageOnce(dockerInfoModels, envMap, dockerfile, baseDir, dockerTag, imageFile);
+                if (error != null) {
+                    return error;
+                }
+            } else {
+                for (DockerInfoModel infoModel : dockerInfoModels) {
+                    boolean done = this.doDockerImage(infoModel, envMap, dockerfile, baseDir, dockerTag, this.buildExtraModule);
+                    if (!done) {
+                        logRecorder.systemWarning(I18nMessageUtil.get("i18n.container_build_exception.a98f"), infoModel.getName(), dockerTag);
+                        if (buildExtraModule.strictlyEnforce()) {
+                            return I18nMessageUtil.get("i18n.strict_mode_image_build_failure.ecea");
+                        }
                     }
                 }
             }
@@ -365,6 +374,46 @@ public class ReleaseManage {
         }
     }
 
+    /**
+     * 只在第一个在线的 docker 中构建镜像，再分发到其他 docker
+     *
+     * @return 严格模式下失败返回错误信息
+     */
+    private String doDockerImageOnce(List<DockerInfoModel> dockerInfoModels, Map<String, String> envMap, File dockerfile, File baseDir, String dockerTag, File imageFile) {
+        DockerInfoModel builder = null;
+        Map<String, Object> builderParameter = null;
+        for (DockerInfoModel infoModel : dockerInfoModels) {
+            try {
+                builderParameter = machineDockerServer.dockerParameter(infoModel);
+                builder = infoModel;
+                break;
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                logRecorder.systemWarning(e.getMessage());
+            }
+        }
+        Assert.notNull(builder, StrUtil.format(I18nMessageUtil.get("i18n.no_available_docker_server.6aaa"), this.buildExtraModule.getFromTag()));
+        DockerInfoModel finalBuilder = builder;
+        List<DockerInfoModel> targets = dockerInfoModels.stream()
+            .filter(infoModel -> infoModel != finalBuilder)
+            .collect(Collectors.toList());
+        logRecorder.system(I18nMessageUtil.get("i18n.docker_build_once_start.ffe4"), dockerTag, builder.getName(), targets.size(), System.lineSeparator());
+        boolean done = this.doDockerImage(builder, envMap, dockerfile, baseDir, dockerTag, this.buildExtraModule);
+        List<String> failed;
+        if (done) {
+            DockerImageDistributor distributor = new DockerImageDistributor(machineDockerServer, buildExtConfig, logRecorder);
+            failed = distributor.distribute(builder.getName(), builderParameter, targets, dockerTag, imageFile);
+        } else {
+            failed = dockerInfoModels.stream().map(DockerInfoModel::getName).collect(Collectors.toList());
+        }
+        for (String name : failed) {
+            logRecorder.systemWarning(I18nMessageUtil.get("i18n.container_build_exception.a98f"), name, dockerTag);
+        }
+        if (!failed.isEmpty() && buildExtraModule.strictlyEnforce()) {
+            return I18nMessageUtil.get("i18n.strict_mode_image_build_failure.ecea");
+        }
+        return null;
+    }
+
     private boolean doDockerImage(DockerInfoModel dockerInfoModel, Map<String, String> envMap, File dockerfile, File baseDir, String dockerTag, BuildExtraModule extraModule) {
         logRecorder.system(I18nMessageUtil.get("i18n.start_building_image.eacd"), dockerInfoModel.getName(), dockerTag, System.lineSeparator());
         Map<String, Object> map = machineDockerServer.dockerParameter(dockerInfoModel);
@@ -19,6 +19,7 @@ import org.dromara.jpom.common.ServerConst;
 import org.dromara.jpom.common.ServerOpenApi;
 import org.dromara.jpom.configuration.UserConfig;
 import org.dromara.jpom.model.user.UserModel;
+import org.dromara.jpom.service.user.UserAuthCacheService;
 import org.dromara.jpom.service.user.UserService;
 import org.dromara.jpom.system.ServerConfig;
 import org.dromara.jpom.util.JwtUtil;
@@ -105,7 +106,8 @@ public class LoginInterceptor implements HandlerMethodInterceptor {
         if (StrUtil.isEmpty(token)) {
             return ServerConst.AUTHORIZE_TIME_OUT_CODE;
         }
-        JWT jwt = JwtUtil.readBody(token);
+        UserAuthCacheService userAuthCacheService = SpringUtil.getBean(UserAuthCacheService.class);
+        JWT jwt = userAuthCacheService.readToken(token);
         if (JwtUtil.expired(jwt, 0)) {
             int renewal = userConfig.getTokenRenewal();
             if (jwt == null || renewal <= 0 || JwtUtil.expired(jwt, TimeUnit.MINUTES.toSeconds(renewal))) {
@@ -116,7 +118,7 @@ public class LoginInterceptor implements HandlerMethodInterceptor {
         UserModel user = (UserModel) session.getAttribute(SESSION_NAME);
         UserService userService = SpringUtil.getBean(UserService.class);
         String id = JwtUtil.getId(jwt);
-        UserModel newUser = userService.checkUser(id);
+        UserModel newUser = userService.checkUserByCache(id);
         if (newUser == null) {
             return ServerConst.AUTHORIZE_TIME_OUT_CODE;
         }
@@ -151,7 +153,7 @@ public class LoginInterceptor implements HandlerMethodInterceptor {
             return user != null ? 0 : ServerConst.AUTHORIZE_TIME_OUT_CODE;
         }
         UserService userService = SpringUtil.getBean(UserService.class);
-        UserModel userModel = userService.checkUser(header);
+        UserModel userModel = userService.checkUserByCache(header);
         if (userModel == null) {
             return ServerConst.AUTHORIZE_TIME_OUT_CODE;
         }
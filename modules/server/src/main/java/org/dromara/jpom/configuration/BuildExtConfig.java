@@ -13,6 +13,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * 构建相关配置
  *
@@ -45,6 +48,42 @@ public class BuildExtConfig {
      * 构建任务等待数量，超过此数量将取消构建任务，值最小为 1
      */
     private int poolWaitQueue = 10;
+    /**
+     * 同一个仓库同时构建的数量，小于 1 不限制
+     */
+    private int repositoryConcurrent = 0;
+    /**
+     * 等待队列中排在最前的构建等待超过此时间（秒）后为它预留槽位，避免权重较大的构建一直被小构建插队，小于 1 不预留
+     */
+    private int poolReserveWaitSeconds = 300;
+    /**
+     * 工作空间的构建优先级（工作空间ID: 优先级），数值越大越优先调度
+     */
+    private Map<String, Integer> workspacePriority = new HashMap<>();
+    /**
+     * 构建产物复制、打包的并发线程数，小于 1 为 cpu 核数
+     */
+    private int packageParallelism = 0;
+    /**
+     * 构建产物打包（zip、tar.gz）的压缩级别 1-9，数值越小越快，-1 为默认级别
+     */
+    private int packageCompressLevel = 1;
+    /**
+     * 构建镜像时只在一个 docker 中构建，然后导出镜像并行导入到同标签的其他 docker（构建中可以单独配置）
+     */
+    private boolean dockerBuildOnce = false;
+    /**
+     * 分发镜像时同时导入的 docker 数量，小于 1 为不限制
+     */
+    private int dockerDistributeParallelism = 4;
+    /**
+     * 触发器队列中单个构建最多排队的数量，小于 1 为不限制（构建中可以单独配置）
+     */
+    private int triggerQueueDepth = 100;
+    /**
+     * 触发器队列中同一个构建的多次触发合并为最新的一次（构建中可以单独配置）
+     */
+    private boolean triggerQueueCoalesce = false;
     /**
      * 压缩折叠显示进度比例 范围 1-100
      */
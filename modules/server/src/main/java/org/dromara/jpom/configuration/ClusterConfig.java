@@ -30,11 +30,23 @@ public class ClusterConfig {
      * 检查节点心跳间隔时间,最小值 5 秒
      */
     private int heartSecond = 30;
+    /**
+     * 开启集群工作分片，开启后资产监控按在线的集群成员自动分配（不再使用集群关联的分组）
+     */
+    private boolean workSharding = false;
+    /**
+     * 集群成员租约时间（秒），超过该时间没有心跳的集群成员分配的资产将由其他成员接管，最小为心跳间隔的 2 倍
+     */
+    private int leaseSecond = 90;
 
     public int getHeartSecond() {
         return Math.max(this.heartSecond, 5);
     }
 
+    public int getLeaseSecond() {
+        return Math.max(this.leaseSecond, this.getHeartSecond() * 2);
+    }
+
     public String getId() {
         return StrUtil.emptyToDefault(this.id, Const.WORKSPACE_DEFAULT_ID).toUpperCase();
     }
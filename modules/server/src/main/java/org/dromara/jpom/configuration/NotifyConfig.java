@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 通知（邮件、钉钉、企业微信、webhook）发送配置
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@Data
+@ConfigurationProperties("jpom.notify")
+public class NotifyConfig {
+
+    /**
+     * 发送线程数
+     */
+    private int poolSize = 4;
+    /**
+     * 等待发送的队列大小，队列满后新的通知直接记录为失败
+     */
+    private int queueSize = 1000;
+    /**
+     * 同一个目标（webhook 域名、邮件服务器）同时发送的数量
+     */
+    private int targetConcurrency = 2;
+    /**
+     * 同一个目标每分钟最多发送的数量，小于等于 0 不限制
+     */
+    private int targetRatePerMinute = 60;
+    /**
+     * 发送超时时间（秒）
+     */
+    private int timeout = 10;
+    /**
+     * 发送失败重试次数
+     */
+    private int retryCount = 3;
+    /**
+     * 首次重试间隔（秒），之后每次翻倍
+     */
+    private int retryDelay = 5;
+    /**
+     * 相同通知（相同监控、项目、接收人）的合并窗口（秒），窗口内只发送第一条和最后一条，小于等于 0 不合并
+     */
+    private int mergeWindow = 60;
+    /**
+     * 批量发送邮件时复用 smtp 连接的最大数量，小于等于 1 每封邮件单独连接
+     */
+    private int mailBatchSize = 10;
+
+    public int getPoolSize() {
+        return Math.max(this.poolSize, 1);
+    }
+
+    public int getQueueSize() {
+        return Math.max(this.queueSize, 10);
+    }
+
+    public int getTargetConcurrency() {
+        return Math.max(this.targetConcurrency, 1);
+    }
+
+    public int getTimeout() {
+        return Math.max(this.timeout, 3);
+    }
+
+    public int getRetryCount() {
+        return Math.max(this.retryCount, 0);
+    }
+
+    public int getRetryDelay() {
+        return Math.max(this.retryDelay, 1);
+    }
+
+    public int getMailBatchSize() {
+        return Math.max(this.mailBatchSize, 1);
+    }
+}
@@ -49,6 +49,23 @@ public class UserConfig {
         });
     }
 
+    /**
+     * 登录信息、工作空间权限缓存时长，小于等于 0 不缓存
+     */
+    private Duration authCacheTime;
+
+    public Duration getAuthCacheTime() {
+        return Optional.ofNullable(this.authCacheTime).orElseGet(() -> {
+            authCacheTime = Duration.ofSeconds(30);
+            return authCacheTime;
+        });
+    }
+
+    /**
+     * 登录信息、工作空间权限缓存最大数量
+     */
+    private int authCacheSize = 2000;
+
     /**
      * demo 账号的提示
      */
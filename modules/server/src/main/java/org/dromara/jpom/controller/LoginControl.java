@@ -54,6 +54,7 @@ import org.dromara.jpom.oauth2.Oauth2Factory;
 import org.dromara.jpom.permission.ClassFeature;
 import org.dromara.jpom.permission.Feature;
 import org.dromara.jpom.permission.MethodFeature;
+import org.dromara.jpom.service.user.UserAuthCacheService;
 import org.dromara.jpom.service.user.UserService;
 import org.dromara.jpom.system.ServerConfig;
 import org.dromara.jpom.util.JwtUtil;
@@ -96,14 +97,17 @@ public class LoginControl extends BaseServerController implements InitializingBe
     private final UserConfig userConfig;
     private final WebConfig webConfig;
     private final UserLoginLogServer userLoginLogServer;
+    private final UserAuthCacheService userAuthCacheService;
 
     public LoginControl(UserService userService,
                         ServerConfig serverConfig,
-                        UserLoginLogServer userLoginLogServer) {
+                        UserLoginLogServer userLoginLogServer,
+                        UserAuthCacheService userAuthCacheService) {
         this.userService = userService;
         this.userConfig = serverConfig.getUser();
         this.webConfig = serverConfig.getWeb();
         this.userLoginLogServer = userLoginLogServer;
+        this.userAuthCacheService = userAuthCacheService;
     }
 
     /**
@@ -419,7 +423,8 @@ public class LoginControl extends BaseServerController implements InitializingBe
      */
     @RequestMapping(value = "logout2", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
     @NotLogin
-    public IJsonMessage<Object> logout(HttpSession session) {
+    public IJsonMessage<Object> logout(HttpSession session, HttpServletRequest request) {
+        userAuthCacheService.onLogout(request.getHeader(ServerOpenApi.HTTP_HEAD_AUTHORIZATION));
         session.invalidate();
         return JsonMessage.success(I18nMessageUtil.get("i18n.exit_successful.8150"));
     }
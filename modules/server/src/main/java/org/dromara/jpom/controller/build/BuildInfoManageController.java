@@ -44,7 +44,10 @@ import org.springframework.web.bind.annotation.RestController;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -64,15 +67,18 @@ public class BuildInfoManageController extends BaseServerController {
     private final DbBuildHistoryLogService dbBuildHistoryLogService;
     private final BuildExecuteService buildExecuteService;
     private final WorkspaceEnvVarService workspaceEnvVarService;
+    private final BuildExecutorPoolService buildExecutorPoolService;
 
     public BuildInfoManageController(BuildInfoService buildInfoService,
                                      DbBuildHistoryLogService dbBuildHistoryLogService,
                                      BuildExecuteService buildExecuteService,
-                                     WorkspaceEnvVarService workspaceEnvVarService) {
+                                     WorkspaceEnvVarService workspaceEnvVarService,
+                                     BuildExecutorPoolService buildExecutorPoolService) {
         this.buildInfoService = buildInfoService;
         this.dbBuildHistoryLogService = dbBuildHistoryLogService;
         this.buildExecuteService = buildExecuteService;
         this.workspaceEnvVarService = workspaceEnvVarService;
+        this.buildExecutorPoolService = buildExecutorPoolService;
     }
 
     /**
@@ -148,6 +154,27 @@ public class BuildInfoManageController extends BaseServerController {
         return JsonMessage.success(I18nMessageUtil.get("i18n.cancel_success.285f"));
     }
 
+    /**
+     * 构建队列（执行中、等待调度），只返回当前工作空间的构建，序号为全局调度顺序
+     *
+     * @return json
+     */
+    @RequestMapping(value = "/build/manage/queue", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Feature(method = MethodFeature.LIST)
+    public IJsonMessage<List<JSONObject>> queue(HttpServletRequest request) {
+        String workspaceId = buildInfoService.getCheckUserWorkspace(request);
+        List<JSONObject> queueInfo = buildExecutorPoolService.queueInfo();
+        List<JSONObject> list = new ArrayList<>();
+        for (int i = 0; i < queueInfo.size(); i++) {
+            JSONObject jsonObject = queueInfo.get(i);
+            if (StrUtil.equals(workspaceId, jsonObject.getString("workspaceId"))) {
+                jsonObject.put("position", i + 1);
+                list.add(jsonObject);
+            }
+        }
+        return JsonMessage.success("", list);
+    }
+
     /**
      * 获取可用环境变量
      *
@@ -239,7 +266,17 @@ public class BuildInfoManageController extends BaseServerController {
             }
             return new JsonMessage<>(300, I18nMessageUtil.get("i18n.log_file_does_not_exist.f6c6"));
         }
-        JSONObject data = FileUtils.readLogFile(file, line);
+        Long writtenLines = BuildExecuteManage.writtenLogLines(item.getId(), buildId);
+        JSONObject data;
+        if (writtenLines != null && writtenLines < line) {
+            // 构建中没有新的日志，不需要读取文件
+            data = new JSONObject();
+            data.put("line", line);
+            data.put("getLine", line);
+            data.put("dataLines", Collections.emptyList());
+        } else {
+            data = FileUtils.readLogFile(file, line);
+        }
         // 运行中
         Integer status = queryByBean.getStatus();
         data.put("run", buildExecuteService.checkStatus(item) != null);
@@ -55,8 +55,8 @@ import javax.annotation.Resource;
 import javax.servlet.http.HttpServletResponse;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
@@ -508,7 +508,7 @@ public abstract class BaseSshFileController extends BaseServerController {
             ChannelSftp channel = null;
             try {
                 session = sshService.getSessionByModel(machineSshModel);
-                channel = (ChannelSftp) JschUtil.openChannel(session, ChannelType.SFTP);
+                channel = JschUtils.openSftp(session);
                 channel.cd(remotePath);
                 String originalFilename = file.getOriginalFilename();
                 // xxxx.txt.1
@@ -545,35 +545,21 @@ public abstract class BaseSshFileController extends BaseServerController {
 
             try {
                 session = sshService.getSessionByModel(machineSshModel);
-                channel = (ChannelSftp) JschUtil.openChannel(session, ChannelType.SFTP);
-                // 保存路径
-                File tempPath = serverConfig.getUserTempPath();
-                File savePath = FileUtil.file(tempPath, "ssh", machineSshModel.getId());
-                FileUtil.mkdir(savePath);
+                channel = JschUtils.openSftp(session);
                 String originalFilename = file.getOriginalFilename();
-                File filePath = FileUtil.file(savePath, originalFilename);
                 //
                 if (Convert.toBool(unzip, false)) {
                     String extName = FileUtil.extName(originalFilename);
                     Assert.state(StrUtil.containsAnyIgnoreCase(extName, StringUtil.PACKAGE_EXT), I18nMessageUtil.get("i18n.file_type_not_supported2.d497") + extName);
-                    file.transferTo(filePath);
-                    // 解压
-                    File tempUnzipPath = FileUtil.file(savePath, IdUtil.fastSimpleUUID());
-                    try {
-                        FileUtil.mkdir(tempUnzipPath);
-                        CompressionFileUtil.unCompress(filePath, tempUnzipPath);
-                        // 同步上传文件
-                        sshService.uploadDir(machineSshModel, remotePath, tempUnzipPath);
-                    } finally {
-                        // 删除临时文件
-                        CommandUtil.systemFastDel(filePath);
-                        CommandUtil.systemFastDel(tempUnzipPath);
+                    if (!this.uploadRemoteExtract(machineSshModel, session, channel, remotePath, originalFilename, file)) {
+                        // 远程服务器没有解压工具，本地解压后同步上传
+                        this.uploadLocalExtract(machineSshModel, remotePath, originalFilename, file);
                     }
                 } else {
-                    file.transferTo(filePath);
+                    // 直接将上传流写入 sftp，不在服务端暂存
                     channel.cd(remotePath);
-                    try (FileInputStream src = IoUtil.toStream(filePath)) {
-                        channel.put(src, filePath.getName());
+                    try (InputStream inputStream = file.getInputStream()) {
+                        channel.put(inputStream, FileUtil.getName(originalFilename));
                     }
                 }
 
@@ -588,6 +574,109 @@ public abstract class BaseSshFileController extends BaseServerController {
         });
     }
 
+    /**
+     * 将压缩包上传到远程服务器，在远程服务器中解压
+     *
+     * @param machineSshModel  ssh
+     * @param session          会话
+     * @param channel          sftp
+     * @param remotePath       解压到的目录
+     * @param originalFilename 文件名
+     * @param file             上传的文件
+     * @return false 远程服务器不支持解压
+     * @throws Exception 异常
+     */
+    private boolean uploadRemoteExtract(MachineSshModel machineSshModel, Session session, ChannelSftp channel, String remotePath, String originalFilename, MultipartFile file) throws Exception {
+        boolean zip = StrUtil.endWithIgnoreCase(originalFilename, ".zip");
+        String tool = zip ? "unzip" : "tar";
+        Charset charset = machineSshModel.charset();
+        int timeout = machineSshModel.timeout();
+        List<String> result = new ArrayList<>();
+        int exitStatus = JschUtils.execCallbackLine(session, charset, timeout, "command -v " + tool, StrUtil.EMPTY, result::add);
+        if (exitStatus != 0) {
+            log.warn(I18nMessageUtil.get("i18n.ssh_remote_extract_unsupported.7584"), machineSshModel.getName(), tool);
+            return false;
+        }
+        String unzipCharset = StrUtil.EMPTY;
+        if (zip) {
+            Charset nameCharset;
+            try (InputStream inputStream = file.getInputStream()) {
+                nameCharset = CompressionFileUtil.detectZipCharset(inputStream);
+            }
+            if (!CharsetUtil.CHARSET_UTF_8.equals(nameCharset)) {
+                // 文件名不是 utf-8（windows 中文压缩包），需要 unzip 支持 -O 指定文件名编码
+                result.clear();
+                JschUtils.execCallbackLine(session, charset, timeout, "unzip -h 2>&1", StrUtil.EMPTY, result::add);
+                if (result.stream().noneMatch(s -> StrUtil.containsAny(s, "-O CHARSET", "-O charset"))) {
+                    log.warn(I18nMessageUtil.get("i18n.ssh_remote_extract_unsupported.7584"), machineSshModel.getName(), "unzip -O " + nameCharset.name());
+                    return false;
+                }
+                unzipCharset = "-O " + nameCharset.name() + " ";
+            }
+        }
+        // 压缩包只上传一次，再通过一次命令解压
+        String remoteDir = StrUtil.format("{}/.jpom", channel.getHome());
+        String remoteArchive = StrUtil.format("{}/{}.{}", remoteDir, IdUtil.fastSimpleUUID(), FileUtil.extName(originalFilename));
+        try {
+            channel.stat(remoteDir);
+        } catch (SftpException e) {
+            channel.mkdir(remoteDir);
+        }
+        String command = zip ?
+            StrUtil.format("unzip -o -q {}{} -d {}", unzipCharset, this.shellQuote(remoteArchive), this.shellQuote(remotePath)) :
+            StrUtil.format("tar -xf {} -C {}", this.shellQuote(remoteArchive), this.shellQuote(remotePath));
+        result.clear();
+        try {
+            try (InputStream inputStream = file.getInputStream()) {
+                channel.put(inputStream, remoteArchive);
+            }
+            exitStatus = JschUtils.execCallbackLine(session, charset, timeout, command, StrUtil.EMPTY, result::add);
+        } finally {
+            // 上传失败时也删除已经上传的部分
+            try {
+                channel.rm(remoteArchive);
+            } catch (SftpException e) {
+                log.warn(I18nMessageUtil.get("i18n.delete_ssh_temp_file_failure.6e5f"), e);
+            }
+        }
+        Assert.state(exitStatus == 0, I18nMessageUtil.get("i18n.ssh_remote_extract_failed.222c") + CollUtil.join(result, StrUtil.LF));
+        return true;
+    }
+
+    /**
+     * 本地解压后逐个文件上传
+     *
+     * @param machineSshModel  ssh
+     * @param remotePath       解压到的目录
+     * @param originalFilename 文件名
+     * @param file             上传的文件
+     * @throws IOException io
+     */
+    private void uploadLocalExtract(MachineSshModel machineSshModel, String remotePath, String originalFilename, MultipartFile file) throws IOException {
+        // 保存路径
+        File tempPath = serverConfig.getUserTempPath();
+        File savePath = FileUtil.file(tempPath, "ssh", machineSshModel.getId());
+        FileUtil.mkdir(savePath);
+        File filePath = FileUtil.file(savePath, originalFilename);
+        file.transferTo(filePath);
+        // 解压
+        File tempUnzipPath = FileUtil.file(savePath, IdUtil.fastSimpleUUID());
+        try {
+            FileUtil.mkdir(tempUnzipPath);
+            CompressionFileUtil.unCompress(filePath, tempUnzipPath);
+            // 同步上传文件
+            sshService.uploadDir(machineSshModel, remotePath, tempUnzipPath);
+        } finally {
+            // 删除临时文件
+            CommandUtil.systemFastDel(filePath);
+            CommandUtil.systemFastDel(tempUnzipPath);
+        }
+    }
+
+    private String shellQuote(String value) {
+        return "'" + StrUtil.replace(value, "'", "'\\''") + "'";
+    }
+
     /**
      * @return json
      * @api {post} new_file_folder.json ssh 中创建文件夹/文件
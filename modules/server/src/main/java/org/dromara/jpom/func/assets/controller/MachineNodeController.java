@@ -34,6 +34,7 @@ import org.dromara.jpom.service.node.NodeService;
 import org.dromara.jpom.service.node.ProjectInfoCacheService;
 import org.dromara.jpom.service.node.script.NodeScriptServer;
 import org.dromara.jpom.service.system.WorkspaceService;
+import org.dromara.jpom.transport.TransportServerFactory;
 import org.springframework.http.MediaType;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.*;
@@ -116,6 +117,7 @@ public class MachineNodeController extends BaseGroupNameController {
     public IJsonMessage<String> delete(@ValidatorItem String id) {
         long count = nodeService.countByMachine(id);
         Assert.state(count <= 0, StrUtil.format(I18nMessageUtil.get("i18n.associated_nodes_warning.64d8"), count));
+        Optional.ofNullable(machineNodeServer.getByKey(id, false)).ifPresent(TransportServerFactory.get()::release);
         machineNodeServer.delByKey(id);
         return JsonMessage.success(I18nMessageUtil.get("i18n.operation_succeeded.3313"));
     }
@@ -200,7 +200,7 @@ public class MachineNodeModel extends BaseGroupNameModel implements INodeInfo {
      */
     private String extendInfo;
     /**
-     * 传输加密方式 0 不加密 1 BASE64 2 AES
+     * 传输加密方式 0 不加密 1 BASE64 2 AES 3 AES-GCM
      */
     private Integer transportEncryption;
 
@@ -229,6 +229,11 @@ public class MachineNodeModel extends BaseGroupNameModel implements INodeInfo {
         return SecureUtil.sha1(this.jpomUsername + "@" + this.jpomPassword);
     }
 
+    @Override
+    public String transportKey() {
+        return this.jpomUsername + "@" + this.jpomPassword;
+    }
+
     /**
      * 获取节点的代理
      *
@@ -161,7 +161,7 @@ public class MachineDockerServer extends BaseDbService<MachineDockerModel> imple
     @Override
     public void execute() {
         Entity entity = new Entity();
-        if (clusterInfoService.isMultiServer()) {
+        if (clusterInfoService.isMultiServer() && !clusterInfoService.isWorkSharding()) {
             // 查询对应分组的数据
             ClusterInfoModel current = clusterInfoService.getCurrent();
             String linkGroup = current.getLinkGroup();
@@ -172,7 +172,7 @@ public class MachineDockerServer extends BaseDbService<MachineDockerModel> imple
             }
             entity.set("groupName", linkGroups);
         }
-        List<MachineDockerModel> list = this.listByEntity(entity, false);
+        List<MachineDockerModel> list = clusterInfoService.filterOwned(this.listByEntity(entity, false));
         if (CollUtil.isEmpty(list)) {
             return;
         }
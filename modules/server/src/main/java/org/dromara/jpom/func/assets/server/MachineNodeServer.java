@@ -46,6 +46,7 @@ import org.dromara.jpom.service.h2db.BaseDbService;
 import org.dromara.jpom.service.node.NodeService;
 import org.dromara.jpom.system.ServerConfig;
 import org.dromara.jpom.system.db.InitDb;
+import org.dromara.jpom.transport.TransportServerFactory;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
@@ -193,7 +194,7 @@ public class MachineNodeServer extends BaseDbService<MachineNodeModel> implement
     @Override
     public void run() {
         Entity entity = new Entity();
-        if (clusterInfoService.isMultiServer()) {
+        if (clusterInfoService.isMultiServer() && !clusterInfoService.isWorkSharding()) {
             String linkGroup = clusterInfoService.getCurrent().getLinkGroup();
             List<String> linkGroups = StrUtil.splitTrim(linkGroup, StrUtil.COMMA);
             if (CollUtil.isEmpty(linkGroups)) {
@@ -209,7 +210,7 @@ public class MachineNodeServer extends BaseDbService<MachineNodeModel> implement
             taskStat.onStart();
             //MachineNodeModel machineNodeModel = new MachineNodeModel();
             //machineNodeModel.setTransportMode(0);
-            List<MachineNodeModel> machineNodeModels = this.listByEntity(entity);
+            List<MachineNodeModel> machineNodeModels = clusterInfoService.filterOwned(this.listByEntity(entity));
             this.checkList(machineNodeModels);
             taskStat.onSucceeded();
         } catch (Throwable throwable) {
@@ -442,6 +443,8 @@ public class MachineNodeServer extends BaseDbService<MachineNodeModel> implement
         this.testHttpProxy(machineNodeModel.getJpomHttpProxy());
         //
         if (StrUtil.isNotEmpty(machineNodeModel.getId())) {
+            // 地址、授权信息可能变更，释放之前的长连接
+            Optional.ofNullable(this.getByKey(machineNodeModel.getId(), false)).ifPresent(TransportServerFactory.get()::release);
             this.updateById(machineNodeModel);
         } else {
             this.insert(machineNodeModel);
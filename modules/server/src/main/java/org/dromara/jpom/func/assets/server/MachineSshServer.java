@@ -184,7 +184,7 @@ public class MachineSshServer extends BaseDbService<MachineSshModel> implements
     @Override
     public void execute() {
         Entity entity = new Entity();
-        if (clusterInfoService.isMultiServer()) {
+        if (clusterInfoService.isMultiServer() && !clusterInfoService.isWorkSharding()) {
             String linkGroup = clusterInfoService.getCurrent().getLinkGroup();
             List<String> linkGroups = StrUtil.splitTrim(linkGroup, StrUtil.COMMA);
             if (CollUtil.isEmpty(linkGroups)) {
@@ -193,7 +193,7 @@ public class MachineSshServer extends BaseDbService<MachineSshModel> implements
             }
             entity.set("groupName", linkGroups);
         }
-        List<MachineSshModel> list = this.listByEntity(entity, false);
+        List<MachineSshModel> list = clusterInfoService.filterOwned(this.listByEntity(entity, false));
         if (CollUtil.isEmpty(list)) {
             return;
         }
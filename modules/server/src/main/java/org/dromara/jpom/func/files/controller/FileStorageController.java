@@ -9,8 +9,7 @@
  */
 package org.dromara.jpom.func.files.controller;
 
-import cn.hutool.core.date.DatePattern;
-import cn.hutool.core.date.DateTime;
+import cn.hutool.core.date.SystemClock;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.lang.Opt;
 import cn.hutool.core.lang.Validator;
@@ -153,15 +152,21 @@ public class FileStorageController extends BaseServerController {
             File file = FileUtil.file(storageSavePath, fileStorageModel1.getPath());
             Assert.state(!FileUtil.exist(file), I18nMessageUtil.get("i18n.file_already_exists.d60c"));
         }
-        // 合并文件
+        // 合并文件，直接合并到文件中心的暂存目录（合并时计算签名），完成后原子重命名
         File userTempPath = serverConfig.getUserTempPath();
-        File successFile = this.shardingTryMerge(userTempPath.getAbsolutePath(), sliceId, totalSlice, fileSumMd5);
-        String extName = FileUtil.extName(successFile);
-        String path = StrUtil.format("/{}/{}.{}", DateTime.now().toString(DatePattern.PURE_DATE_FORMAT), fileSumMd5, extName);
-
-        File fileStorageFile = FileUtil.file(storageSavePath, path);
-        FileUtil.mkParentDirs(fileStorageFile);
-        FileUtil.move(successFile, fileStorageFile, true);
+        File ingestDir = fileStorageService.ingestTempDir(sliceId);
+        File successFile;
+        String extName;
+        String path;
+        File fileStorageFile;
+        try {
+            successFile = this.shardingTryMerge(userTempPath.getAbsolutePath(), sliceId, totalSlice, fileSumMd5, ingestDir);
+            extName = FileUtil.extName(successFile);
+            path = fileStorageService.commitFile(successFile, fileSumMd5, extName, SystemClock.now());
+            fileStorageFile = FileUtil.file(storageSavePath, path);
+        } finally {
+            FileUtil.del(ingestDir);
+        }
         // 保存
         FileStorageModel fileStorageModel = new FileStorageModel();
         fileStorageModel.setId(fileSumMd5);
@@ -14,21 +14,24 @@ import cn.hutool.core.date.DatePattern;
 import cn.hutool.core.date.DateTime;
 import cn.hutool.core.date.SystemClock;
 import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.io.StreamProgress;
+import cn.hutool.core.io.IORuntimeException;
+import cn.hutool.core.io.IoUtil;
 import cn.hutool.core.io.unit.DataSize;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.HexUtil;
 import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.crypto.SecureUtil;
+import cn.hutool.crypto.digest.DigestAlgorithm;
+import cn.hutool.crypto.digest.DigestUtil;
 import cn.hutool.db.Entity;
-import cn.hutool.http.HttpUtil;
+import cn.hutool.http.*;
 import cn.keepbx.jpom.event.ISystemTask;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.jpom.JpomApplication;
 import org.dromara.jpom.common.ServerConst;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
 import org.dromara.jpom.common.i18n.I18nThreadUtil;
-import org.dromara.jpom.configuration.BuildExtConfig;
 import org.dromara.jpom.func.files.model.FileStorageModel;
 import org.dromara.jpom.service.IStatusRecover;
 import org.dromara.jpom.service.ITriggerToken;
@@ -36,8 +39,15 @@ import org.dromara.jpom.service.h2db.BaseGlobalOrWorkspaceService;
 import org.dromara.jpom.system.ServerConfig;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -50,16 +60,22 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 public class FileStorageService extends BaseGlobalOrWorkspaceService<FileStorageModel> implements ISystemTask, IStatusRecover, ITriggerToken {
 
+    /**
+     * 下载进度写入数据库的间隔
+     */
+    private static final long PROGRESS_INTERVAL = 3000L;
+    /**
+     * 下载中断后的重试次数
+     */
+    private static final int DOWNLOAD_RETRY = 5;
+
     private final ServerConfig serverConfig;
     private final JpomApplication configBean;
-    private final BuildExtConfig buildExtConfig;
 
     public FileStorageService(ServerConfig serverConfig,
-                              JpomApplication configBean,
-                              BuildExtConfig buildExtConfig) {
+                              JpomApplication configBean) {
         this.serverConfig = serverConfig;
         this.configBean = configBean;
-        this.buildExtConfig = buildExtConfig;
     }
 
     /**
@@ -100,87 +116,119 @@ public class FileStorageService extends BaseGlobalOrWorkspaceService<FileStorage
         }
         // 异步下载
         I18nThreadUtil.execute(() -> {
+            File ingestDir = this.ingestTempDir(uuid);
             try {
-                File tempPath = configBean.getTempPath();
-                File file = FileUtil.file(tempPath, "file-storage-download", uuid);
-                FileUtil.mkdir(file);
-                StreamProgress streamProgress = this.createStreamProgress(uuid);
-                File fileFromUrl = HttpUtil.downloadFileFromUrl(url, file, -1, streamProgress);
-                String md5 = SecureUtil.md5(fileFromUrl);
+                File tempFile = FileUtil.file(FileUtil.mkdir(ingestDir), "download");
+                MessageDigest digest = DigestUtil.digester(DigestAlgorithm.MD5).getDigest();
+                String fileName = this.downloadResumable(url, uuid, ingestDir, tempFile, digest);
+                String md5 = HexUtil.encodeHexStr(digest.digest());
                 FileStorageModel storageModel = this.getByKey(md5);
                 if (storageModel != null) {
                     this.updateError(uuid, I18nMessageUtil.get("i18n.file_already_exists.983d"));
-                    FileUtil.del(fileFromUrl);
                     return;
                 }
-                String extName = FileUtil.extName(fileFromUrl);
+                String extName = FileUtil.extName(fileName);
                 // 避免跨天数据
-                String path = StrUtil.format("/{}/{}.{}", new DateTime(startTime).toString(DatePattern.PURE_DATE_FORMAT), md5, extName);
-                File storageSavePath = serverConfig.fileStorageSavePath();
-                File fileStorageFile = FileUtil.file(storageSavePath, path);
-                FileUtil.mkParentDirs(fileStorageFile);
-                FileUtil.move(fileFromUrl, fileStorageFile, true);
+                String path = this.commitFile(tempFile, md5, extName, startTime);
                 //
                 FileStorageModel update = new FileStorageModel();
                 // 需要将 id 更新为真实 id
                 update.setId(md5);
-                update.setName(fileFromUrl.getName());
+                update.setName(fileName);
                 update.setExtName(extName);
                 update.setModifyTimeMillis(SystemClock.now());
                 update.setPath(path);
                 update.setStatus(1);
-                update.setSize(FileUtil.size(fileStorageFile));
+                update.setSize(FileUtil.size(FileUtil.file(serverConfig.fileStorageSavePath(), path)));
                 Entity updateEntity = this.dataBeanToEntity(update);
                 Entity id = Entity.create().set("id", uuid);
                 this.update(updateEntity, id);
             } catch (Exception e) {
                 log.error(I18nMessageUtil.get("i18n.download_failed_generic.be4f"), e);
                 this.updateError(uuid, e.getMessage());
+            } finally {
+                FileUtil.del(ingestDir);
             }
         });
     }
 
-    private StreamProgress createStreamProgress(String uuid) {
-        int logReduceProgressRatio = buildExtConfig.getLogReduceProgressRatio();
-        Set<Integer> progressRangeList = ConcurrentHashMap.newKeySet((int) Math.floor((float) 100 / logReduceProgressRatio));
-        long bytes = DataSize.ofMegabytes(1).toBytes();
-        return new StreamProgress() {
-            @Override
-            public void start() {
-
+    /**
+     * 下载文件，网络中断后使用 Range 从已下载的位置继续下载，下载的同时计算文件签名
+     *
+     * @param url       url
+     * @param uuid      数据id
+     * @param ingestDir 暂存目录
+     * @param tempFile  下载保存的文件
+     * @param digest    文件签名
+     * @return 文件名
+     * @throws IOException io
+     */
+    private String downloadResumable(String url, String uuid, File ingestDir, File tempFile, MessageDigest digest) throws IOException {
+        String fileName = null;
+        long total = -1;
+        long written = 0;
+        long lastProgress = SystemClock.now();
+        int retry = 0;
+        byte[] buffer = new byte[IoUtil.DEFAULT_LARGE_BUFFER_SIZE];
+        while (true) {
+            HttpRequest httpRequest = HttpUtil.createGet(url, true);
+            if (written > 0) {
+                httpRequest.header("Range", StrUtil.format("bytes={}-", written));
             }
-
-            @Override
-            public void progress(long total, long progressSize) {
-                if (total > 0) {
-                    double progressPercentage = Math.floor(((float) progressSize / total) * 100);
-                    String percent = NumberUtil.formatPercent((float) progressSize / total, 0);
-                    int progressRange = (int) Math.floor(progressPercentage / logReduceProgressRatio);
-                    // 存在文件总大小
-                    if (progressRangeList.add(progressRange)) {
-                        //  total, progressSize
-                        updateProgress(uuid, percent, total, progressSize);
-                    }
+            try (HttpResponse response = httpRequest.executeAsync();
+                 FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                int status = response.getStatus();
+                if (status == HttpStatus.HTTP_OK) {
+                    // 不支持断点续传，重新下载
+                    written = 0;
+                    digest.reset();
+                    total = response.contentLength();
+                } else if (status == HttpStatus.HTTP_PARTIAL && written > 0) {
+                    log.info(I18nMessageUtil.get("i18n.download_resume.623e"), url, written);
                 } else {
-                    // 不存在文件总大小
-                    if (progressSize % bytes == 0) {
-                        updateProgress(uuid, null, total, progressSize);
+                    throw new IllegalStateException(I18nMessageUtil.get("i18n.download_failed_generic.be4f") + status);
+                }
+                if (fileName == null) {
+                    fileName = response.completeFileNameFromHeader(ingestDir).getName();
+                }
+                channel.truncate(written);
+                channel.position(written);
+                try (InputStream inputStream = response.bodyStream()) {
+                    int len;
+                    while ((len = inputStream.read(buffer)) != IoUtil.EOF) {
+                        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, len);
+                        while (byteBuffer.hasRemaining()) {
+                            channel.write(byteBuffer);
+                        }
+                        digest.update(buffer, 0, len);
+                        written += len;
+                        // 进度在内存中累计，按固定间隔写入数据库
+                        long now = SystemClock.now();
+                        if (now - lastProgress >= PROGRESS_INTERVAL) {
+                            lastProgress = now;
+                            this.updateProgress(uuid, total, written);
+                        }
                     }
                 }
+                if (total > 0 && written < total) {
+                    throw new EOFException(StrUtil.format("{}/{}", written, total));
+                }
+                return fileName;
+            } catch (IOException | IORuntimeException | HttpException e) {
+                if (++retry > DOWNLOAD_RETRY) {
+                    throw e;
+                }
+                log.warn(I18nMessageUtil.get("i18n.download_retry.484a"), url, retry, written, e.getMessage());
+                ThreadUtil.sleep(retry * 1000L);
             }
-
-            @Override
-            public void finish() {
-
-            }
-        };
+        }
     }
 
-    private void updateProgress(String id, String desc, long total, long progressSize) {
+    private void updateProgress(String id, long total, long progressSize) {
         FileStorageModel fileStorageModel = new FileStorageModel();
         fileStorageModel.setId(id);
         String fileSize = FileUtil.readableFileSize(progressSize);
-        desc = StrUtil.emptyToDefault(desc, fileSize);
+        String desc = total > 0 ? NumberUtil.formatPercent((float) progressSize / total, 0) : fileSize;
         fileStorageModel.setName(I18nMessageUtil.get("i18n.file_downloading_status.c995") + desc);
         fileStorageModel.setStatus(0);
         fileStorageModel.setSize(progressSize);
@@ -189,6 +237,42 @@ public class FileStorageService extends BaseGlobalOrWorkspaceService<FileStorage
         this.updateById(fileStorageModel);
     }
 
+    /**
+     * 暂存目录，和文件中心在同一个文件系统，写入完成后原子重命名到文件中心
+     *
+     * @param id 暂存id
+     * @return 暂存目录
+     */
+    public File ingestTempDir(String id) {
+        return FileUtil.file(this.ingestRootDir(), id);
+    }
+
+    private File ingestRootDir() {
+        return FileUtil.file(serverConfig.fileStorageSavePath(), ".ingest");
+    }
+
+    /**
+     * 将暂存文件提交到文件中心
+     *
+     * @param tempFile  暂存文件
+     * @param md5       文件签名
+     * @param extName   文件后缀
+     * @param startTime 开始时间
+     * @return 文件中心的相对路径
+     * @throws IOException io
+     */
+    public String commitFile(File tempFile, String md5, String extName, long startTime) throws IOException {
+        String path = StrUtil.format("/{}/{}.{}", new DateTime(startTime).toString(DatePattern.PURE_DATE_FORMAT), md5, extName);
+        File fileStorageFile = FileUtil.file(serverConfig.fileStorageSavePath(), path);
+        FileUtil.mkParentDirs(fileStorageFile);
+        try {
+            Files.move(tempFile.toPath(), fileStorageFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), fileStorageFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return path;
+    }
+
     /**
      * 更新进度
      *
@@ -229,32 +313,42 @@ public class FileStorageService extends BaseGlobalOrWorkspaceService<FileStorage
      * @return 返回成功的文件id
      */
     public String addFile(File file, int source, String workspaceId, String description, String aliasCode, Integer keepDay) {
-        String md5 = SecureUtil.md5(file);
-        File storageSavePath = serverConfig.fileStorageSavePath();
-        String extName = FileUtil.extName(file);
-        String path = StrUtil.format("/{}/{}.{}", DateTime.now().toString(DatePattern.PURE_DATE_FORMAT), md5, extName);
-        FileStorageModel storageModel = this.getByKey(md5);
-        if (storageModel != null) {
-            return null;
+        // 复制到暂存目录的同时计算文件签名，只读取一次文件
+        File ingestDir = this.ingestTempDir(IdUtil.fastSimpleUUID());
+        File tempFile = FileUtil.file(ingestDir, file.getName());
+        FileUtil.mkParentDirs(tempFile);
+        try {
+            MessageDigest digest = DigestUtil.digester(DigestAlgorithm.MD5).getDigest();
+            try (InputStream inputStream = new DigestInputStream(Files.newInputStream(file.toPath()), digest);
+                 OutputStream outputStream = Files.newOutputStream(tempFile.toPath())) {
+                IoUtil.copy(inputStream, outputStream, IoUtil.DEFAULT_LARGE_BUFFER_SIZE);
+            }
+            String md5 = HexUtil.encodeHexStr(digest.digest());
+            FileStorageModel storageModel = this.getByKey(md5);
+            if (storageModel != null) {
+                return null;
+            }
+            String extName = FileUtil.extName(file);
+            String path = this.commitFile(tempFile, md5, extName, SystemClock.now());
+            // 保存
+            FileStorageModel fileStorageModel = new FileStorageModel();
+            fileStorageModel.setId(md5);
+            fileStorageModel.setAliasCode(aliasCode);
+            fileStorageModel.setName(file.getName());
+            fileStorageModel.setDescription(description);
+            fileStorageModel.setExtName(extName);
+            fileStorageModel.setPath(path);
+            fileStorageModel.setSize(FileUtil.size(file));
+            fileStorageModel.setSource(source);
+            fileStorageModel.setWorkspaceId(workspaceId);
+            fileStorageModel.validUntil(keepDay, null);
+            this.insert(fileStorageModel);
+            return md5;
+        } catch (IOException e) {
+            throw new IORuntimeException(e);
+        } finally {
+            FileUtil.del(ingestDir);
         }
-        // 保存
-        FileStorageModel fileStorageModel = new FileStorageModel();
-        fileStorageModel.setId(md5);
-        fileStorageModel.setAliasCode(aliasCode);
-        fileStorageModel.setName(file.getName());
-        fileStorageModel.setDescription(description);
-        fileStorageModel.setExtName(extName);
-        fileStorageModel.setPath(path);
-        fileStorageModel.setSize(FileUtil.size(file));
-        fileStorageModel.setSource(source);
-        fileStorageModel.setWorkspaceId(workspaceId);
-        fileStorageModel.validUntil(keepDay, null);
-        this.insert(fileStorageModel);
-        //
-        File fileStorageFile = FileUtil.file(storageSavePath, path);
-        FileUtil.mkParentDirs(fileStorageFile);
-        FileUtil.copyFile(file, fileStorageFile, StandardCopyOption.REPLACE_EXISTING);
-        return md5;
     }
 
     @Override
@@ -277,6 +371,8 @@ public class FileStorageService extends BaseGlobalOrWorkspaceService<FileStorage
 
     @Override
     public int statusRecover() {
+        // 清理重启前未完成的暂存文件
+        FileUtil.del(this.ingestRootDir());
         FileStorageModel update = new FileStorageModel();
         update.setName(I18nMessageUtil.get("i18n.system_restart_cancel_download.444e"));
         update.setModifyTimeMillis(SystemClock.now());
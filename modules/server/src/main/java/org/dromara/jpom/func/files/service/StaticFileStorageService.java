@@ -69,6 +69,10 @@ public class StaticFileStorageService extends BaseDbService<StaticFileStorageMod
      * 扫描任务进行中
      */
     private volatile boolean scanning = false;
+    /**
+     * 扫描目录时每批写入的数据条数
+     */
+    private static final int SCAN_BATCH_SIZE = 1000;
 
     public StaticFileStorageService(ServerConfig serverConfig,
                                     WorkspaceService workspaceService,
@@ -217,7 +221,7 @@ public class StaticFileStorageService extends BaseDbService<StaticFileStorageMod
     }
 
     /**
-     * 扫描目录
+     * 扫描目录，扫描结果批量写入
      *
      * @param staticDir 静态目录
      * @param item      开始目录
@@ -225,6 +229,21 @@ public class StaticFileStorageService extends BaseDbService<StaticFileStorageMod
      * @param taskId    任务id
      */
     private void scanItem(String staticDir, String item, int level, Long taskId) {
+        List<StaticFileStorageModel> buffer = new ArrayList<>(SCAN_BATCH_SIZE);
+        this.scanItem(staticDir, item, level, taskId, buffer);
+        this.upsertBatch(buffer);
+    }
+
+    /**
+     * 扫描目录
+     *
+     * @param staticDir 静态目录
+     * @param item      开始目录
+     * @param level     目前层级
+     * @param taskId    任务id
+     * @param buffer    待写入的数据
+     */
+    private void scanItem(String staticDir, String item, int level, Long taskId, List<StaticFileStorageModel> buffer) {
         File file = FileUtil.file(item);
         if (!FileUtil.exist(file)) {
             // 目录不存在了，自动删除
@@ -233,16 +252,16 @@ public class StaticFileStorageService extends BaseDbService<StaticFileStorageMod
         }
         if (FileUtil.isFile(file)) {
             // 文件夹
-            this.doFile(file, staticDir, level, taskId, 1);
+            this.doFile(file, staticDir, level, taskId, 1, buffer);
         } else if (FileUtil.isDirectory(file)) {
             // 处理自身
-            this.doFile(file, staticDir, level, taskId, 0);
+            this.doFile(file, staticDir, level, taskId, 0, buffer);
             File[] files = file.listFiles();
             if (files == null) {
                 return;
             }
             for (File subFile : files) {
-                this.scanItem(staticDir, subFile.getAbsolutePath(), level + 1, taskId);
+                this.scanItem(staticDir, subFile.getAbsolutePath(), level + 1, taskId, buffer);
             }
         } else {
             log.warn(I18nMessageUtil.get("i18n.file_type_not_supported_with_placeholder.db22"), file.getAbsolutePath());
@@ -257,8 +276,9 @@ public class StaticFileStorageService extends BaseDbService<StaticFileStorageMod
      * @param level     层级
      * @param taskId    任务id
      * @param fileType  文件类型
+     * @param buffer    待写入的数据
      */
-    private void doFile(File file, String staticDir, int level, Long taskId, int fileType) {
+    private void doFile(File file, String staticDir, int level, Long taskId, int fileType, List<StaticFileStorageModel> buffer) {
         String name = file.getName();
         String absolutePath = this.absNormalize(file);
         long length = file.length();
@@ -281,7 +301,11 @@ public class StaticFileStorageService extends BaseDbService<StaticFileStorageMod
         storageModel.setExtName(FileUtil.extName(file));
         storageModel.setLastModified(lastModified);
         storageModel.setSize(length);
-        this.upsert(storageModel);
+        buffer.add(storageModel);
+        if (buffer.size() >= SCAN_BATCH_SIZE) {
+            this.upsertBatch(buffer);
+            buffer.clear();
+        }
     }
 
     private String absNormalize(File file) {
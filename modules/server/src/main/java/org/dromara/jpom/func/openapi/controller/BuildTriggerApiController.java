@@ -10,23 +10,22 @@
 package org.dromara.jpom.func.openapi.controller;
 
 import cn.hutool.core.convert.Convert;
-import cn.hutool.core.date.SystemClock;
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
 import cn.hutool.core.lang.RegexPool;
 import cn.hutool.core.lang.Validator;
 import cn.hutool.core.map.SafeConcurrentHashMap;
+import cn.hutool.core.util.CharsetUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.extra.servlet.ServletUtil;
 import cn.hutool.http.ContentType;
 import cn.keepbx.jpom.IJsonMessage;
-import cn.keepbx.jpom.event.IAsyncLoad;
 import cn.keepbx.jpom.model.JsonMessage;
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
-import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
-import org.dromara.jpom.JpomApplication;
+import org.dromara.jpom.build.BuildExecuteManage;
 import org.dromara.jpom.build.BuildExecuteService;
 import org.dromara.jpom.build.BuildUtil;
 import org.dromara.jpom.build.ResultDirFileAction;
@@ -37,28 +36,39 @@ import org.dromara.jpom.common.i18n.I18nMessageUtil;
 import org.dromara.jpom.common.interceptor.NotLogin;
 import org.dromara.jpom.common.validator.ValidatorItem;
 import org.dromara.jpom.common.validator.ValidatorRule;
-import org.dromara.jpom.cron.CronUtils;
 import org.dromara.jpom.model.BaseEnum;
 import org.dromara.jpom.model.data.BuildInfoModel;
 import org.dromara.jpom.model.enums.BuildStatus;
 import org.dromara.jpom.model.user.UserModel;
 import org.dromara.jpom.service.dblog.BuildInfoService;
+import org.dromara.jpom.service.dblog.BuildTriggerQueueService;
 import org.dromara.jpom.service.user.TriggerTokenLogServer;
 import org.dromara.jpom.system.JpomRuntimeException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.util.*;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.ScheduledExecutorService;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * @author bwcx_jzy
@@ -67,22 +77,40 @@ import java.util.stream.Collectors;
 @RestController
 @NotLogin
 @Slf4j
-public class BuildTriggerApiController extends BaseJpomController implements IAsyncLoad, Runnable {
+public class BuildTriggerApiController extends BaseJpomController {
+
+    /**
+     * 下一次读取日志的偏移量
+     */
+    private static final String LOG_OFFSET_HEADER = "X-Jpom-Log-Offset";
+    /**
+     * 构建是否还在进行中
+     */
+    private static final String LOG_RUNNING_HEADER = "X-Jpom-Build-Running";
+    /**
+     * 等待新日志的最长时间（毫秒）
+     */
+    private static final long LOG_FOLLOW_MAX_WAIT = TimeUnit.SECONDS.toMillis(30);
+    /**
+     * 等待新日志的请求，key 为构建id。由日志写入文件或者构建结束时唤醒，不占用请求线程
+     */
+    private final Map<String, Set<Runnable>> logWaiters = new SafeConcurrentHashMap<>();
 
     private final BuildInfoService buildInfoService;
     private final BuildExecuteService buildExecuteService;
     private final TriggerTokenLogServer triggerTokenLogServer;
-    /**
-     * 等待执行构建的队列
-     */
-    private final Map<String, Queue<BuildCache>> waitQueue = new SafeConcurrentHashMap<>();
+    private final BuildTriggerQueueService buildTriggerQueueService;
 
     public BuildTriggerApiController(BuildInfoService buildInfoService,
                                      BuildExecuteService buildExecuteService,
-                                     TriggerTokenLogServer triggerTokenLogServer) {
+                                     TriggerTokenLogServer triggerTokenLogServer,
+                                     BuildTriggerQueueService buildTriggerQueueService) {
         this.buildInfoService = buildInfoService;
         this.buildExecuteService = buildExecuteService;
         this.triggerTokenLogServer = triggerTokenLogServer;
+        this.buildTriggerQueueService = buildTriggerQueueService;
+        buildExecuteService.addLogListener(this::notifyLogWaiters);
+        buildExecuteService.addFinishListener(this::notifyLogWaiters);
     }
 
 
@@ -126,17 +154,9 @@ public class BuildTriggerApiController extends BaseJpomController implements IAs
         Object[] parametersEnv = this.buildParametersEnv(request, null);
         Integer delay1 = Convert.toInt(delay, 0);
         if (Convert.toBool(useQueue, false)) {
-            // 提交到队列暂存
-            BuildCache buildCache = new BuildCache();
-            buildCache.setId(id);
-            buildCache.setUserModel(userModel);
-            buildCache.setDelay(delay1);
-            buildCache.setBuildRemark(buildRemark);
-            buildCache.setParametersEnv(parametersEnv);
-            //
-            Queue<BuildCache> buildCaches = waitQueue.computeIfAbsent(id, s -> new ConcurrentLinkedDeque<>());
-            buildCaches.add(buildCache);
-            return JsonMessage.success(I18nMessageUtil.get("i18n.submit_task_queue_success.5f5b") + buildCaches.size());
+            // 提交到队列
+            String msg = buildTriggerQueueService.offer(item, userModel, delay1, buildRemark, parametersEnv);
+            return JsonMessage.success(msg);
         }
 
         BaseServerController.resetInfo(userModel);
@@ -208,17 +228,16 @@ public class BuildTriggerApiController extends BaseJpomController implements IAs
                     return;
                 }
                 if (Convert.toBool(useQueue, false)) {
-                    // 提交到队列暂存
-                    BuildCache buildCache = new BuildCache();
-                    buildCache.setId(id);
-                    buildCache.setUserModel(userModel);
-                    buildCache.setDelay(delay);
-                    buildCache.setBuildRemark(buildRemark);
-                    buildCache.setParametersEnv(parametersEnv);
-                    //
-                    Queue<BuildCache> buildCaches = waitQueue.computeIfAbsent(id, s -> new ConcurrentLinkedDeque<>());
-                    buildCaches.add(buildCache);
-                    jsonObject.put("msg", I18nMessageUtil.get("i18n.submit_task_queue_success.5f5b") + buildCaches.size());
+                    // 提交到队列
+                    try {
+                        jsonObject.put("msg", buildTriggerQueueService.offer(item, userModel, delay, buildRemark, parametersEnv));
+                    } catch (IllegalStateException e) {
+                        jsonObject.put("msg", e.getMessage());
+                    } catch (Exception e) {
+                        // 单个构建入队异常不影响其他构建
+                        log.error(I18nMessageUtil.get("i18n.create_build_task_exception.06f1"), e);
+                        jsonObject.put("msg", I18nMessageUtil.get("i18n.unexpected_exception.2b52") + e.getMessage());
+                    }
                 } else {
                     BaseServerController.resetInfo(userModel);
                     //
@@ -290,38 +309,178 @@ public class BuildTriggerApiController extends BaseJpomController implements IAs
     }
 
     /**
-     * 批量获取构建状态
+     * 获取构建日志
+     * <p>
+     * 响应头 {@link #LOG_OFFSET_HEADER} 返回下一次读取的偏移量，{@link #LOG_RUNNING_HEADER} 返回是否还在构建中
+     *
+     * @param offset 从日志文件的指定字节开始读取
+     * @param follow 长轮询，构建中没有新日志时最长等待 30 秒，有新日志或者构建结束后立即返回
      */
     @GetMapping(value = ServerOpenApi.BUILD_TRIGGER_LOG, produces = MediaType.APPLICATION_JSON_VALUE)
-    public void buildLogGet(@ValidatorItem String id,
-                            @ValidatorItem String token,
-                            @ValidatorItem(ValidatorRule.NUMBERS) Integer buildNumId,
-                            HttpServletResponse response) throws IOException {
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> buildLogGet(@ValidatorItem String id,
+                                                                             @ValidatorItem String token,
+                                                                             @ValidatorItem(ValidatorRule.NUMBERS) Integer buildNumId,
+                                                                             Long offset,
+                                                                             Boolean follow,
+                                                                             HttpServletRequest request,
+                                                                             HttpServletResponse response) {
         BuildInfoModel item = buildInfoService.getByKey(id);
         if (item == null) {
             ServletUtil.write(response, I18nMessageUtil.get("i18n.no_data_found.4ffb"), ContentType.TEXT_PLAIN.getValue());
-            return;
+            return null;
         }
         UserModel userModel = triggerTokenLogServer.getUserByToken(token, buildInfoService.typeName());
         if (userModel == null) {
             ServletUtil.write(response, I18nMessageUtil.get("i18n.user_not_exist_trigger_invalid.f375"), ContentType.TEXT_PLAIN.getValue());
-            return;
+            return null;
         }
         //
         if (!StrUtil.equals(token, item.getTriggerToken())) {
             ServletUtil.write(response, I18nMessageUtil.get("i18n.trigger_token_error_or_expired.8976"), ContentType.TEXT_PLAIN.getValue());
-            return;
+            return null;
         }
         File file = BuildUtil.getLogFile(item.getId(), buildNumId);
         if (!FileUtil.isFile(file)) {
             ServletUtil.write(response, I18nMessageUtil.get("i18n.log_file_error.473b"), ContentType.TEXT_PLAIN.getValue());
+            return null;
+        }
+        String buildInfoId = item.getId();
+        long start = Math.max(ObjectUtil.defaultIfNull(offset, 0L), 0L);
+        boolean gzip = StrUtil.containsIgnoreCase(request.getHeader(HttpHeaders.ACCEPT_ENCODING), "gzip");
+        DeferredResult<ResponseEntity<StreamingResponseBody>> result = new DeferredResult<>(LOG_FOLLOW_MAX_WAIT);
+        result.onTimeout(() -> result.setResult(this.logResponse(file, buildInfoId, buildNumId, start, gzip)));
+        if (!Convert.toBool(follow, false)) {
+            result.setResult(this.logResponse(file, buildInfoId, buildNumId, start, gzip));
+            return result;
+        }
+        Runnable waiter = () -> {
+            // 先判断构建状态，再读取文件，避免遗漏结束前最后写入的日志
+            boolean running = BuildExecuteManage.writtenLogLines(buildInfoId, buildNumId) != null;
+            if (!running || FileUtil.size(file) > start) {
+                result.setResult(this.logResponse(file, buildInfoId, buildNumId, start, gzip));
+            }
+        };
+        Set<Runnable> waiters = logWaiters.computeIfAbsent(buildInfoId, s -> ConcurrentHashMap.newKeySet());
+        waiters.add(waiter);
+        result.onCompletion(() -> {
+            waiters.remove(waiter);
+            logWaiters.computeIfPresent(buildInfoId, (s, runnables) -> runnables.isEmpty() ? null : runnables);
+        });
+        // 注册后再检查一次，避免遗漏注册前的写入
+        waiter.run();
+        return result;
+    }
+
+    /**
+     * 唤醒等待新日志的请求
+     *
+     * @param buildInfoId 构建id
+     */
+    private void notifyLogWaiters(String buildInfoId) {
+        Set<Runnable> waiters = logWaiters.get(buildInfoId);
+        if (waiters == null) {
             return;
         }
-        try (BufferedInputStream inputStream = FileUtil.getInputStream(file)) {
-            ServletUtil.write(response, inputStream, ContentType.TEXT_PLAIN.getValue());
+        for (Runnable waiter : waiters) {
+            waiter.run();
         }
     }
 
+    /**
+     * 读取构建日志
+     *
+     * @param file        日志文件
+     * @param buildInfoId 构建id
+     * @param buildNumId  构建序号
+     * @param start       开始的偏移量
+     * @param gzip        是否压缩
+     * @return 响应
+     */
+    private ResponseEntity<StreamingResponseBody> logResponse(File file, String buildInfoId, int buildNumId, long start, boolean gzip) {
+        boolean running = BuildExecuteManage.writtenLogLines(buildInfoId, buildNumId) != null;
+        long end = FileUtil.size(file);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(ContentType.TEXT_PLAIN.toString(CharsetUtil.CHARSET_UTF_8)))
+            .header(LOG_RUNNING_HEADER, String.valueOf(running))
+            .header(LOG_OFFSET_HEADER, String.valueOf(Math.max(start, end)));
+        if (!gzip) {
+            return builder.body(outputStream -> this.copyLog(file, start, end, outputStream));
+        }
+        builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        File gzipFile = FileUtil.file(file.getParentFile(), file.getName() + ".gz");
+        if (!running && start == 0 && FileUtil.isFile(gzipFile) && gzipFile.lastModified() >= file.lastModified()) {
+            // 构建结束后生成的压缩文件，直接输出
+            return builder.body(outputStream -> Files.copy(gzipFile.toPath(), outputStream));
+        }
+        return builder.body(outputStream -> {
+            GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, IoUtil.DEFAULT_BUFFER_SIZE);
+            this.copyLog(file, start, end, gzipOutputStream);
+            gzipOutputStream.finish();
+        });
+    }
+
+    private void copyLog(File file, long start, long end, OutputStream outputStream) throws IOException {
+        if (end <= start) {
+            return;
+        }
+        WritableByteChannel target = Channels.newChannel(outputStream);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long position = start;
+            while (position < end) {
+                long count = channel.transferTo(position, end - position, target);
+                if (count <= 0) {
+                    break;
+                }
+                position += count;
+            }
+        }
+    }
+
+    /**
+     * 获取构建触发器队列中排队的触发
+     *
+     * @return json
+     */
+    @GetMapping(value = ServerOpenApi.BUILD_TRIGGER_QUEUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public IJsonMessage<List<JSONObject>> buildQueueGet(@ValidatorItem String id, @ValidatorItem String token) {
+        this.checkToken(id, token);
+        List<JSONObject> list = buildTriggerQueueService.listByBuild(id)
+            .stream()
+            .map(queueModel -> {
+                JSONObject jsonObject = new JSONObject();
+                jsonObject.put("queueId", queueModel.getId());
+                jsonObject.put("createTimeMillis", queueModel.getCreateTimeMillis());
+                jsonObject.put("delay", queueModel.getDelay());
+                jsonObject.put("buildRemark", queueModel.getBuildRemark());
+                jsonObject.put("coalesceCount", queueModel.getCoalesceCount());
+                return jsonObject;
+            })
+            .collect(Collectors.toList());
+        return JsonMessage.success("", list);
+    }
+
+    /**
+     * 取消构建触发器队列中排队的触发
+     *
+     * @param queueId 队列id，不传取消所有排队
+     * @return json
+     */
+    @PostMapping(value = ServerOpenApi.BUILD_TRIGGER_QUEUE_CANCEL, produces = MediaType.APPLICATION_JSON_VALUE)
+    public IJsonMessage<Integer> buildQueueCancel(@ValidatorItem String id, @ValidatorItem String token, String queueId) {
+        this.checkToken(id, token);
+        int count = buildTriggerQueueService.cancel(id, queueId);
+        Assert.state(count > 0, I18nMessageUtil.get("i18n.trigger_queue_not_found.7130"));
+        return JsonMessage.success(I18nMessageUtil.get("i18n.cancel_success.285f"), count);
+    }
+
+    private void checkToken(String id, String token) {
+        BuildInfoModel item = buildInfoService.getByKey(id);
+        Assert.notNull(item, I18nMessageUtil.get("i18n.no_data_found.4ffb"));
+        UserModel userModel = triggerTokenLogServer.getUserByToken(token, buildInfoService.typeName());
+        Assert.notNull(userModel, I18nMessageUtil.get("i18n.user_not_exist_trigger_invalid.f375"));
+        Assert.state(StrUtil.equals(token, item.getTriggerToken()), I18nMessageUtil.get("i18n.trigger_token_error_or_expired.8976"));
+    }
+
     /**
      * 批量获取构建状态
      *
@@ -378,95 +537,4 @@ public class BuildTriggerApiController extends BaseJpomController implements IAs
         jsonObject.put("buildNumberId", item.getBuildId());
         return jsonObject;
     }
-
-    @Data
-    private static class BuildCache {
-        private UserModel userModel;
-        // 构建外部参数
-        private Object[] parametersEnv;
-
-        private Integer delay;
-
-        private String buildRemark;
-        private String id;
-
-        private Long taskTime;
-
-        public BuildCache() {
-            this.taskTime = SystemClock.now();
-        }
-
-        @Override
-        public String toString() {
-            return JSONObject.toJSONString(this);
-        }
-    }
-
-    @Override
-    public void startLoad() {
-        ScheduledExecutorService scheduler = JpomApplication.getScheduledExecutorService();
-        scheduler.scheduleWithFixedDelay(this, 0, 5, TimeUnit.SECONDS);
-    }
-
-    @Override
-    public void run() {
-        String id = "build_trigger_queue";
-        int heartSecond = 5;
-        try {
-            CronUtils.TaskStat taskStat = CronUtils.getTaskStat(id, StrUtil.format(I18nMessageUtil.get("i18n.execution_frequency.d014"), heartSecond));
-            taskStat.onStart();
-            //
-            this.runQueue();
-            taskStat.onSucceeded();
-        } catch (Throwable throwable) {
-            CronUtils.TaskStat taskStat = CronUtils.getTaskStat(id, StrUtil.format(I18nMessageUtil.get("i18n.execution_frequency.d014"), heartSecond));
-            taskStat.onFailed(id, throwable);
-        }
-    }
-
-    private void runQueue() {
-        // 先删除空队列
-        Set<Map.Entry<String, Queue<BuildCache>>> entries = waitQueue.entrySet();
-        Iterator<Map.Entry<String, Queue<BuildCache>>> entryIterator = entries.iterator();
-        while (entryIterator.hasNext()) {
-            Map.Entry<String, Queue<BuildCache>> next = entryIterator.next();
-            Queue<BuildCache> queue = next.getValue();
-            if (queue.isEmpty()) {
-                entryIterator.remove();
-            }
-        }
-        int size = waitQueue.size();
-        if (size > 0) {
-            log.debug(I18nMessageUtil.get("i18n.need_handle_build_micro_queue_count.3010"), size);
-            // 遍历队列中的数据
-            waitQueue.forEach((buildId, buildCaches) -> {
-                synchronized (buildId.intern()) {
-                    log.debug(I18nMessageUtil.get("i18n.need_handle_build_queue_count.c01e"), buildId, buildCaches.size());
-                    BuildInfoModel item = buildInfoService.getByKey(buildId);
-                    if (item == null) {
-                        log.error(I18nMessageUtil.get("i18n.build_data_not_exist.0225"), buildId, buildCaches.poll());
-                        return;
-                    }
-                    String statusMsg = buildExecuteService.checkStatus(item);
-                    if (statusMsg != null) {
-                        log.debug(I18nMessageUtil.get("i18n.build_task_waiting.e303"), buildId, statusMsg);
-                        return;
-                    }
-                    BuildCache cache = buildCaches.poll();
-                    if (cache == null) {
-                        return;
-                    }
-                    try {
-                        BaseServerController.resetInfo(cache.userModel);
-                        IJsonMessage<Integer> message = buildExecuteService.start(cache.id, cache.userModel, cache.delay, 1, cache.buildRemark, cache.parametersEnv);
-                        log.info(I18nMessageUtil.get("i18n.build_trigger_queue_result.a1fe"), message);
-                    } catch (Exception e) {
-                        log.error(I18nMessageUtil.get("i18n.create_build_task_exception.06f1"), e);
-                        // 重新添加任务
-                        buildCaches.add(cache);
-                    }
-                }
-            });
-        }
-    }
 }
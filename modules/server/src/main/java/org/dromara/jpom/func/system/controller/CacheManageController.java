@@ -39,6 +39,8 @@ import org.dromara.jpom.permission.Feature;
 import org.dromara.jpom.permission.MethodFeature;
 import org.dromara.jpom.permission.SystemPermission;
 import org.dromara.jpom.plugin.PluginFactory;
+import org.dromara.jpom.service.dblog.DbUserOperateLogService;
+import org.dromara.jpom.service.user.UserAuthCacheService;
 import org.dromara.jpom.socket.ServiceFileTailWatcher;
 import org.dromara.jpom.system.ServerConfig;
 import org.dromara.jpom.system.db.DataInitEvent;
@@ -76,6 +78,8 @@ public class CacheManageController extends BaseServerController implements ICach
     private final DataInitEvent dataInitEvent;
     private final ClusterConfig clusterConfig;
     private final SystemConfig systemConfig;
+    private final DbUserOperateLogService dbUserOperateLogService;
+    private final UserAuthCacheService userAuthCacheService;
     /**
      * 标记是否正在刷新缓存
      */
@@ -83,11 +87,15 @@ public class CacheManageController extends BaseServerController implements ICach
 
     public CacheManageController(JpomApplication jpomApplication,
                                  DataInitEvent dataInitEvent,
-                                 ServerConfig serverConfig) {
+                                 ServerConfig serverConfig,
+                                 DbUserOperateLogService dbUserOperateLogService,
+                                 UserAuthCacheService userAuthCacheService) {
         this.jpomApplication = jpomApplication;
         this.dataInitEvent = dataInitEvent;
         this.clusterConfig = serverConfig.getCluster();
         this.systemConfig = serverConfig.getSystem();
+        this.dbUserOperateLogService = dbUserOperateLogService;
+        this.userAuthCacheService = userAuthCacheService;
     }
 
     /**
@@ -127,6 +135,8 @@ public class CacheManageController extends BaseServerController implements ICach
         map.put("dataPath", jpomApplication.getDataPath());
         map.put("buildPath", BuildUtil.getBuildDataDir());
         map.put("timerMatchSecond", systemConfig.isTimerMatchSecond());
+        map.put("operateLogQueue", dbUserOperateLogService.queueStat());
+        map.put("authCache", userAuthCacheService.stat());
         //
         return JsonMessage.success("", map);
     }
@@ -169,6 +179,9 @@ public class CacheManageController extends BaseServerController implements ICach
             case "serviceIpSize":
                 LoginControl.LFU_CACHE.clear();
                 break;
+            case "serviceAuthCache":
+                userAuthCacheService.clear();
+                break;
             case "serviceOldJarsSize": {
                 File oldJarsPath = JpomManifest.getOldJarsPath();
                 boolean clean = CommandUtil.systemFastDel(oldJarsPath);
@@ -11,6 +11,7 @@ package org.dromara.jpom.func.system.service;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.date.SystemClock;
+import cn.hutool.core.lang.hash.MurmurHash;
 import cn.hutool.core.net.NetUtil;
 import cn.hutool.core.net.url.UrlBuilder;
 import cn.hutool.core.util.StrUtil;
@@ -19,6 +20,7 @@ import cn.hutool.extra.spring.SpringUtil;
 import cn.hutool.http.HttpRequest;
 import cn.hutool.http.Method;
 import cn.keepbx.jpom.event.IAsyncLoad;
+import cn.keepbx.jpom.model.BaseIdModel;
 import cn.keepbx.jpom.model.JsonMessage;
 import com.alibaba.fastjson2.JSONObject;
 import lombok.extern.slf4j.Slf4j;
@@ -28,18 +30,22 @@ import org.dromara.jpom.common.ServerConst;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
 import org.dromara.jpom.configuration.ClusterConfig;
 import org.dromara.jpom.cron.CronUtils;
+import org.dromara.jpom.dialect.DialectUtil;
 import org.dromara.jpom.func.assets.server.MachineDockerServer;
 import org.dromara.jpom.func.assets.server.MachineNodeServer;
 import org.dromara.jpom.func.assets.server.MachineSshServer;
 import org.dromara.jpom.func.system.model.ClusterInfoModel;
+import org.dromara.jpom.model.data.SystemParametersModel;
 import org.dromara.jpom.model.user.UserModel;
 import org.dromara.jpom.service.h2db.BaseDbService;
+import org.dromara.jpom.service.system.SystemParametersServer;
 import org.dromara.jpom.service.system.WorkspaceService;
 import org.dromara.jpom.system.ServerConfig;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -56,17 +62,28 @@ public class ClusterInfoService extends BaseDbService<ClusterInfoModel> implemen
 
     private final ClusterConfig clusterConfig;
     private static final String TASK_ID = "system_monitor_cluster";
+    /**
+     * 集群任务锁在系统参数中的前缀
+     */
+    private static final String LOCK_PREFIX = "CLUSTER_LOCK:";
 
     private final WorkspaceService workspaceService;
+    private final SystemParametersServer systemParametersServer;
     /**
      * 是否为多集群
      */
     private boolean multiServer = false;
+    /**
+     * 租约有效的集群成员（已排序）
+     */
+    private volatile List<String> liveMembers = Collections.emptyList();
 
     public ClusterInfoService(ServerConfig serverConfig,
-                              WorkspaceService workspaceService) {
+                              WorkspaceService workspaceService,
+                              SystemParametersServer systemParametersServer) {
         this.clusterConfig = serverConfig.getCluster();
         this.workspaceService = workspaceService;
+        this.systemParametersServer = systemParametersServer;
     }
 
     /**
@@ -89,6 +106,91 @@ public class ClusterInfoService extends BaseDbService<ClusterInfoModel> implemen
         return multiServer;
     }
 
+    /**
+     * 是否开启了集群工作分片
+     *
+     * @return true 资产按集群成员分片监控
+     */
+    public boolean isWorkSharding() {
+        return multiServer && clusterConfig.isWorkSharding();
+    }
+
+    /**
+     * 过滤出当前集群成员负责的资产（最高随机权重哈希），成员加入或者租约超时后自动重新分配
+     *
+     * @param list 资产
+     * @param <T>  泛型
+     * @return 当前集群成员负责的资产
+     */
+    public <T extends BaseIdModel> List<T> filterOwned(List<T> list) {
+        if (!this.isWorkSharding() || CollUtil.isEmpty(list)) {
+            return list;
+        }
+        String installId = JpomManifest.getInstance().getInstallId();
+        List<String> members = liveMembers;
+        if (!members.contains(installId)) {
+            // 自身心跳异常时仍然参与分配，避免资产无人监控
+            members = new ArrayList<>(members);
+            members.add(installId);
+            Collections.sort(members);
+        }
+        List<String> finalMembers = members;
+        return list.stream()
+            .filter(t -> StrUtil.equals(installId, owner(finalMembers, t.getId())))
+            .collect(Collectors.toList());
+    }
+
+    private static String owner(List<String> members, String assetId) {
+        String owner = null;
+        long max = Long.MIN_VALUE;
+        for (String member : members) {
+            long hash = MurmurHash.hash64(member + StrUtil.COLON + assetId);
+            if (owner == null || hash > max) {
+                max = hash;
+                owner = member;
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * 抢占集群任务锁，同一个定时任务的一次触发在集群中只会被一个成员执行
+     * <p>
+     * 锁保存在系统参数表中，以触发时间（秒）作为版本条件更新抢占，需要集群成员之间时间同步
+     *
+     * @param taskId 任务id
+     * @return true 当前成员获得执行权
+     */
+    public boolean tryLock(String taskId) {
+        if (!multiServer) {
+            return true;
+        }
+        String id = LOCK_PREFIX + taskId;
+        long fireTime = SystemClock.now() / 1000 * 1000;
+        String installId = JpomManifest.getInstance().getInstallId();
+        String sql = StrUtil.format("update {} set {}=?, modifyTimeMillis=? where id=? and modifyTimeMillis<?",
+            systemParametersServer.getTableName(), DialectUtil.wrapField("value"));
+        try {
+            if (systemParametersServer.execute(sql, installId, fireTime, id, fireTime) > 0) {
+                return true;
+            }
+            if (systemParametersServer.exists(id)) {
+                return false;
+            }
+            SystemParametersModel model = new SystemParametersModel();
+            model.setId(id);
+            model.setValue(installId);
+            model.setDescription(I18nMessageUtil.get("i18n.cluster_task_lock.88e1"));
+            model.setCreateTimeMillis(fireTime);
+            model.setModifyTimeMillis(fireTime);
+            return systemParametersServer.insert(model) > 0;
+        } catch (Exception e) {
+            // 主键冲突，其他成员已经抢占
+            log.warn(I18nMessageUtil.get("i18n.cluster_lock_exception.0737"), taskId, e.getMessage());
+            return false;
+        }
+    }
+
     @Override
     public void startLoad() {
         // 启动心跳检测
@@ -141,6 +243,7 @@ public class ClusterInfoService extends BaseDbService<ClusterInfoModel> implemen
                 clusterInfoModel.setStatusMsg(e.getMessage());
             }
             this.updateById(clusterInfoModel);
+            this.refreshLiveMembers();
             // 检查是否重复
             Entity entity = Entity.create();
             entity.set("clusterId", clusterConfig.getId());
@@ -159,6 +262,26 @@ public class ClusterInfoService extends BaseDbService<ClusterInfoModel> implemen
         }
     }
 
+    /**
+     * 刷新租约有效的集群成员，心跳即续约
+     */
+    private void refreshLiveMembers() {
+        long leaseMillis = TimeUnit.SECONDS.toMillis(clusterConfig.getLeaseSecond());
+        Entity entity = Entity.create();
+        entity.set("lastHeartbeat", StrUtil.format(" > {}", SystemClock.now() - leaseMillis));
+        List<String> members = this.listByEntity(entity, false)
+            .stream()
+            .map(BaseIdModel::getId)
+            .sorted()
+            .collect(Collectors.toList());
+        if (!members.equals(liveMembers)) {
+            if (this.isWorkSharding()) {
+                log.info(I18nMessageUtil.get("i18n.cluster_members_changed.3ce0"), liveMembers, members);
+            }
+            liveMembers = members;
+        }
+    }
+
     private void testUrl(String url) {
         //
         UrlBuilder urlBuilder = UrlBuilder.ofHttp(url);
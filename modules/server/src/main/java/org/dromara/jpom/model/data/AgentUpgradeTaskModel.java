@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.model.data;
+
+import cn.keepbx.jpom.model.BaseJsonModel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 插件端滚动升级任务（保存在系统参数中，服务端重启后可以继续）
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+public class AgentUpgradeTaskModel extends BaseJsonModel {
+
+    public static final String ID = "AGENT_UPGRADE_TASK";
+
+    /**
+     * 任务状态
+     */
+    private Status status;
+    /**
+     * 状态描述（暂停原因等）
+     */
+    private String statusMsg;
+    /**
+     * 操作人
+     */
+    private String userId;
+    private Long createTime;
+    private Long modifyTime;
+    /**
+     * 升级的插件端版本
+     */
+    private String version;
+    /**
+     * 升级的插件端打包时间
+     */
+    private String timeStamp;
+    /**
+     * 升级的插件端 jar 摘要
+     */
+    private String jarDigest;
+    /**
+     * 每一批升级的节点数
+     */
+    private int waveSize = 10;
+    /**
+     * 每一批升级完成后等待的时间（秒）
+     */
+    private int waveInterval = 30;
+    /**
+     * 失败比例（百分比）达到后自动暂停，小于 1 不自动暂停
+     */
+    private int failureRate = 20;
+    /**
+     * 升级前检查插件端版本，已经是最新的跳过
+     */
+    private boolean skipCurrent = true;
+    /**
+     * 节点重启后的健康检查超时时间（秒）
+     */
+    private int healthTimeout = 120;
+    /**
+     * 当前批次
+     */
+    private int wave;
+    /**
+     * 节点升级顺序
+     */
+    private List<String> nodeIds = new ArrayList<>();
+    /**
+     * 节点升级状态
+     */
+    private Map<String, NodeItem> nodes = new LinkedHashMap<>();
+
+    public enum Status {
+        /**
+         * 执行中
+         */
+        RUNNING,
+        /**
+         * 已暂停
+         */
+        PAUSED,
+        /**
+         * 已取消
+         */
+        CANCELED,
+        /**
+         * 已完成
+         */
+        DONE,
+    }
+
+    public enum NodeStatus {
+        /**
+         * 等待升级
+         */
+        WAIT,
+        /**
+         * 升级中
+         */
+        UPGRADING,
+        SUCCESS,
+        /**
+         * 已经是最新版本
+         */
+        SKIP,
+        FAILED,
+    }
+
+    @Data
+    public static class NodeItem {
+        private String id;
+        private String name;
+        private NodeStatus status;
+        private String msg;
+        /**
+         * 批次
+         */
+        private Integer wave;
+        private Long startTime;
+        private Long endTime;
+    }
+
+    public boolean running() {
+        return status == Status.RUNNING;
+    }
+}
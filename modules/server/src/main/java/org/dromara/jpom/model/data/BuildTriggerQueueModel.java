@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.model.data;
+
+import com.alibaba.fastjson2.JSONArray;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.dromara.jpom.db.TableName;
+import org.dromara.jpom.model.BaseWorkspaceModel;
+
+/**
+ * 构建触发器队列（使用队列触发的构建，等待上一次构建结束后依次执行）
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@EqualsAndHashCode(callSuper = true)
+@TableName(value = "BUILD_TRIGGER_QUEUE",
+    nameKey = "i18n.build_trigger_queue.19b9", parents = BuildInfoModel.class, workspaceBind = 3)
+@Data
+public class BuildTriggerQueueModel extends BaseWorkspaceModel {
+    /**
+     * 关联的构建id
+     *
+     * @see BuildInfoModel#getId()
+     */
+    private String buildDataId;
+    /**
+     * 延迟时间（单位秒）
+     */
+    private Integer delay;
+    /**
+     * 构建备注
+     */
+    private String buildRemark;
+    /**
+     * 触发器外部参数，JSON 数组
+     */
+    private String parametersEnv;
+    /**
+     * 合并的触发次数
+     */
+    private Integer coalesceCount;
+    /**
+     * 启动失败次数
+     */
+    private Integer failCount;
+
+    public Object[] parametersEnv() {
+        JSONArray jsonArray = JSONArray.parseArray(this.parametersEnv);
+        return jsonArray == null ? new Object[0] : jsonArray.toArray();
+    }
+
+    @Override
+    protected boolean hasCreateUser() {
+        return true;
+    }
+}
@@ -20,7 +20,9 @@ import org.dromara.jpom.model.data.MonitorModel;
 import org.dromara.jpom.plugin.PluginFactory;
 import org.dromara.jpom.service.system.SystemParametersServer;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -82,4 +84,32 @@ public class EmailUtil implements INotify {
         IPlugin plugin = PluginFactory.getPlugin("email");
         plugin.execute(JSON.toJSON(config), mailMap);
     }
+
+    /**
+     * 批量发送邮件（复用 smtp 连接）
+     *
+     * @param messages 邮件（toEmail、title、context）
+     * @return 每封邮件的发送结果，发送成功为 null，失败为错误信息
+     * @throws Exception 连接邮件服务器异常
+     */
+    @SuppressWarnings("unchecked")
+    public static List<String> sendBatch(List<Map<String, Object>> messages) throws Exception {
+        if (config == null) {
+            // 没有数据才加载
+            refreshConfig();
+        }
+        if (config == null || StrUtil.isEmpty(config.getHost())) {
+            List<String> result = new ArrayList<>(messages.size());
+            for (Map<String, Object> message : messages) {
+                String error = StrUtil.format(I18nMessageUtil.get("i18n.email_service_not_configured.3180"), message.get("toEmail"), message.get("title"));
+                log.error(error);
+                result.add(error);
+            }
+            return result;
+        }
+        Map<String, Object> mailMap = new HashMap<>(2);
+        mailMap.put("messages", messages);
+        IPlugin plugin = PluginFactory.getPlugin("email");
+        return (List<String>) plugin.execute(JSON.toJSON(config), mailMap);
+    }
 }
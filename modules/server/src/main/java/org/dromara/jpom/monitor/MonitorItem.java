@@ -19,20 +19,18 @@ import cn.hutool.db.sql.Direction;
 import cn.hutool.db.sql.Order;
 import cn.hutool.extra.spring.SpringUtil;
 import cn.keepbx.jpom.model.JsonMessage;
-import cn.keepbx.jpom.plugins.IPlugin;
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.jpom.common.forward.NodeForward;
 import org.dromara.jpom.common.forward.NodeUrl;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
-import org.dromara.jpom.common.i18n.I18nThreadUtil;
+import org.dromara.jpom.func.system.service.ClusterInfoService;
 import org.dromara.jpom.model.data.MonitorModel;
 import org.dromara.jpom.model.data.NodeModel;
 import org.dromara.jpom.model.log.MonitorNotifyLog;
 import org.dromara.jpom.model.node.ProjectInfoCacheModel;
 import org.dromara.jpom.model.user.UserModel;
-import org.dromara.jpom.plugin.PluginFactory;
 import org.dromara.jpom.service.dblog.DbMonitorNotifyLogService;
 import org.dromara.jpom.service.monitor.MonitorService;
 import org.dromara.jpom.service.node.NodeService;
@@ -61,6 +59,7 @@ public class MonitorItem implements Task {
     private final MonitorService monitorService;
     private final ProjectInfoCacheService projectInfoCacheService;
     private final NodeService nodeService;
+    private final ClusterInfoService clusterInfoService;
     private final String monitorId;
     private MonitorModel monitorModel;
 
@@ -70,11 +69,15 @@ public class MonitorItem implements Task {
         this.monitorService = SpringUtil.getBean(MonitorService.class);
         this.nodeService = SpringUtil.getBean(NodeService.class);
         this.projectInfoCacheService = SpringUtil.getBean(ProjectInfoCacheService.class);
+        this.clusterInfoService = SpringUtil.getBean(ClusterInfoService.class);
         this.monitorId = id;
     }
 
     @Override
     public void execute() {
+        if (!clusterInfoService.tryLock("monitor:" + monitorId)) {
+            return;
+        }
         // 重新查询
         this.monitorModel = monitorService.getByKey(monitorId);
         try {
@@ -323,7 +326,6 @@ public class MonitorItem implements Task {
         if (StrUtil.isEmpty(webhook)) {
             return;
         }
-        IPlugin plugin = PluginFactory.getPlugin("webhook");
         Map<String, Object> map = new HashMap<>(10);
         map.put("JPOM_WEBHOOK_EVENT", DefaultWebhookPluginImpl.WebhookEvent.MONITOR);
         map.put("monitorId", monitorModel.getId());
@@ -344,15 +346,15 @@ public class MonitorItem implements Task {
         //
         dbMonitorNotifyLogService.insert(monitorNotifyLog);
         String logId = monitorNotifyLog.getId();
-        I18nThreadUtil.execute(() -> {
-            try {
-                plugin.execute(webhook, map);
-                dbMonitorNotifyLogService.updateStatus(logId, true, null);
-            } catch (Exception e) {
-                log.error(I18nMessageUtil.get("i18n.webhooks_invocation_error.9792"), e);
-                dbMonitorNotifyLogService.updateStatus(logId, false, ExceptionUtil.stacktraceToString(e));
-            }
-        });
+        NotifyDispatcher.getInstance().webhook(webhook, map, this.mergeKey(monitorNotifyLog, webhook),
+            (success, error) -> dbMonitorNotifyLogService.updateStatus(logId, success, error));
+    }
+
+    /**
+     * 相同监控、项目、接收人的通知合并发送
+     */
+    private String mergeKey(MonitorNotifyLog monitorNotifyLog, String notifyObject) {
+        return StrUtil.format("monitor:{}:{}:{}:{}", monitorModel.getId(), monitorNotifyLog.getNodeId(), monitorNotifyLog.getProjectId(), notifyObject);
     }
 
     private void sendNotifyMsgToUser(MonitorNotifyLog monitorNotifyLog, String notifyUser) {
@@ -368,7 +370,7 @@ public class MonitorItem implements Task {
                 monitorNotifyLog.setNotifyObject(notify1.getValue());
                 //
                 dbMonitorNotifyLogService.insert(monitorNotifyLog);
-                this.send(notify1, monitorNotifyLog.getId(), monitorNotifyLog.getTitle(), monitorNotifyLog.getContent());
+                this.send(notify1, monitorNotifyLog.getId(), monitorNotifyLog.getTitle(), monitorNotifyLog.getContent(), this.mergeKey(monitorNotifyLog, notify1.getValue()));
                 success = true;
             }
             // dingding
@@ -380,7 +382,7 @@ public class MonitorItem implements Task {
                 monitorNotifyLog.setNotifyObject(notify1.getValue());
                 //
                 dbMonitorNotifyLogService.insert(monitorNotifyLog);
-                this.send(notify1, monitorNotifyLog.getId(), monitorNotifyLog.getTitle(), monitorNotifyLog.getContent());
+                this.send(notify1, monitorNotifyLog.getId(), monitorNotifyLog.getTitle(), monitorNotifyLog.getContent(), this.mergeKey(monitorNotifyLog, notify1.getValue()));
                 success = true;
             }
             // 企业微信
@@ -392,7 +394,7 @@ public class MonitorItem implements Task {
                 monitorNotifyLog.setNotifyObject(notify1.getValue());
                 //
                 dbMonitorNotifyLogService.insert(monitorNotifyLog);
-                this.send(notify1, monitorNotifyLog.getId(), monitorNotifyLog.getTitle(), monitorNotifyLog.getContent());
+                this.send(notify1, monitorNotifyLog.getId(), monitorNotifyLog.getTitle(), monitorNotifyLog.getContent(), this.mergeKey(monitorNotifyLog, notify1.getValue()));
                 success = true;
             }
         }
@@ -409,16 +411,9 @@ public class MonitorItem implements Task {
         dbMonitorNotifyLogService.insert(monitorNotifyLog);
     }
 
-    private void send(MonitorModel.Notify notify, String logId, String title, String context) {
-        // 异常发送
-        I18nThreadUtil.execute(() -> {
-            try {
-                NotifyUtil.send(notify, title, context);
-                dbMonitorNotifyLogService.updateStatus(logId, true, null);
-            } catch (Exception e) {
-                log.error(I18nMessageUtil.get("i18n.send_alert_notification_exception.6788"), e);
-                dbMonitorNotifyLogService.updateStatus(logId, false, ExceptionUtil.stacktraceToString(e));
-            }
-        });
+    private void send(MonitorModel.Notify notify, String logId, String title, String context, String mergeKey) {
+        // 异步发送
+        NotifyDispatcher.getInstance().send(notify, title, context, mergeKey,
+            (success, error) -> dbMonitorNotifyLogService.updateStatus(logId, success, error));
     }
 }
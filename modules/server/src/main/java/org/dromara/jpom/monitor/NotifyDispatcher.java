@@ -0,0 +1,443 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.monitor;
+
+import cn.hutool.core.date.SystemClock;
+import cn.hutool.core.exceptions.ExceptionUtil;
+import cn.hutool.core.map.SafeConcurrentHashMap;
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.core.util.URLUtil;
+import cn.hutool.extra.spring.SpringUtil;
+import cn.keepbx.jpom.plugins.IPlugin;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.jpom.JpomApplication;
+import org.dromara.jpom.common.i18n.I18nMessageUtil;
+import org.dromara.jpom.configuration.NotifyConfig;
+import org.dromara.jpom.model.BaseEnum;
+import org.dromara.jpom.model.data.MonitorModel;
+import org.dromara.jpom.plugin.PluginFactory;
+import org.dromara.jpom.system.ServerConfig;
+import org.dromara.jpom.webhook.DefaultWebhookPluginImpl;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 通知发送调度
+ * <p>
+ * 通知在独立的线程池中发送，不阻塞监控、构建等线程。同一个目标限制并发和频率，失败后按间隔翻倍重试，
+ * 超过重试次数或者队列已满的通知记录日志后丢弃。相同的通知在合并窗口内只发送第一条和最后一条，邮件批量复用 smtp 连接
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@Slf4j
+public class NotifyDispatcher {
+
+    private static final String MAIL_TARGET = "mail";
+
+    private static volatile NotifyDispatcher instance;
+
+    private final NotifyConfig config;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Semaphore> concurrencyMap = new SafeConcurrentHashMap<>();
+    private final Map<String, RateLimiter> rateLimiterMap = new SafeConcurrentHashMap<>();
+    private final Map<String, MergeWindow> mergeWindowMap = new HashMap<>();
+    private final BlockingQueue<Task> mailQueue;
+    private final AtomicBoolean mailFlushing = new AtomicBoolean();
+
+    private NotifyDispatcher(NotifyConfig config) {
+        this.config = config;
+        int poolSize = config.getPoolSize();
+        this.executor = (ThreadPoolExecutor) ExecutorBuilder.create()
+            .setCorePoolSize(poolSize)
+            .setMaxPoolSize(poolSize)
+            .setWorkQueue(new LinkedBlockingQueue<>(config.getQueueSize()))
+            .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("jpom-notify-").setDaemon(true).build())
+            .build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+            ThreadFactoryBuilder.create().setNamePrefix("jpom-notify-delay-").setDaemon(true).build());
+        this.mailQueue = new LinkedBlockingQueue<>(config.getQueueSize());
+        JpomApplication.register("notify", executor);
+        JpomApplication.register("notify-delay", scheduler);
+    }
+
+    public static NotifyDispatcher getInstance() {
+        if (instance == null) {
+            synchronized (NotifyDispatcher.class) {
+                if (instance == null) {
+                    ServerConfig serverConfig = SpringUtil.getBean(ServerConfig.class);
+                    instance = new NotifyDispatcher(serverConfig.getNotify());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 发送通知（邮件、钉钉、企业微信）
+     *
+     * @param notify   通知方式
+     * @param title    标题
+     * @param context  内容
+     * @param mergeKey 合并的 key，为空不合并
+     * @param callback 发送结果回调，可以为空
+     */
+    public void send(MonitorModel.Notify notify, String title, String context, String mergeKey, Callback callback) {
+        MonitorModel.NotifyType notifyType = BaseEnum.getEnum(MonitorModel.NotifyType.class, notify.getStyle());
+        Task task;
+        if (notifyType == MonitorModel.NotifyType.mail) {
+            Map<String, Object> mail = new HashMap<>(4);
+            mail.put("toEmail", notify.getValue());
+            mail.put("title", title);
+            mail.put("context", context);
+            task = new Task(MAIL_TARGET, notify.getValue() + StrUtil.COLON + title, null, mail, callback);
+        } else {
+            task = new Task(this.target(notify.getValue()), notify.getValue() + StrUtil.COLON + title,
+                () -> NotifyUtil.send(notify, title, context), null, callback);
+        }
+        this.submit(task, mergeKey);
+    }
+
+    /**
+     * 调用 webhook
+     *
+     * @param webhook   webhook 地址
+     * @param parameter 参数
+     * @param mergeKey  合并的 key，为空不合并
+     * @param callback  发送结果回调，可以为空
+     */
+    public void webhook(String webhook, Map<String, Object> parameter, String mergeKey, Callback callback) {
+        IPlugin plugin = PluginFactory.getPlugin("webhook");
+        Task task = new Task(this.target(webhook), webhook, () -> {
+            // 每次重试使用新的参数，插件会移除内部参数
+            Map<String, Object> map = new HashMap<>(parameter);
+            map.put(DefaultWebhookPluginImpl.TIMEOUT, config.getTimeout());
+            map.put(DefaultWebhookPluginImpl.THROW_ERROR, true);
+            plugin.execute(webhook, map);
+        }, null, callback);
+        this.submit(task, mergeKey);
+    }
+
+    public int getTimeout() {
+        return config.getTimeout();
+    }
+
+    private void submit(Task task, String mergeKey) {
+        if (StrUtil.isNotEmpty(mergeKey) && config.getMergeWindow() > 0 && this.merge(mergeKey, task)) {
+            return;
+        }
+        this.enqueue(task);
+    }
+
+    /**
+     * 合并窗口内的相同通知
+     *
+     * @return true 已经合并，等待窗口结束后发送
+     */
+    private boolean merge(String mergeKey, Task task) {
+        Task superseded;
+        synchronized (mergeWindowMap) {
+            MergeWindow window = mergeWindowMap.get(mergeKey);
+            if (window == null) {
+                window = new MergeWindow();
+                mergeWindowMap.put(mergeKey, window);
+                MergeWindow finalWindow = window;
+                scheduler.schedule(() -> this.closeWindow(mergeKey, finalWindow), config.getMergeWindow(), TimeUnit.SECONDS);
+                return false;
+            }
+            superseded = window.pending;
+            window.pending = task;
+            window.merged++;
+        }
+        if (superseded != null) {
+            // 内容已经由窗口结束时发送的最新通知覆盖，记录为成功
+            superseded.result(true, I18nMessageUtil.get("i18n.notify_merged.f900"));
+        }
+        return true;
+    }
+
+    private void closeWindow(String mergeKey, MergeWindow window) {
+        Task pending;
+        int merged;
+        synchronized (mergeWindowMap) {
+            pending = window.pending;
+            if (pending == null) {
+                mergeWindowMap.remove(mergeKey);
+                return;
+            }
+            merged = window.merged;
+            window.pending = null;
+            window.merged = 0;
+            // 发送的最后一条开始新的窗口
+            scheduler.schedule(() -> this.closeWindow(mergeKey, window), config.getMergeWindow(), TimeUnit.SECONDS);
+        }
+        log.info(I18nMessageUtil.get("i18n.notify_merged_send.780e"), merged, pending.description);
+        this.enqueue(pending);
+    }
+
+    private void enqueue(Task task) {
+        if (task.mail != null) {
+            if (!mailQueue.offer(task)) {
+                this.deadLetter(task, I18nMessageUtil.get("i18n.notify_queue_full.5667"), null);
+                return;
+            }
+            this.flushMail();
+            return;
+        }
+        try {
+            executor.execute(() -> this.run(task));
+        } catch (RejectedExecutionException e) {
+            this.deadLetter(task, I18nMessageUtil.get("i18n.notify_queue_full.5667"), null);
+        }
+    }
+
+    private void run(Task task) {
+        Semaphore semaphore = concurrencyMap.computeIfAbsent(task.target, s -> new Semaphore(config.getTargetConcurrency()));
+        if (!semaphore.tryAcquire()) {
+            // 目标并发已满，不占用发送线程
+            this.later(task, 200);
+            return;
+        }
+        try {
+            long wait = this.acquireRate(task.target, 1);
+            if (wait > 0) {
+                this.later(task, wait);
+                return;
+            }
+            task.execute();
+            task.result(true, null);
+        } catch (Exception e) {
+            this.retry(task, e);
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    /**
+     * 批量发送邮件，同时只有一个线程发送邮件
+     */
+    private void flushMail() {
+        if (!mailFlushing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::doFlushMail);
+        } catch (RejectedExecutionException e) {
+            mailFlushing.set(false);
+            scheduler.schedule(this::flushMail, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    private void doFlushMail() {
+        long wait = 0;
+        try {
+            while (!mailQueue.isEmpty()) {
+                int batchSize = config.getMailBatchSize();
+                wait = this.acquireRate(MAIL_TARGET, 1);
+                if (wait > 0) {
+                    break;
+                }
+                List<Task> tasks = new ArrayList<>(batchSize);
+                Task first = mailQueue.poll();
+                if (first == null) {
+                    break;
+                }
+                tasks.add(first);
+                while (tasks.size() < batchSize && !mailQueue.isEmpty() && this.acquireRate(MAIL_TARGET, 1) == 0) {
+                    Task next = mailQueue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    tasks.add(next);
+                }
+                this.sendMail(tasks);
+            }
+        } finally {
+            mailFlushing.set(false);
+        }
+        if (wait > 0) {
+            scheduler.schedule(this::flushMail, wait, TimeUnit.MILLISECONDS);
+        } else if (!mailQueue.isEmpty()) {
+            this.flushMail();
+        }
+    }
+
+    private void sendMail(List<Task> tasks) {
+        List<Map<String, Object>> messages = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            messages.add(task.mail);
+        }
+        List<String> result;
+        try {
+            result = EmailUtil.sendBatch(messages);
+        } catch (Exception e) {
+            tasks.forEach(task -> this.retry(task, e));
+            return;
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            String error = i < result.size() ? result.get(i) : null;
+            if (error == null) {
+                task.result(true, null);
+            } else {
+                this.retry(task, new IllegalStateException(error));
+            }
+        }
+    }
+
+    private void retry(Task task, Exception e) {
+        int retryCount = config.getRetryCount();
+        if (task.attempt >= retryCount) {
+            this.deadLetter(task, I18nMessageUtil.get("i18n.notify_dead_letter.0709"), e);
+            return;
+        }
+        task.attempt++;
+        long delay = TimeUnit.SECONDS.toMillis(config.getRetryDelay()) << Math.min(task.attempt - 1, 10);
+        delay = Math.min(delay, TimeUnit.MINUTES.toMillis(10));
+        log.warn(I18nMessageUtil.get("i18n.notify_retry.dc3b"), delay, task.attempt, task.description, e.getMessage());
+        this.later(task, delay);
+    }
+
+    private void later(Task task, long delay) {
+        try {
+            scheduler.schedule(() -> this.enqueue(task), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            this.deadLetter(task, I18nMessageUtil.get("i18n.notify_queue_full.5667"), null);
+        }
+    }
+
+    private void deadLetter(Task task, String message, Exception e) {
+        if (e == null) {
+            log.error(message, task.description);
+            task.result(false, StrUtil.format(message, task.description));
+        } else {
+            log.error(message, task.attempt, task.description, e.getMessage(), e);
+            task.result(false, ExceptionUtil.stacktraceToString(e));
+        }
+    }
+
+    /**
+     * 获取频率限制
+     *
+     * @return 需要等待的毫秒数，0 表示可以发送
+     */
+    private long acquireRate(String target, int permits) {
+        int ratePerMinute = config.getTargetRatePerMinute();
+        if (ratePerMinute <= 0) {
+            return 0;
+        }
+        RateLimiter rateLimiter = rateLimiterMap.computeIfAbsent(target, s -> new RateLimiter(ratePerMinute));
+        return rateLimiter.tryAcquire(permits);
+    }
+
+    private String target(String url) {
+        try {
+            return StrUtil.emptyToDefault(URLUtil.url(url).getHost(), url);
+        } catch (Exception e) {
+            return url;
+        }
+    }
+
+    /**
+     * 发送结果回调
+     */
+    @FunctionalInterface
+    public interface Callback {
+        /**
+         * 发送结果
+         *
+         * @param success 是否成功
+         * @param error   失败的原因，成功时为附加说明（如已被合并）
+         */
+        void result(boolean success, String error);
+    }
+
+    @FunctionalInterface
+    private interface Delivery {
+        void execute() throws Exception;
+    }
+
+    private static class Task {
+        private final String target;
+        private final String description;
+        private final Delivery delivery;
+        private final Map<String, Object> mail;
+        private final Callback callback;
+        private final String language;
+        private int attempt;
+
+        private Task(String target, String description, Delivery delivery, Map<String, Object> mail, Callback callback) {
+            this.target = target;
+            this.description = description;
+            this.delivery = delivery;
+            this.mail = mail;
+            this.callback = callback;
+            this.language = I18nMessageUtil.tryGetLanguage();
+        }
+
+        private void execute() throws Exception {
+            try {
+                I18nMessageUtil.setLanguage(language);
+                delivery.execute();
+            } finally {
+                I18nMessageUtil.clearLanguage();
+            }
+        }
+
+        private void result(boolean success, String error) {
+            if (callback == null) {
+                return;
+            }
+            try {
+                callback.result(success, error);
+            } catch (Exception e) {
+                log.error(I18nMessageUtil.get("i18n.send_alert_notification_exception.6788"), e);
+            }
+        }
+    }
+
+    private static class MergeWindow {
+        private Task pending;
+        private int merged;
+    }
+
+    /**
+     * 令牌桶，最多累计一分钟的令牌
+     */
+    private static class RateLimiter {
+        private final int capacity;
+        private final double permitsPerMillis;
+        private double permits;
+        private long lastTime;
+
+        private RateLimiter(int ratePerMinute) {
+            this.capacity = ratePerMinute;
+            this.permitsPerMillis = ratePerMinute / 60000D;
+            this.permits = ratePerMinute;
+            this.lastTime = SystemClock.now();
+        }
+
+        private synchronized long tryAcquire(int count) {
+            long now = SystemClock.now();
+            permits = Math.min(capacity, permits + (now - lastTime) * permitsPerMillis);
+            lastTime = now;
+            if (permits >= count) {
+                permits -= count;
+                return 0;
+            }
+            return Math.max((long) Math.ceil((count - permits) / permitsPerMillis), 1);
+        }
+    }
+}
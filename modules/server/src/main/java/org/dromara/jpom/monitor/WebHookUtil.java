@@ -9,9 +9,12 @@
  */
 package org.dromara.jpom.monitor;
 
+import cn.hutool.core.util.StrUtil;
 import cn.hutool.http.HttpRequest;
+import cn.hutool.http.HttpResponse;
 import cn.hutool.http.HttpUtil;
 import com.alibaba.fastjson2.JSONObject;
+import org.dromara.jpom.common.i18n.I18nMessageUtil;
 import org.dromara.jpom.model.data.MonitorModel;
 import org.springframework.http.MediaType;
 
@@ -40,7 +43,12 @@ public class WebHookUtil implements INotify {
         HttpRequest request = HttpUtil.
             createPost(notify.getValue()).
             contentType(MediaType.APPLICATION_JSON_VALUE).
+            timeout(NotifyDispatcher.getInstance().getTimeout() * 1000).
             body(param.toJSONString());
-        request.execute();
+        try (HttpResponse response = request.execute()) {
+            if (!response.isOk()) {
+                throw new IllegalStateException(StrUtil.format(I18nMessageUtil.get("i18n.webhook_response_status.db62"), response.getStatus(), response.body()));
+            }
+        }
     }
 }
@@ -22,7 +22,6 @@ import cn.hutool.core.util.StrUtil;
 import cn.hutool.extra.spring.SpringUtil;
 import cn.keepbx.jpom.model.BaseIdModel;
 import cn.keepbx.jpom.model.JsonMessage;
-import cn.keepbx.jpom.plugins.IPlugin;
 import com.alibaba.fastjson2.JSONObject;
 import lombok.Builder;
 import lombok.Lombok;
@@ -38,7 +37,7 @@ import org.dromara.jpom.model.log.OutGivingLog;
 import org.dromara.jpom.model.outgiving.OutGivingModel;
 import org.dromara.jpom.model.outgiving.OutGivingNodeProject;
 import org.dromara.jpom.model.user.UserModel;
-import org.dromara.jpom.plugin.PluginFactory;
+import org.dromara.jpom.monitor.NotifyDispatcher;
 import org.dromara.jpom.service.outgiving.DbOutGivingLogService;
 import org.dromara.jpom.service.outgiving.OutGivingServer;
 import org.dromara.jpom.util.LogRecorder;
@@ -346,26 +345,20 @@ public class OutGivingRun {
             .map(outGivingModel2 ->
                 Opt.ofBlankAble(outGivingModel2.getWebhook())
                     .orElse(null))
-            .ifPresent(webhook ->
-                I18nThreadUtil.execute(() -> {
-                    // outGivingId、outGivingName、status、statusMsg、executeTime
-                    Map<String, Object> map = new HashMap<>(10);
-                    map.put("outGivingId", outGivingId);
-                    map.put("outGivingName", outGivingModel.getName());
-                    map.put("status", status.getCode());
-                    map.put("statusMsg", msg);
-                    // 操作人
-                    String triggerUser = Optional.ofNullable(userModel).map(BaseIdModel::getId).orElse(UserModel.SYSTEM_ADMIN);
-                    map.put("triggerUser", triggerUser);
-                    map.put("executeTime", SystemClock.now());
-                    try {
-                        IPlugin plugin = PluginFactory.getPlugin("webhook");
-                        map.put("JPOM_WEBHOOK_EVENT", DefaultWebhookPluginImpl.WebhookEvent.DISTRIBUTE);
-                        plugin.execute(webhook, map);
-                    } catch (Exception e) {
-                        log.error(I18nMessageUtil.get("i18n.webhooks_invocation_error.9792"), e);
-                    }
-                }));
+            .ifPresent(webhook -> {
+                // outGivingId、outGivingName、status、statusMsg、executeTime
+                Map<String, Object> map = new HashMap<>(10);
+                map.put("outGivingId", outGivingId);
+                map.put("outGivingName", outGivingModel.getName());
+                map.put("status", status.getCode());
+                map.put("statusMsg", msg);
+                // 操作人
+                String triggerUser = Optional.ofNullable(userModel).map(BaseIdModel::getId).orElse(UserModel.SYSTEM_ADMIN);
+                map.put("triggerUser", triggerUser);
+                map.put("executeTime", SystemClock.now());
+                map.put("JPOM_WEBHOOK_EVENT", DefaultWebhookPluginImpl.WebhookEvent.DISTRIBUTE);
+                NotifyDispatcher.getInstance().webhook(webhook, map, null, null);
+            });
     }
 
     /**
@@ -18,6 +18,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.dromara.jpom.build.BuildExecuteService;
 import org.dromara.jpom.common.BaseServerController;
 import org.dromara.jpom.cron.CronUtils;
+import org.dromara.jpom.func.system.service.ClusterInfoService;
 import org.dromara.jpom.model.data.BuildInfoModel;
 import org.dromara.jpom.model.enums.BuildReleaseMethod;
 import org.dromara.jpom.model.enums.BuildStatus;
@@ -162,6 +163,9 @@ public class BuildInfoService extends BaseWorkspaceService<BuildInfoModel> imple
 
         @Override
         public void execute() {
+            if (!SpringUtil.getBean(ClusterInfoService.class).tryLock("build:" + this.buildId)) {
+                return;
+            }
             BuildExecuteService buildExecuteService = SpringUtil.getBean(BuildExecuteService.class);
             try {
                 BaseServerController.resetInfo(UserModel.EMPTY);
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.service.dblog;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.db.Entity;
+import cn.hutool.db.sql.Direction;
+import cn.hutool.db.sql.Order;
+import cn.keepbx.jpom.IJsonMessage;
+import cn.keepbx.jpom.event.IAsyncLoad;
+import com.alibaba.fastjson2.JSONArray;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.jpom.JpomApplication;
+import org.dromara.jpom.build.BuildExecuteService;
+import org.dromara.jpom.build.BuildExtraModule;
+import org.dromara.jpom.common.BaseServerController;
+import org.dromara.jpom.common.i18n.I18nMessageUtil;
+import org.dromara.jpom.configuration.BuildExtConfig;
+import org.dromara.jpom.model.data.BuildInfoModel;
+import org.dromara.jpom.model.data.BuildTriggerQueueModel;
+import org.dromara.jpom.model.user.UserModel;
+import org.dromara.jpom.service.h2db.BaseWorkspaceService;
+import org.dromara.jpom.service.user.UserService;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 构建触发器队列
+ * <p>
+ * 队列保存在数据库中，重启后不会丢失。构建结束后立即调度队列中的下一次触发，启动失败时延迟重试
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@Service
+@Slf4j
+public class BuildTriggerQueueService extends BaseWorkspaceService<BuildTriggerQueueModel> implements IAsyncLoad {
+
+    /**
+     * 启动失败的最大次数，超过后从队列中移除
+     */
+    private static final int MAX_START_FAIL = 3;
+    /**
+     * 启动失败后重试的间隔（秒），每次失败后翻倍
+     */
+    private static final int RETRY_DELAY = 5;
+
+    private final BuildInfoService buildInfoService;
+    private final BuildExecuteService buildExecuteService;
+    private final UserService userService;
+    private final BuildExtConfig buildExtConfig;
+
+    public BuildTriggerQueueService(BuildInfoService buildInfoService,
+                                    BuildExecuteService buildExecuteService,
+                                    UserService userService,
+                                    BuildExtConfig buildExtConfig) {
+        this.buildInfoService = buildInfoService;
+        this.buildExecuteService = buildExecuteService;
+        this.userService = userService;
+        this.buildExtConfig = buildExtConfig;
+    }
+
+    @Override
+    public void startLoad() {
+        buildExecuteService.addFinishListener(this::dispatch);
+        // 调度重启前未执行的队列
+        String sql = "select buildDataId from " + super.getTableName() + " group by buildDataId";
+        List<Entity> query = super.query(sql);
+        for (Entity entity : query) {
+            this.dispatch(entity.getStr("buildDataId"));
+        }
+    }
+
+    /**
+     * 提交到队列
+     *
+     * @param item          构建
+     * @param userModel     触发的用户
+     * @param delay         延迟时间
+     * @param buildRemark   构建备注
+     * @param parametersEnv 外部参数
+     * @return 提交结果
+     */
+    public String offer(BuildInfoModel item, UserModel userModel, Integer delay, String buildRemark, Object[] parametersEnv) {
+        String buildId = item.getId();
+        BuildExtraModule buildExtraModule = Optional.ofNullable(item.extraData()).orElseGet(BuildExtraModule::new);
+        boolean coalesce = Optional.ofNullable(buildExtraModule.getTriggerQueueCoalesce()).orElse(buildExtConfig.isTriggerQueueCoalesce());
+        int depth = Optional.ofNullable(buildExtraModule.getTriggerQueueDepth()).orElse(buildExtConfig.getTriggerQueueDepth());
+        String msg;
+        // 触发器接口没有登录信息，入库时需要校验用户的工作空间权限
+        BaseServerController.resetInfo(userModel);
+        try {
+            msg = this.offer(item, userModel, delay, buildRemark, parametersEnv, coalesce, depth);
+        } finally {
+            BaseServerController.removeAll();
+        }
+        // 构建空闲时直接开始
+        this.dispatch(buildId);
+        return msg;
+    }
+
+    private String offer(BuildInfoModel item, UserModel userModel, Integer delay, String buildRemark, Object[] parametersEnv, boolean coalesce, int depth) {
+        String buildId = item.getId();
+        String msg;
+        synchronized (buildId.intern()) {
+            List<BuildTriggerQueueModel> queue = this.listByBuild(buildId);
+            BuildTriggerQueueModel queueModel = new BuildTriggerQueueModel();
+            queueModel.setBuildDataId(buildId);
+            queueModel.setWorkspaceId(item.getWorkspaceId());
+            queueModel.setCreateUser(userModel.getId());
+            queueModel.setModifyUser(userModel.getId());
+            queueModel.setDelay(delay);
+            queueModel.setBuildRemark(buildRemark);
+            queueModel.setParametersEnv(JSONArray.toJSONString(parametersEnv));
+            if (coalesce && CollUtil.isNotEmpty(queue)) {
+                // 只保留最新的一次触发，构建时拉取的是最新的代码
+                int coalesceCount = queue.stream().mapToInt(model -> ObjectUtil.defaultIfNull(model.getCoalesceCount(), 1)).sum();
+                queue.forEach(model -> super.delByKey(model.getId()));
+                queueModel.setCoalesceCount(coalesceCount + 1);
+                super.insert(queueModel);
+                msg = I18nMessageUtil.get("i18n.trigger_queue_coalesced.72e1") + coalesceCount;
+            } else {
+                Assert.state(depth < 1 || queue.size() < depth, StrUtil.format(I18nMessageUtil.get("i18n.trigger_queue_full.7c10"), depth));
+                queueModel.setCoalesceCount(1);
+                super.insert(queueModel);
+                msg = I18nMessageUtil.get("i18n.submit_task_queue_success.5f5b") + (queue.size() + 1);
+            }
+        }
+        return msg;
+    }
+
+    /**
+     * 查询构建的排队列表
+     *
+     * @param buildId 构建id
+     * @return list
+     */
+    public List<BuildTriggerQueueModel> listByBuild(String buildId) {
+        String sql = "select * from " + super.getTableName() + " where buildDataId=? order by createTimeMillis asc";
+        return super.queryList(sql, buildId);
+    }
+
+    /**
+     * 取消排队
+     *
+     * @param buildId 构建id
+     * @param queueId 队列id，为空取消构建下所有的排队
+     * @return 取消的数量
+     */
+    public int cancel(String buildId, String queueId) {
+        Entity entity = Entity.create();
+        entity.set("buildDataId", buildId);
+        if (StrUtil.isNotEmpty(queueId)) {
+            entity.set("id", queueId);
+        }
+        return super.del(entity);
+    }
+
+    /**
+     * 调度构建的下一次触发
+     *
+     * @param buildId 构建id
+     */
+    public void dispatch(String buildId) {
+        synchronized (buildId.intern()) {
+            BuildInfoModel item = buildInfoService.getByKey(buildId);
+            if (item == null) {
+                int count = this.cancel(buildId, null);
+                if (count > 0) {
+                    log.error(I18nMessageUtil.get("i18n.build_data_not_exist.0225"), buildId, count);
+                }
+                return;
+            }
+            String statusMsg = buildExecuteService.checkStatus(item);
+            if (statusMsg != null) {
+                log.debug(I18nMessageUtil.get("i18n.build_task_waiting.e303"), buildId, statusMsg);
+                return;
+            }
+            BuildTriggerQueueModel queueModel = CollUtil.getFirst(super.queryList(Entity.create().set("buildDataId", buildId), 1, new Order("createTimeMillis", Direction.ASC)));
+            if (queueModel == null) {
+                return;
+            }
+            if (super.delByKey(queueModel.getId()) <= 0) {
+                // 集群中其他服务端已经调度
+                return;
+            }
+            UserModel userModel = userService.getByKey(queueModel.getCreateUser());
+            if (userModel == null) {
+                log.error(I18nMessageUtil.get("i18n.trigger_queue_user_not_exist.cc3a"), buildId, queueModel.getCreateUser());
+                return;
+            }
+            try {
+                BaseServerController.resetInfo(userModel);
+                IJsonMessage<Integer> message = buildExecuteService.start(buildId, userModel, queueModel.getDelay(), 1, queueModel.getBuildRemark(), queueModel.parametersEnv());
+                log.info(I18nMessageUtil.get("i18n.build_trigger_queue_result.a1fe"), message);
+            } catch (Exception e) {
+                log.error(I18nMessageUtil.get("i18n.create_build_task_exception.06f1"), e);
+                int failCount = ObjectUtil.defaultIfNull(queueModel.getFailCount(), 0) + 1;
+                ScheduledExecutorService scheduler = JpomApplication.getScheduledExecutorService();
+                if (failCount >= MAX_START_FAIL) {
+                    // 持续启动失败（构建配置错误等）不再重试，避免一直占用队列头部，继续调度后面的触发
+                    log.error(I18nMessageUtil.get("i18n.trigger_queue_drop.a9b3"), buildId, queueModel.getId(), failCount, e.getMessage());
+                    scheduler.execute(() -> this.dispatch(buildId));
+                    return;
+                }
+                // 重新添加任务，没有正在执行的构建不会有结束事件，需要延迟重新调度
+                queueModel.setFailCount(failCount);
+                try {
+                    super.insert(queueModel);
+                } catch (Exception e1) {
+                    log.error(I18nMessageUtil.get("i18n.create_build_task_exception.06f1"), e1);
+                }
+                scheduler.schedule(() -> this.dispatch(buildId), (long) RETRY_DELAY << (failCount - 1), TimeUnit.SECONDS);
+            } finally {
+                BaseServerController.removeAll();
+            }
+        }
+    }
+}
@@ -9,23 +9,28 @@
  */
 package org.dromara.jpom.service.dblog;
 
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
 import cn.hutool.core.bean.BeanPath;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.date.DateTime;
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
 import cn.hutool.core.util.EnumUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.extra.servlet.ServletUtil;
 import cn.hutool.extra.spring.SpringUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.dromara.jpom.JpomApplication;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
-import org.dromara.jpom.common.i18n.I18nThreadUtil;
+import org.dromara.jpom.db.DbExtConfig;
 import org.dromara.jpom.model.PageResultDto;
 import org.dromara.jpom.model.data.MonitorModel;
 import org.dromara.jpom.model.data.MonitorUserOptModel;
 import org.dromara.jpom.model.data.WorkspaceModel;
 import org.dromara.jpom.model.log.UserOperateLogV1;
 import org.dromara.jpom.model.user.UserModel;
-import org.dromara.jpom.monitor.NotifyUtil;
+import org.dromara.jpom.monitor.NotifyDispatcher;
 import org.dromara.jpom.permission.ClassFeature;
 import org.dromara.jpom.permission.MethodFeature;
 import org.dromara.jpom.service.h2db.BaseDbService;
@@ -37,10 +42,11 @@ import org.dromara.jpom.system.init.OperateLogController;
 import org.springframework.stereotype.Service;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -56,17 +62,44 @@ public class DbUserOperateLogService extends BaseWorkspaceService<UserOperateLog
     private final MonitorUserOptService monitorUserOptService;
     private final UserService userService;
     private final WorkspaceService workspaceService;
+    private final DbExtConfig dbExtConfig;
     /**
      * 通用 bean 的名称字段 bean-path
      */
     private static final BeanPath[] NAME_BEAN_PATHS = new BeanPath[]{BeanPath.create("name"), BeanPath.create("title")};
+    /**
+     * 用户名缓存
+     */
+    private final LRUCache<String, String> userNameCache = CacheUtil.newLRUCache(1000, TimeUnit.MINUTES.toMillis(5));
+    /**
+     * 工作空间名缓存
+     */
+    private final LRUCache<String, String> workspaceNameCache = CacheUtil.newLRUCache(500, TimeUnit.MINUTES.toMillis(5));
+    /**
+     * 待写入的操作日志队列
+     */
+    private volatile LinkedBlockingQueue<PendingLog> pendingQueue;
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    /**
+     * 队列满，需要等待的次数
+     */
+    private final AtomicLong queueFullCount = new AtomicLong();
+    /**
+     * 等待超时后丢弃的条数
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
 
     public DbUserOperateLogService(MonitorUserOptService monitorUserOptService,
                                    UserService userService,
-                                   WorkspaceService workspaceService) {
+                                   WorkspaceService workspaceService,
+                                   DbExtConfig dbExtConfig) {
         this.monitorUserOptService = monitorUserOptService;
         this.userService = userService;
         this.workspaceService = workspaceService;
+        this.dbExtConfig = dbExtConfig;
     }
 
     /**
@@ -141,13 +174,13 @@ public class DbUserOperateLogService extends BaseWorkspaceService<UserOperateLog
         return null;
     }
 
-    private String buildContent(UserModel optUserItem, Map<String, Object> dataMap, WorkspaceModel workspaceModel, String optTypeMsg, UserOperateLogV1 userOperateLogV1) {
+    private String buildContent(String optUserName, Map<String, Object> dataMap, String workspaceName, String optTypeMsg, UserOperateLogV1 userOperateLogV1) {
         Map<String, Object> map = new LinkedHashMap<>(10);
-        map.put(I18nMessageUtil.get("i18n.operation_user.4c89"), optUserItem.getName());
+        map.put(I18nMessageUtil.get("i18n.operation_user.4c89"), optUserName);
         map.put(I18nMessageUtil.get("i18n.operation_status_code.8231"), userOperateLogV1.getOptStatus());
         map.put(I18nMessageUtil.get("i18n.operation_type.de9c"), optTypeMsg);
-        if (workspaceModel != null) {
-            map.put(I18nMessageUtil.get("i18n.associated_workspace.885b"), workspaceModel.getName());
+        if (workspaceName != null) {
+            map.put(I18nMessageUtil.get("i18n.associated_workspace.885b"), workspaceName);
         }
         map.put(I18nMessageUtil.get("i18n.operation_ip.cbd4"), userOperateLogV1.getIp());
         map.put(I18nMessageUtil.get("i18n.operation_time.7e95"), DateTime.now().toString());
@@ -168,27 +201,28 @@ public class DbUserOperateLogService extends BaseWorkspaceService<UserOperateLog
      *
      * @param userOperateLogV1 操作信息
      * @param cacheInfo        操作缓存相关
+     * @param enableMonitors   当前批次已开启的监控
      * @return 解析后的相关数据
      */
-    private Map<String, Object> checkMonitor(UserOperateLogV1 userOperateLogV1, OperateLogController.CacheInfo cacheInfo) {
+    private Map<String, Object> checkMonitor(UserOperateLogV1 userOperateLogV1, OperateLogController.CacheInfo cacheInfo, List<MonitorUserOptModel> enableMonitors) {
         ClassFeature classFeature = EnumUtil.fromString(ClassFeature.class, userOperateLogV1.getClassFeature(), null);
         MethodFeature methodFeature = EnumUtil.fromString(MethodFeature.class, userOperateLogV1.getMethodFeature(), null);
-        UserModel optUserItem = userService.getByKey(userOperateLogV1.getUserId());
-        if (classFeature == null || methodFeature == null || optUserItem == null) {
+        String optUserName = userOperateLogV1.getUsername();
+        if (classFeature == null || methodFeature == null || optUserName == null) {
             return null;
         }
         Map<String, Object> dataMap = this.buildDataMsg(classFeature, cacheInfo, userOperateLogV1);
-        WorkspaceModel workspaceModel = workspaceService.getByKey(userOperateLogV1.getWorkspaceId());
 
-        String optTypeMsg = StrUtil.format(" 【{}】->【{}】", I18nMessageUtil.get(classFeature.getName().get()), I18nMessageUtil.get(methodFeature.getName().get()));
-        List<MonitorUserOptModel> monitorUserOptModels = monitorUserOptService.listByType(userOperateLogV1.getWorkspaceId(),
+        List<MonitorUserOptModel> monitorUserOptModels = monitorUserOptService.filterByType(enableMonitors,
+            userOperateLogV1.getWorkspaceId(),
             classFeature,
             methodFeature,
             userOperateLogV1.getUserId());
         if (CollUtil.isEmpty(monitorUserOptModels)) {
             return dataMap;
         }
-        String context = this.buildContent(optUserItem, dataMap, workspaceModel, optTypeMsg, userOperateLogV1);
+        String optTypeMsg = StrUtil.format(" 【{}】->【{}】", I18nMessageUtil.get(classFeature.getName().get()), I18nMessageUtil.get(methodFeature.getName().get()));
+        String context = this.buildContent(optUserName, dataMap, userOperateLogV1.getWorkspaceName(), optTypeMsg, userOperateLogV1);
         for (MonitorUserOptModel monitorUserOptModel : monitorUserOptModels) {
             List<String> notifyUser = monitorUserOptModel.notifyUser();
             if (CollUtil.isEmpty(notifyUser)) {
@@ -203,38 +237,20 @@ public class DbUserOperateLogService extends BaseWorkspaceService<UserOperateLog
                 String email = item.getEmail();
                 if (StrUtil.isNotEmpty(email)) {
                     MonitorModel.Notify notify1 = new MonitorModel.Notify(MonitorModel.NotifyType.mail, email);
-                    I18nThreadUtil.execute(() -> {
-                        try {
-                            NotifyUtil.send(notify1, I18nMessageUtil.get("i18n.user_operation_alarm.15b9"), context);
-                        } catch (Exception e) {
-                            log.error(I18nMessageUtil.get("i18n.send_alert_error.cd38"), e);
-                        }
-                    });
+                    NotifyDispatcher.getInstance().send(notify1, I18nMessageUtil.get("i18n.user_operation_alarm.15b9"), context, null, null);
 
                 }
                 // dingding
                 String dingDing = item.getDingDing();
                 if (StrUtil.isNotEmpty(dingDing)) {
                     MonitorModel.Notify notify1 = new MonitorModel.Notify(MonitorModel.NotifyType.dingding, dingDing);
-                    I18nThreadUtil.execute(() -> {
-                        try {
-                            NotifyUtil.send(notify1, I18nMessageUtil.get("i18n.user_operation_alarm.15b9"), context);
-                        } catch (Exception e) {
-                            log.error(I18nMessageUtil.get("i18n.send_alert_error.cd38"), e);
-                        }
-                    });
+                    NotifyDispatcher.getInstance().send(notify1, I18nMessageUtil.get("i18n.user_operation_alarm.15b9"), context, null, null);
                 }
                 // 企业微信
                 String workWx = item.getWorkWx();
                 if (StrUtil.isNotEmpty(workWx)) {
                     MonitorModel.Notify notify1 = new MonitorModel.Notify(MonitorModel.NotifyType.workWx, workWx);
-                    I18nThreadUtil.execute(() -> {
-                        try {
-                            NotifyUtil.send(notify1, I18nMessageUtil.get("i18n.user_operation_alarm.15b9"), context);
-                        } catch (Exception e) {
-                            log.error(I18nMessageUtil.get("i18n.send_alert_error.cd38"), e);
-                        }
-                    });
+                    NotifyDispatcher.getInstance().send(notify1, I18nMessageUtil.get("i18n.user_operation_alarm.15b9"), context, null, null);
                 }
             }
         }
@@ -242,40 +258,163 @@ public class DbUserOperateLogService extends BaseWorkspaceService<UserOperateLog
     }
 
     /**
-     * 插入操作日志
+     * 插入操作日志，放入队列由单独的线程批量写入
      *
      * @param userOperateLogV1 日志信息
      * @param cacheInfo        当前操作相关信息
      */
     public void insert(UserOperateLogV1 userOperateLogV1, OperateLogController.CacheInfo cacheInfo) {
-        super.insert(userOperateLogV1);
-        I18nThreadUtil.execute(() -> {
-            // 更新用户名和工作空间名
+        // 在当前线程填充操作人等信息
+        this.fillInsert(userOperateLogV1);
+        LinkedBlockingQueue<PendingLog> queue = this.getPendingQueue();
+        PendingLog pendingLog = new PendingLog(userOperateLogV1, cacheInfo);
+        if (!queue.offer(pendingLog)) {
+            queueFullCount.incrementAndGet();
+            boolean offer;
+            try {
+                offer = queue.offer(pendingLog, Math.max(dbExtConfig.getOperateLogOfferTimeout(), 0), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                offer = false;
+            }
+            if (!offer) {
+                droppedCount.incrementAndGet();
+                log.warn(I18nMessageUtil.get("i18n.operation_log_queue_full.dd7d"), userOperateLogV1.getReqData());
+                return;
+            }
+        }
+        acceptedCount.incrementAndGet();
+    }
+
+    private LinkedBlockingQueue<PendingLog> getPendingQueue() {
+        if (pendingQueue == null) {
+            synchronized (this) {
+                if (pendingQueue == null) {
+                    LinkedBlockingQueue<PendingLog> queue = new LinkedBlockingQueue<>(Math.max(dbExtConfig.getOperateLogQueueSize(), 1));
+                    ExecutorService executorService = ExecutorBuilder.create()
+                        .setCorePoolSize(1)
+                        .setMaxPoolSize(1)
+                        .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("jpom-operate-log-").setDaemon(true).build())
+                        .build();
+                    executorService.execute(() -> this.writeLoop(queue));
+                    JpomApplication.register("operate-log", executorService);
+                    this.pendingQueue = queue;
+                }
+            }
+        }
+        return pendingQueue;
+    }
+
+    /**
+     * 单线程循环写入操作日志
+     *
+     * @param queue 队列
+     */
+    private void writeLoop(LinkedBlockingQueue<PendingLog> queue) {
+        int batchSize = Math.max(dbExtConfig.getOperateLogBatchSize(), 1);
+        List<PendingLog> batch = new ArrayList<>(batchSize);
+        while (true) {
             try {
-                UserOperateLogV1 update = new UserOperateLogV1();
-                update.setId(userOperateLogV1.getId());
-                UserModel userModel = userService.getByKey(userOperateLogV1.getUserId());
-                Optional.ofNullable(userModel).ifPresent(userModel1 -> update.setUsername(userModel1.getName()));
-                WorkspaceModel workspaceModel = workspaceService.getByKey(userOperateLogV1.getWorkspaceId());
-                Optional.ofNullable(workspaceModel).ifPresent(workspaceModel1 -> update.setWorkspaceName(workspaceModel1.getName()));
-                this.updateById(update);
+                PendingLog first = queue.poll(5, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                this.writeBatch(batch);
+            } catch (InterruptedException e) {
+                // 程序关闭，写入剩余的日志
+                queue.drainTo(batch);
+                this.writeBatch(batch);
+                return;
+            } catch (Exception e) {
+                log.error(I18nMessageUtil.get("i18n.batch_write_operation_log_failed.3c2e"), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 填充用户名、工作空间名，检查操作监控后批量写入
+     *
+     * @param batch 待写入的日志
+     */
+    private void writeBatch(List<PendingLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<MonitorUserOptModel> enableMonitors = null;
+        try {
+            enableMonitors = monitorUserOptService.listEnable();
+        } catch (Exception e) {
+            log.error(I18nMessageUtil.get("i18n.operation_monitoring_error.8036"), e);
+        }
+        List<UserOperateLogV1> list = new ArrayList<>(batch.size());
+        for (PendingLog pendingLog : batch) {
+            UserOperateLogV1 userOperateLogV1 = pendingLog.userOperateLogV1;
+            try {
+                userOperateLogV1.setUsername(this.getUserName(userOperateLogV1.getUserId()));
+                userOperateLogV1.setWorkspaceName(this.getWorkspaceName(userOperateLogV1.getWorkspaceId()));
             } catch (Exception e) {
                 log.error(I18nMessageUtil.get("i18n.update_operation_log_failed.d348"), e);
             }
             // 检查操作监控
             try {
-                Map<String, Object> monitor = this.checkMonitor(userOperateLogV1, cacheInfo);
+                Map<String, Object> monitor = this.checkMonitor(userOperateLogV1, pendingLog.cacheInfo, enableMonitors);
                 if (monitor != null) {
                     String dataName = Optional.ofNullable(monitor.get(I18nMessageUtil.get("i18n.data_name_label.5a14"))).map(StrUtil::toStringOrNull).orElse(StrUtil.DASHED);
-                    UserOperateLogV1 userOperateLogV11 = new UserOperateLogV1();
-                    userOperateLogV11.setDataName(dataName);
-                    userOperateLogV11.setId(userOperateLogV1.getId());
-                    super.updateById(userOperateLogV11);
+                    userOperateLogV1.setDataName(dataName);
                 }
             } catch (Exception e) {
                 log.error(I18nMessageUtil.get("i18n.operation_monitoring_error.8036"), e);
             }
-        });
+            list.add(userOperateLogV1);
+        }
+        try {
+            // 已经在请求线程中填充，写入线程中没有用户信息不能再次填充
+            this.insertBatchFilled(list);
+            writtenCount.addAndGet(list.size());
+        } catch (Exception e) {
+            failedCount.addAndGet(list.size());
+            log.error(I18nMessageUtil.get("i18n.batch_write_operation_log_failed.3c2e"), e);
+        }
+        batchCount.incrementAndGet();
+    }
+
+    private String getUserName(String userId) {
+        if (StrUtil.isEmpty(userId)) {
+            return null;
+        }
+        return userNameCache.get(userId, () -> Optional.ofNullable(userService.getByKey(userId)).map(UserModel::getName).orElse(null));
+    }
+
+    private String getWorkspaceName(String workspaceId) {
+        if (StrUtil.isEmpty(workspaceId)) {
+            return null;
+        }
+        return workspaceNameCache.get(workspaceId, () -> Optional.ofNullable(workspaceService.getByKey(workspaceId)).map(WorkspaceModel::getName).orElse(null));
+    }
+
+    /**
+     * 操作日志队列状态
+     *
+     * @return map
+     */
+    public Map<String, Object> queueStat() {
+        Map<String, Object> map = new LinkedHashMap<>(10);
+        LinkedBlockingQueue<PendingLog> queue = this.pendingQueue;
+        map.put("queueSize", queue == null ? 0 : queue.size());
+        map.put("queueCapacity", dbExtConfig.getOperateLogQueueSize());
+        map.put("acceptedCount", acceptedCount.get());
+        map.put("writtenCount", writtenCount.get());
+        map.put("failedCount", failedCount.get());
+        map.put("batchCount", batchCount.get());
+        map.put("queueFullCount", queueFullCount.get());
+        map.put("droppedCount", droppedCount.get());
+        map.put("userNameCacheSize", userNameCache.size());
+        map.put("workspaceNameCacheSize", workspaceNameCache.size());
+        return map;
     }
 
     @Override
@@ -304,4 +443,17 @@ public class DbUserOperateLogService extends BaseWorkspaceService<UserOperateLog
     protected String[] clearTimeColumns() {
         return new String[]{"optTime", "createTimeMillis"};
     }
+
+    /**
+     * 待写入的操作日志
+     */
+    private static class PendingLog {
+        private final UserOperateLogV1 userOperateLogV1;
+        private final OperateLogController.CacheInfo cacheInfo;
+
+        private PendingLog(UserOperateLogV1 userOperateLogV1, OperateLogController.CacheInfo cacheInfo) {
+            this.userOperateLogV1 = userOperateLogV1;
+            this.cacheInfo = cacheInfo;
+        }
+    }
 }
@@ -73,6 +73,10 @@ public abstract class BaseDbService<T extends BaseDbModel> extends BaseDbCommonS
         new Order("modifyTimeMillis", Direction.DESC),
         new Order("id", Direction.DESC)
     };
+    /**
+     * 修改数据时不更新的字段
+     */
+    private static final List<String> UPDATE_IGNORE_COLUMNS = Arrays.asList(ID_STR, "createTimeMillis", "createUser");
 
     public BaseDbService() {
         super();
@@ -168,6 +172,69 @@ public abstract class BaseDbService<T extends BaseDbModel> extends BaseDbCommonS
         this.executeClear();
     }
 
+    /**
+     * 批量插入，单事务 JDBC batch 提交
+     *
+     * @param t 数据
+     */
+    public void insertBatch(Collection<T> t) {
+        if (CollUtil.isEmpty(t)) {
+            return;
+        }
+        t.forEach(this::fillInsert);
+        this.insertBatchFilled(t);
+    }
+
+    /**
+     * 批量插入已经调用过 fillInsert 的数据
+     * <p>
+     * fillInsert 依赖当前线程的用户信息，异步线程中写入的数据需要在请求线程中提前填充
+     *
+     * @param t 数据
+     */
+    protected void insertBatchFilled(Collection<T> t) {
+        if (CollUtil.isEmpty(t)) {
+            return;
+        }
+        super.insertBatchDb(t);
+        this.executeClear();
+    }
+
+    /**
+     * 批量 upsert，单事务 JDBC batch 提交
+     *
+     * @param t 数据
+     * @see #upsertBatch(Collection, Collection)
+     */
+    public void upsertBatch(Collection<T> t) {
+        this.upsertBatch(t, null);
+    }
+
+    /**
+     * 批量 upsert 并删除过期数据，在一个事务中执行
+     * <p>
+     * 和 {@link #upsert(BaseDbModel)} 一致：更新时不修改 id、createTimeMillis、createUser，值为 null 的字段保留原值
+     *
+     * @param t        数据
+     * @param staleIds 需要删除的数据主键
+     * @return 删除的数据条数
+     */
+    public int upsertBatch(Collection<T> t, Collection<String> staleIds) {
+        if (CollUtil.isEmpty(t) && CollUtil.isEmpty(staleIds)) {
+            return 0;
+        }
+        if (t != null) {
+            long now = SystemClock.now();
+            for (T item : t) {
+                this.fillInsert(item);
+                item.setModifyTimeMillis(ObjectUtil.defaultIfNull(item.getModifyTimeMillis(), now));
+            }
+        }
+        int count = super.upsertBatchDb(t, UPDATE_IGNORE_COLUMNS, staleIds);
+        this.executeClear();
+        return count;
+    }
+
     /**
      * 插入数据填充
      *
@@ -225,7 +292,7 @@ public abstract class BaseDbService<T extends BaseDbModel> extends BaseDbCommonS
     }
 
     private void removeUpdate(Entity entity) {
-        for (String s : new String[]{ID_STR, "createTimeMillis", "createUser"}) {
+        for (String s : UPDATE_IGNORE_COLUMNS) {
             entity.remove(DialectUtil.wrapField(s));
             entity.remove(s);
         }
@@ -388,8 +455,7 @@ public abstract class BaseDbService<T extends BaseDbModel> extends BaseDbCommonS
      * @return data
      */
     public List<T> listByEntity(Entity where) {
-        List<Entity> entity = this.queryList(where);
-        return this.entityToBeanList(entity);
+        return super.queryBeanList(where, true);
     }
 
     /**
@@ -400,8 +466,7 @@ public abstract class BaseDbService<T extends BaseDbModel> extends BaseDbCommonS
      * @return data
      */
     public List<T> listByEntity(Entity where, boolean fill) {
-        List<Entity> entity = this.queryList(where);
-        return this.entityToBeanList(entity, fill);
+        return super.queryBeanList(where, fill);
     }
 
     /**
@@ -464,8 +529,7 @@ public abstract class BaseDbService<T extends BaseDbModel> extends BaseDbCommonS
      * @return list
      */
     public List<T> queryList(String sql, Object... params) {
-        List<Entity> query = this.query(sql, params);
-        return this.entityToBeanList(query);
+        return super.queryBeanList(sql, true, params);
     }
 
     /**
@@ -486,8 +550,7 @@ public abstract class BaseDbService<T extends BaseDbModel> extends BaseDbCommonS
      */
     public List<T> listByBean(T data, boolean fill) {
         Entity where = this.dataBeanToEntity(data);
-        List<Entity> entitys = this.queryList(where);
-        return this.entityToBeanList(entitys, fill);
+        return super.queryBeanList(where, fill);
     }
 
     /**
@@ -706,8 +769,7 @@ public abstract class BaseDbService<T extends BaseDbModel> extends BaseDbCommonS
         if (consumer != null) {
             consumer.accept(entity);
         }
-        List<Entity> entities = super.queryList(entity);
-        return this.entityToBeanList(entities, fill);
+        return super.queryBeanList(entity, fill);
     }
 
     /**
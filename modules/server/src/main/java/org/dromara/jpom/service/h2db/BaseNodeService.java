@@ -215,6 +215,9 @@ public abstract class BaseNodeService<T extends BaseNodeModel> extends BaseGloba
             Set<String> cacheIds = cacheAll.stream()
                 .map(BaseNodeModel::dataId)
                 .collect(Collectors.toSet());
+            // 节点所属的工作空间只查询一次
+            WorkspaceModel workspaceModel = workspaceService.getByKey(nodeModel.getWorkspaceId());
+            String workspaceName = Optional.ofNullable(workspaceModel).map(WorkspaceModel::getName).orElse(I18nMessageUtil.get("i18n.data_does_not_exist.b201"));
             // 转换数据修改时间
             List<T> projectInfoModels = jsonArray.stream()
                 .map(o -> {
@@ -250,20 +253,12 @@ public abstract class BaseNodeService<T extends BaseNodeModel> extends BaseGloba
                     if (StrUtil.equals(item.getWorkspaceId(), ServerConst.WORKSPACE_GLOBAL)) {
                         return true;
                     }
-                    // 检查对应的工作空间 是否存在
-                    return workspaceService.exists(new WorkspaceModel(item.getWorkspaceId()));
-                })
-                .filter(item -> {
-                    if (StrUtil.equals(item.getWorkspaceId(), ServerConst.WORKSPACE_GLOBAL)) {
-                        return true;
-                    }
-                    // 避免重复同步
-                    return StrUtil.equals(nodeModel.getWorkspaceId(), item.getWorkspaceId());
+                    // 避免重复同步，并且检查对应的工作空间 是否存在
+                    return workspaceModel != null && StrUtil.equals(nodeModel.getWorkspaceId(), item.getWorkspaceId());
                 })
                 .peek(item -> {
                     item.setNodeName(nodeModel.getName());
-                    WorkspaceModel workspaceModel = workspaceService.getByKey(nodeModel.getWorkspaceId());
-                    item.setWorkspaceName(Optional.ofNullable(workspaceModel).map(WorkspaceModel::getName).orElse(I18nMessageUtil.get("i18n.data_does_not_exist.b201")));
+                    item.setWorkspaceName(workspaceName);
                     cacheIds.remove(item.dataId());
                     // 需要删除相反的工作空间的数据（避免出现一个脚本同步出2条数据的问题）
                     if (StrUtil.equals(item.getWorkspaceId(), ServerConst.WORKSPACE_GLOBAL)) {
@@ -275,10 +270,7 @@ public abstract class BaseNodeService<T extends BaseNodeModel> extends BaseGloba
                 .collect(Collectors.toList());
             // 设置 临时缓存，便于放行检查
             BaseServerController.resetInfo(UserModel.EMPTY);
-            //
-            projectInfoModels.forEach(BaseNodeService.super::upsert);
             // 删除项目
-            int delCount = 0;
             Set<String> strings = cacheIds.stream()
                 .flatMap((Function<String, Stream<String>>) s -> Stream.of(
                     BaseNodeModel.fullId(nodeModel.getWorkspaceId(), nodeModel.getId(), s),
@@ -286,9 +278,8 @@ public abstract class BaseNodeService<T extends BaseNodeModel> extends BaseGloba
                 .collect(Collectors.toSet());
             //
             needDelete.addAll(strings);
-            if (CollUtil.isNotEmpty(needDelete)) {
-                delCount = super.delByKey(needDelete, null);
-            }
+            // 批量 upsert 和删除在一个事务中执行
+            int delCount = super.upsertBatch(projectInfoModels, needDelete);
             int size = CollUtil.size(projectInfoModels);
             String template = I18nMessageUtil.get("i18n.physical_node_pull.874e");
             String format = StrUtil.format(
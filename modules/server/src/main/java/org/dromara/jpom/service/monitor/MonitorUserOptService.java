@@ -44,10 +44,38 @@ public class MonitorUserOptService extends BaseWorkspaceService<MonitorUserOptMo
         }
         where.setStatus(true);
         List<MonitorUserOptModel> list = super.listByBean(where);
+        return this.filterByType(list, null, classFeature, methodFeature, userId);
+    }
+
+    /**
+     * 查询所有开启的监控，用于批量匹配
+     *
+     * @return list
+     */
+    public List<MonitorUserOptModel> listEnable() {
+        MonitorUserOptModel where = new MonitorUserOptModel();
+        where.setStatus(true);
+        return super.listByBean(where);
+    }
+
+    /**
+     * 筛选对应操作的监控信息
+     *
+     * @param list          已经开启的监控
+     * @param workspaceId   工作空间ID，为空不筛选
+     * @param classFeature  功能
+     * @param methodFeature 操作
+     * @param userId        操作人
+     * @return list
+     */
+    public List<MonitorUserOptModel> filterByType(List<MonitorUserOptModel> list, String workspaceId, ClassFeature classFeature, MethodFeature methodFeature, String userId) {
         if (CollUtil.isEmpty(list)) {
             return null;
         }
         return list.stream().filter(monitorUserOptModel -> {
+            if (StrUtil.isNotEmpty(workspaceId) && !StrUtil.equals(workspaceId, monitorUserOptModel.getWorkspaceId())) {
+                return false;
+            }
             List<ClassFeature> classFeatures = monitorUserOptModel.monitorFeature();
             List<MethodFeature> methodFeatures = monitorUserOptModel.monitorOpt();
             boolean b = CollUtil.contains(classFeatures, classFeature) && CollUtil.contains(methodFeatures, methodFeature);
@@ -0,0 +1,496 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.service.node;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.date.SystemClock;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.lang.Tuple;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.keepbx.jpom.Type;
+import cn.keepbx.jpom.model.JsonMessage;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.jpom.common.ILoadEvent;
+import org.dromara.jpom.common.JpomManifest;
+import org.dromara.jpom.common.forward.NodeForward;
+import org.dromara.jpom.common.forward.NodeUrl;
+import org.dromara.jpom.common.i18n.I18nMessageUtil;
+import org.dromara.jpom.common.i18n.I18nThreadUtil;
+import org.dromara.jpom.func.assets.model.MachineNodeModel;
+import org.dromara.jpom.func.assets.server.MachineNodeServer;
+import org.dromara.jpom.model.AgentFileModel;
+import org.dromara.jpom.model.UploadFileModel;
+import org.dromara.jpom.model.WebSocketMessageModel;
+import org.dromara.jpom.model.data.AgentUpgradeTaskModel;
+import org.dromara.jpom.service.system.SystemParametersServer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 插件端滚动升级
+ * <p>
+ * 节点按批次升级，每一批全部通过健康检查（插件端版本一致、原来运行中的项目恢复运行）后等待一段时间再升级下一批。
+ * 失败比例达到阈值自动暂停，升级进度保存在系统参数中，关闭浏览器不影响升级，服务端重启后任务为暂停状态可以继续执行
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@Service
+@Slf4j
+public class AgentUpgradeTaskService implements ILoadEvent {
+
+    /**
+     * 上传完成后等待插件端重启的时间
+     */
+    private static final int INIT_WAIT = 10 * 1000;
+
+    private final SystemParametersServer systemParametersServer;
+    private final MachineNodeServer machineNodeServer;
+    /**
+     * 升级进度监听
+     */
+    private final Set<Consumer<WebSocketMessageModel>> listeners = ConcurrentHashMap.newKeySet();
+
+    private volatile AgentUpgradeTaskModel task;
+    /**
+     * 升级线程是否在执行
+     */
+    private volatile boolean executing;
+
+    public AgentUpgradeTaskService(SystemParametersServer systemParametersServer,
+                                   MachineNodeServer machineNodeServer) {
+        this.systemParametersServer = systemParametersServer;
+        this.machineNodeServer = machineNodeServer;
+    }
+
+    @Override
+    public void afterPropertiesSet(ApplicationContext applicationContext) throws Exception {
+        AgentUpgradeTaskModel model = systemParametersServer.getConfig(AgentUpgradeTaskModel.ID, AgentUpgradeTaskModel.class);
+        if (model == null) {
+            return;
+        }
+        if (model.running()) {
+            // 上一次没有执行完成，需要人工确认后继续
+            model.setStatus(AgentUpgradeTaskModel.Status.PAUSED);
+            model.setStatusMsg(I18nMessageUtil.get("i18n.upgrade_task_paused_restart.a15d"));
+        }
+        for (AgentUpgradeTaskModel.NodeItem item : model.getNodes().values()) {
+            if (item.getStatus() == AgentUpgradeTaskModel.NodeStatus.UPGRADING) {
+                item.setStatus(AgentUpgradeTaskModel.NodeStatus.WAIT);
+                item.setStartTime(null);
+            }
+        }
+        this.task = model;
+        this.save();
+    }
+
+    public void addListener(Consumer<WebSocketMessageModel> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<WebSocketMessageModel> listener) {
+        listeners.remove(listener);
+    }
+
+    public AgentUpgradeTaskModel getTask() {
+        return task;
+    }
+
+    /**
+     * 创建升级任务并开始执行
+     *
+     * @param ids    节点id
+     * @param params 升级参数
+     * @param userId 操作人
+     * @return 任务
+     */
+    public synchronized AgentUpgradeTaskModel start(List<String> ids, JSONObject params, String userId) {
+        Assert.state(task == null || !task.running(), I18nMessageUtil.get("i18n.upgrade_task_running.93e9"));
+        AgentFileModel agentFileModel = systemParametersServer.getConfig(AgentFileModel.ID, AgentFileModel.class);
+        Assert.state(agentFileModel != null && FileUtil.exist(agentFileModel.getSavePath()), I18nMessageUtil.get("i18n.agent_jar_not_exist.28ac"));
+        JsonMessage<Tuple> error = JpomManifest.checkJpomJar(agentFileModel.getSavePath(), Type.Agent, false);
+        Assert.state(error.success(), I18nMessageUtil.get("i18n.agent_jar_damaged.74a8") + error.getMsg());
+        List<MachineNodeModel> nodeModels = machineNodeServer.listById(ids);
+        Assert.notEmpty(nodeModels, I18nMessageUtil.get("i18n.upgrade_task_empty_nodes.e533"));
+        //
+        AgentUpgradeTaskModel model = new AgentUpgradeTaskModel();
+        Optional.ofNullable(params.getInteger("waveSize")).ifPresent(integer -> model.setWaveSize(Math.max(integer, 1)));
+        Optional.ofNullable(params.getInteger("waveInterval")).ifPresent(integer -> model.setWaveInterval(Math.max(integer, 0)));
+        Optional.ofNullable(params.getInteger("failureRate")).ifPresent(model::setFailureRate);
+        Optional.ofNullable(params.getBoolean("skipCurrent")).ifPresent(model::setSkipCurrent);
+        Optional.ofNullable(params.getInteger("healthTimeout")).ifPresent(integer -> model.setHealthTimeout(Math.max(integer, 10)));
+        model.setVersion(agentFileModel.getVersion());
+        model.setTimeStamp(agentFileModel.getTimeStamp());
+        model.setJarDigest(SecureUtil.sha1(FileUtil.file(agentFileModel.getSavePath())));
+        model.setUserId(userId);
+        model.setCreateTime(SystemClock.now());
+        // 按照选择的顺序升级
+        Map<String, MachineNodeModel> nodeModelMap = nodeModels.stream().collect(Collectors.toMap(MachineNodeModel::getId, nodeModel -> nodeModel));
+        for (String id : ids) {
+            MachineNodeModel nodeModel = nodeModelMap.get(id);
+            if (nodeModel == null || model.getNodes().containsKey(id)) {
+                continue;
+            }
+            AgentUpgradeTaskModel.NodeItem item = new AgentUpgradeTaskModel.NodeItem();
+            item.setId(id);
+            item.setName(nodeModel.getName());
+            item.setStatus(AgentUpgradeTaskModel.NodeStatus.WAIT);
+            model.getNodeIds().add(id);
+            model.getNodes().put(id, item);
+        }
+        model.setStatus(AgentUpgradeTaskModel.Status.RUNNING);
+        this.task = model;
+        this.save();
+        this.execute();
+        return model;
+    }
+
+    /**
+     * 暂停，当前批次会执行完成
+     */
+    public synchronized void pause() {
+        Assert.notNull(task, I18nMessageUtil.get("i18n.upgrade_task_not_found.cd80"));
+        if (task.running()) {
+            this.changeStatus(AgentUpgradeTaskModel.Status.PAUSED, null);
+        }
+    }
+
+    /**
+     * 继续执行
+     */
+    public synchronized void resume() {
+        Assert.notNull(task, I18nMessageUtil.get("i18n.upgrade_task_not_found.cd80"));
+        Assert.state(task.getStatus() == AgentUpgradeTaskModel.Status.PAUSED, I18nMessageUtil.get("i18n.upgrade_task_cannot_resume.0223"));
+        this.changeStatus(AgentUpgradeTaskModel.Status.RUNNING, null);
+        this.execute();
+    }
+
+    /**
+     * 取消，当前批次会执行完成
+     */
+    public synchronized void cancel() {
+        Assert.notNull(task, I18nMessageUtil.get("i18n.upgrade_task_not_found.cd80"));
+        if (task.getStatus() == AgentUpgradeTaskModel.Status.RUNNING || task.getStatus() == AgentUpgradeTaskModel.Status.PAUSED) {
+            this.changeStatus(AgentUpgradeTaskModel.Status.CANCELED, null);
+        }
+    }
+
+    private void execute() {
+        if (executing) {
+            // 暂停后立即继续，之前的线程还在等待当前批次完成
+            return;
+        }
+        executing = true;
+        I18nThreadUtil.execute(() -> {
+            try {
+                this.run();
+            } catch (Exception e) {
+                log.error(I18nMessageUtil.get("i18n.upgrade_failure.4ae2"), e);
+                synchronized (this) {
+                    this.changeStatus(AgentUpgradeTaskModel.Status.PAUSED, e.getMessage());
+                }
+            } finally {
+                synchronized (this) {
+                    executing = false;
+                    if (task.running()) {
+                        // 执行期间暂停后又继续或者创建了新的任务
+                        this.execute();
+                    }
+                }
+            }
+        });
+    }
+
+    private void run() {
+        AgentFileModel agentFileModel = systemParametersServer.getConfig(AgentFileModel.ID, AgentFileModel.class);
+        Assert.state(agentFileModel != null && FileUtil.exist(agentFileModel.getSavePath()), I18nMessageUtil.get("i18n.agent_jar_not_exist.28ac"));
+        File agentFile = FileUtil.file(agentFileModel.getSavePath());
+        while (true) {
+            AgentUpgradeTaskModel model = this.task;
+            List<AgentUpgradeTaskModel.NodeItem> wave;
+            synchronized (this) {
+                if (!model.running()) {
+                    return;
+                }
+                wave = model.getNodeIds().stream()
+                    .map(id -> model.getNodes().get(id))
+                    .filter(item -> item.getStatus() == AgentUpgradeTaskModel.NodeStatus.WAIT)
+                    .limit(model.getWaveSize())
+                    .collect(Collectors.toList());
+                if (wave.isEmpty()) {
+                    this.changeStatus(AgentUpgradeTaskModel.Status.DONE, this.summary(model));
+                    log.info(model.getStatusMsg());
+                    return;
+                }
+                model.setWave(model.getWave() + 1);
+                for (AgentUpgradeTaskModel.NodeItem item : wave) {
+                    item.setWave(model.getWave());
+                }
+                this.save();
+            }
+            log.info(I18nMessageUtil.get("i18n.upgrade_task_wave_start.1465"), model.getWave(),
+                wave.stream().map(AgentUpgradeTaskModel.NodeItem::getName).collect(Collectors.joining(StrUtil.COMMA)));
+            List<Future<?>> futures = wave.stream()
+                .map(item -> I18nThreadUtil.execAsync(() -> this.upgradeNode(model, item, agentFile)))
+                .collect(Collectors.toList());
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    log.error(I18nMessageUtil.get("i18n.upgrade_failure.4ae2"), e.getCause());
+                }
+            }
+            synchronized (this) {
+                if (!model.running()) {
+                    return;
+                }
+                // 失败比例
+                int failureRate = model.getFailureRate();
+                if (failureRate > 0) {
+                    long failed = this.count(model, AgentUpgradeTaskModel.NodeStatus.FAILED);
+                    long finished = failed + this.count(model, AgentUpgradeTaskModel.NodeStatus.SUCCESS);
+                    int rate = finished == 0 ? 0 : (int) (failed * 100 / finished);
+                    if (failed > 0 && rate >= failureRate) {
+                        String msg = StrUtil.format(I18nMessageUtil.get("i18n.upgrade_task_paused_failure_rate.167d"), rate, failureRate);
+                        log.warn(msg);
+                        this.changeStatus(AgentUpgradeTaskModel.Status.PAUSED, msg);
+                        return;
+                    }
+                }
+            }
+            // 等待下一批
+            long waitEnd = SystemClock.now() + model.getWaveInterval() * 1000L;
+            while (model.running() && SystemClock.now() < waitEnd) {
+                ThreadUtil.sleep(Math.min(1000L, waitEnd - SystemClock.now()));
+            }
+        }
+    }
+
+    private void upgradeNode(AgentUpgradeTaskModel model, AgentUpgradeTaskModel.NodeItem item, File agentFile) {
+        String id = item.getId();
+        this.updateNode(item, AgentUpgradeTaskModel.NodeStatus.UPGRADING, null);
+        MachineNodeModel machineNodeModel = machineNodeServer.getByKey(id);
+        if (machineNodeModel == null) {
+            this.updateNode(item, AgentUpgradeTaskModel.NodeStatus.FAILED, I18nMessageUtil.get("i18n.no_node_specified.fa3d") + id);
+            return;
+        }
+        try {
+            if (model.isSkipCurrent()) {
+                JSONObject info = this.info(machineNodeModel);
+                if (this.isCurrent(model, info, true)) {
+                    this.updateNode(item, AgentUpgradeTaskModel.NodeStatus.SKIP, I18nMessageUtil.get("i18n.upgrade_task_skip_current.769f"));
+                    return;
+                }
+            }
+            // 记录升级前运行中的项目
+            List<String> runningProjects = this.runningProjects(machineNodeModel);
+            int ratio = 10;
+            Set<Integer> progressRangeList = new HashSet<>();
+            JsonMessage<String> message = NodeForward.requestSharding(machineNodeModel, NodeUrl.SystemUploadJar, new JSONObject(),
+                agentFile,
+                jsonObject -> NodeForward.request(machineNodeModel, NodeUrl.SystemUploadJarMerge, jsonObject),
+                (total, progressSize) -> {
+                    int progressRange = (int) Math.floor(((float) progressSize / total) * 100 / ratio);
+                    if (!progressRangeList.add(progressRange)) {
+                        return;
+                    }
+                    UploadFileModel uploadFileModel = new UploadFileModel();
+                    uploadFileModel.setSize(total);
+                    uploadFileModel.setCompleteSize(progressSize);
+                    uploadFileModel.setId(id);
+                    uploadFileModel.setVersion(model.getVersion());
+                    WebSocketMessageModel webSocketMessageModel = new WebSocketMessageModel("updateNode", id);
+                    webSocketMessageModel.setData(uploadFileModel);
+                    this.notify(webSocketMessageModel);
+                });
+            if (!message.success()) {
+                this.updateNode(item, AgentUpgradeTaskModel.NodeStatus.FAILED, message.getMsg());
+                return;
+            }
+            this.updateNode(item, AgentUpgradeTaskModel.NodeStatus.UPGRADING, message.getMsg());
+            String error = this.healthCheck(model, machineNodeModel, runningProjects);
+            if (error == null) {
+                this.updateNode(item, AgentUpgradeTaskModel.NodeStatus.SUCCESS, I18nMessageUtil.get("i18n.restart_completed.42b8"));
+            } else {
+                this.updateNode(item, AgentUpgradeTaskModel.NodeStatus.FAILED, error);
+            }
+        } catch (Exception e) {
+            log.error("{}{}", I18nMessageUtil.get("i18n.upgrade_failure_with_colon.59f1"), id, e);
+            this.updateNode(item, AgentUpgradeTaskModel.NodeStatus.FAILED, I18nMessageUtil.get("i18n.node_upgrade_failed.4493") + e.getMessage());
+        }
+    }
+
+    /**
+     * 健康检查，插件端版本一致并且升级前运行中的项目恢复运行
+     *
+     * @return 检查失败的原因，通过返回 null
+     */
+    private String healthCheck(AgentUpgradeTaskModel model, MachineNodeModel machineNodeModel, List<String> runningProjects) {
+        // 先等待一会，太快可能还没重启
+        ThreadUtil.sleep(INIT_WAIT);
+        long deadline = SystemClock.now() + model.getHealthTimeout() * 1000L;
+        String error = I18nMessageUtil.get("i18n.reconnect_failure.7c01");
+        boolean restarted = false;
+        while (SystemClock.now() < deadline) {
+            try {
+                if (!restarted) {
+                    JSONObject info = this.info(machineNodeModel);
+                    if (!this.isCurrent(model, info, false)) {
+                        JSONObject manifest = info.getJSONObject("manifest");
+                        error = StrUtil.format(I18nMessageUtil.get("i18n.upgrade_task_version_mismatch.8898"), manifest == null ? null : manifest.getString("version"));
+                        ThreadUtil.sleep(1000L);
+                        continue;
+                    }
+                    restarted = true;
+                }
+                List<String> notRecovered = this.notRunningProjects(machineNodeModel, runningProjects);
+                if (notRecovered.isEmpty()) {
+                    return null;
+                }
+                error = StrUtil.format(I18nMessageUtil.get("i18n.upgrade_task_project_not_recovered.0d51"), CollUtil.join(notRecovered, StrUtil.COMMA));
+            } catch (Exception e) {
+                log.debug(I18nMessageUtil.get("i18n.node_connection_failed.8497"), machineNodeModel.getId(), e.getMessage());
+            }
+            ThreadUtil.sleep(1000L);
+        }
+        return error;
+    }
+
+    /**
+     * 判断插件端是否为升级的版本，插件端有 jar 摘要优先比较摘要
+     *
+     * @param model  升级任务
+     * @param info   插件端信息
+     * @param strict 没有摘要时是否需要比较打包时间
+     * @return true 版本一致
+     */
+    private boolean isCurrent(AgentUpgradeTaskModel model, JSONObject info, boolean strict) {
+        String jarDigest = info.getString("jarDigest");
+        if (StrUtil.isNotEmpty(jarDigest)) {
+            return StrUtil.equals(jarDigest, model.getJarDigest());
+        }
+        JSONObject manifest = info.getJSONObject("manifest");
+        if (manifest == null || !StrUtil.equals(manifest.getString("version"), model.getVersion())) {
+            return false;
+        }
+        return !strict || StrUtil.equals(manifest.getString("timeStamp"), model.getTimeStamp());
+    }
+
+    private JSONObject info(MachineNodeModel machineNodeModel) {
+        JsonMessage<JSONObject> jsonMessage = NodeForward.request(machineNodeModel, StrUtil.EMPTY, NodeUrl.Info, "nodeId", machineNodeModel.getId());
+        Assert.state(jsonMessage.success(), jsonMessage.getMsg());
+        return jsonMessage.getData(JSONObject.class);
+    }
+
+    private List<String> runningProjects(MachineNodeModel machineNodeModel) {
+        JsonMessage<JSONArray> jsonMessage = NodeForward.request(machineNodeModel, NodeUrl.Manage_GetProjectInfo, new JSONObject());
+        Assert.state(jsonMessage.success(), jsonMessage.getMsg());
+        JSONArray jsonArray = jsonMessage.getData(JSONArray.class);
+        if (CollUtil.isEmpty(jsonArray)) {
+            return Collections.emptyList();
+        }
+        List<String> ids = jsonArray.stream()
+            .map(o -> ((JSONObject) o).getString("id"))
+            .collect(Collectors.toList());
+        JSONObject status = this.projectStatus(machineNodeModel, ids);
+        return ids.stream()
+            .filter(id -> this.isRunning(status.getJSONObject(id)))
+            .collect(Collectors.toList());
+    }
+
+    private List<String> notRunningProjects(MachineNodeModel machineNodeModel, List<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        JSONObject status = this.projectStatus(machineNodeModel, ids);
+        return ids.stream()
+            .filter(id -> !this.isRunning(status.getJSONObject(id)))
+            .collect(Collectors.toList());
+    }
+
+    private JSONObject projectStatus(MachineNodeModel machineNodeModel, List<String> ids) {
+        JsonMessage<JSONObject> jsonMessage = NodeForward.request(machineNodeModel, StrUtil.EMPTY, NodeUrl.Manage_GetProjectPort, "ids", JSONArray.toJSONString(ids));
+        Assert.state(jsonMessage.success(), jsonMessage.getMsg());
+        return Optional.ofNullable(jsonMessage.getData(JSONObject.class)).orElseGet(JSONObject::new);
+    }
+
+    private boolean isRunning(JSONObject jsonObject) {
+        return jsonObject != null && jsonObject.getIntValue("pid") > 0;
+    }
+
+    private void updateNode(AgentUpgradeTaskModel.NodeItem item, AgentUpgradeTaskModel.NodeStatus status, String msg) {
+        synchronized (this) {
+            item.setStatus(status);
+            item.setMsg(msg);
+            if (status == AgentUpgradeTaskModel.NodeStatus.UPGRADING) {
+                item.setStartTime(Optional.ofNullable(item.getStartTime()).orElseGet(SystemClock::now));
+                item.setEndTime(null);
+            } else {
+                item.setEndTime(SystemClock.now());
+            }
+            this.save();
+        }
+        WebSocketMessageModel model = new WebSocketMessageModel("upgradeTaskNode", item.getId());
+        model.setData(item);
+        this.notify(model);
+    }
+
+    private void changeStatus(AgentUpgradeTaskModel.Status status, String msg) {
+        task.setStatus(status);
+        task.setStatusMsg(msg);
+        this.save();
+        WebSocketMessageModel model = new WebSocketMessageModel("upgradeTask", StrUtil.EMPTY);
+        model.setData(task);
+        this.notify(model);
+    }
+
+    private String summary(AgentUpgradeTaskModel model) {
+        return StrUtil.format(I18nMessageUtil.get("i18n.upgrade_task_done.a6b4"),
+            this.count(model, AgentUpgradeTaskModel.NodeStatus.SUCCESS),
+            this.count(model, AgentUpgradeTaskModel.NodeStatus.SKIP),
+            this.count(model, AgentUpgradeTaskModel.NodeStatus.FAILED));
+    }
+
+    private long count(AgentUpgradeTaskModel model, AgentUpgradeTaskModel.NodeStatus status) {
+        return model.getNodes().values().stream().filter(item -> item.getStatus() == status).count();
+    }
+
+    private synchronized void save() {
+        task.setModifyTime(SystemClock.now());
+        systemParametersServer.upsert(AgentUpgradeTaskModel.ID, task, AgentUpgradeTaskModel.ID);
+    }
+
+    private void notify(WebSocketMessageModel model) {
+        for (Consumer<WebSocketMessageModel> listener : listeners) {
+            try {
+                listener.accept(model);
+            } catch (Exception e) {
+                log.warn(I18nMessageUtil.get("i18n.send_message_failure.9621"), e);
+            }
+        }
+    }
+
+}
@@ -13,6 +13,7 @@ import cn.hutool.core.util.CharsetUtil;
 import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.cron.task.Task;
+import cn.hutool.extra.spring.SpringUtil;
 import cn.hutool.extra.ssh.JschUtil;
 import cn.hutool.system.SystemUtil;
 import cn.keepbx.jpom.cron.ICron;
@@ -24,6 +25,7 @@ import org.dromara.jpom.common.i18n.I18nThreadUtil;
 import org.dromara.jpom.cron.CronUtils;
 import org.dromara.jpom.func.assets.model.MachineSshModel;
 import org.dromara.jpom.func.assets.server.ScriptLibraryServer;
+import org.dromara.jpom.func.system.service.ClusterInfoService;
 import org.dromara.jpom.model.EnvironmentMapBuilder;
 import org.dromara.jpom.model.data.CommandExecLogModel;
 import org.dromara.jpom.model.data.CommandModel;
@@ -144,6 +146,9 @@ public class SshCommandService extends BaseWorkspaceService<CommandModel> implem
 
         @Override
         public void execute() {
+            if (!SpringUtil.getBean(ClusterInfoService.class).tryLock("ssh_command:" + this.id)) {
+                return;
+            }
             try {
                 BaseServerController.resetInfo(UserModel.EMPTY);
                 CommandModel commandModel = SshCommandService.this.getByKey(this.id);
@@ -28,6 +28,7 @@ import org.dromara.jpom.func.assets.model.MachineSshModel;
 import org.dromara.jpom.func.assets.server.MachineSshServer;
 import org.dromara.jpom.model.data.SshModel;
 import org.dromara.jpom.plugins.JschLogger;
+import org.dromara.jpom.plugins.JschUtils;
 import org.dromara.jpom.service.h2db.BaseWorkspaceService;
 import org.dromara.jpom.util.LogRecorder;
 import org.dromara.jpom.util.MySftp;
@@ -130,7 +131,7 @@ public class SshService extends BaseWorkspaceService<SshModel> {
         // MachineSshModel machineSshModel = this.getMachineSshModel(sshModel);
         try {
             session = this.getSessionByModel(machineSshModel);
-            channel = (ChannelSftp) JschUtil.openChannel(session, ChannelType.SFTP);
+            channel = JschUtils.openSftp(session);
             try (Sftp sftp = new Sftp(channel, machineSshModel.charset(), machineSshModel.timeout())) {
                 sftp.syncUpload(desc, remotePath);
             }
@@ -17,6 +17,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.dromara.jpom.common.BaseServerController;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
 import org.dromara.jpom.cron.CronUtils;
+import org.dromara.jpom.func.system.service.ClusterInfoService;
 import org.dromara.jpom.model.script.ScriptExecuteLogModel;
 import org.dromara.jpom.model.script.ScriptModel;
 import org.dromara.jpom.model.user.UserModel;
@@ -145,6 +146,9 @@ public class ScriptServer extends BaseGlobalOrWorkspaceService<ScriptModel> impl
 
         @Override
         public void execute() {
+            if (!SpringUtil.getBean(ClusterInfoService.class).tryLock("server_script:" + id)) {
+                return;
+            }
             try {
                 BaseServerController.resetInfo(UserModel.EMPTY);
                 ScriptServer nodeScriptServer = SpringUtil.getBean(ScriptServer.class);
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.service.system;
+
+import cn.hutool.cache.impl.TimedCache;
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.db.Entity;
+import org.dromara.jpom.db.BaseDbCommonService;
+import org.dromara.jpom.func.assets.server.MachineDockerServer;
+import org.dromara.jpom.func.assets.server.MachineNodeServer;
+import org.dromara.jpom.func.assets.server.MachineSshServer;
+import org.dromara.jpom.func.files.service.FileStorageService;
+import org.dromara.jpom.func.system.service.ClusterInfoService;
+import org.dromara.jpom.service.docker.DockerInfoService;
+import org.dromara.jpom.service.docker.DockerSwarmInfoService;
+import org.dromara.jpom.service.node.NodeService;
+import org.dromara.jpom.service.node.ProjectInfoCacheService;
+import org.dromara.jpom.service.node.script.NodeScriptServer;
+import org.dromara.jpom.service.node.ssh.SshCommandService;
+import org.dromara.jpom.service.node.ssh.SshService;
+import org.dromara.jpom.service.outgiving.OutGivingServer;
+import org.dromara.jpom.service.script.ScriptServer;
+import org.dromara.jpom.service.user.UserService;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 首页数据统计
+ * <p>
+ * 统计数量合并为一条 union all 查询，结果短时间缓存。
+ * 缓存时记录相关表的修改版本号，相关表有数据写入后缓存立即失效
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@Service
+public class DataStatService {
+
+    /**
+     * 缓存有效期，集群部署时其他服务端写入的数据最多延迟这么久可见
+     */
+    private static final long CACHE_TIMEOUT = 10 * 1000;
+
+    private final UserService userService;
+    private final WorkspaceService workspaceService;
+    private final ClusterInfoService clusterInfoService;
+    /**
+     * 统计名称 -> 工作空间数据表
+     */
+    private final Map<String, BaseDbCommonService<?>> workspaceTables = new LinkedHashMap<>();
+    /**
+     * 统计名称 -> 资产状态表
+     */
+    private final Map<String, BaseDbCommonService<?>> machineTables = new LinkedHashMap<>();
+    private final TimedCache<String, CacheItem> cache = new TimedCache<>(CACHE_TIMEOUT);
+
+    public DataStatService(NodeService nodeService,
+                           ProjectInfoCacheService projectInfoCacheService,
+                           NodeScriptServer nodeScriptServer,
+                           OutGivingServer outGivingServer,
+                           SshService sshService,
+                           SshCommandService sshCommandService,
+                           ScriptServer scriptServer,
+                           DockerInfoService dockerInfoService,
+                           DockerSwarmInfoService dockerSwarmInfoService,
+                           FileStorageService fileStorageService,
+                           UserService userService,
+                           WorkspaceService workspaceService,
+                           ClusterInfoService clusterInfoService,
+                           MachineNodeServer machineNodeServer,
+                           MachineSshServer machineSshServer,
+                           MachineDockerServer machineDockerServer) {
+        this.userService = userService;
+        this.workspaceService = workspaceService;
+        this.clusterInfoService = clusterInfoService;
+        workspaceTables.put("nodeCount", nodeService);
+        workspaceTables.put("projectCount", projectInfoCacheService);
+        workspaceTables.put("nodeScriptCount", nodeScriptServer);
+        workspaceTables.put("outGivingCount", outGivingServer);
+        workspaceTables.put("sshCount", sshService);
+        workspaceTables.put("sshCommandCount", sshCommandService);
+        workspaceTables.put("scriptCount", scriptServer);
+        workspaceTables.put("dockerCount", dockerInfoService);
+        workspaceTables.put("dockerSwarmCount", dockerSwarmInfoService);
+        workspaceTables.put("fileCount", fileStorageService);
+        machineTables.put("dockerStat", machineDockerServer);
+        machineTables.put("sshStat", machineSshServer);
+        machineTables.put("nodeStat", machineNodeServer);
+    }
+
+    /**
+     * 工作空间数据统计
+     *
+     * @param workspaceId 工作空间ID
+     * @return 统计名称 -> 数量
+     */
+    public Map<String, Number> workspace(String workspaceId) {
+        return this.cached("workspace:" + workspaceId, workspaceTables.values(), () -> {
+            List<Object> params = new ArrayList<>();
+            String sql = workspaceTables.entrySet()
+                .stream()
+                .map(entry -> {
+                    params.add(workspaceId);
+                    return StrUtil.format("select '{}' as statKey, count(1) as statValue from {} where workspaceId=?", entry.getKey(), entry.getValue().getTableName());
+                })
+                .collect(Collectors.joining(" union all "));
+            Map<String, Long> result = this.toMap(userService.query(sql, params.toArray()));
+            Map<String, Number> map = new LinkedHashMap<>(workspaceTables.size());
+            for (String key : workspaceTables.keySet()) {
+                map.put(key, result.getOrDefault(key, 0L));
+            }
+            return map;
+        });
+    }
+
+    /**
+     * 系统数据统计
+     *
+     * @return map
+     */
+    public Map<String, Object> system() {
+        List<BaseDbCommonService<?>> tables = new ArrayList<>(machineTables.values());
+        tables.add(userService);
+        tables.add(workspaceService);
+        tables.add(clusterInfoService);
+        return this.cached("system", tables, () -> {
+            Map<String, Object> map = new HashMap<>(10);
+            map.putAll(this.userStat());
+            // 工作空间、集群数量和资产状态分组合并为一条查询
+            StringBuilder sql = new StringBuilder();
+            sql.append(StrUtil.format("select 'workspaceCount' as statKey, null as status, count(1) as statValue from {}", workspaceService.getTableName()));
+            sql.append(StrUtil.format(" union all select 'clusterCount' as statKey, null as status, count(1) as statValue from {}", clusterInfoService.getTableName()));
+            for (Map.Entry<String, BaseDbCommonService<?>> entry : machineTables.entrySet()) {
+                sql.append(StrUtil.format(" union all select '{}' as statKey, status, count(1) as statValue from {} group by status", entry.getKey(), entry.getValue().getTableName()));
+            }
+            Map<String, List<Map<String, Object>>> statMap = new HashMap<>(machineTables.size());
+            for (String key : machineTables.keySet()) {
+                statMap.put(key, new ArrayList<>());
+            }
+            List<Entity> query = userService.query(sql.toString());
+            for (Entity entity : query) {
+                String key = entity.getStr("statKey");
+                long value = Convert.toLong(entity.get("statValue"), 0L);
+                List<Map<String, Object>> list = statMap.get(key);
+                if (list == null) {
+                    map.put(key, value);
+                } else {
+                    Map<String, Object> item = new LinkedHashMap<>(2);
+                    item.put("status", entity.get("status"));
+                    item.put("count", value);
+                    list.add(item);
+                }
+            }
+            map.putAll(statMap);
+            return map;
+        });
+    }
+
+    /**
+     * 用户统计，一次聚合查询
+     *
+     * @return map
+     */
+    private Map<String, Long> userStat() {
+        String sql = "select count(1) as userCount," +
+            " sum(case when systemUser=1 then 1 else 0 end) as systemUserCount," +
+            " sum(case when status=0 then 1 else 0 end) as disableUserCount," +
+            " sum(case when twoFactorAuthKey is null or twoFactorAuthKey='' then 0 else 1 end) as openTwoFactorAuth" +
+            " from " + userService.getTableName();
+        List<Entity> query = userService.query(sql);
+        Entity entity = query.isEmpty() ? Entity.create() : query.get(0);
+        Map<String, Long> map = new HashMap<>(4);
+        for (String key : new String[]{"userCount", "systemUserCount", "disableUserCount", "openTwoFactorAuth"}) {
+            // 没有数据时 sum 为 null
+            map.put(key, Convert.toLong(entity.get(key), 0L));
+        }
+        return map;
+    }
+
+    private Map<String, Long> toMap(List<Entity> entities) {
+        Map<String, Long> map = new HashMap<>(entities.size());
+        for (Entity entity : entities) {
+            map.put(entity.getStr("statKey"), Convert.toLong(entity.get("statValue"), 0L));
+        }
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> V cached(String key, Collection<BaseDbCommonService<?>> tables, Supplier<V> supplier) {
+        // 先读取版本号再查询，避免查询期间的写入被缓存掩盖
+        long version = tables.stream()
+            .mapToLong(service -> BaseDbCommonService.getModifyVersion(service.getTableName()))
+            .sum();
+        CacheItem cacheItem = cache.get(key, false);
+        if (cacheItem != null && cacheItem.version == version) {
+            return (V) cacheItem.value;
+        }
+        V value = supplier.get();
+        cache.put(key, new CacheItem(version, value));
+        return value;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    private static class CacheItem {
+        private final long version;
+        private final Object value;
+
+        private CacheItem(long version, Object value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
@@ -9,6 +9,7 @@
  */
 package org.dromara.jpom.service.system;
 
+import cn.hutool.db.Entity;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.jpom.common.Const;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
@@ -17,9 +18,11 @@ import org.dromara.jpom.model.BaseWorkspaceModel;
 import org.dromara.jpom.model.data.WorkspaceModel;
 import org.dromara.jpom.service.IStatusRecover;
 import org.dromara.jpom.service.h2db.BaseDbService;
+import org.dromara.jpom.service.user.UserAuthCacheService;
 import org.springframework.stereotype.Service;
 
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * @author bwcx_jzy
@@ -29,6 +32,19 @@ import java.util.Set;
 @Slf4j
 public class WorkspaceService extends BaseDbService<WorkspaceModel> implements IStatusRecover {
 
+    private final UserAuthCacheService userAuthCacheService;
+
+    public WorkspaceService(UserAuthCacheService userAuthCacheService) {
+        this.userAuthCacheService = userAuthCacheService;
+    }
+
+    @Override
+    public int delByKey(Object keyValue, Consumer<Entity> consumer) {
+        int count = super.delByKey(keyValue, consumer);
+        userAuthCacheService.onPermissionChange();
+        return count;
+    }
+
     @Override
     public int statusRecover() {
         WorkspaceModel workspaceModel = super.getByKey(Const.WORKSPACE_DEFAULT_ID);
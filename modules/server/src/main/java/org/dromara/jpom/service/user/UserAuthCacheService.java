@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.service.user;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.CacheObj;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.jwt.JWT;
+import org.dromara.jpom.configuration.UserConfig;
+import org.dromara.jpom.model.user.UserModel;
+import org.dromara.jpom.model.user.UserPermissionGroupBean;
+import org.dromara.jpom.system.ServerConfig;
+import org.dromara.jpom.util.JwtUtil;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 登录信息、工作空间权限缓存
+ * <p>
+ * 缓存已经验证签名的 token、token 对应的用户以及用户在工作空间下的权限组，
+ * 用户、权限组、工作空间绑定关系变更或者退出登录时主动失效。
+ * <p>
+ * 权限组中的允许、禁止执行时间段每次都重新计算，只缓存数据库查询结果
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@Service
+public class UserAuthCacheService {
+
+    private final boolean enabled;
+    /**
+     * token -> 已验证签名的 jwt
+     */
+    private final LRUCache<String, JWT> tokenCache;
+    /**
+     * jwt id -> 用户
+     */
+    private final LRUCache<String, UserModel> userCache;
+    /**
+     * 用户id:权限组:工作空间 -> 绑定的权限组，Optional.empty() 表示没有绑定关系
+     */
+    private final LRUCache<String, Optional<List<UserPermissionGroupBean>>> permissionCache;
+
+    private final CacheCounter tokenCounter = new CacheCounter();
+    private final CacheCounter userCounter = new CacheCounter();
+    private final CacheCounter permissionCounter = new CacheCounter();
+
+    public UserAuthCacheService(ServerConfig serverConfig) {
+        UserConfig userConfig = serverConfig.getUser();
+        long timeout = userConfig.getAuthCacheTime().toMillis();
+        int size = userConfig.getAuthCacheSize();
+        this.enabled = timeout > 0 && size > 0;
+        int capacity = Math.max(size, 1);
+        this.tokenCache = CacheUtil.newLRUCache(capacity, timeout);
+        this.userCache = CacheUtil.newLRUCache(capacity, timeout);
+        this.permissionCache = CacheUtil.newLRUCache(capacity, timeout);
+    }
+
+    /**
+     * 读取 token，签名验证通过的 token 会被缓存
+     *
+     * @param token token
+     * @return jwt 验证失败返回 null
+     */
+    public JWT readToken(String token) {
+        if (!enabled) {
+            return JwtUtil.readBody(token);
+        }
+        return this.get(tokenCache, tokenCounter, token, () -> JwtUtil.readBody(token));
+    }
+
+    /**
+     * 根据 jwt id 查询用户
+     * <p>
+     * 返回的用户会放入会话并可能被修改，每次返回缓存对象的副本
+     *
+     * @param jwtId    jwt id
+     * @param supplier 查询数据库
+     * @return 用户
+     */
+    public UserModel getUser(String jwtId, Supplier<UserModel> supplier) {
+        if (!enabled || StrUtil.isEmpty(jwtId)) {
+            return supplier.get();
+        }
+        UserModel userModel = this.get(userCache, userCounter, jwtId, supplier);
+        return userModel == null ? null : BeanUtil.copyProperties(userModel, UserModel.class);
+    }
+
+    /**
+     * 查询用户在工作空间下绑定的权限组
+     *
+     * @param userModel    用户
+     * @param workspaceKey 工作空间ID，或者 工作空间ID-权限
+     * @param supplier     查询数据库
+     * @return Optional.empty() 表示没有绑定关系
+     */
+    public Optional<List<UserPermissionGroupBean>> getPermissionGroups(UserModel userModel, String workspaceKey, Supplier<Optional<List<UserPermissionGroupBean>>> supplier) {
+        if (!enabled) {
+            return supplier.get();
+        }
+        String key = StrUtil.format("{}:{}:{}", userModel.getId(), userModel.getPermissionGroup(), workspaceKey);
+        return this.get(permissionCache, permissionCounter, key, supplier);
+    }
+
+    private <V> V get(LRUCache<String, V> cache, CacheCounter counter, String key, Supplier<V> supplier) {
+        V value = cache.get(key, false);
+        if (value != null) {
+            counter.hit.increment();
+            return value;
+        }
+        counter.miss.increment();
+        value = supplier.get();
+        if (value != null) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 用户信息变更（修改、锁定、删除、修改密码等）
+     *
+     * @param userId 用户ID，为空则清空所有用户相关缓存
+     */
+    public void onUserChange(String userId) {
+        if (StrUtil.isEmpty(userId)) {
+            tokenCache.clear();
+            userCache.clear();
+            permissionCache.clear();
+            return;
+        }
+        this.removeIf(tokenCache, jwt -> StrUtil.equals(JwtUtil.readUserId(jwt), userId));
+        this.removeIf(userCache, userModel -> StrUtil.equals(userModel.getId(), userId));
+        String prefix = userId + StrUtil.COLON;
+        for (String key : this.keys(permissionCache)) {
+            if (StrUtil.startWith(key, prefix)) {
+                permissionCache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 权限组、工作空间、工作空间绑定关系变更
+     */
+    public void onPermissionChange() {
+        permissionCache.clear();
+    }
+
+    /**
+     * 退出登录
+     *
+     * @param token token
+     */
+    public void onLogout(String token) {
+        if (StrUtil.isEmpty(token)) {
+            return;
+        }
+        tokenCache.remove(token);
+    }
+
+    private <V> void removeIf(LRUCache<String, V> cache, Predicate<V> predicate) {
+        Iterator<CacheObj<String, V>> iterator = cache.cacheObjIterator();
+        List<String> keys = new ArrayList<>();
+        while (iterator.hasNext()) {
+            CacheObj<String, V> cacheObj = iterator.next();
+            if (predicate.test(cacheObj.getValue())) {
+                keys.add(cacheObj.getKey());
+            }
+        }
+        keys.forEach(cache::remove);
+    }
+
+    private <V> List<String> keys(LRUCache<String, V> cache) {
+        Iterator<CacheObj<String, V>> iterator = cache.cacheObjIterator();
+        List<String> keys = new ArrayList<>();
+        while (iterator.hasNext()) {
+            keys.add(iterator.next().getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        this.onUserChange(null);
+    }
+
+    /**
+     * 缓存状态
+     *
+     * @return map
+     */
+    public Map<String, Object> stat() {
+        Map<String, Object> map = new LinkedHashMap<>(5);
+        map.put("enabled", enabled);
+        map.put("token", tokenCounter.stat(tokenCache));
+        map.put("user", userCounter.stat(userCache));
+        map.put("permission", permissionCounter.stat(permissionCache));
+        return map;
+    }
+
+    private static class CacheCounter {
+        private final LongAdder hit = new LongAdder();
+        private final LongAdder miss = new LongAdder();
+
+        private String stat(LRUCache<?, ?> cache) {
+            long hitCount = hit.sum();
+            long total = hitCount + miss.sum();
+            double ratio = total == 0 ? 0 : hitCount * 100D / total;
+            return StrUtil.format("size {}/{} hit {}/{} ({}%)", cache.size(), cache.capacity(), hitCount, total, String.format("%.2f", ratio));
+        }
+    }
+}
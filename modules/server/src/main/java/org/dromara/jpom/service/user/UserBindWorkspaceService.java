@@ -43,6 +43,7 @@ public class UserBindWorkspaceService extends BaseDbService<UserBindWorkspaceMod
 
     private final WorkspaceService workspaceService;
     private final UserPermissionGroupServer userPermissionGroupServer;
+    private final UserAuthCacheService userAuthCacheService;
 
     /**
      * ssh 终端没有任何限制
@@ -50,9 +51,11 @@ public class UserBindWorkspaceService extends BaseDbService<UserBindWorkspaceMod
     public static final String SSH_COMMAND_NOT_LIMITED = "-sshCommandNotLimited";
 
     public UserBindWorkspaceService(WorkspaceService workspaceService,
-                                    UserPermissionGroupServer userPermissionGroupServer) {
+                                    UserPermissionGroupServer userPermissionGroupServer,
+                                    UserAuthCacheService userAuthCacheService) {
         this.workspaceService = workspaceService;
         this.userPermissionGroupServer = userPermissionGroupServer;
+        this.userAuthCacheService = userAuthCacheService;
     }
 
     /**
@@ -87,6 +90,7 @@ public class UserBindWorkspaceService extends BaseDbService<UserBindWorkspaceMod
         super.del(super.dataBeanToEntity(userBindWorkspaceModel));
         // 重新入库
         super.insert(list);
+        userAuthCacheService.onPermissionChange();
     }
 
     /**
@@ -147,6 +151,7 @@ public class UserBindWorkspaceService extends BaseDbService<UserBindWorkspaceMod
         bindWorkspaceModel.setUserId(userId);
         Entity where = super.dataBeanToEntity(bindWorkspaceModel);
         super.del(where);
+        userAuthCacheService.onPermissionChange();
     }
 
     /**
@@ -167,6 +172,27 @@ public class UserBindWorkspaceService extends BaseDbService<UserBindWorkspaceMod
         return this.listById(list);
     }
 
+    /**
+     * 查询用户在工作空间下绑定的权限组（使用缓存）
+     *
+     * @param userModel   用户
+     * @param workspaceId 工作空间
+     * @return Optional.empty() 表示没有绑定关系
+     */
+    private Optional<List<UserPermissionGroupBean>> listPermissionGroups(UserModel userModel, String workspaceId) {
+        return userAuthCacheService.getPermissionGroups(userModel, workspaceId, () -> {
+            List<UserBindWorkspaceModel> workspaceModels = this.existsList(userModel, workspaceId);
+            if (CollUtil.isEmpty(workspaceModels)) {
+                return Optional.empty();
+            }
+            List<String> permissionGroupIds = workspaceModels.stream()
+                .map(UserBindWorkspaceModel::getUserId)
+                .collect(Collectors.toList());
+            List<UserPermissionGroupBean> permissionGroups = userPermissionGroupServer.listById(permissionGroupIds);
+            return Optional.of(ObjectUtil.defaultIfNull(permissionGroups, Collections.emptyList()));
+        });
+    }
+
     /**
      * 查询用户 是否存在工作空间权限
      *
@@ -175,8 +201,7 @@ public class UserBindWorkspaceService extends BaseDbService<UserBindWorkspaceMod
      * @return true 存在
      */
     public boolean exists(UserModel userModel, String workspaceId) {
-        List<UserBindWorkspaceModel> workspaceModels = this.existsList(userModel, workspaceId);
-        return CollUtil.isNotEmpty(workspaceModels);
+        return this.listPermissionGroups(userModel, workspaceId).isPresent();
     }
 
     /**
@@ -187,17 +212,14 @@ public class UserBindWorkspaceService extends BaseDbService<UserBindWorkspaceMod
      * @return Permission Result
      */
     public UserBindWorkspaceModel.PermissionResult checkPermission(UserModel userModel, String workspaceId) {
-        List<UserBindWorkspaceModel> workspaceModels = this.existsList(userModel, workspaceId);
-        if (CollUtil.isEmpty(workspaceModels)) {
+        Optional<List<UserPermissionGroupBean>> optional = this.listPermissionGroups(userModel, workspaceId);
+        if (!optional.isPresent()) {
             return UserBindWorkspaceModel.PermissionResult.builder()
                 .state(UserBindWorkspaceModel.PermissionResultEnum.FAIL)
                 .msg(I18nMessageUtil.get("i18n.no_management_permission2.35d4"))
                 .build();
         }
-        List<String> permissionGroupIds = workspaceModels.stream()
-            .map(UserBindWorkspaceModel::getUserId)
-            .collect(Collectors.toList());
-        List<UserPermissionGroupBean> permissionGroups = userPermissionGroupServer.listById(permissionGroupIds);
+        List<UserPermissionGroupBean> permissionGroups = optional.get();
         if (CollUtil.isEmpty(permissionGroups)) {
             return UserBindWorkspaceModel.PermissionResult.builder()
                 .state(UserBindWorkspaceModel.PermissionResultEnum.FAIL)
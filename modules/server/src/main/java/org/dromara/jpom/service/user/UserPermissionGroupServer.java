@@ -9,14 +9,37 @@
  */
 package org.dromara.jpom.service.user;
 
+import cn.hutool.db.Entity;
 import org.dromara.jpom.model.user.UserPermissionGroupBean;
 import org.dromara.jpom.service.h2db.BaseDbService;
 import org.springframework.stereotype.Service;
 
+import java.util.function.Consumer;
+
 /**
  * @author bwcx_jzy
  * @since 2022/8/3
  */
 @Service
 public class UserPermissionGroupServer extends BaseDbService<UserPermissionGroupBean> {
+
+    private final UserAuthCacheService userAuthCacheService;
+
+    public UserPermissionGroupServer(UserAuthCacheService userAuthCacheService) {
+        this.userAuthCacheService = userAuthCacheService;
+    }
+
+    @Override
+    public int updateById(UserPermissionGroupBean info, Consumer<Entity> whereConsumer) {
+        int count = super.updateById(info, whereConsumer);
+        userAuthCacheService.onPermissionChange();
+        return count;
+    }
+
+    @Override
+    public int delByKey(Object keyValue, Consumer<Entity> consumer) {
+        int count = super.delByKey(keyValue, consumer);
+        userAuthCacheService.onPermissionChange();
+        return count;
+    }
 }
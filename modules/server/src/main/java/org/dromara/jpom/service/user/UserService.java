@@ -32,6 +32,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -42,11 +43,28 @@ import java.util.stream.Collectors;
 public class UserService extends BaseDbService<UserModel> {
     private final SystemParametersServer systemParametersServer;
     private final UserBindWorkspaceService userBindWorkspaceService;
+    private final UserAuthCacheService userAuthCacheService;
 
     public UserService(SystemParametersServer systemParametersServer,
-                       UserBindWorkspaceService userBindWorkspaceService) {
+                       UserBindWorkspaceService userBindWorkspaceService,
+                       UserAuthCacheService userAuthCacheService) {
         this.systemParametersServer = systemParametersServer;
         this.userBindWorkspaceService = userBindWorkspaceService;
+        this.userAuthCacheService = userAuthCacheService;
+    }
+
+    @Override
+    public int updateById(UserModel info, Consumer<Entity> whereConsumer) {
+        int count = super.updateById(info, whereConsumer);
+        userAuthCacheService.onUserChange(info.getId());
+        return count;
+    }
+
+    @Override
+    public int delByKey(Object keyValue, Consumer<Entity> consumer) {
+        int count = super.delByKey(keyValue, consumer);
+        userAuthCacheService.onUserChange(keyValue instanceof String ? (String) keyValue : null);
+        return count;
     }
 
     /**
@@ -100,6 +118,16 @@ public class UserService extends BaseDbService<UserModel> {
         return super.queryByBean(userModel);
     }
 
+    /**
+     * 验证用户md5，优先从缓存中读取
+     *
+     * @param userMd5 用户md5
+     * @return userModel 用户对象
+     */
+    public UserModel checkUserByCache(String userMd5) {
+        return userAuthCacheService.getUser(userMd5, () -> this.checkUser(userMd5));
+    }
+
     /**
      * 查询用户 jwt id
      *
@@ -194,6 +222,7 @@ public class UserService extends BaseDbService<UserModel> {
         UserModel update = new UserModel();
         update.setTwoFactorAuthKey(StrUtil.EMPTY);
         int count = super.update(super.dataBeanToEntity(update), super.dataBeanToEntity(where));
+        userAuthCacheService.onUserChange(null);
         return StrUtil.format(I18nMessageUtil.get("i18n.super_admin_mfa_verification_disabled.b97d"), count);
     }
 
@@ -11,6 +11,7 @@ package org.dromara.jpom.socket;
 
 import org.dromara.jpom.configuration.NodeConfig;
 import org.dromara.jpom.func.assets.server.MachineNodeServer;
+import org.dromara.jpom.service.node.AgentUpgradeTaskService;
 import org.dromara.jpom.service.system.SystemParametersServer;
 import org.dromara.jpom.socket.handler.*;
 import org.dromara.jpom.system.ServerConfig;
@@ -31,15 +32,18 @@ public class ServerWebSocketConfig implements WebSocketConfigurer {
     private final SystemParametersServer systemParametersServer;
     private final NodeConfig nodeConfig;
     private final MachineNodeServer machineNodeServer;
+    private final AgentUpgradeTaskService agentUpgradeTaskService;
 
     public ServerWebSocketConfig(ServerWebSocketInterceptor serverWebSocketInterceptor,
                                  SystemParametersServer systemParametersServer,
                                  ServerConfig serverConfig,
-                                 MachineNodeServer machineNodeServer) {
+                                 MachineNodeServer machineNodeServer,
+                                 AgentUpgradeTaskService agentUpgradeTaskService) {
         this.serverWebSocketInterceptor = serverWebSocketInterceptor;
         this.systemParametersServer = systemParametersServer;
         this.nodeConfig = serverConfig.getNode();
         this.machineNodeServer = machineNodeServer;
+        this.agentUpgradeTaskService = agentUpgradeTaskService;
     }
 
     @Override
@@ -60,7 +64,7 @@ public class ServerWebSocketConfig implements WebSocketConfigurer {
         registry.addHandler(new SshHandler(), "/socket/ssh")
             .addInterceptors(serverWebSocketInterceptor).setAllowedOrigins("*");
         // 节点升级
-        registry.addHandler(new NodeUpdateHandler(machineNodeServer, systemParametersServer, nodeConfig), "/socket/node_update")
+        registry.addHandler(new NodeUpdateHandler(machineNodeServer, systemParametersServer, nodeConfig, agentUpgradeTaskService), "/socket/node_update")
             .addInterceptors(serverWebSocketInterceptor).setAllowedOrigins("*");
         // 脚本模板
         registry.addHandler(new ServerScriptHandler(), "/socket/script_run")
@@ -33,10 +33,12 @@ import org.dromara.jpom.func.assets.server.MachineNodeServer;
 import org.dromara.jpom.model.AgentFileModel;
 import org.dromara.jpom.model.UploadFileModel;
 import org.dromara.jpom.model.WebSocketMessageModel;
+import org.dromara.jpom.model.user.UserModel;
 import org.dromara.jpom.permission.ClassFeature;
 import org.dromara.jpom.permission.Feature;
 import org.dromara.jpom.permission.MethodFeature;
 import org.dromara.jpom.permission.SystemPermission;
+import org.dromara.jpom.service.node.AgentUpgradeTaskService;
 import org.dromara.jpom.service.system.SystemParametersServer;
 import org.dromara.jpom.socket.BaseProxyHandler;
 import org.dromara.jpom.socket.ConsoleCommandOp;
@@ -49,7 +51,9 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 
 /**
  * 节点管理控制器
@@ -73,14 +77,17 @@ public class NodeUpdateHandler extends BaseProxyHandler {
     private final SystemParametersServer systemParametersServer;
     private final MachineNodeServer machineNodeServer;
     private final NodeConfig nodeConfig;
+    private final AgentUpgradeTaskService agentUpgradeTaskService;
 
     public NodeUpdateHandler(MachineNodeServer machineNodeServer,
                              SystemParametersServer systemParametersServer,
-                             NodeConfig nodeConfig) {
+                             NodeConfig nodeConfig,
+                             AgentUpgradeTaskService agentUpgradeTaskService) {
         super(null);
         this.machineNodeServer = machineNodeServer;
         this.systemParametersServer = systemParametersServer;
         this.nodeConfig = nodeConfig;
+        this.agentUpgradeTaskService = agentUpgradeTaskService;
         //systemParametersServer = SpringUtil.getBean(SystemParametersServer.class);
 //        nodeService = SpringUtil.getBean(NodeService.class);
     }
@@ -88,7 +95,10 @@ public class NodeUpdateHandler extends BaseProxyHandler {
     @Override
     protected void init(WebSocketSession session, Map<String, Object> attributes) throws Exception {
         super.init(session, attributes);
-
+        // 滚动升级进度
+        Consumer<WebSocketMessageModel> listener = model -> this.sendMsg(model, session);
+        attributes.put("upgradeTaskListener", listener);
+        agentUpgradeTaskService.addListener(listener);
     }
 
     @Override
@@ -137,7 +147,10 @@ public class NodeUpdateHandler extends BaseProxyHandler {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public void destroy(WebSocketSession session) {
+        Optional.ofNullable(session.getAttributes().get("upgradeTaskListener"))
+            .ifPresent(listener -> agentUpgradeTaskService.removeListener((Consumer<WebSocketMessageModel>) listener));
         clientMap.values().forEach(iProxyWebSocket -> {
             if (iProxyWebSocket.isConnected()) {
                 try {
@@ -164,6 +177,16 @@ public class NodeUpdateHandler extends BaseProxyHandler {
                 super.logOpt(this.getClass(), attributes, json);
                 updateNode(model, session);
                 break;
+            case "upgradeTask":
+                model.setData(agentUpgradeTaskService.getTask());
+                break;
+            case "upgradeTaskStart":
+            case "upgradeTaskPause":
+            case "upgradeTaskResume":
+            case "upgradeTaskCancel":
+                super.logOpt(this.getClass(), attributes, json);
+                this.upgradeTask(model, attributes, session);
+                break;
             case "heart":
                 for (Map.Entry<String, IProxyWebSocket> entry : clientMap.entrySet()) {
                     String key = entry.getKey();
@@ -241,6 +264,45 @@ public class NodeUpdateHandler extends BaseProxyHandler {
         }
     }
 
+    /**
+     * 滚动升级操作
+     *
+     * @param model 参数
+     */
+    private void upgradeTask(WebSocketMessageModel model, Map<String, Object> attributes, WebSocketSession session) {
+        try {
+            switch (model.getCommand()) {
+                case "upgradeTaskStart": {
+                    JSONObject params = (JSONObject) model.getParams();
+                    List<String> ids = params.getList("ids", String.class);
+                    if (CollUtil.isEmpty(ids)) {
+                        return;
+                    }
+                    UserModel userModel = (UserModel) attributes.get("userInfo");
+                    agentUpgradeTaskService.start(ids, params, userModel.getId());
+                    break;
+                }
+                case "upgradeTaskPause":
+                    agentUpgradeTaskService.pause();
+                    break;
+                case "upgradeTaskResume":
+                    agentUpgradeTaskService.resume();
+                    break;
+                case "upgradeTaskCancel":
+                    agentUpgradeTaskService.cancel();
+                    break;
+                default:
+                    return;
+            }
+            model.setData(agentUpgradeTaskService.getTask());
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            this.onError(session, e.getMessage());
+        } catch (Exception e) {
+            log.error(I18nMessageUtil.get("i18n.upgrade_failure.4ae2"), e);
+            this.onError(session, I18nMessageUtil.get("i18n.upgrade_failure_with_colon.59f1") + e.getMessage());
+        }
+    }
+
     private boolean updateNodeItemHttp(MachineNodeModel machineNodeModel, WebSocketSession session, AgentFileModel agentFileModel) throws IOException {
         File file = FileUtil.file(agentFileModel.getSavePath());
 
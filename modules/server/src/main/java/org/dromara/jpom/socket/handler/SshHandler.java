@@ -12,7 +12,6 @@ package org.dromara.jpom.socket.handler;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.convert.Convert;
 import cn.hutool.core.io.IoUtil;
-import cn.hutool.core.io.NioUtil;
 import cn.hutool.core.map.SafeConcurrentHashMap;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.extra.spring.SpringUtil;
@@ -26,7 +25,6 @@ import com.jcraft.jsch.Session;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
-import org.dromara.jpom.common.i18n.I18nThreadUtil;
 import org.dromara.jpom.func.assets.model.MachineSshModel;
 import org.dromara.jpom.model.data.SshModel;
 import org.dromara.jpom.model.user.UserModel;
@@ -39,12 +37,12 @@ import org.dromara.jpom.service.user.UserBindWorkspaceService;
 import org.dromara.jpom.util.SocketSessionUtil;
 import org.dromara.jpom.util.StringUtil;
 import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.util.Arrays;
@@ -196,9 +194,9 @@ public class SshHandler extends BaseTerminalHandler {
         sshTerminalExecuteLogService.batch(userInfo, machineSshModel, sshItem, ip, userAgent, refuse, split);
     }
 
-    private class HandlerItem implements Runnable, AutoCloseable {
+    private class HandlerItem implements AutoCloseable {
         private final WebSocketSession session;
-        private final InputStream inputStream;
+        private final TerminalOutputStream terminalOutputStream;
         private final OutputStream outputStream;
         private final Session openSession;
         private final ChannelShell channel;
@@ -213,14 +211,31 @@ public class SshHandler extends BaseTerminalHandler {
             this.machineSshModel = machineSshModel;
             this.openSession = sshService.getSessionByModel(machineSshModel);
             this.channel = (ChannelShell) JschUtil.createChannel(openSession, ChannelType.SHELL);
-            this.inputStream = channel.getInputStream();
-            this.outputStream = channel.getOutputStream();
             keyEventCycle.setCharset(machineSshModel.charset());
+            // ssh 会话线程直接写入输出，不再单独开启线程阻塞读取
+            this.terminalOutputStream = new TerminalOutputStream(machineSshModel.charset(), keyEventCycle::receive, this::sendOutput, this::onOutputError);
+            this.channel.setOutputStream(terminalOutputStream);
+            this.outputStream = channel.getOutputStream();
         }
 
         void startRead() throws JSchException {
             this.channel.connect(machineSshModel.timeout());
-            I18nThreadUtil.execute(this);
+        }
+
+        private void sendOutput(String msg) throws IOException {
+            boolean send = SocketSessionUtil.send(session, new BinaryMessage(msg.getBytes()));
+            if (!send) {
+                throw new IOException(I18nMessageUtil.get("i18n.already_offline.d3b5"));
+            }
+        }
+
+        private void onOutputError(Exception e) {
+            if (this.session.isOpen()) {
+                log.error(I18nMessageUtil.get("i18n.read_error.7fa5"), e);
+            } else {
+                log.warn(I18nMessageUtil.get("i18n.ssh_error_string.6bdb"), e.getMessage());
+            }
+            SshHandler.this.destroy(this.session);
         }
 
         /**
@@ -296,30 +311,9 @@ public class SshHandler extends BaseTerminalHandler {
         }
 
 
-        @Override
-        public void run() {
-            try {
-                byte[] buffer = new byte[1024];
-                int i;
-                //如果没有数据来，线程会一直阻塞在这个地方等待数据。
-                while ((i = inputStream.read(buffer)) != NioUtil.EOF) {
-                    byte[] tempBytes = Arrays.copyOfRange(buffer, 0, i);
-                    keyEventCycle.receive(tempBytes);
-                    sendBinary(session, new String(tempBytes, machineSshModel.charset()));
-                }
-            } catch (Exception e) {
-                if (!this.openSession.isConnected()) {
-                    log.error(I18nMessageUtil.get("i18n.ssh_error_string.6bdb"), e.getMessage());
-                    return;
-                }
-                log.error(I18nMessageUtil.get("i18n.read_error.7fa5"), e);
-                SshHandler.this.destroy(this.session);
-            }
-        }
-
         @Override
         public void close() throws Exception {
-            IoUtil.close(this.inputStream);
+            IoUtil.close(this.terminalOutputStream);
             IoUtil.close(this.outputStream);
             JschUtil.close(this.channel);
             JschUtil.close(this.openSession);
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.socket.handler;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import org.dromara.jpom.JpomApplication;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 终端输出合并发送
+ * <p>
+ * 作为 ssh 通道的输出流，由 ssh 会话线程写入，不需要为每个终端单独开启读取线程。
+ * 写入的字节使用有状态的解码器解码（多字节字符被拆开也能正确解码），
+ * 短时间内的输出合并为一帧由共用的线程池发送，避免大量输出时浏览器收到大量小消息
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+public class TerminalOutputStream extends OutputStream {
+
+    /**
+     * 合并发送的时间窗口
+     */
+    private static final long FLUSH_DELAY = 5;
+    /**
+     * 达到多少字符立即发送
+     */
+    private static final int FLUSH_SIZE = 16 * 1024;
+    /**
+     * 待发送字符超过多少后阻塞写入（反压到 ssh 服务端）
+     */
+    private static final int MAX_PENDING_SIZE = 1024 * 1024;
+
+    private static volatile ScheduledExecutorService scheduledExecutorService;
+
+    private final CharsetDecoder decoder;
+    private final Consumer<byte[]> receiveConsumer;
+    private final FrameSender frameSender;
+    private final Consumer<Exception> errorConsumer;
+    private final CharBuffer charBuffer = CharBuffer.allocate(8 * 1024);
+    private ByteBuffer byteBuffer = ByteBuffer.allocate(8 * 1024);
+    private final StringBuilder pending = new StringBuilder();
+    /**
+     * 是否已经有发送任务
+     */
+    private boolean scheduled;
+    private volatile boolean closed;
+
+    /**
+     * @param charset         编码格式
+     * @param receiveConsumer 原始字节回调（写入线程中执行）
+     * @param frameSender     发送合并后的消息
+     * @param errorConsumer   发送失败回调
+     */
+    public TerminalOutputStream(Charset charset, Consumer<byte[]> receiveConsumer, FrameSender frameSender, Consumer<Exception> errorConsumer) {
+        this.decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.receiveConsumer = receiveConsumer;
+        this.frameSender = frameSender;
+        this.errorConsumer = errorConsumer;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len <= 0) {
+            return;
+        }
+        if (closed) {
+            throw new IOException("terminal closed");
+        }
+        byte[] bytes = new byte[len];
+        System.arraycopy(b, off, bytes, 0, len);
+        receiveConsumer.accept(bytes);
+        synchronized (this) {
+            while (pending.length() >= MAX_PENDING_SIZE && !closed) {
+                try {
+                    this.wait(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            this.decode(bytes, false);
+            this.schedule(pending.length() >= FLUSH_SIZE ? 0 : FLUSH_DELAY);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            // 通道结束，剩余字节也解码发送
+            this.decode(new byte[0], true);
+            this.schedule(0);
+            closed = true;
+            this.notifyAll();
+        }
+    }
+
+    private void decode(byte[] bytes, boolean endOfInput) {
+        if (byteBuffer.remaining() < bytes.length) {
+            // 上一次剩余的不完整字符 + 本次的字节
+            ByteBuffer newBuffer = ByteBuffer.allocate(byteBuffer.position() + bytes.length);
+            byteBuffer.flip();
+            newBuffer.put(byteBuffer);
+            byteBuffer = newBuffer;
+        }
+        byteBuffer.put(bytes);
+        byteBuffer.flip();
+        CoderResult result;
+        do {
+            result = decoder.decode(byteBuffer, charBuffer, endOfInput);
+            charBuffer.flip();
+            pending.append(charBuffer);
+            charBuffer.clear();
+        } while (result.isOverflow());
+        if (endOfInput) {
+            decoder.flush(charBuffer);
+            charBuffer.flip();
+            pending.append(charBuffer);
+            charBuffer.clear();
+        }
+        byteBuffer.compact();
+    }
+
+    private void schedule(long delay) {
+        if (scheduled || pending.length() == 0) {
+            return;
+        }
+        scheduled = true;
+        getScheduledExecutorService().schedule(this::sendPending, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void sendPending() {
+        String msg;
+        synchronized (this) {
+            msg = pending.toString();
+            pending.setLength(0);
+            this.notifyAll();
+        }
+        try {
+            if (!msg.isEmpty()) {
+                frameSender.send(msg);
+            }
+        } catch (Exception e) {
+            synchronized (this) {
+                closed = true;
+                scheduled = false;
+                pending.setLength(0);
+                this.notifyAll();
+            }
+            errorConsumer.accept(e);
+            return;
+        }
+        synchronized (this) {
+            scheduled = false;
+            // 发送期间写入的内容
+            this.schedule(pending.length() >= FLUSH_SIZE ? 0 : FLUSH_DELAY);
+        }
+    }
+
+    private static ScheduledExecutorService getScheduledExecutorService() {
+        if (scheduledExecutorService == null) {
+            synchronized (TerminalOutputStream.class) {
+                if (scheduledExecutorService == null) {
+                    int size = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+                    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(size,
+                        ThreadFactoryBuilder.create().setNamePrefix("jpom-terminal-output-").setDaemon(true).build());
+                    executor.setRemoveOnCancelPolicy(true);
+                    JpomApplication.register("terminal-output", executor);
+                    scheduledExecutorService = executor;
+                }
+            }
+        }
+        return scheduledExecutorService;
+    }
+
+    /**
+     * 发送合并后的消息
+     */
+    @FunctionalInterface
+    public interface FrameSender {
+        /**
+         * 发送消息
+         *
+         * @param msg 消息
+         * @throws IOException 发送失败
+         */
+        void send(String msg) throws IOException;
+    }
+}
@@ -43,7 +43,8 @@ import java.util.Optional;
     NodeConfig.class,
     UserConfig.class,
     FileStorageConfig.class,
-    WebConfig.class})
+    WebConfig.class,
+    NotifyConfig.class})
 @Data
 public class ServerConfig implements InitializingBean {
 
@@ -86,6 +87,10 @@ public class ServerConfig implements InitializingBean {
      * 文件中心配置
      */
     private FileStorageConfig fileStorage = new FileStorageConfig();
+    /**
+     * 通知发送配置
+     */
+    private NotifyConfig notify;
 
     public SystemConfig getSystem() {
         return Optional.ofNullable(this.system).orElseGet(() -> {
@@ -118,6 +123,13 @@ public class ServerConfig implements InitializingBean {
         });
     }
 
+    public NotifyConfig getNotify() {
+        return Optional.ofNullable(this.notify).orElseGet(() -> {
+            this.notify = new NotifyConfig();
+            return this.notify;
+        });
+    }
+
     /**
      * 获取当前登录用户的临时文件存储路径，如果没有登录则抛出异常
      *
@@ -226,11 +226,16 @@ public class OperateLogController implements AopLogInterface {
             } else {
                 String json = JSONObject.toJSONString(value);
                 userOperateLogV1.setResultMsg(json);
-                try {
-                    JsonMessage<?> jsonMessage = JSONObject.parseObject(json, JsonMessage.class);
-                    int code = jsonMessage.getCode();
-                    userOperateLogV1.setOptStatus(code);
-                } catch (Exception ignored) {
+                if (value instanceof JsonMessage) {
+                    // 直接读取状态码，避免序列化后再反序列化
+                    userOperateLogV1.setOptStatus(((JsonMessage<?>) value).getCode());
+                } else {
+                    try {
+                        JsonMessage<?> jsonMessage = JSONObject.parseObject(json, JsonMessage.class);
+                        int code = jsonMessage.getCode();
+                        userOperateLogV1.setOptStatus(code);
+                    } catch (Exception ignored) {
+                    }
                 }
             }
             // 判断是否记录响应日志
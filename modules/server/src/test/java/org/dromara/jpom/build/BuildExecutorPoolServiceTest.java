@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.build;
+
+import org.dromara.jpom.configuration.BuildExtConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 构建调度
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+public class BuildExecutorPoolServiceTest {
+
+    private BuildExecutorPoolService create() {
+        BuildExtConfig buildExtConfig = new BuildExtConfig();
+        buildExtConfig.setPoolSize(1);
+        buildExtConfig.setPoolWaitQueue(10);
+        return new BuildExecutorPoolService(buildExtConfig);
+    }
+
+    @Test
+    public void testRejected() {
+        BuildExecutorPoolService service = this.create();
+        // 线程池关闭后提交的构建都会被拒绝
+        service.getThreadPoolExecutor().shutdown();
+        List<BuildExecuteManage> list = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            BuildExecuteManage manage = Mockito.mock(BuildExecuteManage.class);
+            // 和实际的取消任务一样会查询调度状态
+            Mockito.doAnswer(invocation -> {
+                service.getWaitCount();
+                service.remove(manage);
+                return null;
+            }).when(manage).rejectedExecution();
+            list.add(manage);
+            service.submit(manage);
+        }
+        for (BuildExecuteManage manage : list) {
+            Mockito.verify(manage, Mockito.times(1)).rejectedExecution();
+            Mockito.verify(manage, Mockito.never()).run();
+        }
+        // 槽位已经释放
+        Assertions.assertEquals(0, service.getRunningCount());
+        Assertions.assertEquals(0, service.getWaitCount());
+    }
+
+    @Test
+    public void testDispatch() throws InterruptedException {
+        BuildExecutorPoolService service = this.create();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        List<BuildExecuteManage> list = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            BuildExecuteManage manage = Mockito.mock(BuildExecuteManage.class);
+            Mockito.doAnswer(invocation -> {
+                release.await(10, TimeUnit.SECONDS);
+                done.countDown();
+                return null;
+            }).when(manage).run();
+            list.add(manage);
+            service.submit(manage);
+        }
+        // 只有一个槽位
+        Assertions.assertEquals(1, service.getRunningCount());
+        Assertions.assertEquals(2, service.getWaitCount());
+        release.countDown();
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (BuildExecuteManage manage : list) {
+            Mockito.verify(manage, Mockito.never()).rejectedExecution();
+        }
+        service.getThreadPoolExecutor().shutdown();
+    }
+}
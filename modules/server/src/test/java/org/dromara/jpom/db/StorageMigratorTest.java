@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.db;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import com.alibaba.fastjson2.JSONObject;
+import lombok.Data;
+import org.dromara.jpom.ApplicationStartTest;
+import org.dromara.jpom.system.JpomRuntimeException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * h2 数据迁移，断点续迁和校验和
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+public class StorageMigratorTest extends ApplicationStartTest {
+
+    private static final String CREATE_SQL = "create table MIGRATE_TEST (ID varchar(50) primary key, NAME varchar(100), ENABLED tinyint, SCORE {})";
+    private static final int ROWS = 25;
+
+    private final Collection<Class<?>> classes = CollUtil.newArrayList(MigrateTestModel.class);
+    private JdbcDataSource source;
+    private JdbcDataSource target;
+    private File checkpointFile;
+
+    @BeforeEach
+    public void before() throws SQLException {
+        checkpointFile = FileUtil.file(StorageServiceFactory.dbLocalPath(), "migrate-h2.checkpoint.json");
+        FileUtil.del(checkpointFile);
+        long nanoTime = System.nanoTime();
+        source = this.createDataSource("migrate-source-" + nanoTime);
+        target = this.createDataSource("migrate-target-" + nanoTime);
+        this.execute(source, StrUtil.format(CREATE_SQL, "double"));
+        for (int i = 0; i < ROWS; i++) {
+            this.execute(source, StrUtil.format("insert into MIGRATE_TEST values ('{}', 'name-{}', {}, {})", this.id(i), i, i % 2, i + 0.25));
+        }
+    }
+
+    @AfterEach
+    public void after() throws SQLException {
+        FileUtil.del(checkpointFile);
+        this.execute(source, "shutdown");
+        this.execute(target, "shutdown");
+    }
+
+    private JdbcDataSource createDataSource(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";MODE=MYSQL;DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    private StorageMigrator createMigrator() {
+        DbExtConfig config = new DbExtConfig();
+        config.setUrl(target.getURL());
+        config.setMigrateBatchSize(10);
+        return new StorageMigrator(source, target, config, DbExtConfig.Mode.MYSQL);
+    }
+
+    private String id(int i) {
+        return StrUtil.format("id-{}", StrUtil.padPre(String.valueOf(i), 2, '0'));
+    }
+
+    private void execute(JdbcDataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private String queryName(JdbcDataSource dataSource, String id) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select NAME from MIGRATE_TEST where ID='" + id + "'")) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+
+    private long count(JdbcDataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select count(1) from MIGRATE_TEST")) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    private JSONObject tableCheckpoint() {
+        JSONObject checkpoint = JSONObject.parseObject(FileUtil.readUtf8String(checkpointFile));
+        return checkpoint.getJSONObject("tables").getJSONObject("MIGRATE_TEST");
+    }
+
+    @Test
+    public void testMigrate() throws Exception {
+        this.execute(target, StrUtil.format(CREATE_SQL, "double"));
+        long total = this.createMigrator().migrate("test.sql", classes, 2, true);
+        Assertions.assertEquals(ROWS, total);
+        Assertions.assertEquals(ROWS, this.count(target));
+        // 迁移完成后删除进度
+        Assertions.assertFalse(checkpointFile.exists());
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        this.execute(target, StrUtil.format(CREATE_SQL, "double"));
+        // 第二段写入时主键冲突，模拟已经提交但是没有记录进度的一段
+        this.execute(target, StrUtil.format("insert into MIGRATE_TEST values ('{}', 'stale', 0, 0)", this.id(15)));
+        StorageMigrator migrator = this.createMigrator();
+        Assertions.assertThrows(SQLException.class, () -> migrator.migrate("test.sql", classes, 1, true));
+        JSONObject item = this.tableCheckpoint();
+        Assertions.assertEquals(10, item.getLongValue("rows"));
+        Assertions.assertEquals(this.id(9), item.getString("lastId"));
+        Assertions.assertFalse(item.getBooleanValue("done"));
+        //
+        StorageMigrator resume = this.createMigrator();
+        Assertions.assertEquals("test.sql", resume.resumeBackupSql());
+        long total = resume.migrate("test.sql", classes, 1, true);
+        Assertions.assertEquals(ROWS, total);
+        Assertions.assertEquals(ROWS, this.count(target));
+        // 续迁时先删除记录之后的一段
+        Assertions.assertEquals("name-15", this.queryName(target, this.id(15)));
+        Assertions.assertFalse(checkpointFile.exists());
+    }
+
+    @Test
+    public void testChecksumMismatch() throws Exception {
+        // 目标表精度不足，行数一致但是数据不一致
+        this.execute(target, StrUtil.format(CREATE_SQL, "decimal(10,1)"));
+        Assertions.assertThrows(JpomRuntimeException.class, () -> this.createMigrator().migrate("test.sql", classes, 1, true));
+        Assertions.assertTrue(this.tableCheckpoint().getBooleanValue("reset"));
+        // 修正目标表后清空重新迁移
+        this.execute(target, "alter table MIGRATE_TEST alter column SCORE double");
+        long total = this.createMigrator().migrate("test.sql", classes, 1, true);
+        Assertions.assertEquals(ROWS, total);
+        Assertions.assertEquals(ROWS, this.count(target));
+        Assertions.assertFalse(checkpointFile.exists());
+    }
+
+    @Test
+    public void testCountOnly() throws Exception {
+        // 不对比校验和时只检查行数
+        this.execute(target, StrUtil.format(CREATE_SQL, "decimal(10,1)"));
+        long total = this.createMigrator().migrate("test.sql", classes, 1, false);
+        Assertions.assertEquals(ROWS, total);
+        List<String> ids = CollUtil.newArrayList(this.id(0), this.id(ROWS - 1));
+        for (String id : ids) {
+            Assertions.assertEquals(this.queryName(source, id), this.queryName(target, id));
+        }
+    }
+
+    @TableName(value = "MIGRATE_TEST", nameKey = "i18n.ssh_info.ebe6")
+    @Data
+    public static class MigrateTestModel {
+        private String id;
+        private String name;
+        private Boolean enabled;
+        private Double score;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.func.system.service;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.ReflectUtil;
+import org.dromara.jpom.ApplicationStartTest;
+import org.dromara.jpom.common.JpomManifest;
+import org.dromara.jpom.configuration.ClusterConfig;
+import org.dromara.jpom.func.assets.model.MachineNodeModel;
+import org.dromara.jpom.system.ServerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 集群工作分片
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+public class ClusterInfoServiceTest extends ApplicationStartTest {
+
+    @Resource
+    private ClusterInfoService clusterInfoService;
+    @Resource
+    private ServerConfig serverConfig;
+
+    private String installId;
+    private Object multiServer;
+    private Object liveMembers;
+    private boolean workSharding;
+
+    @BeforeEach
+    public void before() {
+        installId = JpomManifest.getInstance().getInstallId();
+        multiServer = ReflectUtil.getFieldValue(clusterInfoService, "multiServer");
+        liveMembers = ReflectUtil.getFieldValue(clusterInfoService, "liveMembers");
+        ClusterConfig cluster = serverConfig.getCluster();
+        workSharding = cluster.isWorkSharding();
+        cluster.setWorkSharding(true);
+        ReflectUtil.setFieldValue(clusterInfoService, "multiServer", true);
+    }
+
+    @AfterEach
+    public void after() {
+        serverConfig.getCluster().setWorkSharding(workSharding);
+        ReflectUtil.setFieldValue(clusterInfoService, "multiServer", multiServer);
+        ReflectUtil.setFieldValue(clusterInfoService, "liveMembers", liveMembers);
+    }
+
+    private List<MachineNodeModel> assets() {
+        List<MachineNodeModel> list = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            MachineNodeModel model = new MachineNodeModel();
+            model.setId("asset-" + i);
+            list.add(model);
+        }
+        return list;
+    }
+
+    private List<String> owned(String... members) {
+        List<String> list = CollUtil.newArrayList(members);
+        list.sort(String::compareTo);
+        ReflectUtil.setFieldValue(clusterInfoService, "liveMembers", list);
+        return clusterInfoService.filterOwned(this.assets())
+            .stream()
+            .map(MachineNodeModel::getId)
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testNotSharding() {
+        serverConfig.getCluster().setWorkSharding(false);
+        List<MachineNodeModel> assets = this.assets();
+        Assertions.assertSame(assets, clusterInfoService.filterOwned(assets));
+    }
+
+    @Test
+    public void testSingleMember() {
+        Assertions.assertEquals(200, this.owned(installId).size());
+        // 自身心跳异常（不在租约有效的成员中）时仍然参与分配
+        Assertions.assertEquals(200, this.owned().size());
+    }
+
+    @Test
+    public void testSharding() {
+        List<String> owned = this.owned(installId, "member-a", "member-b");
+        // 分配结果稳定
+        Assertions.assertEquals(owned, this.owned(installId, "member-a", "member-b"));
+        Assertions.assertTrue(owned.size() > 20 && owned.size() < 120, "owned " + owned.size());
+        // 成员离开后只接管离开成员的资产，已经负责的资产不变
+        List<String> afterLeave = this.owned(installId, "member-a");
+        Assertions.assertTrue(afterLeave.containsAll(owned));
+        Assertions.assertTrue(afterLeave.size() > owned.size());
+        // 成员加入后只让出部分资产
+        List<String> afterJoin = this.owned(installId, "member-a", "member-b", "member-c");
+        Assertions.assertTrue(owned.containsAll(afterJoin));
+    }
+}
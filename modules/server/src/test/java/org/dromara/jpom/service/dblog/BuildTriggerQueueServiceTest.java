@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.service.dblog;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.date.SystemClock;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.RandomUtil;
+import org.dromara.jpom.ApplicationStartTest;
+import org.dromara.jpom.common.BaseServerController;
+import org.dromara.jpom.common.Const;
+import org.dromara.jpom.common.ServerOpenApi;
+import org.dromara.jpom.model.data.BuildInfoModel;
+import org.dromara.jpom.model.data.BuildTriggerQueueModel;
+import org.dromara.jpom.model.user.UserModel;
+import org.dromara.jpom.service.user.TriggerTokenLogServer;
+import org.dromara.jpom.service.user.UserBindWorkspaceService;
+import org.dromara.jpom.service.user.UserService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 构建触发器队列
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+public class BuildTriggerQueueServiceTest extends ApplicationStartTest {
+
+    @Resource
+    private BuildTriggerQueueService buildTriggerQueueService;
+    @Resource
+    private BuildInfoService buildInfoService;
+    @Resource
+    private UserService userService;
+    @Resource
+    private UserBindWorkspaceService userBindWorkspaceService;
+    @Resource
+    private TriggerTokenLogServer triggerTokenLogServer;
+
+    @Test
+    public void testOfferByTrigger() throws Exception {
+        UserModel userModel = new UserModel();
+        userModel.setId("test" + RandomUtil.randomNumbers(10));
+        userModel.setName(userModel.getId());
+        userModel.setParent(UserModel.SYSTEM_ADMIN);
+        userModel.setSystemUser(0);
+        BuildInfoModel buildInfoModel = new BuildInfoModel();
+        buildInfoModel.setId(IdUtil.fastSimpleUUID());
+        buildInfoModel.setName("test-trigger-queue");
+        buildInfoModel.setWorkspaceId(Const.WORKSPACE_DEFAULT_ID);
+        // 仓库不存在，启动构建会失败
+        buildInfoModel.setRepositoryId(IdUtil.fastSimpleUUID());
+        BaseServerController.resetInfo(UserModel.EMPTY);
+        try {
+            userService.insert(userModel);
+            userBindWorkspaceService.updateUserWorkspace(userModel.getId(), CollUtil.newArrayList(Const.WORKSPACE_DEFAULT_ID));
+            String token = triggerTokenLogServer.restToken(null, buildInfoService.typeName(), buildInfoModel.getId(), userModel.getId());
+            buildInfoModel.setTriggerToken(token);
+            buildInfoService.insert(buildInfoModel);
+        } finally {
+            BaseServerController.removeAll();
+        }
+        // 触发器接口没有登录信息
+        String url = ServerOpenApi.BUILD_TRIGGER_BUILD2
+            .replace("{id}", buildInfoModel.getId())
+            .replace("{token}", buildInfoModel.getTriggerToken());
+        mockMvc.perform(MockMvcRequestBuilders.post(url).param("useQueue", "true"))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.code").value(200));
+        // 没有仓库的构建启动失败，重新入队
+        List<BuildTriggerQueueModel> queue = buildTriggerQueueService.listByBuild(buildInfoModel.getId());
+        Assertions.assertEquals(1, queue.size());
+        Assertions.assertEquals(userModel.getId(), queue.get(0).getCreateUser());
+        Assertions.assertEquals(1, queue.get(0).getFailCount());
+        // 没有构建结束事件，延迟自动重试
+        long end = SystemClock.now() + TimeUnit.SECONDS.toMillis(15);
+        while (SystemClock.now() < end && this.failCount(buildInfoModel.getId()) < 2) {
+            ThreadUtil.sleep(200);
+        }
+        Assertions.assertEquals(2, this.failCount(buildInfoModel.getId()));
+        // 多次启动失败后移除
+        buildTriggerQueueService.dispatch(buildInfoModel.getId());
+        Assertions.assertTrue(buildTriggerQueueService.listByBuild(buildInfoModel.getId()).isEmpty());
+    }
+
+    private int failCount(String buildId) {
+        BuildTriggerQueueModel queueModel = CollUtil.getFirst(buildTriggerQueueService.listByBuild(buildId));
+        return queueModel == null ? 0 : queueModel.getFailCount();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.service.dblog;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.RandomUtil;
+import org.dromara.jpom.ApplicationStartTest;
+import org.dromara.jpom.common.BaseServerController;
+import org.dromara.jpom.common.Const;
+import org.dromara.jpom.model.log.UserOperateLogV1;
+import org.dromara.jpom.model.user.UserModel;
+import org.dromara.jpom.permission.ClassFeature;
+import org.dromara.jpom.permission.MethodFeature;
+import org.dromara.jpom.service.user.UserBindWorkspaceService;
+import org.dromara.jpom.system.init.OperateLogController;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Resource;
+
+/**
+ * 操作日志批量写入
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+public class DbUserOperateLogServiceTest extends ApplicationStartTest {
+
+    @Resource
+    private DbUserOperateLogService dbUserOperateLogService;
+    @Resource
+    private UserBindWorkspaceService userBindWorkspaceService;
+
+    @Test
+    public void testBatchWriteNotAdmin() {
+        UserModel userModel = new UserModel();
+        userModel.setId("test" + RandomUtil.randomNumbers(10));
+        userModel.setSystemUser(0);
+        userBindWorkspaceService.updateUserWorkspace(userModel.getId(), CollUtil.newArrayList(Const.WORKSPACE_DEFAULT_ID));
+        //
+        UserOperateLogV1 userOperateLogV1 = new UserOperateLogV1();
+        userOperateLogV1.setWorkspaceId(Const.WORKSPACE_DEFAULT_ID);
+        userOperateLogV1.setUserId(userModel.getId());
+        userOperateLogV1.setClassFeature(ClassFeature.PROJECT.name());
+        userOperateLogV1.setMethodFeature(MethodFeature.EDIT.name());
+        OperateLogController.CacheInfo cacheInfo = new OperateLogController.CacheInfo();
+        cacheInfo.setWorkspaceId(Const.WORKSPACE_DEFAULT_ID);
+        // 请求线程中有用户信息，写入线程中没有
+        BaseServerController.resetInfo(userModel);
+        try {
+            dbUserOperateLogService.insert(userOperateLogV1, cacheInfo);
+        } finally {
+            BaseServerController.removeAll();
+        }
+        UserOperateLogV1 saved = null;
+        for (int i = 0; i < 100 && saved == null; i++) {
+            ThreadUtil.sleep(100);
+            saved = dbUserOperateLogService.getByKey(userOperateLogV1.getId());
+        }
+        Assertions.assertNotNull(saved);
+        Assertions.assertEquals(userModel.getId(), saved.getModifyUser());
+        Assertions.assertEquals(0L, dbUserOperateLogService.queueStat().get("failedCount"));
+    }
+}
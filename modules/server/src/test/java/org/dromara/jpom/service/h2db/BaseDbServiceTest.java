@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.service.h2db;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.IdUtil;
+import org.dromara.jpom.ApplicationStartTest;
+import org.dromara.jpom.common.BaseServerController;
+import org.dromara.jpom.common.Const;
+import org.dromara.jpom.model.data.SshModel;
+import org.dromara.jpom.model.user.UserModel;
+import org.dromara.jpom.service.node.ssh.SshService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 批量写入字段不一致的数据
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+public class BaseDbServiceTest extends ApplicationStartTest {
+
+    @Resource
+    private SshService sshService;
+
+    @BeforeEach
+    public void before() {
+        BaseServerController.resetInfo(UserModel.EMPTY);
+    }
+
+    @AfterEach
+    public void after() {
+        BaseServerController.removeAll();
+    }
+
+    private SshModel create(Integer timeout) {
+        SshModel sshModel = new SshModel();
+        sshModel.setId(IdUtil.fastSimpleUUID());
+        sshModel.setName("test-batch");
+        sshModel.setHost("127.0.0.1");
+        sshModel.setPort(22);
+        sshModel.setUser("root");
+        sshModel.setWorkspaceId(Const.WORKSPACE_DEFAULT_ID);
+        sshModel.setTimeout(timeout);
+        return sshModel;
+    }
+
+    @Test
+    public void testInsertBatchDefaultValue() {
+        SshModel withTimeout = this.create(10);
+        SshModel withoutTimeout = this.create(null);
+        sshService.insertBatch(CollUtil.newArrayList(withTimeout, withoutTimeout));
+        Assertions.assertEquals(10, sshService.getByKey(withTimeout.getId()).getTimeout());
+        // 没有赋值的字段使用数据库默认值
+        Assertions.assertEquals(0, sshService.getByKey(withoutTimeout.getId()).getTimeout());
+    }
+
+    @Test
+    public void testUpsertBatchDefaultValue() {
+        SshModel exist = this.create(10);
+        sshService.insert(exist);
+        //
+        SshModel update = this.create(null);
+        update.setId(exist.getId());
+        update.setName("test-batch-update");
+        SshModel insert = this.create(null);
+        SshModel insertTimeout = this.create(20);
+        sshService.upsertBatch(CollUtil.newArrayList(update, insert, insertTimeout));
+        SshModel saved = sshService.getByKey(exist.getId());
+        Assertions.assertEquals("test-batch-update", saved.getName());
+        // 值为 null 的字段保留原值
+        Assertions.assertEquals(10, saved.getTimeout());
+        Assertions.assertEquals(0, sshService.getByKey(insert.getId()).getTimeout());
+        Assertions.assertEquals(20, sshService.getByKey(insertTimeout.getId()).getTimeout());
+    }
+
+    @Test
+    public void testUpsertBatchStaleIds() {
+        List<SshModel> list = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            list.add(this.create(null));
+        }
+        sshService.insertBatch(list);
+        SshModel keep = this.create(30);
+        List<String> staleIds = list.stream().map(SshModel::getId).collect(Collectors.toList());
+        // 超过单条 sql 的主键个数，分批删除
+        int count = sshService.upsertBatch(CollUtil.newArrayList(keep), staleIds);
+        Assertions.assertEquals(1200, count);
+        Assertions.assertNull(sshService.getByKey(list.get(0).getId()));
+        Assertions.assertNull(sshService.getByKey(list.get(1199).getId()));
+        Assertions.assertEquals(30, sshService.getByKey(keep.getId()).getTimeout());
+    }
+}
@@ -9,8 +9,6 @@
  */
 package org.dromara.jpom.db;
 
-import cn.hutool.core.bean.BeanUtil;
-import cn.hutool.core.bean.copier.CopyOptions;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.PageUtil;
 import cn.hutool.core.util.StrUtil;
@@ -18,7 +16,6 @@ import cn.hutool.core.util.TypeUtil;
 import cn.hutool.db.Db;
 import cn.hutool.db.Entity;
 import cn.hutool.db.Page;
-import cn.hutool.db.PageResult;
 import cn.hutool.db.ds.DSFactory;
 import cn.hutool.db.sql.Condition;
 import cn.hutool.extra.spring.SpringUtil;
@@ -31,10 +28,9 @@ import org.dromara.jpom.system.JpomRuntimeException;
 import org.springframework.util.Assert;
 
 import javax.sql.DataSource;
-import java.util.Collection;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -56,6 +52,14 @@ public abstract class BaseDbCommonService<T> {
      * String const
      */
     public static final String ID_STR = "id";
+    /**
+     * 批量 upsert 每批提交的数据条数，批量删除时每条 sql 的主键个数
+     */
+    private static final int UPSERT_BATCH_SIZE = 500;
+    /**
+     * 表数据修改版本号，每次写入数据后递增，用于判断基于表数据的缓存是否失效
+     */
+    private static final Map<String, AtomicLong> TABLE_MODIFY_VERSION = new ConcurrentHashMap<>();
 
     /**
      * 表名
@@ -64,6 +68,11 @@ public abstract class BaseDbCommonService<T> {
     protected final String tableName;
     protected final Class<T> tClass;
     protected final DbExtConfig.Mode dbMode;
+    private final EntityMapper<T> entityMapper;
+    /**
+     * 实体属性对应的数据库字段名（已经包裹）
+     */
+    private volatile String[] columnNames;
 
     @SuppressWarnings("unchecked")
     public BaseDbCommonService() {
@@ -72,6 +81,22 @@ public abstract class BaseDbCommonService<T> {
         Assert.notNull(annotation, I18nMessageUtil.get("i18n.configure_table_name.f6fd"));
         this.tableName = annotation.value();
         this.dbMode = SpringUtil.getBean(DbExtConfig.class).getMode();
+        this.entityMapper = EntityMapper.of(tClass);
+    }
+
+    /**
+     * 获取表数据修改版本号
+     *
+     * @param tableName 表名
+     * @return 版本号，版本号变化表示表数据有写入
+     */
+    public static long getModifyVersion(String tableName) {
+        AtomicLong version = TABLE_MODIFY_VERSION.get(tableName);
+        return version == null ? 0 : version.get();
+    }
+
+    private void incrementModifyVersion() {
+        TABLE_MODIFY_VERSION.computeIfAbsent(tableName, s -> new AtomicLong()).incrementAndGet();
     }
 
     public String getDataDesc() {
@@ -97,6 +122,8 @@ public abstract class BaseDbCommonService<T> {
             return db.insert(entity);
         } catch (Exception e) {
             throw warpException(e);
+        } finally {
+            this.incrementModifyVersion();
         }
     }
 
@@ -115,9 +142,117 @@ public abstract class BaseDbCommonService<T> {
             db.insert(entities);
         } catch (Exception e) {
             throw warpException(e);
+        } finally {
+            this.incrementModifyVersion();
         }
     }
 
+    /**
+     * 批量插入数据，所有数据在一个事务中使用 JDBC batch 提交
+     *
+     * @param t 数据
+     */
+    protected final void insertBatchDb(Collection<T> t) {
+        if (CollUtil.isEmpty(t)) {
+            return;
+        }
+        List<Entity> entities = t.stream().map(this::dataBeanToEntity).collect(Collectors.toList());
+        Collection<List<Entity>> groups = this.groupByColumns(entities).values();
+        Db db = Db.use(this.getDataSource(), DialectUtil.getDialectByMode(dbMode));
+        try {
+            db.tx(db1 -> {
+                for (List<Entity> group : groups) {
+                    db1.insert(group);
+                }
+            });
+        } catch (Exception e) {
+            throw warpException(e);
+        } finally {
+            this.incrementModifyVersion();
+        }
+    }
+
+    /**
+     * 批量 upsert 数据并删除过期数据，在一个事务中执行
+     * <p>
+     * 按主键判断，存在则更新（值为 null 的字段保留原值，updateIgnoreColumns 中的字段不更新），不存在则插入。
+     * 数据按 JDBC batch 分批提交，过期数据使用一条 delete 语句删除
+     *
+     * @param t                   数据
+     * @param updateIgnoreColumns 更新时忽略的字段
+     * @param staleIds            需要删除的数据主键
+     * @return 删除的数据条数
+     */
+    protected final int upsertBatchDb(Collection<T> t, Collection<String> updateIgnoreColumns, Collection<String> staleIds) {
+        if (CollUtil.isEmpty(t) && CollUtil.isEmpty(staleIds)) {
+            return 0;
+        }
+        String wrapTableName = DialectUtil.wrapField(tableName);
+        String primaryKey = DialectUtil.wrapField(ID_STR);
+        Set<String> ignoreColumns = new HashSet<>();
+        ignoreColumns.add(primaryKey);
+        if (updateIgnoreColumns != null) {
+            updateIgnoreColumns.forEach(s -> ignoreColumns.add(DialectUtil.wrapField(s)));
+        }
+        // 每组字段相同的数据生成一条 sql
+        Map<String, List<Object[]>> upsertParams = new LinkedHashMap<>();
+        if (CollUtil.isNotEmpty(t)) {
+            List<Entity> entities = t.stream().map(this::dataBeanToEntity).collect(Collectors.toList());
+            for (Map.Entry<Set<String>, List<Entity>> entry : this.groupByColumns(entities).entrySet()) {
+                List<String> columns = new ArrayList<>(entry.getKey());
+                Assert.state(columns.contains(primaryKey), I18nMessageUtil.get("i18n.cannot_execute_error.4c29"));
+                List<String> updateColumns = columns.stream()
+                    .filter(s -> !ignoreColumns.contains(s))
+                    .collect(Collectors.toList());
+                String upsertSql = StorageTableFactory.get().generateUpsertSql(wrapTableName, primaryKey, columns, updateColumns);
+                List<Object[]> params = entry.getValue().stream()
+                    .map(entity -> columns.stream().map(entity::get).toArray())
+                    .collect(Collectors.toList());
+                upsertParams.put(upsertSql, params);
+            }
+        }
+        Db db = Db.use(this.getDataSource(), DialectUtil.getDialectByMode(dbMode));
+        try {
+            int[] deleteCount = new int[1];
+            db.tx(db1 -> {
+                for (Map.Entry<String, List<Object[]>> entry : upsertParams.entrySet()) {
+                    for (List<Object[]> batch : CollUtil.split(entry.getValue(), UPSERT_BATCH_SIZE)) {
+                        db1.executeBatch(entry.getKey(), batch);
+                    }
+                }
+                if (CollUtil.isNotEmpty(staleIds)) {
+                    // 分批删除，避免 in 参数过多超过数据库的限制
+                    for (List<String> ids : CollUtil.split(staleIds, UPSERT_BATCH_SIZE)) {
+                        String in = ids.stream().map(s -> "?").collect(Collectors.joining(StrUtil.COMMA));
+                        String sql = StrUtil.format("delete from {} where {} in ({})", wrapTableName, primaryKey, in);
+                        deleteCount[0] += db1.execute(sql, ids.toArray());
+                    }
+                }
+            });
+            return deleteCount[0];
+        } catch (Exception e) {
+            throw warpException(e);
+        } finally {
+            this.incrementModifyVersion();
+        }
+    }
+
+    /**
+     * hutool 批量插入按第一条数据的字段生成 sql，这里按数据实际的字段分组，每组使用相同的字段列表。
+     * <p>
+     * 不能补 null 值合并字段，否则没有赋值的字段不会使用数据库的默认值（NOT NULL 字段还会插入失败）
+     *
+     * @param entities 数据
+     * @return 字段 -> 数据
+     */
+    private Map<Set<String>, List<Entity>> groupByColumns(List<Entity> entities) {
+        Map<Set<String>, List<Entity>> groups = new LinkedHashMap<>();
+        for (Entity entity : entities) {
+            groups.computeIfAbsent(new LinkedHashSet<>(entity.keySet()), key -> new ArrayList<>()).add(entity);
+        }
+        return groups;
+    }
+
     /**
      * 实体转 entity
      *
@@ -126,12 +261,28 @@ public abstract class BaseDbCommonService<T> {
      */
     public Entity dataBeanToEntity(T data) {
         Entity entity = new Entity(tableName);
-        // 转换为 map
-        Map<String, Object> beanToMap = BeanUtil.beanToMap(data, new LinkedHashMap<>(), true, DialectUtil::wrapField);
-        entity.putAll(beanToMap);
+        // 转换为 map，忽略 null 值
+        String[] names = this.columnNames();
+        Object[] values = entityMapper.readValues(data);
+        for (int i = 0; i < names.length; i++) {
+            if (values[i] != null) {
+                entity.put(names[i], values[i]);
+            }
+        }
         return entity;
     }
 
+    private String[] columnNames() {
+        String[] names = columnNames;
+        if (names == null) {
+            names = Arrays.stream(entityMapper.propertyNames())
+                .map(DialectUtil::wrapField)
+                .toArray(String[]::new);
+            columnNames = names;
+        }
+        return names;
+    }
+
 
     /**
      * 修改数据
@@ -151,6 +302,8 @@ public abstract class BaseDbCommonService<T> {
             return db.update(entity, where);
         } catch (Exception e) {
             throw warpException(e);
+        } finally {
+            this.incrementModifyVersion();
         }
     }
 
@@ -168,17 +321,17 @@ public abstract class BaseDbCommonService<T> {
         }
         Entity where = new Entity(tableName);
         where.set(ID_STR, keyValue);
-        Entity entity;
+        List<T> list;
         try {
             Db db = Db.use(this.getDataSource(), DialectUtil.getDialectByMode(dbMode));
             if (consumer != null) {
                 consumer.accept(where);
             }
-            entity = db.get(where);
+            list = db.find(where, entityMapper.listHandler());
         } catch (Exception e) {
             throw warpException(e);
         }
-        return this.entityToBean(entity, fill);
+        return this.fillSelectResult(CollUtil.getFirst(list), fill);
     }
 
     /**
@@ -195,17 +348,17 @@ public abstract class BaseDbCommonService<T> {
         }
         Entity where = new Entity(tableName);
         where.set(ID_STR, keyValue);
-        List<Entity> entities;
+        List<T> list;
         try {
             Db db = Db.use(this.getDataSource(), DialectUtil.getDialectByMode(dbMode));
             if (consumer != null) {
                 consumer.accept(where);
             }
-            entities = db.find(where);
+            list = db.find(where, entityMapper.listHandler());
         } catch (Exception e) {
             throw warpException(e);
         }
-        return this.entityToBeanList(entities, fill);
+        return this.fillSelectResult(list, fill);
     }
 
     /**
@@ -224,6 +377,8 @@ public abstract class BaseDbCommonService<T> {
             return db.del(where);
         } catch (Exception e) {
             throw warpException(e);
+        } finally {
+            this.incrementModifyVersion();
         }
     }
 
@@ -274,6 +429,25 @@ public abstract class BaseDbCommonService<T> {
         }
     }
 
+    /**
+     * 查询列表，结果集直接转换为实体
+     *
+     * @param where 条件
+     * @param fill  是否填充
+     * @return List
+     */
+    public final List<T> queryBeanList(Entity where, boolean fill) {
+        where.setTableName(getTableName());
+        Db db = Db.use(this.getDataSource(), DialectUtil.getDialectByMode(dbMode));
+        List<T> list;
+        try {
+            list = db.find(where, entityMapper.listHandler());
+        } catch (Exception e) {
+            throw warpException(e);
+        }
+        return this.fillSelectResult(list, fill);
+    }
+
     /**
      * 查询列表
      *
@@ -301,14 +475,22 @@ public abstract class BaseDbCommonService<T> {
         if (entity == null) {
             return null;
         }
-        CopyOptions copyOptions = new CopyOptions();
-        copyOptions.setIgnoreError(true);
-        copyOptions.setIgnoreCase(true);
-        T toBean = BeanUtil.toBean(entity, this.tClass, copyOptions);
+        T toBean = entityMapper.toBean(entity);
+        return this.fillSelectResult(toBean, fill);
+    }
+
+    private T fillSelectResult(T data, boolean fill) {
+        if (data != null && fill) {
+            this.fillSelectResult(data);
+        }
+        return data;
+    }
+
+    private List<T> fillSelectResult(List<T> list, boolean fill) {
         if (fill) {
-            this.fillSelectResult(toBean);
+            list.forEach(this::fillSelectResult);
         }
-        return toBean;
+        return list;
     }
 
     public List<T> entityToBeanList(List<Entity> entitys) {
@@ -332,19 +514,21 @@ public abstract class BaseDbCommonService<T> {
      * @param fill  是否填充
      * @return 结果
      */
-    @SuppressWarnings({"unchecked", "rawtypes"})
     public final PageResultDto<T> listPageDb(Entity where, Page page, boolean fill) {
         where.setTableName(getTableName());
-        PageResult<Entity> pageResult;
+        long total;
+        List<T> list;
         Db db = Db.use(this.getDataSource(), DialectUtil.getDialectByMode(dbMode));
         try {
-            pageResult = db.page(where, page);
+            total = db.count(where);
+            // 没有数据不需要再查询当前页
+            list = total <= 0 ? new ArrayList<>() : db.page(where, page, entityMapper.listHandler());
         } catch (Exception e) {
             throw warpException(e);
         }
         //
-        List<T> list = this.entityToBeanList(pageResult, fill);
-        PageResultDto<T> pageResultDto = new PageResultDto(pageResult);
+        this.fillSelectResult(list, fill);
+        PageResultDto<T> pageResultDto = new PageResultDto<>(page.getPageNumber(), page.getPageSize(), (int) total);
         pageResultDto.setResult(list);
         if (pageResultDto.isEmpty() && pageResultDto.getPage() > 1) {
             Assert.state(pageResultDto.getTotal() <= 0, I18nMessageUtil.get("i18n.pagination_error.6759"));
@@ -368,6 +552,24 @@ public abstract class BaseDbCommonService<T> {
         }
     }
 
+    /**
+     * sql 查询，结果集直接转换为实体
+     *
+     * @param sql    sql 语句
+     * @param fill   是否填充
+     * @param params 参数
+     * @return list
+     */
+    public final List<T> queryBeanList(String sql, boolean fill, Object... params) {
+        List<T> list;
+        try {
+            list = Db.use(this.getDataSource(), DialectUtil.getDialectByMode(dbMode)).query(sql, entityMapper.listHandler(), params);
+        } catch (Exception e) {
+            throw warpException(e);
+        }
+        return this.fillSelectResult(list, fill);
+    }
+
     public Number queryNumber(String sql, Object... params) {
         try {
             return Db.use(this.getDataSource()).queryNumber(sql, params);
@@ -389,6 +591,8 @@ public abstract class BaseDbCommonService<T> {
             return Db.use(this.getDataSource(), DialectUtil.getDialectByMode(dbMode)).execute(sql, params);
         } catch (Exception e) {
             throw warpException(e);
+        } finally {
+            this.incrementModifyVersion();
         }
     }
 
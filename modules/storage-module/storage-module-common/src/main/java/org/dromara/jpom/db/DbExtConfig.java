@@ -48,6 +48,18 @@ public class DbExtConfig implements InitializingBean {
      * 日志记录最大条数
      */
     private Integer logStorageCount = 10000;
+    /**
+     * 操作日志异步写入队列大小
+     */
+    private int operateLogQueueSize = 5000;
+    /**
+     * 操作日志单次批量写入最大条数
+     */
+    private int operateLogBatchSize = 200;
+    /**
+     * 操作日志队列已满时最长等待时间（单位毫秒），超时后丢弃该条日志
+     */
+    private int operateLogOfferTimeout = 200;
     /**
      * 数据库默认
      */
@@ -90,6 +102,18 @@ public class DbExtConfig implements InitializingBean {
     private int maxWait = 10;
 
     private int minIdle = 1;
+    /**
+     * H2 迁移到其他数据库时每个事务批量写入的条数（中断后继续迁移以上次的条数为准）
+     */
+    private int migrateBatchSize = 1000;
+    /**
+     * H2 迁移到其他数据库时同时迁移的表数
+     */
+    private int migrateParallelism = 4;
+    /**
+     * H2 迁移完成后是否对比每张表的校验和（需要重新读取一遍目标数据），关闭后只对比行数
+     */
+    private boolean migrateVerifyChecksum = true;
     /**
      * @see cn.hutool.db.sql.SqlLog#KEY_SHOW_SQL
      */
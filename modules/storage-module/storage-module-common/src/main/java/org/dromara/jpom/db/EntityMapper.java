@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.db;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.bean.PropDesc;
+import cn.hutool.core.convert.BasicType;
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.ReflectUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.db.handler.RsHandler;
+import lombok.Lombok;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 数据库实体和行数据转换
+ * <p>
+ * 每个实体类只解析一次属性（和 hutool BeanUtil 规则一致，忽略 transient、PropIgnore），
+ * getter、setter 通过 LambdaMetafactory 生成，避免每行数据都反射和创建 CopyOptions
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@Slf4j
+public final class EntityMapper<T> {
+
+    private static final Map<Class<?>, EntityMapper<?>> CACHE = new ConcurrentHashMap<>();
+
+    private final Supplier<T> constructor;
+    /**
+     * 可读取的属性，顺序和 {@link #propertyNames()} 一致
+     */
+    private final Prop[] readProps;
+    /**
+     * 小写属性名 -> 可写入的属性
+     */
+    private final Map<String, Prop> writeProps;
+
+    private EntityMapper(Class<T> beanClass) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        this.constructor = createConstructor(lookup, beanClass);
+        Collection<PropDesc> props = BeanUtil.getBeanDesc(beanClass).getProps();
+        List<Prop> readList = new ArrayList<>(props.size());
+        Map<String, Prop> writeMap = new HashMap<>(props.size());
+        for (PropDesc propDesc : props) {
+            Prop prop = new Prop(lookup, propDesc);
+            if (prop.getter != null) {
+                readList.add(prop);
+            }
+            if (prop.setter != null) {
+                writeMap.put(prop.name.toLowerCase(), prop);
+            }
+        }
+        this.readProps = readList.toArray(new Prop[0]);
+        this.writeProps = writeMap;
+    }
+
+    /**
+     * 获取实体类的转换器
+     *
+     * @param beanClass 实体类
+     * @param <T>       实体类型
+     * @return 转换器
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EntityMapper<T> of(Class<T> beanClass) {
+        return (EntityMapper<T>) CACHE.computeIfAbsent(beanClass, aClass -> new EntityMapper<>(beanClass));
+    }
+
+    /**
+     * 可读取的属性名
+     *
+     * @return 属性名
+     */
+    public String[] propertyNames() {
+        return Arrays.stream(readProps).map(prop -> prop.name).toArray(String[]::new);
+    }
+
+    /**
+     * 读取实体的属性值
+     *
+     * @param bean 实体
+     * @return 属性值，顺序和 {@link #propertyNames()} 一致
+     */
+    public Object[] readValues(T bean) {
+        Object[] values = new Object[readProps.length];
+        for (int i = 0; i < readProps.length; i++) {
+            values[i] = readProps[i].getter.apply(bean);
+        }
+        return values;
+    }
+
+    /**
+     * map 转实体，字段名忽略大小写
+     *
+     * @param row 行数据
+     * @return 实体
+     */
+    public T toBean(Map<String, Object> row) {
+        T bean = constructor.get();
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            Prop prop = this.findProp(entry.getKey());
+            if (prop != null) {
+                prop.set(bean, entry.getValue());
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * 结果集转实体列表
+     *
+     * @param rs 结果集
+     * @return list
+     * @throws SQLException 读取异常
+     */
+    public List<T> toBeanList(ResultSet rs) throws SQLException {
+        Prop[] columns = this.resolveColumns(rs.getMetaData());
+        List<T> list = new ArrayList<>();
+        while (rs.next()) {
+            list.add(this.toBean(rs, columns));
+        }
+        return list;
+    }
+
+    /**
+     * 结果集转实体列表
+     *
+     * @return RsHandler
+     */
+    public RsHandler<List<T>> listHandler() {
+        return this::toBeanList;
+    }
+
+    private Prop[] resolveColumns(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        Prop[] columns = new Prop[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = this.findProp(metaData.getColumnLabel(i + 1));
+        }
+        return columns;
+    }
+
+    private T toBean(ResultSet rs, Prop[] columns) throws SQLException {
+        T bean = constructor.get();
+        for (int i = 0; i < columns.length; i++) {
+            Prop prop = columns[i];
+            if (prop != null) {
+                prop.set(bean, rs.getObject(i + 1));
+            }
+        }
+        return bean;
+    }
+
+    private Prop findProp(String column) {
+        if (column == null) {
+            return null;
+        }
+        String key = column.toLowerCase();
+        Prop prop = writeProps.get(key);
+        if (prop == null && StrUtil.contains(key, StrUtil.C_UNDERLINE)) {
+            // 兼容下划线字段
+            prop = writeProps.get(StrUtil.toCamelCase(key).toLowerCase());
+        }
+        return prop;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> createConstructor(MethodHandles.Lookup lookup, Class<T> beanClass) {
+        try {
+            Constructor<T> declaredConstructor = beanClass.getDeclaredConstructor();
+            MethodHandle handle = lookup.unreflectConstructor(declaredConstructor);
+            CallSite callSite = LambdaMetafactory.metafactory(lookup, "get",
+                MethodType.methodType(Supplier.class),
+                MethodType.methodType(Object.class),
+                handle,
+                MethodType.methodType(beanClass));
+            return (Supplier<T>) callSite.getTarget().invoke();
+        } catch (Throwable e) {
+            log.debug("create constructor fallback {} {}", beanClass, e.getMessage());
+            return () -> ReflectUtil.newInstanceIfPossible(beanClass);
+        }
+    }
+
+    private static class Prop {
+        private final String name;
+        private final Type type;
+        private final Class<?> typeClass;
+        private final Function<Object, Object> getter;
+        private final BiConsumer<Object, Object> setter;
+
+        private Prop(MethodHandles.Lookup lookup, PropDesc propDesc) {
+            this.name = propDesc.getFieldName();
+            this.type = propDesc.getFieldType();
+            this.typeClass = propDesc.getFieldClass();
+            this.getter = propDesc.isReadable(true) ? createGetter(lookup, propDesc) : null;
+            this.setter = propDesc.isWritable(true) ? createSetter(lookup, propDesc) : null;
+        }
+
+        private void set(Object bean, Object value) {
+            if (value != null && !typeClass.isInstance(value)) {
+                // 类型不一致转换，转换失败忽略（和 CopyOptions.ignoreError 一致）
+                value = Convert.convertWithCheck(type, value, null, true);
+            }
+            if (value == null && typeClass.isPrimitive()) {
+                return;
+            }
+            try {
+                setter.accept(bean, value);
+            } catch (RuntimeException e) {
+                log.debug("set property error {} {}", name, e.getMessage());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Function<Object, Object> createGetter(MethodHandles.Lookup lookup, PropDesc propDesc) {
+            Method method = propDesc.getGetter();
+            if (method == null) {
+                return createFieldGetter(lookup, propDesc.getField());
+            }
+            try {
+                MethodHandle handle = lookup.unreflect(method);
+                CallSite callSite = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    MethodType.methodType(BasicType.wrap(method.getReturnType()), method.getDeclaringClass()));
+                return (Function<Object, Object>) callSite.getTarget().invoke();
+            } catch (Throwable e) {
+                // 类加载器不一致等情况使用 MethodHandle
+                log.debug("create getter fallback {} {}", method, e.getMessage());
+                ReflectUtil.setAccessible(method);
+                try {
+                    MethodHandle handle = lookup.unreflect(method).asType(MethodType.methodType(Object.class, Object.class));
+                    return bean -> invoke(handle, bean);
+                } catch (IllegalAccessException ex) {
+                    throw Lombok.sneakyThrow(ex);
+                }
+            }
+        }
+
+        private static Function<Object, Object> createFieldGetter(MethodHandles.Lookup lookup, Field field) {
+            ReflectUtil.setAccessible(field);
+            try {
+                MethodHandle handle = lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+                return bean -> invoke(handle, bean);
+            } catch (IllegalAccessException e) {
+                throw Lombok.sneakyThrow(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static BiConsumer<Object, Object> createSetter(MethodHandles.Lookup lookup, PropDesc propDesc) {
+            Method method = propDesc.getSetter();
+            if (method == null) {
+                return createFieldSetter(lookup, propDesc.getField());
+            }
+            try {
+                MethodHandle handle = lookup.unreflect(method);
+                CallSite callSite = LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    handle,
+                    MethodType.methodType(void.class, method.getDeclaringClass(), BasicType.wrap(method.getParameterTypes()[0])));
+                return (BiConsumer<Object, Object>) callSite.getTarget().invoke();
+            } catch (Throwable e) {
+                log.debug("create setter fallback {} {}", method, e.getMessage());
+                ReflectUtil.setAccessible(method);
+                try {
+                    MethodHandle handle = lookup.unreflect(method).asType(MethodType.methodType(void.class, Object.class, Object.class));
+                    return (bean, value) -> invoke(handle, bean, value);
+                } catch (IllegalAccessException ex) {
+                    throw Lombok.sneakyThrow(ex);
+                }
+            }
+        }
+
+        private static BiConsumer<Object, Object> createFieldSetter(MethodHandles.Lookup lookup, Field field) {
+            ReflectUtil.setAccessible(field);
+            try {
+                MethodHandle handle = lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+                return (bean, value) -> invoke(handle, bean, value);
+            } catch (IllegalAccessException e) {
+                throw Lombok.sneakyThrow(e);
+            }
+        }
+
+        private static Object invoke(MethodHandle handle, Object... args) {
+            try {
+                return handle.invokeWithArguments(args);
+            } catch (Throwable e) {
+                throw Lombok.sneakyThrow(e);
+            }
+        }
+    }
+}
@@ -11,6 +11,7 @@ package org.dromara.jpom.db;
 
 import cn.hutool.core.util.StrUtil;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -64,6 +65,19 @@ public interface IStorageSqlBuilderService extends IMode {
         return generateColumnSql(tableViewRowData);
     }
 
+    /**
+     * 生成批量 upsert sql（单行参数，配合 JDBC batch 使用）
+     * <p>
+     * 主键存在则更新 updateColumns 中的字段（新值为 null 时保留原值），不存在则插入
+     *
+     * @param tableName     表名（已经包裹）
+     * @param primaryKey    主键字段（已经包裹）
+     * @param columns       插入的字段，参数顺序和字段顺序一致（已经包裹）
+     * @param updateColumns 主键存在时需要更新的字段（已经包裹）
+     * @return sql
+     */
+    String generateUpsertSql(String tableName, String primaryKey, List<String> columns, Collection<String> updateColumns);
+
     /**
      * sql 分隔执行标记
      *
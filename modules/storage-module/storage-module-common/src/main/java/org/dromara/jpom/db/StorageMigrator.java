@@ -0,0 +1,510 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.db;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.bean.PropDesc;
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.CharsetUtil;
+import cn.hutool.core.util.ReflectUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.db.sql.Wrapper;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.jpom.common.i18n.I18nMessageUtil;
+import org.dromara.jpom.dialect.DialectUtil;
+import org.dromara.jpom.system.JpomRuntimeException;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * H2 数据迁移到其他数据库
+ * <p>
+ * 按主键分段读取，每段在一个事务中使用 JDBC 批量写入（明确指定列），表之间并行迁移。每段提交后记录迁移进度，
+ * 中断后再次迁移时从记录的位置继续（记录之后可能已经提交的一段会先删除再写入）。全部迁移完成后对比每张表的行数和校验和
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+@Slf4j
+public class StorageMigrator {
+
+    private static final String CHECKPOINT_FILE = "migrate-h2.checkpoint.json";
+    private static final String ID = "id";
+
+    private final DataSource sourceDataSource;
+    private final DataSource targetDataSource;
+    private final DbExtConfig.Mode targetMode;
+    private final Wrapper sourceWrapper;
+    private final Wrapper targetWrapper;
+    private final File checkpointFile;
+    private final String target;
+    private JSONObject checkpoint;
+    private int batchSize;
+
+    public StorageMigrator(DataSource sourceDataSource, DataSource targetDataSource, DbExtConfig dbExtConfig, DbExtConfig.Mode targetMode) {
+        this.sourceDataSource = sourceDataSource;
+        this.targetDataSource = targetDataSource;
+        this.targetMode = targetMode;
+        this.sourceWrapper = DialectUtil.getH2Dialect().getWrapper();
+        this.targetWrapper = DialectUtil.getDialectByMode(targetMode).getWrapper();
+        this.checkpointFile = FileUtil.file(StorageServiceFactory.dbLocalPath(), CHECKPOINT_FILE);
+        this.target = targetMode + StrUtil.SPACE + dbExtConfig.getUrl();
+        this.batchSize = Math.max(dbExtConfig.getMigrateBatchSize(), 1);
+        this.loadCheckpoint();
+    }
+
+    /**
+     * 是否为中断后继续迁移
+     *
+     * @return 上次迁移时备份的 sql 文件，为空不是继续迁移
+     */
+    public String resumeBackupSql() {
+        return checkpoint.getString("backupSql");
+    }
+
+    /**
+     * 开始迁移
+     *
+     * @param backupSql   迁移前备份的 sql 文件
+     * @param classes     需要迁移的表
+     * @param parallelism 并行迁移的表数
+     * @param checksum    是否对比校验和
+     * @return 迁移的总条数
+     * @throws Exception 异常
+     */
+    public long migrate(String backupSql, Collection<Class<?>> classes, int parallelism, boolean checksum) throws Exception {
+        if (StrUtil.isEmpty(this.resumeBackupSql())) {
+            checkpoint.put("target", target);
+            checkpoint.put("backupSql", backupSql);
+            checkpoint.put("batchSize", batchSize);
+            this.saveCheckpoint();
+        }
+        List<MigrateTable> tables = new ArrayList<>(classes.size());
+        for (Class<?> aClass : classes) {
+            tables.add(this.createTable(aClass));
+        }
+        // 数据量大的表先开始
+        tables.sort(Comparator.comparingLong((MigrateTable table) -> table.sourceCount).reversed());
+        long total = this.runAll(tables, parallelism, this::migrateTable).stream().mapToLong(value -> value).sum();
+        this.verify(tables, parallelism, checksum);
+        FileUtil.del(checkpointFile);
+        return total;
+    }
+
+    private MigrateTable createTable(Class<?> aClass) throws SQLException {
+        TableName tableName = aClass.getAnnotation(TableName.class);
+        MigrateTable table = new MigrateTable();
+        table.name = tableName.value();
+        table.desc = I18nMessageUtil.get(tableName.nameKey());
+        Map<String, String> props = BeanUtil.getBeanDesc(aClass).getProps()
+            .stream()
+            .map(PropDesc::getFieldName)
+            .collect(Collectors.toMap(String::toLowerCase, s -> s, (s, s2) -> s));
+        try (Connection connection = sourceDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            // 只迁移实体中存在的字段，目标表字段名以实体为准（兼容大小写）
+            try (ResultSet resultSet = statement.executeQuery("select * from " + sourceWrapper.wrap(table.name) + " where 1=0")) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    String label = metaData.getColumnLabel(i);
+                    String field = props.get(label.toLowerCase());
+                    if (field == null) {
+                        continue;
+                    }
+                    // id 放在第一列，用于分段
+                    int index = StrUtil.equalsIgnoreCase(field, ID) ? 0 : table.columns.size();
+                    table.sourceColumns.add(index, label);
+                    table.columns.add(index, field);
+                }
+            }
+            table.sourceCount = count(statement, sourceWrapper, table.name);
+        }
+        Assert.state(StrUtil.equalsIgnoreCase(CollUtil.getFirst(table.columns), ID), I18nMessageUtil.get("i18n.migration_table_missing_id.49d5") + table.name);
+        Set<String> boolFieldSet = Arrays.stream(ReflectUtil.getFields(aClass, field -> Boolean.class.equals(field.getType()) || boolean.class.equals(field.getType())))
+            .map(Field::getName)
+            .collect(Collectors.toSet());
+        table.boolColumns = new boolean[table.columns.size()];
+        for (int i = 0; i < table.columns.size(); i++) {
+            table.boolColumns[i] = boolFieldSet.contains(table.columns.get(i));
+        }
+        return table;
+    }
+
+    private long migrateTable(MigrateTable table) throws Exception {
+        JSONObject item = this.tableCheckpoint(table.name);
+        if (item != null && item.getBooleanValue("done")) {
+            log.info(I18nMessageUtil.get("i18n.migrate_table_already_done.cbbd"), table.desc, table.name);
+            return item.getLongValue("rows");
+        }
+        String lastId = null;
+        long rows = 0;
+        long checksum = 0;
+        // 记录之后可能存在已经提交但未记录的一段
+        boolean cleanNext = item != null;
+        try (Connection source = sourceDataSource.getConnection();
+             Connection target = targetDataSource.getConnection()) {
+            boolean autoCommit = target.getAutoCommit();
+            try {
+                if (item != null && item.getBooleanValue("reset")) {
+                    log.info(I18nMessageUtil.get("i18n.migrate_table_reset.c276"), table.desc, table.name);
+                    try (Statement statement = target.createStatement()) {
+                        statement.executeUpdate("delete from " + targetWrapper.wrap(table.name));
+                    }
+                    cleanNext = false;
+                } else if (item != null) {
+                    lastId = item.getString("lastId");
+                    rows = item.getLongValue("rows");
+                    checksum = item.getLongValue("checksum");
+                }
+                log.info(I18nMessageUtil.get("i18n.start_migrating.20d6"), table.desc, table.name);
+                this.updateCheckpoint(table.name, lastId, rows, checksum, false);
+                target.setAutoCommit(false);
+                String selectSql = this.pageSql(sourceWrapper, table.name, table.sourceColumns, true);
+                String selectFirstSql = this.pageSql(sourceWrapper, table.name, table.sourceColumns, false);
+                String insertSql = this.insertSql(table);
+                String deleteSql = "delete from " + targetWrapper.wrap(table.name) + " where " + targetWrapper.wrap(ID) + " = ?";
+                int logInterval = Math.max((int) (table.sourceCount / batchSize / 10), 1);
+                int chunk = 0;
+                while (true) {
+                    List<Object[]> values = this.read(source, lastId == null ? selectFirstSql : selectSql, lastId, table.columns.size());
+                    if (values.isEmpty()) {
+                        break;
+                    }
+                    if (cleanNext) {
+                        this.executeBatch(target, deleteSql, values.stream().map(objects -> new Object[]{objects[0]}).collect(Collectors.toList()));
+                        cleanNext = false;
+                    }
+                    for (Object[] value : values) {
+                        checksum += checksum(value, table.boolColumns);
+                        this.convert(value, table.boolColumns);
+                    }
+                    this.executeBatch(target, insertSql, values);
+                    target.commit();
+                    rows += values.size();
+                    lastId = (String) values.get(values.size() - 1)[0];
+                    this.updateCheckpoint(table.name, lastId, rows, checksum, false);
+                    if (++chunk % logInterval == 0) {
+                        log.info(I18nMessageUtil.get("i18n.migrate_table_progress.caf5"), table.desc, table.name, rows, table.sourceCount);
+                    }
+                    if (values.size() < batchSize) {
+                        break;
+                    }
+                }
+            } catch (Exception e) {
+                target.rollback();
+                throw e;
+            } finally {
+                target.setAutoCommit(autoCommit);
+            }
+        }
+        this.updateCheckpoint(table.name, lastId, rows, checksum, true);
+        log.info(I18nMessageUtil.get("i18n.migration_success.b20d"), table.desc, rows);
+        return rows;
+    }
+
+    /**
+     * 对比源数据和目标数据的行数、校验和，不一致的表下次迁移时清空后重新迁移
+     */
+    private void verify(List<MigrateTable> tables, int parallelism, boolean checksum) throws Exception {
+        log.info(I18nMessageUtil.get("i18n.migrate_verify_start.7658"), checksum);
+        List<Long> result = this.runAll(tables, parallelism, table -> {
+            JSONObject item = this.tableCheckpoint(table.name);
+            long sourceChecksum = item.getLongValue("checksum");
+            long targetCount;
+            long targetChecksum = 0;
+            if (checksum) {
+                long[] scan = this.scanTarget(table);
+                targetCount = scan[0];
+                targetChecksum = scan[1];
+            } else {
+                try (Connection connection = targetDataSource.getConnection();
+                     Statement statement = connection.createStatement()) {
+                    targetCount = count(statement, targetWrapper, table.name);
+                }
+            }
+            if (targetCount == table.sourceCount && (!checksum || targetChecksum == sourceChecksum)) {
+                return 0L;
+            }
+            log.error(I18nMessageUtil.get("i18n.migrate_verify_table_mismatch.65df"), table.desc, table.name, table.sourceCount, sourceChecksum, targetCount, targetChecksum);
+            JSONObject reset = new JSONObject();
+            reset.put("reset", true);
+            this.putTableCheckpoint(table.name, reset);
+            return 1L;
+        });
+        List<String> failed = new ArrayList<>();
+        for (int i = 0; i < tables.size(); i++) {
+            if (result.get(i) > 0) {
+                failed.add(tables.get(i).name);
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw new JpomRuntimeException(StrUtil.format(I18nMessageUtil.get("i18n.migrate_verify_failed.07d6"), failed));
+        }
+        log.info(I18nMessageUtil.get("i18n.migrate_verify_success.d61a"), tables.size());
+    }
+
+    private long[] scanTarget(MigrateTable table) throws SQLException {
+        String selectSql = this.pageSql(targetWrapper, table.name, table.columns, true);
+        String selectFirstSql = this.pageSql(targetWrapper, table.name, table.columns, false);
+        long count = 0;
+        long checksum = 0;
+        String lastId = null;
+        try (Connection connection = targetDataSource.getConnection()) {
+            while (true) {
+                List<Object[]> values = this.read(connection, lastId == null ? selectFirstSql : selectSql, lastId, table.columns.size());
+                for (Object[] value : values) {
+                    checksum += checksum(value, table.boolColumns);
+                }
+                count += values.size();
+                if (values.size() < batchSize) {
+                    break;
+                }
+                lastId = (String) values.get(values.size() - 1)[0];
+            }
+        }
+        return new long[]{count, checksum};
+    }
+
+    private <T> List<T> runAll(List<MigrateTable> tables, int parallelism, TableTask<T> task) throws Exception {
+        ExecutorService executorService = ExecutorBuilder.create()
+            .setCorePoolSize(Math.max(Math.min(parallelism, tables.size()), 1))
+            .setMaxPoolSize(Math.max(Math.min(parallelism, tables.size()), 1))
+            .setWorkQueue(new LinkedBlockingQueue<>())
+            .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("jpom-db-migrate-").setDaemon(true).build())
+            .build();
+        try {
+            List<Future<T>> futures = new ArrayList<>(tables.size());
+            for (MigrateTable table : tables) {
+                futures.add(executorService.submit(() -> task.run(table)));
+            }
+            List<T> result = new ArrayList<>(tables.size());
+            for (Future<T> future : futures) {
+                try {
+                    result.add(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Exception) {
+                        throw (Exception) cause;
+                    }
+                    throw e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            return result;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * 按主键分段查询
+     *
+     * @param wrapper   数据库字段包装
+     * @param tableName 表名
+     * @param columns   查询的列，第一列为 id
+     * @param next      是否有上一段
+     * @return sql
+     */
+    private String pageSql(Wrapper wrapper, String tableName, List<String> columns, boolean next) {
+        String id = wrapper.wrap(columns.get(0));
+        return "select " + columns.stream().map(wrapper::wrap).collect(Collectors.joining(","))
+            + " from " + wrapper.wrap(tableName)
+            + (next ? " where " + id + " > ?" : StrUtil.EMPTY)
+            + " order by " + id + " limit " + batchSize;
+    }
+
+    private String insertSql(MigrateTable table) {
+        String columns = table.columns.stream().map(targetWrapper::wrap).collect(Collectors.joining(","));
+        String values = table.columns.stream().map(s -> "?").collect(Collectors.joining(","));
+        return "insert into " + targetWrapper.wrap(table.name) + " (" + columns + ") values (" + values + ")";
+    }
+
+    private List<Object[]> read(Connection connection, String sql, String lastId, int columnCount) throws SQLException {
+        List<Object[]> list = new ArrayList<>(batchSize);
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (lastId != null) {
+                statement.setString(1, lastId);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Object[] objects = new Object[columnCount];
+                    for (int i = 0; i < columnCount; i++) {
+                        Object object = resultSet.getObject(i + 1);
+                        // 大字段需要在结果集关闭前读取
+                        if (object instanceof Clob) {
+                            Clob clob = (Clob) object;
+                            object = clob.getSubString(1, (int) clob.length());
+                        } else if (object instanceof Blob) {
+                            Blob blob = (Blob) object;
+                            object = blob.getBytes(1, (int) blob.length());
+                        }
+                        objects[i] = object;
+                    }
+                    list.add(objects);
+                }
+            }
+        }
+        return list;
+    }
+
+    private void executeBatch(Connection connection, String sql, List<Object[]> values) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (Object[] value : values) {
+                for (int i = 0; i < value.length; i++) {
+                    statement.setObject(i + 1, value[i]);
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private void convert(Object[] value, boolean[] boolColumns) {
+        if (targetMode != DbExtConfig.Mode.POSTGRESQL) {
+            return;
+        }
+        for (int i = 0; i < value.length; i++) {
+            // tinyint类型查出来是数字，需转为bool
+            if (boolColumns[i] && value[i] instanceof Number) {
+                value[i] = ((Number) value[i]).intValue() != 0;
+            }
+        }
+    }
+
+    /**
+     * 计算一行数据的校验和，不同数据库返回的类型不同（布尔/数字、整数精度、浮点精度）统一后计算，
+     * 表的校验和为所有行相加，与读取顺序无关
+     *
+     * @param value      行数据
+     * @param boolColumns 布尔类型的列
+     * @return 校验和
+     */
+    private static long checksum(Object[] value, boolean[] boolColumns) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < value.length; i++) {
+            Object object = value[i];
+            if (object == null) {
+                builder.append('\0');
+            } else if (object instanceof Boolean) {
+                builder.append((Boolean) object ? '1' : '0');
+            } else if (boolColumns[i] && object instanceof Number) {
+                builder.append(((Number) object).intValue() != 0 ? '1' : '0');
+            } else if (object instanceof Float || object instanceof Double) {
+                builder.append(((Number) object).floatValue());
+            } else if (object instanceof BigDecimal) {
+                builder.append(((BigDecimal) object).stripTrailingZeros().toPlainString());
+            } else if (object instanceof Number && !(object instanceof BigInteger)) {
+                builder.append(((Number) object).longValue());
+            } else if (object instanceof byte[]) {
+                builder.append(Base64.getEncoder().encodeToString((byte[]) object));
+            } else if (object instanceof java.util.Date) {
+                builder.append(((java.util.Date) object).getTime());
+            } else {
+                builder.append(object);
+            }
+            builder.append('\u0001');
+        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(builder.toString().getBytes(StandardCharsets.UTF_8));
+        return crc32.getValue();
+    }
+
+    private static long count(Statement statement, Wrapper wrapper, String tableName) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery("select count(1) from " + wrapper.wrap(tableName))) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    private void loadCheckpoint() {
+        if (FileUtil.isFile(checkpointFile)) {
+            JSONObject jsonObject = JSON.parseObject(FileUtil.readString(checkpointFile, CharsetUtil.CHARSET_UTF_8));
+            // 目标数据库变化后重新迁移
+            if (jsonObject != null && StrUtil.equals(jsonObject.getString("target"), target)) {
+                this.checkpoint = jsonObject;
+                // 分段大小需要和上次一致
+                this.batchSize = jsonObject.getIntValue("batchSize", batchSize);
+                return;
+            }
+        }
+        this.checkpoint = new JSONObject();
+    }
+
+    private synchronized JSONObject tableCheckpoint(String tableName) {
+        JSONObject tables = checkpoint.getJSONObject("tables");
+        return tables == null ? null : tables.getJSONObject(tableName);
+    }
+
+    private void updateCheckpoint(String tableName, String lastId, long rows, long checksum, boolean done) throws IOException {
+        JSONObject item = new JSONObject();
+        item.put("lastId", lastId);
+        item.put("rows", rows);
+        item.put("checksum", checksum);
+        item.put("done", done);
+        this.putTableCheckpoint(tableName, item);
+    }
+
+    private synchronized void putTableCheckpoint(String tableName, JSONObject item) throws IOException {
+        JSONObject tables = checkpoint.getJSONObject("tables");
+        if (tables == null) {
+            tables = new JSONObject();
+            checkpoint.put("tables", tables);
+        }
+        tables.put(tableName, item);
+        this.saveCheckpoint();
+    }
+
+    private synchronized void saveCheckpoint() throws IOException {
+        File temp = FileUtil.file(checkpointFile.getParentFile(), checkpointFile.getName() + ".tmp");
+        FileUtil.writeString(checkpoint.toJSONString(), temp, CharsetUtil.CHARSET_UTF_8);
+        Files.move(temp.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static class MigrateTable {
+        private String name;
+        private String desc;
+        /**
+         * 源表中的列名
+         */
+        private final List<String> sourceColumns = new ArrayList<>();
+        /**
+         * 实体字段名，第一列为 id
+         */
+        private final List<String> columns = new ArrayList<>();
+        private boolean[] boolColumns;
+        private long sourceCount;
+    }
+
+    @FunctionalInterface
+    private interface TableTask<T> {
+        T run(MigrateTable table) throws Exception;
+    }
+}
@@ -17,24 +17,17 @@ import cn.hutool.core.exceptions.CheckedUtil;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.lang.Singleton;
 import cn.hutool.core.util.*;
-import cn.hutool.db.*;
 import cn.hutool.db.ds.DSFactory;
-import cn.hutool.db.sql.Wrapper;
 import cn.hutool.setting.Setting;
 import lombok.Lombok;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
-import org.dromara.jpom.dialect.DialectUtil;
 import org.dromara.jpom.system.ExtConfigBean;
 import org.dromara.jpom.system.JpomRuntimeException;
 import org.dromara.jpom.util.StringUtil;
 import org.springframework.util.Assert;
 
 import java.io.File;
-import java.lang.reflect.Field;
-import java.sql.Connection;
-import java.sql.SQLException;
-import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -84,22 +77,28 @@ public class StorageServiceFactory {
             DSFactory h2DsFactory = h2StorageService.create(dbExtConfig, h2Url, h2User, h2Pass);
             h2DsFactory.getDataSource();
             log.info(I18nMessageUtil.get("i18n.h2_connection_successful.11f3"));
-            // 设置默认备份 SQL 的文件地址
-            String fileName = LocalDateTimeUtil.format(LocalDateTimeUtil.now(), DatePattern.PURE_DATETIME_PATTERN);
-            File file = FileUtil.file(StorageServiceFactory.dbLocalPath(), DbExtConfig.BACKUP_DIRECTORY_NAME, fileName + DbExtConfig.SQL_FILE_SUFFIX);
-            String backupSqlPath = FileUtil.getAbsolutePath(file);
-            Setting setting = h2StorageService.createSetting(dbExtConfig, h2Url, h2User, h2Pass);
-            // 数据源参数
-            String url = setting.get("url");
-            String user = setting.get("user");
-            String pass = setting.get("pass");
-            h2StorageService.backupSql(url, user, pass, backupSqlPath, null);
-            log.info(I18nMessageUtil.get("i18n.h2_database_backup_success.a099"), backupSqlPath);
-            //
             IStorageService nowStorageService = doCreateStorageService(dbExtConfig.getMode());
             DSFactory nowDsFactory = nowStorageService.create(dbExtConfig, null, null, null);
             nowDsFactory.getDataSource();
             log.info(I18nMessageUtil.get("i18n.connection_successful.0515"), dbExtConfig.getMode(), dbExtConfig.getUrl());
+            StorageMigrator storageMigrator = new StorageMigrator(h2DsFactory.getDataSource(), nowDsFactory.getDataSource(), dbExtConfig, targetNode);
+            String backupSqlPath = storageMigrator.resumeBackupSql();
+            if (StrUtil.isNotEmpty(backupSqlPath)) {
+                // 中断后继续迁移，已经备份过
+                log.info(I18nMessageUtil.get("i18n.migrate_resume_from_checkpoint.c260"), backupSqlPath);
+            } else {
+                // 设置默认备份 SQL 的文件地址
+                String fileName = LocalDateTimeUtil.format(LocalDateTimeUtil.now(), DatePattern.PURE_DATETIME_PATTERN);
+                File file = FileUtil.file(StorageServiceFactory.dbLocalPath(), DbExtConfig.BACKUP_DIRECTORY_NAME, fileName + DbExtConfig.SQL_FILE_SUFFIX);
+                backupSqlPath = FileUtil.getAbsolutePath(file);
+                Setting setting = h2StorageService.createSetting(dbExtConfig, h2Url, h2User, h2Pass);
+                // 数据源参数
+                String url = setting.get("url");
+                String user = setting.get("user");
+                String pass = setting.get("pass");
+                h2StorageService.backupSql(url, user, pass, backupSqlPath, null);
+                log.info(I18nMessageUtil.get("i18n.h2_database_backup_success.a099"), backupSqlPath);
+            }
             Set<Class<?>> classes = ClassUtil.scanPackageByAnnotation("org.dromara.jpom", TableName.class);
             classes = classes.stream()
                 .filter(aClass -> {
@@ -113,10 +112,7 @@ public class StorageServiceFactory {
                 .sorted((o1, o2) -> StrUtil.compare(o1.getSimpleName(), o2.getSimpleName(), false))
                 .collect(Collectors.toCollection(LinkedHashSet::new));
             log.info(I18nMessageUtil.get("i18n.prepare_to_migrate_data.f251"));
-            int total = 0;
-            for (Class<?> aClass : classes) {
-                total += migrateH2ToNowItem(aClass, h2DsFactory, nowDsFactory, targetNode);
-            }
+            long total = storageMigrator.migrate(backupSqlPath, classes, dbExtConfig.getMigrateParallelism(), dbExtConfig.isMigrateVerifyChecksum());
             long endTime = SystemClock.now();
             log.info(I18nMessageUtil.get("i18n.migration_completed.7a30"), total, StringUtil.formatBetween(endTime - time, BetweenFormatter.Level.MILLISECOND));
             h2DsFactory.destroy();
@@ -129,77 +125,6 @@ public class StorageServiceFactory {
         }
     }
 
-    private static int migrateH2ToNowItem(Class<?> aClass, DSFactory h2DsFactory, DSFactory targetDsFactory, DbExtConfig.Mode targetNode) throws SQLException {
-        TableName tableName = aClass.getAnnotation(TableName.class);
-        Wrapper targetModeWrapper = DialectUtil.getDialectByMode(targetNode).getWrapper();
-        Set<String> boolFieldSet = Arrays.stream(ReflectUtil.getFields(aClass, field -> Boolean.class.equals(field.getType()) || boolean.class.equals(field.getType())))
-            .map(Field::getName)
-            .collect(Collectors.toSet());
-
-        String tableDesc = I18nMessageUtil.get(tableName.nameKey());
-        log.info(I18nMessageUtil.get("i18n.start_migrating.20d6"), tableDesc, tableName.value());
-        int total = 0;
-        while (true) {
-            Entity where = Entity.create(tableName.value());
-            PageResult<Entity> pageResult;
-            Db db = Db.use(h2DsFactory.getDataSource(), DialectUtil.getH2Dialect());
-            Page page = new Page(1, 200);
-            pageResult = db.page(where, page);
-            if (pageResult.isEmpty()) {
-                break;
-            }
-            // 过滤需要忽略迁移的数据
-            List<Entity> newResult = pageResult.stream()
-                .map(entity -> entity.toBeanIgnoreCase(aClass))
-                .map(o -> {
-                    // 兼容大小写
-                    Entity entity = Entity.create(targetModeWrapper.wrap(tableName.value()));
-                    return entity.parseBean(o, false, true);
-                }).peek(entity -> {
-                    if (DbExtConfig.Mode.POSTGRESQL.equals(targetNode)) {
-                        // tinyint类型查出来是数字，需转为bool
-                        boolFieldSet.forEach(fieldName -> {
-                            Object field = entity.get(fieldName);
-                            if (field instanceof Number) {
-                                entity.set(fieldName, BooleanUtil.toBoolean(field.toString()));
-                            }
-                        });
-                    }
-                }).collect(Collectors.toList());
-            if (newResult.isEmpty()) {
-                if (pageResult.isLast()) {
-                    // 最后一页
-                    break;
-                }
-                // 继续
-                continue;
-            }
-            total += newResult.size();
-            // 插入信息数据
-            Db db2 = Db.use(targetDsFactory.getDataSource(), DialectUtil.getDialectByMode(targetNode));
-
-            Connection connection = db2.getConnection();
-            try {
-                SqlConnRunner runner = db2.getRunner();
-                for (Entity entity : newResult) {
-                    // hutool的批量insert方法有坑，可能导致部分参数被丢弃
-                    runner.insert(connection, entity);
-                }
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            } finally {
-                db2.closeConnection(connection);
-            }
-
-            // 删除数据
-            Entity deleteWhere = Entity.create(tableName.value());
-            deleteWhere.set("id", newResult.stream().map(entity -> entity.getStr("id")).collect(Collectors.toList()));
-            db.del(deleteWhere);
-        }
-        log.info(I18nMessageUtil.get("i18n.migration_success.b20d"), tableDesc, total);
-        return total;
-    }
-
     /**
      * 加载 本地已经执行的记录
      *
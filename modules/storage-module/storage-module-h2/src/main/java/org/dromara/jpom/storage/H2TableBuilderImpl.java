@@ -16,6 +16,7 @@ import org.dromara.jpom.common.i18n.I18nMessageUtil;
 import org.dromara.jpom.db.*;
 import org.springframework.util.Assert;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -127,6 +128,25 @@ public class H2TableBuilderImpl implements IStorageSqlBuilderService {
         return stringBuilder.toString();
     }
 
+    @Override
+    public String generateUpsertSql(String tableName, String primaryKey, List<String> columns, Collection<String> updateColumns) {
+        // MERGE INTO t USING (VALUES (?, ?)) s(a, b) ON t.id = s.id WHEN MATCHED THEN UPDATE SET ... WHEN NOT MATCHED THEN INSERT ...
+        String columnStr = CollUtil.join(columns, StrUtil.COMMA);
+        String params = columns.stream().map(s -> "?").collect(Collectors.joining(StrUtil.COMMA));
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("MERGE INTO ").append(tableName).append(" t USING (VALUES (").append(params).append(")) s(").append(columnStr).append(")");
+        stringBuilder.append(" ON t.").append(primaryKey).append(" = s.").append(primaryKey);
+        if (CollUtil.isNotEmpty(updateColumns)) {
+            String updateStr = updateColumns.stream()
+                .map(s -> StrUtil.format("t.{} = COALESCE(s.{}, t.{})", s, s, s))
+                .collect(Collectors.joining(StrUtil.COMMA));
+            stringBuilder.append(" WHEN MATCHED THEN UPDATE SET ").append(updateStr);
+        }
+        String valueStr = columns.stream().map(s -> "s." + s).collect(Collectors.joining(StrUtil.COMMA));
+        stringBuilder.append(" WHEN NOT MATCHED THEN INSERT (").append(columnStr).append(") VALUES (").append(valueStr).append(")");
+        return stringBuilder.toString();
+    }
+
     @Override
     public String generateColumnSql(TableViewRowData tableViewRowData) {
         //        id VARCHAR(50) not null default '' comment 'id'
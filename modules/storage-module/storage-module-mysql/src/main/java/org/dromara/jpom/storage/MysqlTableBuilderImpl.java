@@ -16,6 +16,7 @@ import org.dromara.jpom.common.i18n.I18nMessageUtil;
 import org.dromara.jpom.db.*;
 import org.springframework.util.Assert;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -136,6 +137,19 @@ public class MysqlTableBuilderImpl implements IStorageSqlBuilderService {
         return stringBuilder.toString();
     }
 
+    @Override
+    public String generateUpsertSql(String tableName, String primaryKey, List<String> columns, Collection<String> updateColumns) {
+        // INSERT INTO t (a, b) VALUES (?, ?) ON DUPLICATE KEY UPDATE b = COALESCE(VALUES(b), b)
+        String params = columns.stream().map(s -> "?").collect(Collectors.joining(StrUtil.COMMA));
+        String updateStr = CollUtil.isEmpty(updateColumns) ?
+            StrUtil.format("{} = {}", primaryKey, primaryKey) :
+            updateColumns.stream()
+                .map(s -> StrUtil.format("{} = COALESCE(VALUES({}), {})", s, s, s))
+                .collect(Collectors.joining(StrUtil.COMMA));
+        return StrUtil.format("INSERT INTO {} ({}) VALUES ({}) ON DUPLICATE KEY UPDATE {}",
+            tableName, CollUtil.join(columns, StrUtil.COMMA), params, updateStr);
+    }
+
     @Override
     public String generateColumnSql(TableViewRowData tableViewRowData) {
         return generateColumnSql(tableViewRowData, false);
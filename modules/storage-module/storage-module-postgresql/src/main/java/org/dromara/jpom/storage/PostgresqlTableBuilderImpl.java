@@ -192,6 +192,19 @@ public class PostgresqlTableBuilderImpl implements IStorageSqlBuilderService {
         return stringBuilder.toString();
     }
 
+    @Override
+    public String generateUpsertSql(String tableName, String primaryKey, List<String> columns, Collection<String> updateColumns) {
+        // INSERT INTO table AS t (a, b) VALUES (?, ?) ON CONFLICT (a) DO UPDATE SET b = COALESCE(EXCLUDED.b, t.b)
+        String params = columns.stream().map(s -> "?").collect(Collectors.joining(StrUtil.COMMA));
+        String conflict = CollUtil.isEmpty(updateColumns) ?
+            "DO NOTHING" :
+            "DO UPDATE SET " + updateColumns.stream()
+                .map(s -> StrUtil.format("{} = COALESCE(EXCLUDED.{}, t.{})", s, s, s))
+                .collect(Collectors.joining(StrUtil.COMMA));
+        return StrUtil.format("INSERT INTO {} AS t ({}) VALUES ({}) ON CONFLICT ({}) {}",
+            tableName, CollUtil.join(columns, StrUtil.COMMA), params, primaryKey, conflict);
+    }
+
     @Override
     public String generateColumnSql(TableViewRowData tableViewRowData) {
         return StrUtil.EMPTY;
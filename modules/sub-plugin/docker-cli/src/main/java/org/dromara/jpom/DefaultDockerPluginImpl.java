@@ -733,6 +733,40 @@ public class DefaultDockerPluginImpl implements IDockerConfigPlugin {
         }
     }
 
+    /**
+     * 查询镜像 id
+     *
+     * @param parameter 参数
+     * @return 镜像不存在返回 null
+     */
+    private String imageIdCmd(Map<String, Object> parameter) {
+        DockerClient dockerClient = DockerUtil.get(parameter);
+        String imageId = (String) parameter.get("imageId");
+        try {
+            return dockerClient.inspectImageCmd(imageId).exec().getId();
+        } catch (com.github.dockerjava.api.exception.NotFoundException e) {
+            log.debug("{}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 导出镜像（多个标签导出到同一个 tar 包，导入后标签保持一致）
+     *
+     * @param parameter 参数
+     * @return 镜像流
+     */
+    private InputStream saveImagesCmd(Map<String, Object> parameter) {
+        DockerClient dockerClient = DockerUtil.get(parameter);
+        String tags = (String) parameter.get("tags");
+        SaveImagesCmd saveImagesCmd = dockerClient.saveImagesCmd();
+        for (String item : StrUtil.splitTrim(tags, StrUtil.COMMA)) {
+            NameParser.ReposTag reposTag = NameParser.parseRepositoryTag(item);
+            saveImagesCmd.withImage(reposTag.repos, StrUtil.emptyToDefault(reposTag.tag, "latest"));
+        }
+        return saveImagesCmd.exec();
+    }
+
     /**
      * 导入镜像
      *
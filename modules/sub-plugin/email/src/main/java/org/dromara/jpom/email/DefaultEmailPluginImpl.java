@@ -9,6 +9,7 @@
  */
 package org.dromara.jpom.email;
 
+import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.extra.mail.MailAccount;
@@ -20,8 +21,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.dromara.jpom.common.i18n.I18nMessageUtil;
 import org.dromara.jpom.plugin.IDefaultPlugin;
 
+import javax.mail.MessagingException;
 import javax.mail.Session;
 import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -34,8 +41,13 @@ import java.util.Map;
 public class DefaultEmailPluginImpl implements IDefaultPlugin {
 
     @Override
+    @SuppressWarnings("unchecked")
     public Object execute(Object main, Map<String, Object> parameter) throws Exception {
-        if (main instanceof JSONObject) {
+        if (main instanceof JSONObject && parameter.get("messages") instanceof List) {
+            // 批量发送，复用 smtp 连接
+            MailAccount mailAccount = getAccount(main);
+            return this.sendBatch(mailAccount, (List<Map<String, Object>>) parameter.get("messages"));
+        } else if (main instanceof JSONObject) {
             MailAccount mailAccount = getAccount(main);
             //
             String toEmail = (String) parameter.get("toEmail");
@@ -68,6 +80,44 @@ public class DefaultEmailPluginImpl implements IDefaultPlugin {
         throw new IllegalArgumentException(I18nMessageUtil.get("i18n.unsupported_type_with_colon2.7de2") + main);
     }
 
+    /**
+     * 使用同一个连接发送多封邮件
+     *
+     * @param mailAccount 邮件账号
+     * @param messages    邮件（toEmail、title、context）
+     * @return 每封邮件的发送结果，发送成功为 null，失败为错误信息
+     * @throws MessagingException 连接邮件服务器失败
+     */
+    private List<String> sendBatch(MailAccount mailAccount, List<Map<String, Object>> messages) throws MessagingException {
+        mailAccount.defaultIfEmpty();
+        Session session = MailUtil.getSession(mailAccount, false);
+        Charset charset = mailAccount.getCharset();
+        List<String> result = new ArrayList<>(messages.size());
+        try (Transport transport = session.getTransport("smtp")) {
+            transport.connect();
+            for (Map<String, Object> message : messages) {
+                try {
+                    if (!transport.isConnected()) {
+                        transport.connect();
+                    }
+                    MimeMessage mimeMessage = new MimeMessage(session);
+                    mimeMessage.setFrom(InternetAddress.parse(mailAccount.getFrom())[0]);
+                    List<String> list = StrUtil.split((String) message.get("toEmail"), StrUtil.COMMA, true, true);
+                    mimeMessage.setRecipients(MimeMessage.RecipientType.TO, InternetAddress.parse(CollUtil.join(list, StrUtil.COMMA)));
+                    mimeMessage.setSubject((String) message.get("title"), charset.name());
+                    mimeMessage.setText((String) message.get("context"), charset.name());
+                    mimeMessage.setSentDate(new Date());
+                    transport.sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+                    result.add(null);
+                } catch (Exception e) {
+                    log.warn(I18nMessageUtil.get("i18n.send_alert_error.cd38"), e);
+                    result.add(StrUtil.emptyToDefault(e.getMessage(), e.getClass().getName()));
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * 创建邮件对象
      *
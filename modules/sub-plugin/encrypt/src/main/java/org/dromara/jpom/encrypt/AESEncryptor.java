@@ -21,13 +21,16 @@ import cn.hutool.crypto.symmetric.AES;
  */
 public class AESEncryptor implements Encryptor {
 
-    private final byte[] keyByte;
+    /**
+     * hutool 的对称加密内部已经加锁，可以复用
+     */
+    private final AES aes;
 
     private static volatile AESEncryptor singleton;
 
     private AESEncryptor(String key) {
         //构造器私有化，防止new，导致多个实例
-        this.keyByte = key.getBytes();
+        this.aes = SecureUtil.aes(key.getBytes());
     }
 
     public static Encryptor getInstance() {
@@ -57,7 +60,6 @@ public class AESEncryptor implements Encryptor {
         if (input == null) {
             return null;
         }
-        AES aes = SecureUtil.aes(keyByte);
         return aes.encryptHex(input);
     }
 
@@ -66,7 +68,6 @@ public class AESEncryptor implements Encryptor {
         if (input == null) {
             return null;
         }
-        AES aes = SecureUtil.aes(keyByte);
         return aes.decryptStr(input);
     }
 
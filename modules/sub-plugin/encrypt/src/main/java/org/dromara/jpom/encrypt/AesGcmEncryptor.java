@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2019 Of Him Code Technology Studio
+ * Jpom is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ * 			http://license.coscl.org.cn/MulanPSL2
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT, MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ * See the Mulan PSL v2 for more details.
+ */
+package org.dromara.jpom.encrypt;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.map.FixedLinkedHashMap;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+
+import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * aes-gcm
+ * <p>
+ * 每个节点使用独立的密钥（由节点账号密码派生，不在网络中传输），密文格式为：12 字节随机 iv + 密文 + 16 字节认证标签。
+ * 表单整体加密为一个字段，文件流式加密
+ *
+ * @author bwcx_jzy
+ * @since 2026/10/19
+ */
+public class AesGcmEncryptor implements Encryptor {
+
+    /**
+     * 表单整体加密后的字段名
+     */
+    public static final String FORM_DATA_KEY = "transport-data";
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 16;
+
+    /**
+     * Cipher 创建成本较高并且非线程安全，每个线程复用一个
+     */
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(AesGcmEncryptor::newCipher);
+
+    /**
+     * 缓存数量上限，节点密码修改后旧的实例不会再被使用
+     */
+    private static final int CACHE_SIZE = 256;
+
+    /**
+     * 使用派生密钥的摘要作为缓存 key，避免在内存中长期持有明文的节点账号密码
+     */
+    private static final Map<String, AesGcmEncryptor> CACHE = Collections.synchronizedMap(new FixedLinkedHashMap<>(CACHE_SIZE));
+
+    private final SecretKeySpec keySpec;
+
+    private AesGcmEncryptor(byte[] keyByte) {
+        this.keySpec = new SecretKeySpec(keyByte, "AES");
+    }
+
+    /**
+     * 获取节点的加密实现
+     *
+     * @param key 节点密钥
+     * @return Encryptor
+     */
+    public static AesGcmEncryptor getInstance(String key) {
+        byte[] keyByte = DigestUtil.sha256(StrUtil.format("jpom-transport:{}", key));
+        String cacheKey = DigestUtil.sha256Hex(keyByte);
+        return CACHE.computeIfAbsent(cacheKey, s -> new AesGcmEncryptor(keyByte));
+    }
+
+    @Override
+    public String name() {
+        return "aes-gcm";
+    }
+
+    @Override
+    public String encrypt(String input) throws Exception {
+        if (input == null) {
+            return null;
+        }
+        return Base64.encode(this.encrypt(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public String decrypt(String input) throws Exception {
+        if (input == null) {
+            return null;
+        }
+        return new String(this.decrypt(Base64.decode(input)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 加密
+     *
+     * @param input 明文
+     * @return iv + 密文
+     * @throws GeneralSecurityException 加密异常
+     */
+    public byte[] encrypt(byte[] input) throws GeneralSecurityException {
+        byte[] iv = RandomUtil.randomBytes(IV_LENGTH);
+        Cipher cipher = CIPHER.get();
+        cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+        byte[] output = new byte[IV_LENGTH + cipher.getOutputSize(input.length)];
+        System.arraycopy(iv, 0, output, 0, IV_LENGTH);
+        cipher.doFinal(input, 0, input.length, output, IV_LENGTH);
+        return output;
+    }
+
+    /**
+     * 解密
+     *
+     * @param input iv + 密文
+     * @return 明文
+     * @throws GeneralSecurityException 解密或者认证失败
+     */
+    public byte[] decrypt(byte[] input) throws GeneralSecurityException {
+        if (input.length < IV_LENGTH + TAG_LENGTH) {
+            throw new GeneralSecurityException("Ciphertext too short");
+        }
+        Cipher cipher = CIPHER.get();
+        cipher.init(Cipher.DECRYPT_MODE, keySpec, new GCMParameterSpec(TAG_LENGTH * 8, input, 0, IV_LENGTH));
+        return cipher.doFinal(input, IV_LENGTH, input.length - IV_LENGTH);
+    }
+
+    /**
+     * 流式加密，流的生命周期不确定，不使用线程复用的 Cipher
+     *
+     * @param inputStream 明文流
+     * @return iv + 密文流
+     * @throws GeneralSecurityException 加密异常
+     */
+    public InputStream encrypt(InputStream inputStream) throws GeneralSecurityException {
+        byte[] iv = RandomUtil.randomBytes(IV_LENGTH);
+        Cipher cipher = newCipher();
+        cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+        return new SequenceInputStream(new ByteArrayInputStream(iv), new CipherInputStream(inputStream, cipher));
+    }
+
+    /**
+     * 流式解密
+     * <p>
+     * 注意：jdk 的 GCM 实现在校验认证标签前会缓存全部密文，只适合分片大小的数据
+     *
+     * @param inputStream iv + 密文流
+     * @return 明文流
+     * @throws IOException              读取异常
+     * @throws GeneralSecurityException 解密异常
+     */
+    public InputStream decrypt(InputStream inputStream) throws IOException, GeneralSecurityException {
+        byte[] iv = new byte[IV_LENGTH];
+        int offset = 0;
+        while (offset < IV_LENGTH) {
+            int read = inputStream.read(iv, offset, IV_LENGTH - offset);
+            if (read == -1) {
+                throw new GeneralSecurityException("Ciphertext too short");
+            }
+            offset += read;
+        }
+        Cipher cipher = newCipher();
+        cipher.init(Cipher.DECRYPT_MODE, keySpec, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+        return new CipherInputStream(inputStream, cipher);
+    }
+
+    /**
+     * 计算明文长度
+     *
+     * @param cipherLength 密文长度
+     * @return 明文长度
+     */
+    public static long plainLength(long cipherLength) {
+        return Math.max(cipherLength - IV_LENGTH - TAG_LENGTH, 0);
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
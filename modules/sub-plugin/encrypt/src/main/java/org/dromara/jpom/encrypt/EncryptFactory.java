@@ -18,6 +18,18 @@ import java.security.NoSuchAlgorithmException;
 public class EncryptFactory {
 
     public static Encryptor createEncryptor(Integer type) throws NoSuchAlgorithmException {
+        return createEncryptor(type, null);
+    }
+
+    /**
+     * 获取加密实现
+     *
+     * @param type 加密方式 0 不加密 1 BASE64 2 AES 3 AES-GCM
+     * @param key  节点密钥，AES-GCM 必填
+     * @return Encryptor
+     * @throws NoSuchAlgorithmException 不支持的加密方式
+     */
+    public static Encryptor createEncryptor(Integer type, String key) throws NoSuchAlgorithmException {
         switch (type) {
             case 0:
                 return NotEncryptor.getInstance();
@@ -25,6 +37,11 @@ public class EncryptFactory {
                 return BASE64Encryptor.getInstance();
             case 2:
                 return AESEncryptor.getInstance();
+            case 3:
+                if (key == null || key.isEmpty()) {
+                    throw new NoSuchAlgorithmException("Missing transport key");
+                }
+                return AesGcmEncryptor.getInstance(key);
             default:
                 throw new NoSuchAlgorithmException("Unsupported encrypt type");
         }
@@ -9,6 +9,7 @@
  */
 package org.dromara.jpom.webhook;
 
+import cn.hutool.core.convert.Convert;
 import cn.hutool.core.text.CharPool;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.http.HttpRequest;
@@ -50,8 +51,17 @@ public class DefaultWebhookPluginImpl implements IDefaultPlugin {
         DISTRIBUTE,
     }
 
+    /**
+     * 请求超时时间（秒）
+     */
+    public static final String TIMEOUT = "JPOM_WEBHOOK_TIMEOUT";
+    /**
+     * 请求失败（异常或者响应状态码不是 2xx）时抛出异常，由调用方重试
+     */
+    public static final String THROW_ERROR = "JPOM_WEBHOOK_THROW_ERROR";
+
     @Override
-    public Object execute(Object main, Map<String, Object> parameter) {
+    public Object execute(Object main, Map<String, Object> parameter) throws Exception {
         String webhook = StrUtil.toStringOrNull(main);
         if (StrUtil.isEmpty(webhook)) {
             return null;
@@ -61,15 +71,26 @@ public class DefaultWebhookPluginImpl implements IDefaultPlugin {
             WebhookEvent webhookEvent = (WebhookEvent) jpomWebhookEvent;
             log.debug("webhook event: [{}]{}", webhookEvent, webhook);
         }
+        int timeout = Convert.toInt(parameter.remove(TIMEOUT), 0);
+        boolean throwError = Convert.toBool(parameter.remove(THROW_ERROR), false);
         try {
             HttpRequest httpRequest = HttpUtil.createGet(webhook, true);
+            if (timeout > 0) {
+                httpRequest.timeout(timeout * 1000);
+            }
             httpRequest.form(parameter);
             try (HttpResponse execute = httpRequest.execute()) {
                 String body = execute.body();
                 log.info(webhook + CharPool.COLON + body);
+                if (throwError && !execute.isOk()) {
+                    throw new IllegalStateException(StrUtil.format(I18nMessageUtil.get("i18n.webhook_response_status.db62"), execute.getStatus(), body));
+                }
                 return body;
             }
         } catch (Exception e) {
+            if (throwError) {
+                throw e;
+            }
             log.error(I18nMessageUtil.get("i18n.webhooks_invocation_error.9792"), e);
             return "WebHooks error:" + e.getMessage();
         }